@@ -23,6 +23,8 @@ import androidx.exifinterface.media.ExifInterface
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -159,6 +161,46 @@ class ImageFileUtilsTest {
         runScaleTest(2000, 800, 4000, 2000, 4000, 1600, true)
     }
 
+    @Test
+    fun getBitmap_doesNotChangePassedOptions() {
+        val bitmap = Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888)
+        ImageFileUtils.saveBitmapToFile(bitmap, sourceFile.absolutePath)
+
+        val options = BitmapFactory.Options()
+        options.inPreferredConfig = Bitmap.Config.RGB_565
+        val image = ImageFileUtils.getBitmap(sourceFile.absolutePath, options)!!
+
+        assertEquals(Bitmap.Config.RGB_565, image.config)
+        assertEquals(0, options.inSampleSize)
+    }
+
+    @Test
+    fun getBitmapScaledToDisplay_returnsCachedBitmapWhenFileHasNotChanged() {
+        val bitmap = Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888)
+        ImageFileUtils.saveBitmapToFile(bitmap, sourceFile.absolutePath)
+
+        val first = ImageFileUtils.getBitmapScaledToDisplay(sourceFile, 100, 50)
+        val second = ImageFileUtils.getBitmapScaledToDisplay(sourceFile, 100, 50)
+        assertSame(first, second)
+    }
+
+    @Test
+    fun getBitmapScaledToDisplay_decodesAgainWhenFileHasChanged() {
+        ImageFileUtils.saveBitmapToFile(
+            Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888),
+            sourceFile.absolutePath
+        )
+        val first = ImageFileUtils.getBitmapScaledToDisplay(sourceFile, 1000, 1000)
+
+        ImageFileUtils.saveBitmapToFile(
+            Bitmap.createBitmap(50, 60, Bitmap.Config.ARGB_8888),
+            sourceFile.absolutePath
+        )
+        val second = ImageFileUtils.getBitmapScaledToDisplay(sourceFile, 1000, 1000)
+        assertNotSame(first, second)
+        assertEquals(50, second!!.width)
+    }
+
     private fun runScaleTest(
         imageHeight: Int,
         imageWidth: Int,
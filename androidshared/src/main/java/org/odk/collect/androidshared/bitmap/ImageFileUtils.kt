@@ -12,11 +12,15 @@ import java.io.IOException
 import java.lang.Exception
 import java.util.Locale
 import kotlin.math.ceil
+import kotlin.math.floor
 
 object ImageFileUtils {
     // 80% JPEG quality gives a greater file size reduction with almost no loss in quality
     private const val IMAGE_COMPRESS_QUALITY = 80
 
+    // ARGB_8888 (the default config used when decoding)
+    private const val BYTES_PER_PIXEL = 4
+
     private val EXIF_ORIENTATION_ROTATIONS = arrayOf(
         ExifInterface.ORIENTATION_ROTATE_90,
         ExifInterface.ORIENTATION_ROTATE_180,
@@ -40,25 +44,28 @@ object ImageFileUtils {
         }
     }
 
-    /*
-    This method is used to avoid OutOfMemoryError exception during loading an image.
-    If the exception occurs we catch it and try to load a smaller image.
+    // Decoded bitmaps are limited to this fraction of the heap so that decoding doesn't run out of memory
+    private const val MAX_DECODED_BITMAP_HEAP_FRACTION = 4
+
+    private val scaledBitmapCache = ScaledBitmapCache()
+
+    /**
+     * Decodes the image at [path]. If the caller hasn't requested a sample size, one is calculated
+     * from the image's bounds so that the decoded bitmap is guaranteed to fit in memory (using a
+     * copy of [originalOptions] so the caller's options aren't changed).
      */
     @JvmStatic
     fun getBitmap(path: String?, originalOptions: BitmapFactory.Options): Bitmap? {
-        val newOptions = BitmapFactory.Options()
-        newOptions.inSampleSize = originalOptions.inSampleSize
-        if (newOptions.inSampleSize <= 0) {
-            newOptions.inSampleSize = 1
-        }
-        val bitmap: Bitmap? = try {
-            BitmapFactory.decodeFile(path, originalOptions)
-        } catch (e: OutOfMemoryError) {
-            Timber.i(e)
-            newOptions.inSampleSize++
-            return getBitmap(path, newOptions)
+        val options = if (!originalOptions.inJustDecodeBounds && originalOptions.inSampleSize <= 1) {
+            val bounds = getBounds(path)
+            copyOptions(originalOptions).also {
+                it.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight)
+            }
+        } else {
+            originalOptions
         }
-        return bitmap
+
+        return decodeFile(path, options)
     }
 
     @JvmStatic
@@ -67,7 +74,10 @@ object ImageFileUtils {
     }
 
     /**
-     * Scales image according to the given display
+     * Scales image according to the given display. Scaled bitmaps are cached in memory (keyed by
+     * the file's path, last modified time and size as well as the display size) so that
+     * recreating a view doesn't decode the same image again. Callers must not modify the returned
+     * bitmap.
      *
      * @param file           containing the image
      * @param screenHeight   height of the display
@@ -83,23 +93,37 @@ object ImageFileUtils {
         screenWidth: Int,
         upscaleEnabled: Boolean
     ): Bitmap? {
+        val cacheKey = ScaledBitmapCache.Key(
+            file.absolutePath,
+            file.lastModified(),
+            file.length(),
+            screenHeight,
+            screenWidth,
+            upscaleEnabled
+        )
+
+        val cachedBitmap = scaledBitmapCache.get(cacheKey)
+        if (cachedBitmap != null) {
+            return cachedBitmap
+        }
+
         // Determine image size of file
-        var options = BitmapFactory.Options()
-        options.inJustDecodeBounds = true
-        getBitmap(file.absolutePath, options)
+        val bounds = getBounds(file.absolutePath)
         var bitmap: Bitmap?
         val scale: Double
         if (upscaleEnabled) {
-            // Load full size bitmap image
-            options = BitmapFactory.Options()
-            options.inInputShareable = true
-            options.inPurgeable = true
-            bitmap = getBitmap(file.absolutePath, options)
-            val heightScale = options.outHeight.toDouble() / screenHeight
-            val widthScale = options.outWidth.toDouble() / screenWidth
+            val heightScale = bounds.outHeight.toDouble() / screenHeight
+            val widthScale = bounds.outWidth.toDouble() / screenWidth
             scale = widthScale.coerceAtLeast(heightScale)
-            val newHeight = ceil(options.outHeight / scale)
-            val newWidth = ceil(options.outWidth / scale)
+            val newHeight = ceil(bounds.outHeight / scale)
+            val newWidth = ceil(bounds.outWidth / scale)
+
+            // Only decode as many pixels as are needed for the scaled bitmap
+            val options = BitmapFactory.Options()
+            options.inSampleSize = floor(scale).toInt().coerceAtLeast(
+                calculateInSampleSize(bounds.outWidth, bounds.outHeight)
+            )
+            bitmap = decodeFile(file.absolutePath, options)
             if (bitmap != null) {
                 bitmap = Bitmap.createScaledBitmap(
                     bitmap,
@@ -109,19 +133,19 @@ object ImageFileUtils {
                 )
             }
         } else {
-            val heightScale = options.outHeight / screenHeight
-            val widthScale = options.outWidth / screenWidth
+            val heightScale = bounds.outHeight / screenHeight
+            val widthScale = bounds.outWidth / screenWidth
 
             // Powers of 2 work faster, sometimes, according to the doc.
             // We're just doing closest size that still fills the screen.
             scale = widthScale.coerceAtLeast(heightScale).toDouble()
 
             // get bitmap with scale ( < 1 is the same as 1)
-            options = BitmapFactory.Options()
-            options.inInputShareable = true
-            options.inPurgeable = true
-            options.inSampleSize = scale.toInt()
-            bitmap = getBitmap(file.absolutePath, options)
+            val options = BitmapFactory.Options()
+            options.inSampleSize = scale.toInt().coerceAtLeast(
+                calculateInSampleSize(bounds.outWidth, bounds.outHeight)
+            )
+            bitmap = decodeFile(file.absolutePath, options)
         }
         if (bitmap != null) {
             Timber.i(
@@ -132,10 +156,63 @@ object ImageFileUtils {
                 bitmap.height,
                 bitmap.width
             )
+
+            scaledBitmapCache.put(cacheKey, bitmap)
         }
         return bitmap
     }
 
+    private fun copyOptions(options: BitmapFactory.Options): BitmapFactory.Options {
+        return BitmapFactory.Options().also {
+            it.inBitmap = options.inBitmap
+            it.inMutable = options.inMutable
+            it.inPreferredConfig = options.inPreferredConfig
+            it.inPremultiplied = options.inPremultiplied
+            it.inDensity = options.inDensity
+            it.inTargetDensity = options.inTargetDensity
+            it.inScreenDensity = options.inScreenDensity
+            it.inScaled = options.inScaled
+            it.inTempStorage = options.inTempStorage
+        }
+    }
+
+    /**
+     * Decodes using the sample size already in [options] so the image's bounds aren't read again.
+     */
+    private fun decodeFile(path: String?, options: BitmapFactory.Options): Bitmap? {
+        return try {
+            BitmapFactory.decodeFile(path, options)
+        } catch (e: OutOfMemoryError) {
+            Timber.i(e)
+            null
+        }
+    }
+
+    private fun getBounds(path: String?): BitmapFactory.Options {
+        val options = BitmapFactory.Options()
+        options.inJustDecodeBounds = true
+        BitmapFactory.decodeFile(path, options)
+        return options
+    }
+
+    /**
+     * Returns the smallest sample size that will allow an image of the given dimensions to be
+     * decoded without using more than the allowed fraction of the heap.
+     */
+    private fun calculateInSampleSize(width: Int, height: Int): Int {
+        if (width <= 0 || height <= 0) {
+            return 1
+        }
+
+        val maxBytes = Runtime.getRuntime().maxMemory() / MAX_DECODED_BITMAP_HEAP_FRACTION
+        var inSampleSize = 1
+        while ((width.toLong() / inSampleSize) * (height.toLong() / inSampleSize) * BYTES_PER_PIXEL > maxBytes) {
+            inSampleSize *= 2
+        }
+
+        return inSampleSize
+    }
+
     /**
      * While copying the file, apply the exif rotation of sourceFile to destinationFile
      * so that sourceFile with EXIF has same orientation as destinationFile without EXIF
@@ -0,0 +1,36 @@
+package org.odk.collect.androidshared.bitmap
+
+import android.graphics.Bitmap
+import android.util.LruCache
+
+/**
+ * In memory LRU cache of scaled bitmaps that is bounded by the number of bytes the bitmaps use
+ * rather than the number of entries.
+ */
+internal class ScaledBitmapCache(
+    maxSizeInKilobytes: Int = (Runtime.getRuntime().maxMemory() / 1024 / 8).toInt()
+) {
+
+    private val cache = object : LruCache<Key, Bitmap>(maxSizeInKilobytes) {
+        override fun sizeOf(key: Key, value: Bitmap): Int {
+            return value.byteCount / 1024
+        }
+    }
+
+    fun get(key: Key): Bitmap? {
+        return cache.get(key)
+    }
+
+    fun put(key: Key, bitmap: Bitmap) {
+        cache.put(key, bitmap)
+    }
+
+    data class Key(
+        val path: String,
+        val lastModified: Long,
+        val size: Long,
+        val screenHeight: Int,
+        val screenWidth: Int,
+        val upscaleEnabled: Boolean
+    )
+}
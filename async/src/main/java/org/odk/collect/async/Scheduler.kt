@@ -39,6 +39,18 @@ interface Scheduler {
      */
     fun networkDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>, networkConstraint: NetworkType? = null)
 
+    /**
+     * Schedule a task to run in the background even if the app isn't running. The task will only
+     * be run while the device is charging so that it can do expensive work that isn't urgent
+     * without draining the battery.
+     *
+     * @param tag used to identify this task in future. If there is a previously scheduled task
+     * with the same tag then this task will be run after it
+     * @param spec defines the task to be run
+     * @param inputData a map of input data that can be accessed by the task
+     */
+    fun chargingDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>)
+
     /**
      * Schedule a task to run in the background repeatedly even if the app isn't running. The task
      * will only be run when the network is available.
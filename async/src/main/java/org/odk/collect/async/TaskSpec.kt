@@ -19,6 +19,20 @@ interface TaskSpec {
      */
     fun getTask(context: Context, inputData: Map<String, String>, isLastUniqueExecution: Boolean): Supplier<Boolean>
 
+    /**
+     * Like [getTask] but also passed [isStopped] which returns true once the task has been stopped
+     * (because its constraints are no longer met for example) so that long running work can
+     * finish early. Ignores [isStopped] unless overridden.
+     */
+    fun getTask(
+        context: Context,
+        inputData: Map<String, String>,
+        isLastUniqueExecution: Boolean,
+        isStopped: Supplier<Boolean>
+    ): Supplier<Boolean> {
+        return getTask(context, inputData, isLastUniqueExecution)
+    }
+
     /**
      * Called if an exception is thrown while executing the work.
      */
@@ -27,7 +27,7 @@ class TaskSpecWorker(
 
         try {
             val completed =
-                spec.getTask(applicationContext, stringInputData, isLastUniqueExecution(spec)).get()
+                spec.getTask(applicationContext, stringInputData, isLastUniqueExecution(spec)) { isStopped }.get()
             val maxRetries = spec.maxRetries
 
             return if (completed) {
@@ -113,6 +113,12 @@ class TaskSpecWorkerTest {
         assertThat(TestTaskSpec.wasLastUniqueExecution, equalTo(true))
     }
 
+    @Test
+    fun `task is passed whether work has been stopped`() {
+        worker.doWork()
+        assertThat(TestTaskSpec.wasStopped, equalTo(false))
+    }
+
     @Test
     fun `when there is an exception, calls onException`() {
         val exception = IllegalStateException()
@@ -139,12 +145,16 @@ private class TestTaskSpec : TaskSpec {
         var onExceptionCalledWith: Throwable? = null
             private set
 
+        var wasStopped: Boolean? = null
+            private set
+
         fun reset() {
             returnValue = true
             maxRetries = null
             exception = null
             wasLastUniqueExecution = false
             onExceptionCalledWith = null
+            wasStopped = null
         }
 
         fun doReturn(value: Boolean): Companion {
@@ -182,6 +192,20 @@ private class TestTaskSpec : TaskSpec {
         }
     }
 
+    override fun getTask(
+        context: Context,
+        inputData: Map<String, String>,
+        isLastUniqueExecution: Boolean,
+        isStopped: Supplier<Boolean>
+    ): Supplier<Boolean> {
+        val task = getTask(context, inputData, isLastUniqueExecution)
+
+        return Supplier {
+            wasStopped = isStopped.get()
+            task.get()
+        }
+    }
+
     override fun onException(exception: Throwable) {
         onExceptionCalledWith = exception
     }
@@ -0,0 +1,41 @@
+plugins {
+    alias(libs.plugins.javaLibrary)
+}
+
+apply(from = "../config/quality.gradle")
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+dependencies {
+    implementation(project(":shared"))
+    implementation(project(":forms"))
+    implementation(project(":forms-test"))
+    implementation(project(":test-forms"))
+    implementation(libs.kotlinStdlib)
+    implementation(libs.javarosa) {
+        exclude(group = "joda-time")
+        exclude(group = "org.hamcrest", module = "hamcrest-all")
+    }
+
+    implementation(libs.jmhCore)
+    annotationProcessor(libs.jmhGeneratorAnnprocess)
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks and writes the results to build/reports/jmh/results.json"
+
+    val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    val include = project.findProperty("jmh.include")?.toString()
+
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = listOfNotNull(include, "-rf", "json", "-rff", results.absolutePath)
+
+    doFirst {
+        results.parentFile.mkdirs()
+    }
+}
@@ -0,0 +1,92 @@
+package org.odk.collect.benchmarks;
+
+import org.javarosa.core.model.CoreModelModule;
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.services.PrototypeManager;
+import org.javarosa.core.util.JavaRosaCoreModule;
+import org.javarosa.core.util.externalizable.DeserializationException;
+import org.javarosa.core.util.externalizable.ExtUtil;
+import org.javarosa.model.xform.XFormsModule;
+import org.javarosa.xform.util.XFormUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the three ways a form definition is loaded: parsing the XML (the first time a form is
+ * opened) and writing and reading the serialized form that is kept in the form cache (see
+ * {@code ExternalizableFormDefCache}) for forms from {@code test-forms}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormDefBenchmark {
+
+    @Param({"one-question.xml", "all-widgets.xml", "manyQ.xml"})
+    public String form;
+
+    private byte[] formXml;
+    private FormDef formDef;
+    private byte[] serializedFormDef;
+
+    @Setup
+    public void setup() throws IOException {
+        PrototypeManager.registerPrototypes(JavaRosaCoreModule.classNames);
+        PrototypeManager.registerPrototypes(CoreModelModule.classNames);
+        new XFormsModule().registerModule();
+
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("forms/" + form)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("No test form named " + form);
+            }
+
+            formXml = inputStream.readAllBytes();
+        }
+
+        formDef = parse();
+        serializedFormDef = write();
+    }
+
+    @Benchmark
+    public FormDef parse() {
+        return XFormUtils.getFormFromInputStream(new ByteArrayInputStream(formXml));
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutputStream = new DataOutputStream(outputStream)) {
+            formDef.writeExternal(dataOutputStream);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public FormDef read() throws IOException, DeserializationException {
+        try (DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(serializedFormDef))) {
+            FormDef readFormDef = new FormDef();
+            readFormDef.readExternal(dataInputStream, ExtUtil.defaultPrototypes());
+            return readFormDef;
+        }
+    }
+}
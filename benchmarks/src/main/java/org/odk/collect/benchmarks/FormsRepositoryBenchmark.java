@@ -0,0 +1,70 @@
+package org.odk.collect.benchmarks;
+
+import org.odk.collect.forms.CachingFormsRepository;
+import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormsRepository;
+import org.odk.collect.formstest.FormUtils;
+import org.odk.collect.formstest.InMemFormsRepository;
+import org.odk.collect.shared.TempFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the form lookups done when opening forms, sending instances and matching forms with
+ * the server for an in memory repository with and without {@link CachingFormsRepository}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormsRepositoryBenchmark {
+
+    @Param({"100", "1000"})
+    public int forms;
+
+    @Param({"false", "true"})
+    public boolean caching;
+
+    private FormsRepository formsRepository;
+    private Form lastForm;
+
+    @Setup
+    public void setup() {
+        String formFilesPath = TempFiles.createTempDir().getAbsolutePath();
+        InMemFormsRepository repository = new InMemFormsRepository();
+        for (int i = 0; i < forms; i++) {
+            lastForm = repository.save(FormUtils.buildForm("form" + i, "1", formFilesPath).build());
+        }
+
+        formsRepository = caching ? new CachingFormsRepository(repository) : repository;
+    }
+
+    @Benchmark
+    public Form getLatestByFormIdAndVersion() {
+        return formsRepository.getLatestByFormIdAndVersion(lastForm.getFormId(), lastForm.getVersion());
+    }
+
+    @Benchmark
+    public Form getOneByMd5Hash() {
+        return formsRepository.getOneByMd5Hash(lastForm.getMD5Hash());
+    }
+
+    @Benchmark
+    public List<Form> getAllNotDeletedByFormId() {
+        return formsRepository.getAllNotDeletedByFormId(lastForm.getFormId());
+    }
+}
@@ -0,0 +1,52 @@
+package org.odk.collect.benchmarks;
+
+import org.odk.collect.shared.Query;
+import org.odk.collect.shared.QueryKt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures mapping the columns of entity filter queries (as done before converting them to SQL)
+ * for queries with different numbers of conditions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int conditions;
+
+    private Query query;
+
+    @Setup
+    public void setup() {
+        query = new Query.StringEq("name", "value0");
+        for (int i = 1; i < conditions; i++) {
+            Query condition = i % 2 == 0
+                    ? new Query.StringEq("name" + i, "value" + i)
+                    : new Query.NumericNotEq("score" + i, i);
+
+            query = i % 3 == 0 ? new Query.Or(query, condition) : new Query.And(query, condition);
+        }
+    }
+
+    @Benchmark
+    public Query mapColumns() {
+        return QueryKt.mapColumns(query, column -> "p_" + column);
+    }
+}
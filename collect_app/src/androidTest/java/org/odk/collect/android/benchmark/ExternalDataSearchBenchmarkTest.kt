@@ -0,0 +1,81 @@
+package org.odk.collect.android.benchmark
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.javarosa.core.model.SelectChoice
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.benchmark.support.Benchmarker
+import org.odk.collect.android.dynamicpreload.ExternalDataManagerImpl
+import org.odk.collect.android.dynamicpreload.ExternalDataReaderImpl
+import org.odk.collect.android.dynamicpreload.handler.ExternalDataHandlerSearch
+import org.odk.collect.shared.TempFiles
+import java.io.File
+
+/**
+ * Benchmarks `search()` over a 100k row CSV both with and without the search index that is built
+ * for columns searched by a form.
+ *
+ * Devices that currently pass:
+ * - Pixel 3
+ *
+ */
+
+@RunWith(AndroidJUnit4::class)
+class ExternalDataSearchBenchmarkTest {
+
+    @Test
+    fun run() {
+        val mediaDir = TempFiles.createTempDir()
+        listOf(INDEXED, UNINDEXED).forEach { dataSet ->
+            File(mediaDir, "$dataSet.csv").printWriter().use { writer ->
+                writer.println("name_key,label")
+                for (i in 0 until ROWS) {
+                    writer.println("item$i,Item number $i")
+                }
+            }
+        }
+
+        val benchmarker = Benchmarker()
+
+        benchmarker.benchmark("Importing with search index", 60) {
+            ExternalDataReaderImpl({ false }, {}, mapOf(INDEXED to setOf("c_label")), emptyMap())
+                .doImport(mapOf(INDEXED to File(mediaDir, "$INDEXED.csv")))
+        }
+
+        ExternalDataReaderImpl({ false }, {})
+            .doImport(mapOf(UNINDEXED to File(mediaDir, "$UNINDEXED.csv")))
+
+        val externalDataManager = ExternalDataManagerImpl(mediaDir)
+        val handler = ExternalDataHandlerSearch(externalDataManager, "label", "name_key", null)
+
+        val indexedResults = benchmarker.benchmark("Searching with search index", 2) {
+            search(handler, INDEXED)
+        }
+
+        val unindexedResults = benchmarker.benchmark("Searching without search index", 60) {
+            search(handler, UNINDEXED)
+        }
+
+        externalDataManager.close()
+
+        assertThat(indexedResults.map { it.value }, equalTo(unindexedResults.map { it.value }))
+        benchmarker.assertResults()
+    }
+
+    private fun search(handler: ExternalDataHandlerSearch, dataSet: String): List<SelectChoice> {
+        return SEARCHES.flatMap { value ->
+            @Suppress("UNCHECKED_CAST")
+            handler.eval(arrayOf(dataSet, "contains", "label", value), null) as List<SelectChoice>
+        }
+    }
+
+    companion object {
+        private const val ROWS = 100_000
+        private const val INDEXED = "indexed"
+        private const val UNINDEXED = "unindexed"
+
+        private val SEARCHES = listOf("number 9999", "mber 5000", "r 12345", "99999", "1024", "Item number 7")
+    }
+}
@@ -4,11 +4,17 @@ import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.lessThanOrEqualTo
 import org.odk.collect.android.support.pages.Page
 import org.odk.collect.shared.TimeInMs
+import org.odk.collect.shared.tracing.Tracer
 
 class Benchmarker {
     private val stopwatch = Stopwatch()
     private val targets = mutableMapOf<String, Long>()
 
+    init {
+        // Only report traces for the form pipelines run during this benchmark
+        Tracer.instance.clear()
+    }
+
     fun <T> benchmark(name: String, target: Long, action: () -> T): T {
         targets[name] = target
         return stopwatch.time(name) {
@@ -30,6 +36,9 @@ class Benchmarker {
         targets.keys.forEach {
             println("$it: ${stopwatch.getTime(it)}s")
         }
+
+        println("Traces:")
+        println(Tracer.instance.export())
     }
 }
 
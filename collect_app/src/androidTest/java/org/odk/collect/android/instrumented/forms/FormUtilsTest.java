@@ -17,6 +17,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.odk.collect.android.external.FormsContract;
+import org.odk.collect.android.formentry.OpenFormsLock;
 import org.odk.collect.android.storage.StoragePathProvider;
 import org.odk.collect.android.storage.StorageSubdirectory;
 import org.odk.collect.android.support.CollectHelpers;
@@ -60,7 +61,7 @@ public class FormUtilsTest {
         final Uri formUri = FormsContract.getUri("DEMO", form.getDbId());
 
         // Load the form in order to populate the ReferenceManager
-        FormLoaderTask formLoaderTask = new FormLoaderTask(formUri, FormsContract.CONTENT_ITEM_TYPE, null, null, formEntryControllerFactory, mock(), mock());
+        FormLoaderTask formLoaderTask = new FormLoaderTask(formUri, FormsContract.CONTENT_ITEM_TYPE, null, null, formEntryControllerFactory, mock(), mock(), new OpenFormsLock());
         formLoaderTask.executeSynchronously();
 
         final File formXml = new File(formPath);
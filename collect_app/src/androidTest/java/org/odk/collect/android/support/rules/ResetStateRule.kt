@@ -5,6 +5,7 @@ import androidx.test.core.app.ApplicationProvider
 import org.junit.rules.TestRule
 import org.junit.runner.Description
 import org.junit.runners.model.Statement
+import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter
 import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.injection.config.AppDependencyComponent
 import org.odk.collect.android.injection.config.AppDependencyModule
@@ -52,6 +53,7 @@ private class ResetStateStatement(
         }
 
         DatabaseConnection.closeAll()
+        ItemsetDbAdapter.closeAll()
     }
 
     private fun clearPrefs(component: AppDependencyComponent) {
@@ -12,6 +12,7 @@ import org.odk.collect.android.formentry.BackgroundAudioViewModel.RecordAudioAct
 import org.odk.collect.android.formentry.FormEndViewModel
 import org.odk.collect.android.formentry.FormEntryViewModel
 import org.odk.collect.android.formentry.FormSessionRepository
+import org.odk.collect.android.formentry.OpenFormsLock
 import org.odk.collect.android.formentry.PrinterWidgetViewModel
 import org.odk.collect.android.formentry.audit.IdentityPromptViewModel
 import org.odk.collect.android.formentry.backgroundlocation.BackgroundLocationHelper
@@ -59,7 +60,8 @@ class FormEntryViewModelFactory(
     private val qrCodeCreator: QRCodeCreator,
     private val htmlPrinter: HtmlPrinter,
     private val instancesDataService: InstancesDataService,
-    private val changeLockProvider: ChangeLockProvider
+    private val changeLockProvider: ChangeLockProvider,
+    private val openFormsLock: OpenFormsLock
 ) : AbstractSavedStateViewModelFactory(owner, null) {
 
     override fun <T : ViewModel> create(
@@ -76,7 +78,8 @@ class FormEntryViewModelFactory(
                 formSessionRepository,
                 sessionId,
                 formsRepositoryProvider.create(projectId),
-                changeLockProvider.create(projectId)
+                changeLockProvider.create(projectId),
+                openFormsLock
             )
 
             FormSaveViewModel::class.java -> {
@@ -1,6 +1,8 @@
 package org.odk.collect.android.application.initialization
 
 import android.app.Application
+import android.os.Handler
+import android.os.Looper
 import androidx.appcompat.app.AppCompatDelegate
 import androidx.startup.AppInitializer
 import net.danlew.android.joda.JodaTimeInitializer
@@ -14,8 +16,10 @@ import org.odk.collect.androidshared.ui.ToastUtils
 import org.odk.collect.metadata.PropertyManager
 import org.odk.collect.projects.ProjectsRepository
 import org.odk.collect.settings.SettingsProvider
+import org.odk.collect.shared.tracing.Tracer
 import timber.log.Timber
 import java.util.Locale
+import java.util.concurrent.Executors
 
 class ApplicationInitializer(
     private val context: Application,
@@ -29,24 +33,71 @@ class ApplicationInitializer(
     private val entitiesRepositoryProvider: EntitiesRepositoryProvider,
     private val projectsDataService: ProjectsDataService
 ) {
+    private var initializationGraph: InitializationGraph? = null
+
+    /**
+     * The time (in milliseconds) taken by each initialization step during the last [initialize].
+     * Deferred steps are only included once they have run. The timings are also recorded as
+     * [STARTUP_TRACE] and [DEFERRED_STARTUP_TRACE] traces so they can be viewed with the other
+     * traces in the developer tools.
+     */
+    val startupTimings: Map<String, Long>
+        get() = initializationGraph?.getTimings() ?: emptyMap()
+
     fun initialize() {
         initializeLocale()
-        runInitializers()
         initializeFrameworks()
+        runInitializers()
     }
 
     private fun runInitializers() {
-        upgradeInitializer.initialize()
-        analyticsInitializer.initialize()
-        UserPropertiesInitializer(
-            analytics,
-            projectsRepository,
-            settingsProvider,
-            context
-        ).initialize()
-        mapsInitializer.initialize()
-        JavaRosaInitializer(propertyManager, projectsDataService, entitiesRepositoryProvider, settingsProvider).initialize()
-        SystemThemeMismatchFixInitializer(context).initialize()
+        val executor = Executors.newFixedThreadPool(BACKGROUND_THREADS)
+        val graph = InitializationGraph(executor, ::runAfterFirstFrame)
+            .add(UPGRADE, InitializationGraph.Mode.MAIN) {
+                upgradeInitializer.initialize()
+            }
+            .add(ANALYTICS, InitializationGraph.Mode.MAIN, listOf(UPGRADE)) {
+                analyticsInitializer.initialize()
+            }
+            .add(USER_PROPERTIES, InitializationGraph.Mode.BACKGROUND, listOf(ANALYTICS)) {
+                UserPropertiesInitializer(
+                    analytics,
+                    projectsRepository,
+                    settingsProvider,
+                    context
+                ).initialize()
+            }
+            .add(MAPS_SETTINGS, InitializationGraph.Mode.MAIN, listOf(UPGRADE)) {
+                mapsInitializer.resetToAvailableFramework()
+            }
+            // Upgrades can move settings into the current project and JavaRosa reads metadata from them
+            .add(JAVA_ROSA, InitializationGraph.Mode.BACKGROUND, listOf(UPGRADE)) {
+                JavaRosaInitializer(propertyManager, projectsDataService, entitiesRepositoryProvider, settingsProvider).initialize()
+            }
+            .add(SYSTEM_THEME_MISMATCH_FIX, InitializationGraph.Mode.MAIN) {
+                SystemThemeMismatchFixInitializer(context).initialize()
+            }
+            .add(MAPS_FRAMEWORKS, InitializationGraph.Mode.DEFERRED, listOf(MAPS_SETTINGS)) {
+                mapsInitializer.initializeFrameworks()
+            }
+
+        initializationGraph = graph
+
+        val trace = Tracer.instance.start(STARTUP_TRACE)
+        try {
+            graph.run()
+        } finally {
+            executor.shutdown()
+        }
+
+        val timings = graph.getTimings()
+        recordTimings(trace, timings)
+        Timber.i("Startup timings: %s", timings)
+    }
+
+    private fun recordTimings(trace: Tracer.TraceRecorder, timings: Map<String, Long>) {
+        timings.forEach { (step, duration) -> trace.recordSpan(step, duration) }
+        trace.finish()
     }
 
     private fun initializeFrameworks() {
@@ -60,6 +111,24 @@ class ApplicationInitializer(
         Collect.defaultSysLanguage = Locale.getDefault().language
     }
 
+    /**
+     * Runs [runnable] once the main thread is idle after work that was already queued (like
+     * launching the first Activity) has been handled.
+     */
+    private fun runAfterFirstFrame(runnable: Runnable) {
+        Handler(Looper.getMainLooper()).post {
+            Looper.myQueue().addIdleHandler {
+                val criticalSteps = startupTimings.keys
+                val trace = Tracer.instance.start(DEFERRED_STARTUP_TRACE)
+                runnable.run()
+
+                recordTimings(trace, startupTimings.filterKeys { it !in criticalSteps })
+                Timber.i("Startup timings including deferred steps: %s", startupTimings)
+                false
+            }
+        }
+    }
+
     private fun initializeLogging() {
         if (BuildConfig.BUILD_TYPE == "odkCollectRelease") {
             Timber.plant(CrashReportingTree(analytics))
@@ -67,4 +136,19 @@ class ApplicationInitializer(
             Timber.plant(Timber.DebugTree())
         }
     }
+
+    companion object {
+        const val STARTUP_TRACE = "app_startup"
+        const val DEFERRED_STARTUP_TRACE = "app_startup_deferred"
+
+        private const val BACKGROUND_THREADS = 2
+
+        private const val UPGRADE = "upgrade"
+        private const val ANALYTICS = "analytics"
+        private const val USER_PROPERTIES = "user_properties"
+        private const val MAPS_SETTINGS = "maps_settings"
+        private const val MAPS_FRAMEWORKS = "maps_frameworks"
+        private const val JAVA_ROSA = "java_rosa"
+        private const val SYSTEM_THEME_MISMATCH_FIX = "system_theme_mismatch_fix"
+    }
 }
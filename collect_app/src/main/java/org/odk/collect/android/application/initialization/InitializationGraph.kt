@@ -0,0 +1,141 @@
+package org.odk.collect.android.application.initialization
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * A set of named initialization steps along with the steps that each one depends on.
+ *
+ * [run] executes [Mode.MAIN] steps on the calling thread and [Mode.BACKGROUND] steps on
+ * [backgroundExecutor] (each one starting only once its dependencies have finished) and returns
+ * once all of them are done. [Mode.DEFERRED] steps are then handed to [deferredRunner] as a single
+ * batch so that they don't hold up the first frame.
+ *
+ * The time each step takes is recorded and available from [getTimings].
+ */
+class InitializationGraph(
+    private val backgroundExecutor: Executor,
+    private val deferredRunner: (Runnable) -> Unit,
+    private val clock: () -> Long = { System.nanoTime() }
+) {
+
+    private val steps = LinkedHashMap<String, Step>()
+    private val timings = ConcurrentHashMap<String, Long>()
+
+    fun add(name: String, mode: Mode, dependsOn: List<String> = emptyList(), action: () -> Unit): InitializationGraph {
+        if (steps.containsKey(name)) {
+            throw IllegalArgumentException("Step $name has already been added")
+        }
+
+        steps[name] = Step(name, mode, dependsOn, action)
+        return this
+    }
+
+    fun run() {
+        val ordered = sortSteps()
+        val (deferred, critical) = ordered.partition { it.mode == Mode.DEFERRED }
+
+        val latches = critical.associate { it.name to CountDownLatch(1) }
+        val failure = AtomicReference<Throwable>()
+
+        critical.filter { it.mode == Mode.BACKGROUND }.forEach { step ->
+            backgroundExecutor.execute { runCritical(step, latches, failure) }
+        }
+
+        critical.filter { it.mode == Mode.MAIN }.forEach { step ->
+            runCritical(step, latches, failure)
+        }
+
+        latches.values.forEach { it.await() }
+        failure.get()?.let { throw it }
+
+        if (deferred.isNotEmpty()) {
+            deferredRunner(Runnable { deferred.forEach { runTimed(it) } })
+        }
+    }
+
+    /**
+     * Returns the time (in milliseconds) taken by each step that has finished so far.
+     */
+    fun getTimings(): Map<String, Long> {
+        return steps.keys.filter { timings.containsKey(it) }.associateWith { timings[it]!! }
+    }
+
+    private fun runCritical(step: Step, latches: Map<String, CountDownLatch>, failure: AtomicReference<Throwable>) {
+        try {
+            step.dependsOn.forEach { latches[it]!!.await() }
+
+            if (failure.get() == null) {
+                runTimed(step)
+            }
+        } catch (t: Throwable) {
+            failure.compareAndSet(null, t)
+        } finally {
+            latches[step.name]!!.countDown()
+        }
+    }
+
+    private fun runTimed(step: Step) {
+        val start = clock()
+        step.action()
+        timings[step.name] = TimeUnit.NANOSECONDS.toMillis(clock() - start)
+    }
+
+    private fun sortSteps(): List<Step> {
+        val sorted = LinkedHashMap<String, Step>()
+        val visiting = HashSet<String>()
+
+        fun visit(step: Step) {
+            if (sorted.containsKey(step.name)) {
+                return
+            }
+
+            if (!visiting.add(step.name)) {
+                throw IllegalStateException("Dependency cycle including ${step.name}")
+            }
+
+            step.dependsOn.forEach { dependencyName ->
+                val dependency = steps[dependencyName]
+                    ?: throw IllegalStateException("${step.name} depends on unknown step $dependencyName")
+
+                if (dependency.mode == Mode.DEFERRED && step.mode != Mode.DEFERRED) {
+                    throw IllegalStateException("${step.name} can't depend on deferred step $dependencyName")
+                }
+
+                visit(dependency)
+            }
+
+            sorted[step.name] = step
+        }
+
+        steps.values.forEach { visit(it) }
+        return sorted.values.toList()
+    }
+
+    enum class Mode {
+        /**
+         * Run on the thread calling [run] before it returns
+         */
+        MAIN,
+
+        /**
+         * Run on the background executor before [run] returns
+         */
+        BACKGROUND,
+
+        /**
+         * Run by the deferred runner after [run] has returned
+         */
+        DEFERRED
+    }
+
+    private data class Step(
+        val name: String,
+        val mode: Mode,
+        val dependsOn: List<String>,
+        val action: () -> Unit
+    )
+}
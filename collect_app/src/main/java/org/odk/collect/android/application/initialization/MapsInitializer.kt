@@ -20,12 +20,20 @@ class MapsInitializer @Inject constructor(
     fun initialize() {
         resetToAvailableFramework()
 
+        initializeFrameworks()
+    }
+
+    /**
+     * Warms up the map SDKs. This isn't needed to show the first screen so can be run after it
+     * has been drawn.
+     */
+    fun initializeFrameworks() {
         if (!FRAMEWORKS_INITIALIZED) {
-            initializeFrameworks()
+            initializeMapSdks()
         }
     }
 
-    private fun resetToAvailableFramework() {
+    fun resetToAvailableFramework() {
         MapConfiguratorProvider.initOptions(context)
         val availableBaseMaps = MapConfiguratorProvider.getIds()
         val baseMapSetting =
@@ -38,7 +46,7 @@ class MapsInitializer @Inject constructor(
         }
     }
 
-    private fun initializeFrameworks() {
+    private fun initializeMapSdks() {
         try {
             com.google.android.gms.maps.MapsInitializer.initialize(
                 context,
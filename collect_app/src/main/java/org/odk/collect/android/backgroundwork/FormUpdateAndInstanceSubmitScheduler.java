@@ -65,6 +65,14 @@ public class FormUpdateAndInstanceSubmitScheduler implements FormUpdateScheduler
     public void cancelUpdates(String projectId) {
         scheduler.cancelDeferred(getAutoUpdateTag(projectId));
         scheduler.cancelDeferred(getMatchExactlyTag(projectId));
+        scheduler.cancelDeferred(getWarmUpTag(projectId));
+    }
+
+    @Override
+    public void scheduleWarmUp(String projectId) {
+        HashMap<String, String> inputData = new HashMap<>();
+        inputData.put(TaskData.DATA_PROJECT_ID, projectId);
+        scheduler.chargingDeferred(getWarmUpTag(projectId), new WarmUpFormsTaskSpec(), inputData);
     }
 
     @Override
@@ -118,4 +126,9 @@ public class FormUpdateAndInstanceSubmitScheduler implements FormUpdateScheduler
     private String getAutoUpdateTag(String projectId) {
         return "serverPollingJob:" + projectId;
     }
+
+    @NotNull
+    private String getWarmUpTag(String projectId) {
+        return "warm_up_forms:" + projectId;
+    }
 }
@@ -5,4 +5,13 @@ public interface FormUpdateScheduler {
     void scheduleUpdates(String projectId);
 
     void cancelUpdates(String projectId);
+
+    /**
+     * Schedules the project's forms to be prepared for opening (see
+     * {@code FormsDataService#warmUpForms}) in the background. Only the current project's forms
+     * can be prepared (the form caches are shared between projects) so this does nothing if
+     * another project is current when the work runs. That project's forms are then prepared the
+     * first time they are opened instead.
+     */
+    void scheduleWarmUp(String projectId);
 }
@@ -0,0 +1,54 @@
+package org.odk.collect.android.backgroundwork
+
+import android.content.Context
+import androidx.work.BackoffPolicy
+import org.odk.collect.analytics.Analytics
+import org.odk.collect.android.formmanagement.FormsDataService
+import org.odk.collect.android.injection.DaggerUtils
+import org.odk.collect.android.projects.ProjectsDataService
+import org.odk.collect.async.TaskSpec
+import java.util.function.Supplier
+import javax.inject.Inject
+
+class WarmUpFormsTaskSpec : TaskSpec {
+    @Inject
+    lateinit var formsDataService: FormsDataService
+
+    @Inject
+    lateinit var projectsDataService: ProjectsDataService
+
+    override val maxRetries: Int? = null
+    override val backoffPolicy: BackoffPolicy? = null
+    override val backoffDelay: Long? = null
+
+    override fun getTask(context: Context, inputData: Map<String, String>, isLastUniqueExecution: Boolean): Supplier<Boolean> {
+        return getTask(context, inputData, isLastUniqueExecution) { false }
+    }
+
+    override fun getTask(
+        context: Context,
+        inputData: Map<String, String>,
+        isLastUniqueExecution: Boolean,
+        isStopped: Supplier<Boolean>
+    ): Supplier<Boolean> {
+        DaggerUtils.getComponent(context).inject(this)
+        return Supplier {
+            val projectId = inputData[TaskData.DATA_PROJECT_ID]
+            if (projectId != null) {
+                // The form caches and itemsets database are stored relative to the current
+                // project so other projects' forms will be warmed up when they are opened instead
+                if (projectsDataService.getCurrentProject().value?.uuid == projectId) {
+                    formsDataService.warmUpForms(projectId) { isStopped.get() }
+                } else {
+                    true
+                }
+            } else {
+                throw IllegalArgumentException("No project ID provided!")
+            }
+        }
+    }
+
+    override fun onException(exception: Throwable) {
+        Analytics.logNonFatal(exception)
+    }
+}
@@ -8,6 +8,8 @@ import org.odk.collect.android.database.instances.DatabaseInstanceColumns
 import org.odk.collect.androidshared.utils.PathUtils.getAbsoluteFilePath
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.instances.Instance
+import org.odk.collect.forms.instances.InstancePoints
+import org.odk.collect.forms.instances.InstanceSortOrder
 import org.odk.collect.shared.PathUtils.getRelativeFilePath
 import java.lang.Boolean
 
@@ -178,6 +180,7 @@ object DatabaseObjectMapper {
         val values = ContentValues()
         values.put(BaseColumns._ID, instance.dbId)
         values.put(DatabaseInstanceColumns.DISPLAY_NAME, instance.displayName)
+        values.put(DatabaseInstanceColumns.DISPLAY_NAME_LOWERCASE, instance.displayName?.let { InstanceSortOrder.lowercaseName(it) })
         values.put(DatabaseInstanceColumns.SUBMISSION_URI, instance.submissionUri)
         values.put(
             DatabaseInstanceColumns.CAN_EDIT_WHEN_COMPLETE,
@@ -199,6 +202,10 @@ object DatabaseObjectMapper {
             Boolean.toString(instance.canDeleteBeforeSend())
         )
 
+        val point = InstancePoints.getPoint(instance)
+        values.put(DatabaseInstanceColumns.LATITUDE, point?.latitude)
+        values.put(DatabaseInstanceColumns.LONGITUDE, point?.longitude)
+
         return values
     }
 }
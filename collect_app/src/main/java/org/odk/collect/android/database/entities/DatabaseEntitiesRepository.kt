@@ -24,6 +24,7 @@ import org.odk.collect.db.sqlite.toSql
 import org.odk.collect.entities.javarosa.parse.EntitySchema
 import org.odk.collect.entities.storage.EntitiesRepository
 import org.odk.collect.entities.storage.Entity
+import org.odk.collect.entities.storage.EntitySearch
 import org.odk.collect.entities.storage.QueryException
 import org.odk.collect.shared.Query
 import org.odk.collect.shared.mapColumns
@@ -41,6 +42,7 @@ private object EntitiesTable {
     const val COLUMN_TRUNK_VERSION = "trunk_version"
     const val COLUMN_BRANCH_ID = "branch_id"
     const val COLUMN_STATE = "state"
+    const val COLUMN_SEARCH_TEXT = "search_text"
     const val COLUMN_PROPERTY_PREFIX = "p_"
 
     fun getPropertyColumn(property: String) = "$COLUMN_PROPERTY_PREFIX$property"
@@ -87,6 +89,11 @@ class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRep
                         Entity.State.ONLINE
                     }
 
+                    // Properties that aren't in the update keep their existing values
+                    val properties = existing.properties.filterNot { (name, _) ->
+                        entity.properties.any { it.first.equals(name, ignoreCase = true) }
+                    } + entity.properties
+
                     val contentValues = ContentValues().also {
                         it.put(EntitiesTable.COLUMN_ID, entity.id)
                         it.put(EntitiesTable.COLUMN_LABEL, entity.label ?: existing.label)
@@ -94,6 +101,10 @@ class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRep
                         it.put(EntitiesTable.COLUMN_TRUNK_VERSION, entity.trunkVersion)
                         it.put(EntitiesTable.COLUMN_BRANCH_ID, entity.branchId)
                         it.put(EntitiesTable.COLUMN_STATE, convertStateToInt(state))
+                        it.put(
+                            EntitiesTable.COLUMN_SEARCH_TEXT,
+                            EntitySearch.getSearchText(entity.label ?: existing.label, properties.map { property -> property.second })
+                        )
 
                         addPropertiesToContentValues(it, entity)
                     }
@@ -112,6 +123,7 @@ class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRep
                         it.put(EntitiesTable.COLUMN_TRUNK_VERSION, entity.trunkVersion)
                         it.put(EntitiesTable.COLUMN_BRANCH_ID, entity.branchId)
                         it.put(EntitiesTable.COLUMN_STATE, convertStateToInt(entity.state))
+                        it.put(EntitiesTable.COLUMN_SEARCH_TEXT, EntitySearch.getSearchText(entity))
 
                         addPropertiesToContentValues(it, entity)
                     }
@@ -214,6 +226,34 @@ class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRep
         return queryWithAttachedRowNumber(list, query).firstOrNull()
     }
 
+    override fun queryPage(
+        list: String,
+        afterIndex: Int,
+        limit: Int,
+        search: String?
+    ): List<Entity.Saved> {
+        if (!listExists(list)) {
+            return emptyList()
+        }
+
+        var selection = "$ROW_NUMBER > ?"
+        var selectionArgs = arrayOf((afterIndex + 1).toString())
+
+        if (search != null) {
+            // LIKE only ignores case for ASCII so the lowercased search text is searched instead
+            selection += " AND instr(${EntitiesTable.COLUMN_SEARCH_TEXT}, ?) > 0"
+            selectionArgs += EntitySearch.normalize(search)
+        }
+
+        try {
+            return databaseConnection
+                .rawQueryWithRowNumber(list, selection, selectionArgs, limit)
+                .foldAndClose { mapCursorRowToEntity(it, it.getInt(ROW_NUMBER)) }
+        } catch (e: SQLiteException) {
+            throw QueryException(e.message)
+        }
+    }
+
     private fun queryWithAttachedRowNumber(list: String, query: Query?): List<Entity.Saved> {
         try {
             return if (query == null) {
@@ -265,7 +305,8 @@ class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRep
                     ${EntitiesTable.COLUMN_VERSION} integer,
                     ${EntitiesTable.COLUMN_TRUNK_VERSION} integer,
                     ${EntitiesTable.COLUMN_BRANCH_ID} text,
-                    ${EntitiesTable.COLUMN_STATE} integer NOT NULL
+                    ${EntitiesTable.COLUMN_STATE} integer NOT NULL,
+                    ${EntitiesTable.COLUMN_SEARCH_TEXT} text NOT NULL DEFAULT ""
                 );
                 """.trimIndent()
             )
@@ -357,7 +398,7 @@ class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRep
     private fun quote(text: String) = "\"$text\""
 
     companion object {
-        private const val DATABASE_VERSION = 2
+        private const val DATABASE_VERSION = 3
     }
 }
 
@@ -377,7 +418,36 @@ private class EntitiesDatabaseMigrator :
     }
 
     override fun onUpgrade(db: SQLiteDatabase, oldVersion: Int) {
-        dropAllTablesFromDB(db)
+        if (oldVersion < 2) {
+            dropAllTablesFromDB(db)
+            onCreate(db)
+        } else {
+            // Entities might not have been sent yet so they're kept
+            getListsFromDB(db).forEach { addSearchTextColumn(db, it) }
+        }
+    }
+
+    private fun addSearchTextColumn(db: SQLiteDatabase, list: String) {
+        db.execSQL(
+            """
+            ALTER TABLE "$list" ADD ${EntitiesTable.COLUMN_SEARCH_TEXT} text NOT NULL DEFAULT "";
+            """.trimIndent()
+        )
+
+        db.query("\"$list\"").use { cursor ->
+            while (cursor.moveToNext()) {
+                val row = cursor.rowToMap()
+                val properties = row.keys
+                    .filter { it.startsWith(EntitiesTable.COLUMN_PROPERTY_PREFIX) }
+                    .map { row[it] ?: "" }
+
+                val contentValues = ContentValues().also {
+                    it.put(EntitiesTable.COLUMN_SEARCH_TEXT, EntitySearch.getSearchText(row[EntitiesTable.COLUMN_LABEL], properties))
+                }
+
+                db.update("\"$list\"", contentValues, "$_ID = ?", arrayOf(row[_ID]))
+            }
+        }
     }
 }
 
@@ -36,17 +36,19 @@ import android.os.StrictMode;
 import org.jetbrains.annotations.NotNull;
 import org.odk.collect.db.sqlite.DatabaseConnection;
 import org.odk.collect.android.database.DatabaseConstants;
+import org.odk.collect.android.formmanagement.FormFileFingerprints;
 import org.odk.collect.android.utilities.FileUtils;
+import org.odk.collect.forms.ChangeJournal;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.forms.savepoints.SavepointsRepository;
 import org.odk.collect.shared.files.FileExt;
-import org.odk.collect.shared.strings.Md5;
 
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -57,11 +59,23 @@ import timber.log.Timber;
 
 public class DatabaseFormsRepository implements FormsRepository {
 
+    /**
+     * Repositories are created for each use, so changes are recorded in a journal per database
+     * that they all share.
+     */
+    private static final Map<String, ChangeJournal> CHANGE_JOURNALS = new HashMap<>();
+
+    /**
+     * Shared by all repositories so that form files are only hashed again once they've changed.
+     */
+    private static final FormFileFingerprints FINGERPRINTS = new FormFileFingerprints();
+
     private final DatabaseConnection databaseConnection;
     private final String formsPath;
     private final String cachePath;
     private final Supplier<Long> clock;
     private final SavepointsRepository savepointsRepository;
+    private final ChangeJournal changeJournal;
 
     public DatabaseFormsRepository(Context context, String dbPath, String formsPath, String cachePath, Supplier<Long> clock, SavepointsRepository savepointsRepository) {
         this.formsPath = formsPath;
@@ -75,6 +89,18 @@ public class DatabaseFormsRepository implements FormsRepository {
                 DatabaseConstants.FORMS_DATABASE_VERSION
         );
         this.savepointsRepository = savepointsRepository;
+        this.changeJournal = journalFor(dbPath);
+    }
+
+    private static synchronized ChangeJournal journalFor(String dbPath) {
+        String key = new File(dbPath, DatabaseConstants.FORMS_DATABASE_NAME).getAbsolutePath();
+        ChangeJournal journal = CHANGE_JOURNALS.get(key);
+        if (journal == null) {
+            journal = new ChangeJournal();
+            CHANGE_JOURNALS.put(key, journal);
+        }
+
+        return journal;
     }
 
     @Nullable
@@ -153,11 +179,17 @@ public class DatabaseFormsRepository implements FormsRepository {
         }
     }
 
+    @Override
+    public boolean isFormFileUnchanged(@NotNull Form form) {
+        return FINGERPRINTS.matches(new File(form.getFormFilePath()), form.getMD5Hash());
+    }
+
     @Override
     public Form save(@NotNull Form form) {
         final ContentValues values = getValuesFromForm(form, formsPath);
 
-        String md5Hash = Md5.getMd5Hash(new File(form.getFormFilePath()));
+        // Metadata updates are common so the file is only re-hashed if it has changed
+        String md5Hash = FINGERPRINTS.getMd5Hash(new File(form.getFormFilePath()));
         values.put(MD5_HASH, md5Hash);
         values.put(FORM_MEDIA_PATH, getRelativeFilePath(formsPath, FileUtils.constructMediaPath(form.getFormFilePath())));
         values.put(JRCACHE_FILE_PATH, md5Hash + ".formdef");
@@ -175,6 +207,7 @@ public class DatabaseFormsRepository implements FormsRepository {
             if (idFromUri == -1) {
                 return getOneByMd5Hash(md5Hash);
             }
+            changeJournal.recordChange(idFromUri);
             return get(idFromUri);
         } else {
             updateForm(form.getDbId(), values);
@@ -182,6 +215,25 @@ public class DatabaseFormsRepository implements FormsRepository {
         }
     }
 
+    @Override
+    public List<Form> saveAll(@NotNull List<Form> forms) {
+        SQLiteDatabase writableDatabase = databaseConnection.getWritableDatabase();
+        List<Form> savedForms = new ArrayList<>();
+
+        writableDatabase.beginTransaction();
+        try {
+            for (Form form : forms) {
+                savedForms.add(save(form));
+            }
+
+            writableDatabase.setTransactionSuccessful();
+        } finally {
+            writableDatabase.endTransaction();
+        }
+
+        return savedForms;
+    }
+
     @Override
     public void delete(Long id) {
         String selection = _ID + "=?";
@@ -218,6 +270,11 @@ public class DatabaseFormsRepository implements FormsRepository {
         updateForm(id, values);
     }
 
+    @Override
+    public ChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+
     public Cursor rawQuery(Map<String, String> projectionMap, String[] projection, String selection, String[] selectionArgs, String sortOrder, String groupBy) {
         return queryAndReturnCursor(projectionMap, projection, selection, selectionArgs, sortOrder, groupBy);
     }
@@ -286,6 +343,7 @@ public class DatabaseFormsRepository implements FormsRepository {
     private void updateForm(Long id, ContentValues values) {
         SQLiteDatabase writableDatabase = databaseConnection.getWritableDatabase();
         writableDatabase.update(FORMS_TABLE_NAME, values, _ID + "=?", new String[]{String.valueOf(id)});
+        changeJournal.recordChange(id);
     }
 
     private void deleteForms(String selection, String[] selectionArgs) {
@@ -298,6 +356,10 @@ public class DatabaseFormsRepository implements FormsRepository {
 
         SQLiteDatabase writableDatabase = databaseConnection.getWritableDatabase();
         writableDatabase.delete(FORMS_TABLE_NAME, selection, selectionArgs);
+
+        for (Form form : forms) {
+            changeJournal.recordChange(form.getDbId());
+        }
     }
 
     @NotNull
@@ -330,7 +392,9 @@ public class DatabaseFormsRepository implements FormsRepository {
     private void deleteFilesForForm(Form form) {
         // Delete form file
         if (form.getFormFilePath() != null) {
-            new File(form.getFormFilePath()).delete();
+            File formFile = new File(form.getFormFilePath());
+            formFile.delete();
+            FINGERPRINTS.remove(formFile);
         }
 
         // Delete cache file
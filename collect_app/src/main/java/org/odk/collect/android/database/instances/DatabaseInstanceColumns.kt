@@ -17,4 +17,7 @@ object DatabaseInstanceColumns : BaseColumns {
     const val GEOMETRY = "geometry"
     const val GEOMETRY_TYPE = "geometryType"
     const val CAN_DELETE_BEFORE_SEND = "canDeleteBeforeSend"
+    const val DISPLAY_NAME_LOWERCASE = "displayNameLowercase"
+    const val LATITUDE = "latitude" // only set for instances with a point geometry
+    const val LONGITUDE = "longitude"
 }
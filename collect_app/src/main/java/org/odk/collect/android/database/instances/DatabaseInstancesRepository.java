@@ -7,17 +7,27 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.os.StrictMode;
 
+import androidx.annotation.Nullable;
+
 import org.odk.collect.db.sqlite.DatabaseConnection;
 import org.odk.collect.android.database.DatabaseConstants;
+import org.odk.collect.forms.ChangeJournal;
 import org.odk.collect.forms.instances.Instance;
+import org.odk.collect.forms.instances.InstanceSortOrder;
 import org.odk.collect.forms.instances.InstancesRepository;
+import org.odk.collect.forms.instances.PointBounds;
+import org.odk.collect.forms.instances.PointCluster;
 import org.odk.collect.shared.files.FileExt;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
+import kotlin.Pair;
+
 import static android.provider.BaseColumns._ID;
 import static org.odk.collect.android.database.DatabaseConstants.INSTANCES_TABLE_NAME;
 import static org.odk.collect.android.database.DatabaseObjectMapper.getInstanceFromCurrentCursorPosition;
@@ -26,12 +36,15 @@ import static org.odk.collect.android.database.instances.DatabaseInstanceColumns
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.CAN_EDIT_WHEN_COMPLETE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DELETED_DATE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DISPLAY_NAME;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DISPLAY_NAME_LOWERCASE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.GEOMETRY;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.GEOMETRY_TYPE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.INSTANCE_FILE_PATH;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_FORM_ID;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_VERSION;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LAST_STATUS_CHANGE_DATE;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LATITUDE;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LONGITUDE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.STATUS;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.SUBMISSION_URI;
 import static org.odk.collect.shared.PathUtils.getRelativeFilePath;
@@ -41,9 +54,16 @@ import static org.odk.collect.shared.PathUtils.getRelativeFilePath;
  */
 public final class DatabaseInstancesRepository implements InstancesRepository {
 
+    /**
+     * Repositories are created for each use, so changes are recorded in a journal per database
+     * that they all share.
+     */
+    private static final Map<String, ChangeJournal> CHANGE_JOURNALS = new HashMap<>();
+
     private final DatabaseConnection databaseConnection;
     private final Supplier<Long> clock;
     private final String instancesPath;
+    private final ChangeJournal changeJournal;
 
     public DatabaseInstancesRepository(Context context, String dbPath, String instancesPath, Supplier<Long> clock) {
         this.databaseConnection = new DatabaseConnection(
@@ -56,6 +76,18 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
 
         this.clock = clock;
         this.instancesPath = instancesPath;
+        this.changeJournal = journalFor(dbPath);
+    }
+
+    private static synchronized ChangeJournal journalFor(String dbPath) {
+        String key = new File(dbPath, DatabaseConstants.INSTANCES_DATABASE_NAME).getAbsolutePath();
+        ChangeJournal journal = CHANGE_JOURNALS.get(key);
+        if (journal == null) {
+            journal = new ChangeJournal();
+            CHANGE_JOURNALS.put(key, journal);
+        }
+
+        return journal;
     }
 
     @Override
@@ -140,6 +172,153 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         }
     }
 
+    @Override
+    public List<Instance> getNotDeletedPage(String filter, InstanceSortOrder sortOrder, @Nullable Instance after, int limit) {
+        StrictMode.noteSlowCall("Accessing readable DB");
+
+        String sortColumn;
+        boolean ascending;
+        switch (sortOrder) {
+            case NAME_ASC:
+                sortColumn = DISPLAY_NAME_LOWERCASE;
+                ascending = true;
+                break;
+            case NAME_DESC:
+                sortColumn = DISPLAY_NAME_LOWERCASE;
+                ascending = false;
+                break;
+            case DATE_ASC:
+                sortColumn = LAST_STATUS_CHANGE_DATE;
+                ascending = true;
+                break;
+            default:
+                sortColumn = LAST_STATUS_CHANGE_DATE;
+                ascending = false;
+                break;
+        }
+
+        StringBuilder selection = new StringBuilder(DELETED_DATE + " IS NULL");
+        List<String> selectionArgs = new ArrayList<>();
+
+        // Names are compared using their lowercase column as LIKE and NOCASE only fold ASCII
+        if (!filter.isEmpty()) {
+            selection.append(" AND ").append(DISPLAY_NAME_LOWERCASE).append(" LIKE ? ESCAPE '\\'");
+            selectionArgs.add("%" + escapeLikeWildcards(InstanceSortOrder.lowercaseName(filter)) + "%");
+        }
+
+        if (after != null) {
+            String sortValue = sortOrder == InstanceSortOrder.NAME_ASC || sortOrder == InstanceSortOrder.NAME_DESC
+                    ? InstanceSortOrder.lowercaseName(after.getDisplayName())
+                    : after.getLastStatusChangeDate().toString();
+            String comparison = ascending ? " > ?" : " < ?";
+
+            // Seek past the last row of the previous page using the (sort value, id) key
+            selection.append(" AND (").append(sortColumn).append(comparison)
+                    .append(" OR (").append(sortColumn).append(" = ? AND ").append(_ID).append(comparison).append("))");
+            selectionArgs.add(sortValue);
+            selectionArgs.add(sortValue);
+            selectionArgs.add(after.getDbId().toString());
+        }
+
+        String direction = ascending ? " ASC" : " DESC";
+        String orderBy = sortColumn + direction + ", " + _ID + direction;
+
+        try (Cursor cursor = query(null, selection.toString(), selectionArgs.toArray(new String[0]), orderBy, String.valueOf(limit))) {
+            return getInstancesFromCursor(cursor, instancesPath);
+        }
+    }
+
+    @Override
+    public Map<Pair<String, String>, Long> getLastStatusChangeDatesByForm() {
+        StrictMode.noteSlowCall("Accessing readable DB");
+
+        SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+        qb.setTables(INSTANCES_TABLE_NAME);
+        String[] projection = {JR_FORM_ID, JR_VERSION, "MAX(" + LAST_STATUS_CHANGE_DATE + ")"};
+
+        Map<Pair<String, String>, Long> dates = new HashMap<>();
+        try (Cursor cursor = qb.query(databaseConnection.getReadableDatabase(), projection, null, null, JR_FORM_ID + ", " + JR_VERSION, null, null)) {
+            while (cursor.moveToNext()) {
+                String version = cursor.isNull(1) ? null : cursor.getString(1);
+                dates.put(new Pair<>(cursor.getString(0), version), cursor.getLong(2));
+            }
+        }
+
+        return dates;
+    }
+
+    @Override
+    public int getCountByFormId(String formId) {
+        StrictMode.noteSlowCall("Accessing readable DB");
+
+        try (Cursor cursor = query(new String[]{"COUNT(*)"}, JR_FORM_ID + " = ?", new String[]{formId}, null)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    @Override
+    public List<Instance> getWithPointInBounds(String formId, PointBounds bounds, int limit) {
+        StrictMode.noteSlowCall("Accessing readable DB");
+
+        List<String> selectionArgs = new ArrayList<>();
+        String selection = getPointInBoundsSelection(formId, bounds, selectionArgs);
+        try (Cursor cursor = query(null, selection, selectionArgs.toArray(new String[0]), _ID, String.valueOf(limit))) {
+            return getInstancesFromCursor(cursor, instancesPath);
+        }
+    }
+
+    @Nullable
+    @Override
+    public PointBounds getPointBounds(String formId) {
+        StrictMode.noteSlowCall("Accessing readable DB");
+
+        String[] projection = {"MIN(" + LATITUDE + ")", "MIN(" + LONGITUDE + ")", "MAX(" + LATITUDE + ")", "MAX(" + LONGITUDE + ")"};
+        try (Cursor cursor = query(projection, JR_FORM_ID + " = ? AND " + LATITUDE + " IS NOT NULL", new String[]{formId}, null)) {
+            if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                return null;
+            }
+
+            return new PointBounds(cursor.getDouble(0), cursor.getDouble(1), cursor.getDouble(2), cursor.getDouble(3));
+        }
+    }
+
+    @Override
+    public List<PointCluster> getPointClusters(String formId, PointBounds bounds, double size) {
+        StrictMode.noteSlowCall("Accessing readable DB");
+
+        SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+        qb.setTables(INSTANCES_TABLE_NAME);
+        String[] projection = {
+                getCell(LATITUDE, size) + " AS cellRow",
+                getCell(LONGITUDE, size) + " AS cellColumn",
+                "COUNT(*)",
+                "AVG(" + LATITUDE + ")",
+                "AVG(" + LONGITUDE + ")",
+                "MIN(" + _ID + ")"
+        };
+
+        List<String> selectionArgs = new ArrayList<>();
+        String selection = getPointInBoundsSelection(formId, bounds, selectionArgs);
+
+        List<PointCluster> clusters = new ArrayList<>();
+        try (Cursor cursor = qb.query(databaseConnection.getReadableDatabase(), projection, selection, selectionArgs.toArray(new String[0]), "cellRow, cellColumn", null, "cellRow, cellColumn")) {
+            while (cursor.moveToNext()) {
+                clusters.add(new PointCluster(
+                        cursor.getLong(0),
+                        cursor.getLong(1),
+                        size,
+                        cursor.getInt(2),
+                        cursor.getDouble(3),
+                        cursor.getDouble(4),
+                        cursor.getLong(5)
+                ));
+            }
+        }
+
+        return clusters;
+    }
+
     @Override
     public void delete(Long id) {
         Instance instance = get(id);
@@ -149,6 +328,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
                 _ID + "=?",
                 new String[]{String.valueOf(id)}
         );
+        changeJournal.recordChange(id);
 
         deleteInstanceFiles(instance);
     }
@@ -162,6 +342,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
                 null,
                 null
         );
+        changeJournal.recordUnknownChange();
 
         for (Instance instance : instances) {
             deleteInstanceFiles(instance);
@@ -184,6 +365,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
             }
 
             long insertId = insert(getValuesFromInstance(instance, instancesPath));
+            changeJournal.recordChange(insertId);
             return get(insertId);
         } else {
             if (instance.getDeletedDate() == null) {
@@ -193,6 +375,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
             }
 
             update(instance.getDbId(), getValuesFromInstance(instance, instancesPath));
+            changeJournal.recordChange(instance.getDbId());
             return get(instance.getDbId());
         }
     }
@@ -202,13 +385,21 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         ContentValues values = new ContentValues();
         values.putNull(GEOMETRY);
         values.putNull(GEOMETRY_TYPE);
+        values.putNull(LATITUDE);
+        values.putNull(LONGITUDE);
         values.put(DELETED_DATE, clock.get());
         update(id, values);
+        changeJournal.recordChange(id);
 
         Instance instance = get(id);
         deleteInstanceFiles(instance);
     }
 
+    @Override
+    public ChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+
     public Cursor rawQuery(String[] projection, String selection, String[] selectionArgs, String sortOrder, String groupBy) {
         return query(projection, selection, selectionArgs, sortOrder);
     }
@@ -223,6 +414,10 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
     }
 
     private Cursor query(String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        return query(projection, selection, selectionArgs, sortOrder, null);
+    }
+
+    private Cursor query(String[] projection, String selection, String[] selectionArgs, String sortOrder, String limit) {
         SQLiteDatabase readableDatabase = databaseConnection.getReadableDatabase();
         SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
         qb.setTables(INSTANCES_TABLE_NAME);
@@ -252,7 +447,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
             };
         }
 
-        return qb.query(readableDatabase, projection, selection, selectionArgs, null, null, sortOrder);
+        return qb.query(readableDatabase, projection, selection, selectionArgs, null, null, sortOrder, limit);
     }
 
     private long insert(ContentValues values) {
@@ -276,6 +471,37 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         FileExt.deleteDirectory(new File(instance.getInstanceFilePath()).getParentFile());
     }
 
+    /**
+     * Uses the (form id, latitude, longitude) index to find the form's instances in the bounds.
+     */
+    private static String getPointInBoundsSelection(String formId, PointBounds bounds, List<String> selectionArgs) {
+        selectionArgs.add(formId);
+        selectionArgs.add(String.valueOf(bounds.getSouth()));
+        selectionArgs.add(String.valueOf(bounds.getNorth()));
+        selectionArgs.add(String.valueOf(bounds.getWest()));
+        selectionArgs.add(String.valueOf(bounds.getEast()));
+
+        String longitudeSelection = bounds.getWest() <= bounds.getEast()
+                ? LONGITUDE + " BETWEEN ? AND ?"
+                : "(" + LONGITUDE + " >= ? OR " + LONGITUDE + " <= ?)";
+
+        return JR_FORM_ID + " = ? AND " + LATITUDE + " BETWEEN ? AND ? AND " + longitudeSelection;
+    }
+
+    /**
+     * Returns an expression for the grid cell that a coordinate is in that matches
+     * {@link org.odk.collect.forms.instances.InstancePoints#getCell(double, double)}. SQLite
+     * doesn't have floor() on Android so it's worked out from the truncated value.
+     */
+    private static String getCell(String column, double size) {
+        String scaled = "(" + column + " / " + size + ")";
+        return "(CAST(" + scaled + " AS INTEGER) - (" + scaled + " < CAST(" + scaled + " AS INTEGER)))";
+    }
+
+    private static String escapeLikeWildcards(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     private static List<Instance> getInstancesFromCursor(Cursor cursor, String instancesPath) {
         List<Instance> instances = new ArrayList<>();
         cursor.moveToPosition(-1);
@@ -6,22 +6,30 @@ import static org.odk.collect.android.database.instances.DatabaseInstanceColumns
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.CAN_EDIT_WHEN_COMPLETE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DELETED_DATE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DISPLAY_NAME;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DISPLAY_NAME_LOWERCASE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.GEOMETRY;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.GEOMETRY_TYPE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.INSTANCE_FILE_PATH;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_FORM_ID;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_VERSION;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LAST_STATUS_CHANGE_DATE;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LATITUDE;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LONGITUDE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.STATUS;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.SUBMISSION_URI;
 import static org.odk.collect.db.sqlite.SQLiteDatabaseExt.doesColumnExist;
 
+import android.content.ContentValues;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import org.odk.collect.db.sqlite.DatabaseMigrator;
 import org.odk.collect.db.sqlite.SQLiteDatabaseExt;
 import org.odk.collect.db.sqlite.SQLiteUtils;
 import org.odk.collect.forms.instances.Instance;
+import org.odk.collect.forms.instances.InstancePoint;
+import org.odk.collect.forms.instances.InstancePoints;
+import org.odk.collect.forms.instances.InstanceSortOrder;
 
 import java.util.Arrays;
 import java.util.List;
@@ -37,7 +45,7 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
             LAST_STATUS_CHANGE_DATE, DELETED_DATE, GEOMETRY, GEOMETRY_TYPE};
 
     public void onCreate(SQLiteDatabase db) {
-        createInstancesTableV8(db);
+        createInstancesTableV10(db);
     }
 
     @SuppressWarnings({"checkstyle:FallThrough"})
@@ -59,8 +67,12 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
             case 7:
                 upgradeToVersion8(db);
             case 8:
+                upgradeToVersion9(db);
+            case 9:
+                upgradeToVersion10(db);
+            case 10:
                 // Remember to bump the database version number in {@link org.odk.collect.android.database.DatabaseConstants}
-                // upgradeToVersion9(db);
+                // upgradeToVersion11(db);
         }
     }
 
@@ -143,6 +155,45 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
         db.execSQL("UPDATE " + INSTANCES_TABLE_NAME + " SET " + CAN_DELETE_BEFORE_SEND + " = 'true';");
     }
 
+    /**
+     * Upgrade to version 9. Adds {@link DatabaseInstanceColumns#DISPLAY_NAME_LOWERCASE} which is
+     * filled in here rather than with SQLite's {@code lower()} as that only handles ASCII.
+     */
+    private void upgradeToVersion9(SQLiteDatabase db) {
+        SQLiteUtils.addColumn(db, INSTANCES_TABLE_NAME, DISPLAY_NAME_LOWERCASE, "text");
+
+        try (Cursor cursor = db.query(INSTANCES_TABLE_NAME, new String[]{_ID, DISPLAY_NAME}, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                ContentValues values = new ContentValues();
+                values.put(DISPLAY_NAME_LOWERCASE, InstanceSortOrder.lowercaseName(cursor.getString(1)));
+                db.update(INSTANCES_TABLE_NAME, values, _ID + "=?", new String[]{cursor.getString(0)});
+            }
+        }
+    }
+
+    /**
+     * Upgrade to version 10. Adds {@link DatabaseInstanceColumns#LATITUDE} and
+     * {@link DatabaseInstanceColumns#LONGITUDE} (filled in from the point geometry of existing
+     * instances) so that instances can be found by location without parsing every geometry.
+     */
+    private void upgradeToVersion10(SQLiteDatabase db) {
+        SQLiteUtils.addColumn(db, INSTANCES_TABLE_NAME, LATITUDE, "real");
+        SQLiteUtils.addColumn(db, INSTANCES_TABLE_NAME, LONGITUDE, "real");
+        createPointIndex(db);
+
+        try (Cursor cursor = db.query(INSTANCES_TABLE_NAME, new String[]{_ID, GEOMETRY_TYPE, GEOMETRY}, GEOMETRY_TYPE + " = ?", new String[]{Instance.GEOMETRY_TYPE_POINT}, null, null, null)) {
+            while (cursor.moveToNext()) {
+                InstancePoint point = InstancePoints.getPoint(cursor.getString(1), cursor.getString(2));
+                if (point != null) {
+                    ContentValues values = new ContentValues();
+                    values.put(LATITUDE, point.getLatitude());
+                    values.put(LONGITUDE, point.getLongitude());
+                    db.update(INSTANCES_TABLE_NAME, values, _ID + "=?", new String[]{cursor.getString(0)});
+                }
+            }
+        }
+    }
+
     private void createInstancesTableV5(SQLiteDatabase db, String name) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + name + " ("
                 + _ID + " integer primary key, "
@@ -205,4 +256,49 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
                 + GEOMETRY + " text, "
                 + GEOMETRY_TYPE + " text);");
     }
+
+    public void createInstancesTableV9(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + INSTANCES_TABLE_NAME + " ("
+                + _ID + " integer primary key autoincrement, "
+                + DISPLAY_NAME + " text not null, "
+                + DISPLAY_NAME_LOWERCASE + " text, "
+                + SUBMISSION_URI + " text, "
+                + CAN_EDIT_WHEN_COMPLETE + " text, "
+                + CAN_DELETE_BEFORE_SEND + " text, "
+                + INSTANCE_FILE_PATH + " text not null, "
+                + JR_FORM_ID + " text not null, "
+                + JR_VERSION + " text, "
+                + STATUS + " text not null, "
+                + LAST_STATUS_CHANGE_DATE + " date not null, "
+                + DELETED_DATE + " date, "
+                + GEOMETRY + " text, "
+                + GEOMETRY_TYPE + " text);");
+    }
+
+    public void createInstancesTableV10(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + INSTANCES_TABLE_NAME + " ("
+                + _ID + " integer primary key autoincrement, "
+                + DISPLAY_NAME + " text not null, "
+                + DISPLAY_NAME_LOWERCASE + " text, "
+                + SUBMISSION_URI + " text, "
+                + CAN_EDIT_WHEN_COMPLETE + " text, "
+                + CAN_DELETE_BEFORE_SEND + " text, "
+                + INSTANCE_FILE_PATH + " text not null, "
+                + JR_FORM_ID + " text not null, "
+                + JR_VERSION + " text, "
+                + STATUS + " text not null, "
+                + LAST_STATUS_CHANGE_DATE + " date not null, "
+                + DELETED_DATE + " date, "
+                + GEOMETRY + " text, "
+                + GEOMETRY_TYPE + " text, "
+                + LATITUDE + " real, "
+                + LONGITUDE + " real);");
+
+        createPointIndex(db);
+    }
+
+    private void createPointIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INSTANCES_TABLE_NAME + "_point_index ON "
+                + INSTANCES_TABLE_NAME + " (" + JR_FORM_ID + ", " + LATITUDE + ", " + LONGITUDE + ");");
+    }
 }
@@ -2,13 +2,20 @@ package org.odk.collect.android.dynamicpreload
 
 import org.javarosa.core.model.FormDef
 import org.javarosa.core.model.QuestionDef
+import org.javarosa.core.util.externalizable.ExtUtil
 import org.javarosa.core.util.externalizable.Externalizable
 import org.javarosa.core.util.externalizable.PrototypeFactory
 import org.javarosa.xform.parse.IXFormParserFactory
 import org.javarosa.xform.parse.XFormParser
+import org.javarosa.xpath.expr.XPathBinaryOpExpr
 import org.javarosa.xpath.expr.XPathExpression
+import org.javarosa.xpath.expr.XPathFuncExpr
+import org.javarosa.xpath.expr.XPathStringLiteral
+import org.javarosa.xpath.expr.XPathUnaryOpExpr
+import org.odk.collect.android.dynamicpreload.handler.ExternalDataHandlerPull
 import java.io.DataInputStream
 import java.io.DataOutputStream
+import java.util.Locale
 
 class DynamicPreloadXFormParserFactory(base: IXFormParserFactory) :
     IXFormParserFactory.Wrapper(base) {
@@ -27,14 +34,12 @@ class DynamicPreloadParseProcessor :
 
     private var containsPullData = false
     private var containsSearch = false
+    private val pullDataReferenceColumns = mutableMapOf<String, MutableSet<String>>()
 
     override fun processXPath(xPathExpression: XPathExpression) {
-        if (containsPullData) {
-            return // No need to search if we already found pulldata
-        }
-
-        if (xPathExpression.containsFunc("pulldata")) {
+        if (xPathExpression.containsFunc(ExternalDataHandlerPull.HANDLER_NAME)) {
             containsPullData = true
+            collectPullDataReferenceColumns(xPathExpression)
         }
     }
 
@@ -50,13 +55,70 @@ class DynamicPreloadParseProcessor :
 
     override fun processFormDef(formDef: FormDef) {
         if (containsPullData || containsSearch) {
-            formDef.extras.put(DynamicPreloadExtra())
+            formDef.extras.put(DynamicPreloadExtra(pullDataReferenceColumns))
+        }
+    }
+
+    /**
+     * Records the reference column of any `pulldata()` calls (with literal data set and
+     * reference column arguments) in the expression so that they can be indexed.
+     */
+    private fun collectPullDataReferenceColumns(expression: XPathExpression?) {
+        when (expression) {
+            is XPathFuncExpr -> {
+                val dataSetName = (expression.args.getOrNull(0) as? XPathStringLiteral)?.s
+                val referenceColumn = (expression.args.getOrNull(2) as? XPathStringLiteral)?.s
+
+                if (expression.id.name == ExternalDataHandlerPull.HANDLER_NAME && expression.args.size == 4 &&
+                    dataSetName != null && referenceColumn != null
+                ) {
+                    pullDataReferenceColumns
+                        .getOrPut(dataSetName.lowercase(Locale.US).removeSuffix(".csv")) { mutableSetOf() }
+                        .add(ExternalDataUtil.toSafeColumnName(referenceColumn))
+                }
+
+                expression.args.forEach { collectPullDataReferenceColumns(it) }
+            }
+
+            is XPathBinaryOpExpr -> {
+                collectPullDataReferenceColumns(expression.a)
+                collectPullDataReferenceColumns(expression.b)
+            }
+
+            is XPathUnaryOpExpr -> collectPullDataReferenceColumns(expression.a)
         }
     }
 }
 
-class DynamicPreloadExtra : Externalizable {
-    override fun readExternal(`in`: DataInputStream?, pf: PrototypeFactory?) = Unit
+/**
+ * @param pullDataReferenceColumns the (safe) names of the reference columns used by `pulldata()`
+ * for each (lower case) data set name
+ */
+class DynamicPreloadExtra(
+    pullDataReferenceColumns: Map<String, Set<String>> = emptyMap()
+) : Externalizable {
 
-    override fun writeExternal(out: DataOutputStream?) = Unit
+    var pullDataReferenceColumns: Map<String, Set<String>> = pullDataReferenceColumns
+        private set
+
+    override fun readExternal(`in`: DataInputStream, pf: PrototypeFactory?) {
+        val columns = mutableMapOf<String, Set<String>>()
+
+        repeat(ExtUtil.readInt(`in`)) {
+            val dataSetName = ExtUtil.readString(`in`)
+            columns[dataSetName] = (0 until ExtUtil.readInt(`in`)).map { ExtUtil.readString(`in`) }.toSet()
+        }
+
+        pullDataReferenceColumns = columns
+    }
+
+    override fun writeExternal(out: DataOutputStream) {
+        ExtUtil.writeNumeric(out, pullDataReferenceColumns.size.toLong())
+
+        pullDataReferenceColumns.forEach { (dataSetName, columns) ->
+            ExtUtil.writeString(out, dataSetName)
+            ExtUtil.writeNumeric(out, columns.size.toLong())
+            columns.forEach { ExtUtil.writeString(out, it) }
+        }
+    }
 }
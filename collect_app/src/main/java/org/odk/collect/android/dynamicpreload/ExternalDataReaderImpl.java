@@ -25,7 +25,11 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -41,10 +45,25 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
 
     private final Supplier<Boolean> isCancelled;
     private final Consumer<Function<Resources, String>> progressReporter;
+    private final Map<String, Set<String>> searchedColumns;
+    private final Map<String, Set<String>> lookupColumns;
 
     public ExternalDataReaderImpl(Supplier<Boolean> isCancelled, Consumer<Function<Resources, String>> progressReporter) {
+        this(isCancelled, progressReporter, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * @param searchedColumns the columns searched with {@code search()} for each (lower case) data
+     *                        set name. These are added to the data set's search index.
+     * @param lookupColumns   the columns {@code pulldata()} looks rows up by for each (lower case)
+     *                        data set name. These are indexed.
+     */
+    public ExternalDataReaderImpl(Supplier<Boolean> isCancelled, Consumer<Function<Resources, String>> progressReporter,
+                                  Map<String, Set<String>> searchedColumns, Map<String, Set<String>> lookupColumns) {
         this.isCancelled = isCancelled;
         this.progressReporter = progressReporter;
+        this.searchedColumns = searchedColumns;
+        this.lookupColumns = lookupColumns;
     }
 
     @Override
@@ -64,6 +83,9 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
     private boolean doImportDataSetAndContinue(String dataSetName, File dataSetFile) {
         File dbFile = new File(dataSetFile.getParentFile().getAbsolutePath(),
                 dataSetName + ".db");
+        Collection<String> dataSetSearchedColumns = getColumns(searchedColumns, dataSetName);
+        Collection<String> dataSetLookupColumns = getColumns(lookupColumns, dataSetName);
+
         if (dbFile.exists()) {
             // Determine if we need to reimport
             if (ExternalSQLiteOpenHelper.shouldUpdateDBforDataSet(dbFile, dataSetFile)) {
@@ -73,12 +95,13 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
                     return true;
                 }
             } else {
+                ExternalSQLiteOpenHelper.updateIndexes(dbFile, dataSetSearchedColumns, dataSetLookupColumns);
                 return true;
             }
         }
         ExternalSQLiteOpenHelper externalSQLiteOpenHelper = new ExternalSQLiteOpenHelper(
                 dbFile);
-        externalSQLiteOpenHelper.importFromCSV(dataSetFile, this, isCancelled, progressReporter);
+        externalSQLiteOpenHelper.importFromCSV(dataSetFile, dataSetSearchedColumns, dataSetLookupColumns, this, isCancelled, progressReporter);
 
         if (isCancelled.get()) {
             Timber.w(
@@ -108,4 +131,8 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
         return true;
     }
 
+    private static Collection<String> getColumns(Map<String, Set<String>> columnsByDataSet, String dataSetName) {
+        Set<String> columns = columnsByDataSet.get(dataSetName.toLowerCase(Locale.US));
+        return columns != null ? columns : Collections.emptySet();
+    }
 }
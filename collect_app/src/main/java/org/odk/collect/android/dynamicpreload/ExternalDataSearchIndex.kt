@@ -0,0 +1,148 @@
+package org.odk.collect.android.dynamicpreload
+
+import android.database.SQLException
+import android.database.sqlite.SQLiteDatabase
+import org.odk.collect.db.sqlite.SQLiteDatabaseExt.getColumnNames
+import org.odk.collect.db.sqlite.SQLiteUtils
+import timber.log.Timber
+
+/**
+ * A full text index of the dataset columns that are searched with `search()`. It lets
+ * `contains`, `startsWith` and `endsWith` searches find the rows that could match without scanning
+ * the whole table with `LIKE`.
+ *
+ * FTS5 and its trigram tokenizer aren't available in the SQLite shipped with all the Android
+ * versions we support, so this uses FTS4 and stores each value as a list of its (lower case)
+ * trigrams encoded as words. A search value's trigrams can then be matched to find every row
+ * containing it (and possibly some that don't), so the original `LIKE` expression still needs
+ * to be applied to the rows that are found.
+ */
+object ExternalDataSearchIndex {
+
+    const val TABLE_NAME = "externalDataSearch"
+
+    private const val TRIGRAM_LENGTH = 3
+    private const val ENCODED_CODE_POINT_LENGTH = 4
+    private const val ENCODING_RADIX = 36
+
+    /**
+     * Makes sure that [columns] (along with any columns that are already indexed) are in the
+     * index for [dataTableName]. The index is only (re)built if columns are missing from it.
+     */
+    @JvmStatic
+    fun update(db: SQLiteDatabase, dataTableName: String, columns: Collection<String>) {
+        val indexedColumns = getIndexedColumns(db)
+        val dataColumns = db.getColumnNames(dataTableName)
+        val requiredColumns = (indexedColumns + columns).filter { dataColumns.contains(it) }.toSet()
+
+        if (requiredColumns.isEmpty() || indexedColumns.containsAll(requiredColumns)) {
+            return
+        }
+
+        Timber.i("Creating search index on %s", requiredColumns)
+        SQLiteUtils.dropTable(db, TABLE_NAME)
+
+        try {
+            createIndex(db, dataTableName, requiredColumns.toList())
+        } catch (e: SQLException) {
+            // Searches will fall back to just using LIKE
+            Timber.w(e)
+            SQLiteUtils.dropTable(db, TABLE_NAME)
+        }
+    }
+
+    private fun createIndex(db: SQLiteDatabase, dataTableName: String, columns: List<String>) {
+        db.execSQL("CREATE VIRTUAL TABLE $TABLE_NAME USING fts4(${columns.joinToString(", ")});")
+
+        val insertStatement = db.compileStatement(
+            "INSERT INTO $TABLE_NAME (docid, ${columns.joinToString(", ")}) " +
+                "VALUES (?${", ?".repeat(columns.size)});"
+        )
+
+        insertStatement.use {
+            db.query(dataTableName, arrayOf("rowid") + columns, null, null, null, null, null).use { cursor ->
+                while (cursor.moveToNext()) {
+                    insertStatement.clearBindings()
+                    insertStatement.bindLong(1, cursor.getLong(0))
+
+                    for (index in columns.indices) {
+                        insertStatement.bindString(index + 2, toTrigramWords(cursor.getString(index + 1)))
+                    }
+
+                    insertStatement.executeInsert()
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the columns that are currently in the index (which will be empty if there is no
+     * index).
+     */
+    @JvmStatic
+    fun getIndexedColumns(db: SQLiteDatabase): Set<String> {
+        return if (SQLiteUtils.doesTableExist(db, TABLE_NAME)) {
+            db.getColumnNames(TABLE_NAME).toSet()
+        } else {
+            emptySet()
+        }
+    }
+
+    /**
+     * Returns an FTS `MATCH` argument that matches every indexed value that contains
+     * [searchValue], or `null` if the index can't be used to search for it. That's the case for
+     * values shorter than a trigram and for values containing `LIKE` wildcards.
+     */
+    @JvmStatic
+    fun toMatchArgument(searchValue: String?): String? {
+        if (searchValue == null || searchValue.contains('%') || searchValue.contains('_')) {
+            return null
+        }
+
+        val words = toTrigramWords(searchValue)
+        return words.ifEmpty { null }
+    }
+
+    /**
+     * Returns the distinct trigrams of [value] as space separated words. Code points are lower
+     * cased individually (rather than using [String.lowercase]) so that the trigrams of a
+     * search value are always the same as those of any value containing it.
+     */
+    @JvmStatic
+    fun toTrigramWords(value: String?): String {
+        if (value == null) {
+            return ""
+        }
+
+        val codePoints = mutableListOf<Int>()
+        var index = 0
+        while (index < value.length) {
+            val codePoint = value.codePointAt(index)
+            codePoints.add(Character.toLowerCase(codePoint))
+            index += Character.charCount(codePoint)
+        }
+
+        if (codePoints.size < TRIGRAM_LENGTH) {
+            return ""
+        }
+
+        val trigrams = LinkedHashSet<String>()
+        for (start in 0..codePoints.size - TRIGRAM_LENGTH) {
+            val trigram = StringBuilder()
+            for (offset in 0 until TRIGRAM_LENGTH) {
+                trigram.append(encode(codePoints[start + offset]))
+            }
+
+            trigrams.add(trigram.toString())
+        }
+
+        return trigrams.joinToString(" ")
+    }
+
+    /**
+     * Encodes a code point as a fixed length word that FTS's "simple" tokenizer won't split.
+     */
+    private fun encode(codePoint: Int): String {
+        return codePoint.toString(ENCODING_RADIX).padStart(ENCODED_CODE_POINT_LENGTH, '0')
+    }
+}
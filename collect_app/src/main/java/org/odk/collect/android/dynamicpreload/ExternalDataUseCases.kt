@@ -2,7 +2,15 @@ package org.odk.collect.android.dynamicpreload
 
 import android.content.res.Resources
 import org.javarosa.core.model.FormDef
+import org.javarosa.core.model.IFormElement
+import org.javarosa.core.model.QuestionDef
+import org.javarosa.xpath.XPathParseTool
+import org.javarosa.xpath.expr.XPathFuncExpr
+import org.javarosa.xpath.expr.XPathStringLiteral
+import org.javarosa.xpath.parser.XPathSyntaxException
+import org.odk.collect.android.dynamicpreload.handler.ExternalDataHandlerSearch
 import java.io.File
+import java.util.Locale
 import java.util.function.Consumer
 import java.util.function.Function
 import java.util.function.Supplier
@@ -16,18 +24,9 @@ object ExternalDataUseCases {
         isCancelled: Supplier<Boolean>,
         progressReporter: Consumer<Function<Resources, String>>
     ) {
-        if (form.extras.get(DynamicPreloadExtra::class.java) == null) {
-            return
-        }
-
-        val csvFiles = mediaDir.listFiles { file ->
-            val lowerCaseName = file.name.lowercase()
-            lowerCaseName.endsWith(".csv") && !lowerCaseName.equals(
-                "itemsets.csv",
-                ignoreCase = true
-            )
-        }
+        val dynamicPreloadExtra = form.extras.get(DynamicPreloadExtra::class.java) ?: return
 
+        val csvFiles = getCsvFiles(mediaDir)
         val externalDataMap: MutableMap<String, File> = HashMap()
 
         if (csvFiles != null) {
@@ -43,9 +42,83 @@ object ExternalDataUseCases {
                     resources.getString(org.odk.collect.strings.R.string.survey_loading_reading_csv_message)
                 }
                 val externalDataReader: ExternalDataReader =
-                    ExternalDataReaderImpl(isCancelled, progressReporter)
+                    ExternalDataReaderImpl(
+                        isCancelled,
+                        progressReporter,
+                        getSearchedColumns(form),
+                        dynamicPreloadExtra.pullDataReferenceColumns
+                    )
                 externalDataReader.doImport(externalDataMap)
             }
         }
     }
+
+    /**
+     * Returns true if the media directory has CSV files that [create] might import. Each one is
+     * only imported again if it has changed since the last import.
+     */
+    @JvmStatic
+    fun hasCsvFiles(mediaDir: File): Boolean {
+        return !getCsvFiles(mediaDir).isNullOrEmpty()
+    }
+
+    private fun getCsvFiles(mediaDir: File): Array<File>? {
+        return mediaDir.listFiles { file ->
+            val lowerCaseName = file.name.lowercase()
+            lowerCaseName.endsWith(".csv") && !lowerCaseName.equals(
+                "itemsets.csv",
+                ignoreCase = true
+            )
+        }
+    }
+
+    /**
+     * Returns the columns that `search()` appearances look for values in (with anything other
+     * than `matches`) for each data set. Only searches that use literal arguments are included.
+     */
+    private fun getSearchedColumns(form: FormDef): Map<String, Set<String>> {
+        val searchedColumns = mutableMapOf<String, MutableSet<String>>()
+
+        forEachQuestion(form) { question ->
+            val search = parseSearch(question.appearanceAttr) ?: return@forEachQuestion
+            if (search.args.size < 4) {
+                return@forEachQuestion
+            }
+
+            val dataSetName = (search.args[0] as? XPathStringLiteral)?.s
+            val searchType = (search.args[1] as? XPathStringLiteral)?.s
+            val columns = (search.args[2] as? XPathStringLiteral)?.s
+
+            if (dataSetName != null && columns != null && searchType != null && !searchType.trim().equals("matches", ignoreCase = true)) {
+                searchedColumns
+                    .getOrPut(dataSetName.lowercase(Locale.US).removeSuffix(".csv")) { mutableSetOf() }
+                    .addAll(ExternalDataUtil.createListOfColumns(columns))
+            }
+        }
+
+        return searchedColumns
+    }
+
+    private fun parseSearch(appearance: String?): XPathFuncExpr? {
+        val matcher = ExternalDataUtil.SEARCH_FUNCTION_REGEX.matcher(appearance?.trim() ?: return null)
+        if (!matcher.find()) {
+            return null
+        }
+
+        return try {
+            (XPathParseTool.parseXPath(matcher.group(0)) as? XPathFuncExpr)?.takeIf {
+                it.id.name.equals(ExternalDataHandlerSearch.HANDLER_NAME, ignoreCase = true)
+            }
+        } catch (e: XPathSyntaxException) {
+            null
+        }
+    }
+
+    private fun forEachQuestion(element: IFormElement, action: (QuestionDef) -> Unit) {
+        if (element is QuestionDef) {
+            action(element)
+        }
+
+        element.children?.forEach { forEachQuestion(it, action) }
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.odk.collect.android.dynamicpreload;
 
+import static org.odk.collect.db.sqlite.SQLiteDatabaseExt.getColumnNames;
 import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLocalizedString;
 
 import android.content.ContentValues;
@@ -42,6 +43,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,18 +66,59 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
     private static final char QUOTE_CHAR = "\"".charAt(0);
     private static final char ESCAPE_CHAR = "\0".charAt(0);
 
+    /**
+     * The number of times each database (by path) has been (re)imported while the app has been
+     * running. This lets callers caching query results tell when they are out of date.
+     */
+    private static final Map<String, Integer> IMPORT_GENERATIONS = new HashMap<>();
+
+    private final String dbPath;
+
     private File dataSetFile;
+    private Collection<String> searchedColumns = Collections.emptyList();
+    private Collection<String> lookupColumns = Collections.emptyList();
     private ExternalDataReader externalDataReader;
     private Supplier<Boolean> isCancelled;
     private Consumer<Function<Resources, String>> progressReporter;
 
     ExternalSQLiteOpenHelper(File dbFile) {
         super(new AltDatabasePathContext(dbFile.getParentFile().getAbsolutePath(), Collect.getInstance()), dbFile.getName(), null, VERSION);
+        this.dbPath = dbFile.getAbsolutePath();
+    }
+
+    /**
+     * Returns a number that changes whenever the data set is reimported.
+     */
+    public int getImportGeneration() {
+        synchronized (IMPORT_GENERATIONS) {
+            Integer generation = IMPORT_GENERATIONS.get(dbPath);
+            return generation != null ? generation : 0;
+        }
+    }
+
+    private void incrementImportGeneration() {
+        synchronized (IMPORT_GENERATIONS) {
+            IMPORT_GENERATIONS.put(dbPath, getImportGeneration() + 1);
+        }
     }
 
     void importFromCSV(File dataSetFile, ExternalDataReader externalDataReader,
                        Supplier<Boolean> isCancelled, Consumer<Function<Resources, String>> progressReporter) {
+        importFromCSV(dataSetFile, Collections.emptyList(), Collections.emptyList(), externalDataReader, isCancelled, progressReporter);
+    }
+
+    /**
+     * @param searchedColumns the (safe) names of columns that are searched with {@code search()}
+     *                        and should be added to the {@link ExternalDataSearchIndex}
+     * @param lookupColumns   the (safe) names of columns that {@code pulldata()} looks rows up by
+     *                        and should be indexed
+     */
+    void importFromCSV(File dataSetFile, Collection<String> searchedColumns, Collection<String> lookupColumns,
+                       ExternalDataReader externalDataReader, Supplier<Boolean> isCancelled,
+                       Consumer<Function<Resources, String>> progressReporter) {
         this.dataSetFile = dataSetFile;
+        this.searchedColumns = searchedColumns;
+        this.lookupColumns = lookupColumns;
         this.externalDataReader = externalDataReader;
         this.isCancelled = isCancelled;
         this.progressReporter = progressReporter;
@@ -103,6 +147,7 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
             if (shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile)) {
                 onCreateNamed(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME);
                 createAndPopulateMetadataTable(db, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile);
+                incrementImportGeneration();
             }
         } catch (Exception e) {
             throw new ExternalDataException(
@@ -262,6 +307,9 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
                     db.execSQL(createIndexCommand);
                 }
 
+                createLookupIndexes(db, tableName, lookupColumns);
+                ExternalDataSearchIndex.update(db, tableName, searchedColumns);
+
                 Timber.w("Read all data from %s", dataSetFile.toString());
                 onProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_completed_message));
             }
@@ -334,6 +382,45 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         return newFileMd5 == null || !newFileMd5.equals(priorImportMd5);
     }
 
+    /**
+     * Adds any missing indexes for {@code searchedColumns} and {@code lookupColumns} to an
+     * existing (already imported) database.
+     */
+    static void updateIndexes(File dbFile, Collection<String> searchedColumns, Collection<String> lookupColumns) {
+        if (searchedColumns.isEmpty() && lookupColumns.isEmpty()) {
+            return;
+        }
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            db.beginTransaction();
+            createLookupIndexes(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, lookupColumns);
+            ExternalDataSearchIndex.update(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, searchedColumns);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            db.close();
+        }
+    }
+
+    /**
+     * Indexes columns that rows are looked up by so that {@code pulldata()} doesn't need to scan
+     * the table. Columns ending in {@code _key} are skipped as they are always indexed on import.
+     */
+    static void createLookupIndexes(SQLiteDatabase db, String tableName, Collection<String> lookupColumns) {
+        List<String> dataColumns = getColumnNames(db, tableName);
+
+        for (String column : lookupColumns) {
+            if (column.endsWith("_key") || !dataColumns.contains(column)) {
+                continue;
+            }
+
+            String indexSQL = "CREATE INDEX IF NOT EXISTS " + column + "_lookup_idx ON " + tableName + " (" + column + ");";
+            Timber.w(indexSQL);
+            db.execSQL(indexSQL);
+        }
+    }
+
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
     }
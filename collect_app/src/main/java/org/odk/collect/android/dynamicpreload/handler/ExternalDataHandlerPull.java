@@ -29,7 +29,11 @@ import org.odk.collect.android.dynamicpreload.ExternalDataUtil;
 import org.odk.collect.android.dynamicpreload.ExternalSQLiteOpenHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -42,6 +46,15 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
 
     public static final String HANDLER_NAME = "pulldata";
 
+    private static final int MAX_MEMOIZED_VALUES = 10000;
+
+    /**
+     * Values already pulled for each data set during this session. Calculations using
+     * {@code pulldata()} are recomputed whenever an answer changes, but the data they look
+     * values up in only changes when it is reimported.
+     */
+    private final Map<String, Memo> memos = new HashMap<>();
+
     public ExternalDataHandlerPull(ExternalDataManager externalDataManager) {
         super(externalDataManager);
     }
@@ -90,6 +103,13 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
                 return "";
             }
 
+            Memo memo = getMemo(dataSetName, sqLiteOpenHelper.getImportGeneration());
+            List<String> memoKey = Arrays.asList(queriedColumn, referenceColumn, referenceValue);
+            String memoizedValue = memo.get(memoKey);
+            if (memoizedValue != null) {
+                return memoizedValue;
+            }
+
             SQLiteDatabase db = sqLiteOpenHelper.getReadableDatabase();
             String[] columns = {ExternalDataUtil.toSafeColumnName(queriedColumn)};
             String selection = ExternalDataUtil.toSafeColumnName(referenceColumn) + "=?";
@@ -97,14 +117,18 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
 
             c = db.query(ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, columns, selection,
                     selectionArgs, null, null, null);
+            String value;
             if (c.getCount() > 0) {
                 c.moveToFirst();
-                return ExternalDataUtil.nullSafe(c.getString(0));
+                value = ExternalDataUtil.nullSafe(c.getString(0));
             } else {
                 Timber.i("Could not find a value in %s where the column %s has the value %s",
                         queriedColumn, referenceColumn, referenceValue);
-                return "";
+                value = "";
             }
+
+            memo.put(memoKey, value);
+            return value;
         } catch (SQLiteException e) {
             Timber.i(e);
             return "";
@@ -114,4 +138,29 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
             }
         }
     }
+
+    private Memo getMemo(String dataSetName, int importGeneration) {
+        Memo memo = memos.get(dataSetName);
+        if (memo == null || memo.importGeneration != importGeneration) {
+            memo = new Memo(importGeneration);
+            memos.put(dataSetName, memo);
+        }
+
+        return memo;
+    }
+
+    private static class Memo extends LinkedHashMap<List<String>, String> {
+
+        private final int importGeneration;
+
+        Memo(int importGeneration) {
+            super(16, 0.75f, true);
+            this.importGeneration = importGeneration;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, String> eldest) {
+            return size() > MAX_MEMOIZED_VALUES;
+        }
+    }
 }
@@ -27,12 +27,14 @@ import org.javarosa.xpath.expr.XPathFuncExpr;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.exception.ExternalDataException;
 import org.odk.collect.android.dynamicpreload.ExternalDataManager;
+import org.odk.collect.android.dynamicpreload.ExternalDataSearchIndex;
 import org.odk.collect.android.dynamicpreload.ExternalDataUtil;
 import org.odk.collect.android.dynamicpreload.ExternalSQLiteOpenHelper;
 import org.odk.collect.android.dynamicpreload.ExternalSelectChoice;
 import org.odk.collect.shared.strings.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -159,18 +161,34 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
             String selection;
             String[] selectionArgs;
 
-            if (searchRows && useFilter) {
-                selection = "( " + createLikeExpression(queriedColumns) + " ) AND "
-                        + ExternalDataUtil.toSafeColumnName(filterColumn) + "=? ";
+            String searchExpression = null;
+            String[] searchArgs = null;
+            if (searchRows) {
+                String matchArgument = getSearchIndexMatchArgument(db, externalDataSearchType,
+                        queriedColumns, queriedValue);
                 String[] likeArgs = externalDataSearchType.constructLikeArguments(queriedValue,
                         queriedColumns.size());
-                selectionArgs = new String[likeArgs.length + 1];
-                System.arraycopy(likeArgs, 0, selectionArgs, 0, likeArgs.length);
+
+                if (matchArgument != null) {
+                    searchExpression = createIndexedLikeExpression(queriedColumns);
+                    searchArgs = new String[queriedColumns.size() + likeArgs.length];
+                    Arrays.fill(searchArgs, 0, queriedColumns.size(), matchArgument);
+                    System.arraycopy(likeArgs, 0, searchArgs, queriedColumns.size(), likeArgs.length);
+                } else {
+                    searchExpression = createLikeExpression(queriedColumns);
+                    searchArgs = likeArgs;
+                }
+            }
+
+            if (searchRows && useFilter) {
+                selection = "( " + searchExpression + " ) AND "
+                        + ExternalDataUtil.toSafeColumnName(filterColumn) + "=? ";
+                selectionArgs = new String[searchArgs.length + 1];
+                System.arraycopy(searchArgs, 0, selectionArgs, 0, searchArgs.length);
                 selectionArgs[selectionArgs.length - 1] = filterValue;
             } else if (searchRows) {
-                selection = createLikeExpression(queriedColumns);
-                selectionArgs = externalDataSearchType.constructLikeArguments(queriedValue,
-                        queriedColumns.size());
+                selection = searchExpression;
+                selectionArgs = searchArgs;
             } else if (useFilter) {
                 selection = ExternalDataUtil.toSafeColumnName(filterColumn) + "=? ";
                 selectionArgs = new String[]{filterValue};
@@ -252,6 +270,45 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
         return sb.toString();
     }
 
+    /**
+     * Returns the argument to use for an {@link ExternalDataSearchIndex} lookup or {@code null} if
+     * the index can't be used for this search (in which case only {@code LIKE} should be used).
+     */
+    private String getSearchIndexMatchArgument(SQLiteDatabase db, ExternalDataSearchType searchType,
+            List<String> queriedColumns, String queriedValue) {
+        if (searchType == ExternalDataSearchType.MATCHES) {
+            return null;
+        }
+
+        String matchArgument = ExternalDataSearchIndex.toMatchArgument(queriedValue);
+        if (matchArgument == null) {
+            return null;
+        }
+
+        Set<String> indexedColumns = ExternalDataSearchIndex.getIndexedColumns(db);
+        return indexedColumns.containsAll(queriedColumns) ? matchArgument : null;
+    }
+
+    /**
+     * Narrows the rows down to the ones the index says could match before applying the
+     * {@code LIKE} expression to them.
+     */
+    protected String createIndexedLikeExpression(List<String> queriedColumns) {
+        StringBuilder sb = new StringBuilder("rowid IN (");
+        for (int i = 0; i < queriedColumns.size(); i++) {
+            if (i > 0) {
+                sb.append(" UNION ");
+            }
+            sb.append("SELECT docid FROM ")
+                    .append(ExternalDataSearchIndex.TABLE_NAME)
+                    .append(" WHERE ")
+                    .append(queriedColumns.get(i))
+                    .append(" MATCH ?");
+        }
+        sb.append(") AND ( ").append(createLikeExpression(queriedColumns)).append(" )");
+        return sb.toString();
+    }
+
     /**
      * So here are examples of labels with one, two, and three columns:
      * <p/>
@@ -44,7 +44,6 @@ import org.jetbrains.annotations.NotNull;
 import org.odk.collect.android.analytics.AnalyticsEvents;
 import org.odk.collect.android.analytics.AnalyticsUtils;
 import org.odk.collect.android.dao.CursorLoaderFactory;
-import org.odk.collect.android.database.forms.DatabaseFormsRepository;
 import org.odk.collect.android.formmanagement.LocalFormUseCases;
 import org.odk.collect.android.injection.DaggerUtils;
 import org.odk.collect.android.itemsets.FastExternalItemsetsRepository;
@@ -249,7 +248,7 @@ public class FormsProvider extends ContentProvider {
     }
 
     private Cursor databaseQuery(String projectId, String[] projection, String selection, String[] selectionArgs, String sortOrder, String groupBy, Map<String, String> projectionMap) {
-        return ((DatabaseFormsRepository) getFormsRepository(projectId)).rawQuery(projectionMap, projection, selection, selectionArgs, sortOrder, groupBy);
+        return formsRepositoryProvider.createDatabaseRepository(projectId).rawQuery(projectionMap, projection, selection, selectionArgs, sortOrder, groupBy);
     }
 
     private void logServerEvent(String projectId, String event) {
@@ -19,25 +19,49 @@ package org.odk.collect.android.fastexternalitemset;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteException;
 
-import org.javarosa.core.model.FormDef;
 import org.javarosa.core.model.SelectChoice;
-import org.javarosa.core.model.condition.EvaluationContext;
-import org.javarosa.core.model.instance.TreeElement;
 import org.javarosa.form.api.FormEntryPrompt;
-import org.javarosa.xpath.XPathNodeset;
-import org.javarosa.xpath.expr.XPathExpression;
 import org.javarosa.xpath.parser.XPathSyntaxException;
 import org.odk.collect.android.javarosawrapper.FormController;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import timber.log.Timber;
 
 public class ItemsetDao {
-    private static final String QUOTATION_MARK = "\"";
+
+    private static final int MAX_QUERIES = 200;
+    private static final int MAX_MEMOIZED_CHOICES = 50;
+
+    /**
+     * Compiled queries for each {@code query} attribute so that they only need to be parsed once.
+     */
+    private static final Map<String, ItemsetQuery> QUERIES = new LinkedHashMap<String, ItemsetQuery>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ItemsetQuery> eldest) {
+            return size() > MAX_QUERIES;
+        }
+    };
+
+    /**
+     * Choices already loaded for each itemset table, selection, language and set of arguments.
+     * Cascading selects reload their choices whenever they're displayed, but the itemsets only
+     * change when an itemsets.csv is reimported (which changes the adapter's generation).
+     */
+    private static final Map<List<String>, List<SelectChoice>> CHOICES = new LinkedHashMap<List<String>, List<SelectChoice>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, List<SelectChoice>> eldest) {
+            return size() > MAX_MEMOIZED_CHOICES;
+        }
+    };
+
+    private static int choicesGeneration = -1;
 
     private final ItemsetDbAdapter adapter;
 
@@ -86,13 +110,15 @@ public class ItemsetDao {
     }
 
     public List<SelectChoice> getItems(FormEntryPrompt formEntryPrompt, XPathParseTool pathParseTool, FormController formController) throws FileNotFoundException, XPathSyntaxException {
-        String nodesetString = getNodesetString(formEntryPrompt);
+        ItemsetQuery query = getQuery(getNodesetString(formEntryPrompt), pathParseTool);
 
-        List<String> arguments = new ArrayList<>();
-        String selectionString = getSelectionStringAndPopulateArguments(getQueryString(nodesetString), arguments);
+        if (formController == null) {
+            Timber.w("Can't instantiate ItemsetWidget with a null FormController.");
+            return null;
+        }
 
-        String[] selectionArgs = getSelectionArgs(arguments, nodesetString, formController, pathParseTool, formEntryPrompt);
-        return selectionArgs == null ? null : getItemsFromDatabase(selectionString, selectionArgs, formController, adapter);
+        String[] selectionArgs = query.evaluateArguments(formController, formEntryPrompt);
+        return selectionArgs == null ? null : getItemsFromDatabase(query.getSelection(), selectionArgs, formController, adapter);
     }
 
     private String getNodesetString(FormEntryPrompt formEntryPrompt) {
@@ -102,174 +128,96 @@ public class ItemsetDao {
         return formEntryPrompt.getQuestion().getAdditionalAttribute(null, "query");
     }
 
-    private String getQueryString(String nodesetStr) {
-        // isolate the string between between the [ ] characters
-        return nodesetStr.substring(nodesetStr.indexOf('[') + 1, nodesetStr.lastIndexOf(']'));
-    }
-
-    private String getSelectionStringAndPopulateArguments(String queryString, List<String> arguments) {
-        StringBuilder selectionString = new StringBuilder();
-        // add the list name as the first argument, which will always be there
-        selectionString.append("list_name=?");
+    private static ItemsetQuery getQuery(String nodesetString, XPathParseTool pathParseTool) throws XPathSyntaxException {
+        synchronized (QUERIES) {
+            ItemsetQuery query = QUERIES.get(nodesetString);
+            if (query == null) {
+                query = ItemsetQuery.compile(nodesetString, pathParseTool);
+                QUERIES.put(nodesetString, query);
+            }
 
-        // check to see if there are any arguments
-        if (queryString.indexOf('=') != -1) {
-            selectionString.append(" and ");
+            return query;
         }
+    }
 
-        // can't just split on 'and' or 'or' because they have different
-        // behavior, so loop through and break them off until we don't have any more
-        // must include the spaces in indexOf so we don't match words like "land"
-        int andIndex;
-        int orIndex = -1;
-
-        while ((andIndex = queryString.indexOf(" and ")) != -1 || (orIndex = queryString.indexOf(" or ")) != -1) {
-            if (andIndex != -1) {
-                String[] pair = queryString
-                        .substring(0, andIndex)
-                        .split("=");
-
-                if (pair.length == 2) {
-                    selectionString
-                            .append(QUOTATION_MARK)
-                            .append(pair[0].trim())
-                            .append(QUOTATION_MARK)
-                            .append("=? and ");
-
-                    arguments
-                            .add(pair[1]
-                                    .trim());
-                }
-                // move string forward to after " and "
-                queryString = queryString.substring(andIndex + 5, queryString.length());
-            } else {
-                String subString = queryString.substring(0, orIndex);
-                String[] pair = subString.split("=");
-
-                if (pair.length == 2) {
-                    selectionString
-                            .append(QUOTATION_MARK)
-                            .append(pair[0].trim())
-                            .append(QUOTATION_MARK)
-                            .append("=? or ");
-                    arguments.add(pair[1].trim());
-                }
-                // move string forward to after " or "
-                queryString = queryString.substring(orIndex + 4, queryString.length());
-            }
+    private List<SelectChoice> getItemsFromDatabase(String selection, String[] selectionArgs, FormController formController, ItemsetDbAdapter adapter) throws FileNotFoundException {
+        File itemsetFile = getItemsetFile(formController.getMediaFolder().getAbsolutePath());
+        if (!itemsetFile.exists()) {
+            throw new FileNotFoundException(itemsetFile.getAbsolutePath());
         }
 
-        // parse the last segment (or only segment if there are no 'and' or 'or' clauses
-        String[] pair = queryString.split("=");
-        if (pair.length == 2) {
-            selectionString
-                    .append(QUOTATION_MARK)
-                    .append(pair[0].trim())
-                    .append(QUOTATION_MARK)
-                    .append("=?");
-            arguments.add(pair[1].trim());
+        // try to get the value associated with the label:lang
+        // string if that doen't exist, then just use label
+        String lang = "";
+        if (formController.getLanguages() != null && formController.getLanguages().length > 0) {
+            lang = formController.getLanguage();
         }
-        return selectionString.toString();
-    }
-
-    @SuppressWarnings("PMD.AvoidThrowingNewInstanceOfSameException")
-    private String[] getSelectionArgs(List<String> arguments, String nodesetStr, FormController formController, XPathParseTool pathParseTool, FormEntryPrompt formEntryPrompt) throws XPathSyntaxException {
-        // +1 is for the list_name
-        String[] selectionArgs = new String[arguments.size() + 1];
 
-        // parse out the list name, between the ''
-        String listName = nodesetStr.substring(nodesetStr.indexOf('\'') + 1, nodesetStr.lastIndexOf('\''));
+        // name of the itemset table for this form
+        String pathHash = ItemsetDbAdapter.getMd5FromString(itemsetFile.getAbsolutePath());
 
-        selectionArgs[0] = listName; // first argument is always listname
+        List<String> memoKey = new ArrayList<>(Arrays.asList(selectionArgs));
+        memoKey.add(0, pathHash);
+        memoKey.add(1, selection);
+        memoKey.add(2, lang);
 
-        if (formController == null) {
-            Timber.w("Can't instantiate ItemsetWidget with a null FormController.");
-            return null;
+        int generation = ItemsetDbAdapter.getGeneration();
+        List<SelectChoice> memoizedItems = getMemoizedItems(memoKey, generation);
+        if (memoizedItems != null) {
+            return new ArrayList<>(memoizedItems);
         }
 
-        // loop through the arguments, evaluate any expressions and build the query string for the DB
-        for (int i = 0; i < arguments.size(); i++) {
-            XPathExpression xpr;
-            try {
-                xpr = pathParseTool.parseXPath(arguments.get(i));
-            } catch (XPathSyntaxException e) {
-                throw new XPathSyntaxException(arguments.get(i));
-            }
+        List<SelectChoice> items = new ArrayList<>();
 
-            if (xpr != null) {
-                FormDef form = formController.getFormDef();
-                TreeElement treeElement = form.getMainInstance().resolveReference(
-                        formEntryPrompt.getIndex().getReference());
-                EvaluationContext ec = new EvaluationContext(form.getEvaluationContext(),
-                        treeElement.getRef());
-                Object value = xpr.eval(form.getMainInstance(), ec);
-
-                if (value == null) {
-                    return null;
-                } else {
-                    if (value instanceof XPathNodeset) {
-                        value = ((XPathNodeset) value).getValAt(0);
-                    }
-                    selectionArgs[i + 1] = value.toString();
+        adapter.open();
+        try {
+            Cursor c = adapter.query(pathHash, selection, selectionArgs);
+            if (c != null) {
+                // apparently you only need the double quotes in the
+                // column name when creating the column with a : included
+                int langCol = c.getColumnIndex("label" + "::" + lang);
+                int labelCol = langCol == -1 ? c.getColumnIndex("label") : langCol;
+                int nameCol = c.getColumnIndex("name");
+
+                c.move(-1);
+                int index = 0;
+                while (c.moveToNext()) {
+                    SelectChoice selectChoice = new SelectChoice(null, c.getString(labelCol), c.getString(nameCol), false);
+                    selectChoice.setIndex(index);
+                    items.add(selectChoice);
+                    index++;
                 }
+                c.close();
             }
-        }
-        return selectionArgs;
-    }
-
-    private List<SelectChoice> getItemsFromDatabase(String selection, String[] selectionArgs, FormController formController, ItemsetDbAdapter adapter) throws FileNotFoundException {
-        List<SelectChoice> items = new ArrayList<>();
 
-        File itemsetFile = getItemsetFile(formController.getMediaFolder().getAbsolutePath());
+            memoizeItems(memoKey, items, generation);
+        } catch (SQLiteException e) {
+            Timber.i(e);
+        } finally {
+            adapter.close();
+        }
 
-        if (itemsetFile.exists()) {
-            adapter.open();
+        return items;
+    }
 
-            // name of the itemset table for this form
-            String pathHash = ItemsetDbAdapter.getMd5FromString(itemsetFile.getAbsolutePath());
-            try {
-                Cursor c = adapter.query(pathHash, selection, selectionArgs);
-                if (c != null) {
-                    c.move(-1);
-                    int index = 0;
-                    while (c.moveToNext()) {
-                        String label;
-                        String val;
-
-                        // try to get the value associated with the label:lang
-                        // string if that doen't exist, then just use label
-                        String lang = "";
-                        if (formController.getLanguages() != null && formController.getLanguages().length > 0) {
-                            lang = formController.getLanguage();
-                        }
+    private static List<SelectChoice> getMemoizedItems(List<String> key, int generation) {
+        synchronized (CHOICES) {
+            if (generation != choicesGeneration) {
+                CHOICES.clear();
+                choicesGeneration = generation;
+            }
 
-                        // apparently you only need the double quotes in the
-                        // column name when creating the column with a : included
-                        String labelLang = "label" + "::" + lang;
-                        int langCol = c.getColumnIndex(labelLang);
-                        if (langCol == -1) {
-                            label = c.getString(c.getColumnIndex("label"));
-                        } else {
-                            label = c.getString(c.getColumnIndex(labelLang));
-                        }
+            return CHOICES.get(key);
+        }
+    }
 
-                        val = c.getString(c.getColumnIndex("name"));
-                        SelectChoice selectChoice = new SelectChoice(null, label, val, false);
-                        selectChoice.setIndex(index);
-                        items.add(selectChoice);
-                        index++;
-                    }
-                    c.close();
-                }
-            } catch (SQLiteException e) {
-                Timber.i(e);
-            } finally {
-                adapter.close();
+    private static void memoizeItems(List<String> key, List<SelectChoice> items, int generation) {
+        synchronized (CHOICES) {
+            // Don't keep items that might have been read from an itemsets table being reimported
+            if (generation == choicesGeneration && generation == ItemsetDbAdapter.getGeneration()) {
+                CHOICES.put(key, new ArrayList<>(items));
             }
-        } else {
-            throw new FileNotFoundException(itemsetFile.getAbsolutePath());
         }
-        return items;
     }
 
     public File getItemsetFile(String mediaFolderPath) {
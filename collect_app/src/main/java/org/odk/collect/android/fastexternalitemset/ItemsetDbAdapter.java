@@ -7,6 +7,7 @@ import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.db.sqlite.AltDatabasePathContext;
@@ -15,15 +16,31 @@ import org.odk.collect.android.storage.StorageSubdirectory;
 import org.odk.collect.shared.PathUtils;
 
 import java.io.Closeable;
+import java.io.File;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import timber.log.Timber;
 
 public class ItemsetDbAdapter implements Closeable {
 
-    private DatabaseHelper dbHelper;
+    /**
+     * Open helpers for each itemsets database. These are shared by all adapters and left open so
+     * that the database doesn't need to be reopened every time a question's choices are loaded.
+     */
+    private static final Map<String, DatabaseHelper> OPEN_HELPERS = new HashMap<>();
+
+    /**
+     * Incremented whenever an itemsets table is created, dropped or deleted so that anything
+     * read from the tables can be discarded (see {@link #getGeneration()}).
+     */
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
     private SQLiteDatabase db;
 
     public static final String DATABASE_NAME = "itemsets.db";
@@ -44,8 +61,8 @@ public class ItemsetDbAdapter implements Closeable {
      * This class helps open, create, and upgrade the database file.
      */
     private static class DatabaseHelper extends SQLiteOpenHelper {
-        DatabaseHelper() {
-            super(new AltDatabasePathContext(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.METADATA), Collect.getInstance()), DATABASE_NAME, null, DATABASE_VERSION);
+        DatabaseHelper(String path) {
+            super(new AltDatabasePathContext(path, Collect.getInstance()), DATABASE_NAME, null, DATABASE_VERSION);
         }
 
         @Override
@@ -85,14 +102,55 @@ public class ItemsetDbAdapter implements Closeable {
      * @throws SQLException if the database could be neither opened or created
      */
     public ItemsetDbAdapter open() throws SQLException {
-        dbHelper = new DatabaseHelper();
-        db = dbHelper.getWritableDatabase();
+        db = getHelper(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.METADATA)).getWritableDatabase();
         return this;
     }
 
+    /**
+     * Doesn't close the underlying database as it is shared with other adapters.
+     */
     @Override
     public void close() {
-        dbHelper.close();
+        db = null;
+    }
+
+    /**
+     * Returns a value that changes whenever the contents of the itemsets tables might have.
+     */
+    public static int getGeneration() {
+        return GENERATION.get();
+    }
+
+    /**
+     * Closes all the shared connections. Only intended for resetting state between tests.
+     */
+    public static synchronized void closeAll() {
+        for (DatabaseHelper helper : OPEN_HELPERS.values()) {
+            helper.close();
+        }
+
+        OPEN_HELPERS.clear();
+        GENERATION.incrementAndGet();
+    }
+
+    private static synchronized DatabaseHelper getHelper(String path) {
+        File databaseFile = new File(path, DATABASE_NAME);
+        String key = databaseFile.getAbsolutePath();
+
+        DatabaseHelper helper = OPEN_HELPERS.get(key);
+        if (helper != null && !databaseFile.exists()) {
+            // The database has been deleted (along with its project) so a new connection is needed
+            helper.close();
+            helper = null;
+            GENERATION.incrementAndGet();
+        }
+
+        if (helper == null) {
+            helper = new DatabaseHelper(path);
+            OPEN_HELPERS.put(key, helper);
+        }
+
+        return helper;
     }
 
     public boolean createTable(String formHash, String pathHash, String[] columns, String path) {
@@ -121,6 +179,7 @@ public class ItemsetDbAdapter implements Closeable {
         String tableCreate = sb.toString();
         Timber.i("create string: %s", tableCreate);
         db.execSQL(tableCreate);
+        GENERATION.incrementAndGet();
 
         ContentValues cv = new ContentValues();
         cv.put(KEY_ITEMSET_HASH, formHash);
@@ -130,26 +189,75 @@ public class ItemsetDbAdapter implements Closeable {
         return true;
     }
 
-    public boolean addRow(String tableName, String[] columns, String[] newRow) {
-        ContentValues cv = new ContentValues();
+    /**
+     * Compiles a statement for inserting rows into the table created by {@link #createTable}. Rows
+     * should be added with {@link #addRow(SQLiteStatement, String[], String[])} and the statement
+     * closed once they all have been.
+     */
+    public SQLiteStatement compileInsert(String pathHash, String[] columns) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
 
-        // rows don't necessarily use all the columns
-        // but a column is guaranteed to exist for a row (or else blow up)
-        for (int i = 0; i < newRow.length; i++) {
+        for (String column : columns) {
+            if (!column.isEmpty()) {
+                if (values.length() > 0) {
+                    names.append(", ");
+                    values.append(", ");
+                }
+
+                names.append('"').append(column).append('"');
+                values.append('?');
+            }
+        }
+
+        return db.compileStatement("INSERT INTO " + DATABASE_TABLE + pathHash + " (" + names + ") VALUES (" + values + ")");
+    }
+
+    public void addRow(SQLiteStatement insert, String[] columns, String[] newRow) {
+        insert.clearBindings();
+
+        // rows don't necessarily use all the columns so any that are missing are left null
+        int index = 1;
+        for (int i = 0; i < columns.length; i++) {
             if (!columns[i].isEmpty()) {
-                cv.put("\"" + columns[i] + "\"", newRow[i]);
+                if (i < newRow.length && newRow[i] != null) {
+                    insert.bindString(index, newRow[i]);
+                }
+
+                index++;
             }
         }
-        db.insert(DATABASE_TABLE + tableName, null, cv);
-        return true;
+
+        insert.executeInsert();
+    }
+
+    /**
+     * Creates the indexes used to query the table once all its rows have been added (which is
+     * quicker than updating the indexes with each row).
+     */
+    public void createIndexes(String pathHash, String[] columns) {
+        // Choices are queried by list and labels by name
+        for (String column : new String[]{"list_name", "name"}) {
+            if (Arrays.asList(columns).contains(column)) {
+                db.execSQL("CREATE INDEX IF NOT EXISTS \"" + DATABASE_TABLE + pathHash + "_" + column + "\" ON "
+                        + DATABASE_TABLE + pathHash + " (\"" + column + "\")");
+            }
+        }
+
+        // Anything read while the rows were being added is incomplete
+        GENERATION.incrementAndGet();
     }
 
     public void beginTransaction() {
-        db.execSQL("BEGIN");
+        db.beginTransaction();
+    }
+
+    public void setTransactionSuccessful() {
+        db.setTransactionSuccessful();
     }
 
-    public void commit() {
-        db.execSQL("COMMIT");
+    public void endTransaction() {
+        db.endTransaction();
     }
 
     public Cursor query(String hash, String selection, String[] selectionArgs) throws SQLException {
@@ -160,6 +268,7 @@ public class ItemsetDbAdapter implements Closeable {
     public void dropTable(String pathHash, String path) {
         // drop the table
         db.execSQL("DROP TABLE IF EXISTS " + DATABASE_TABLE + pathHash);
+        GENERATION.incrementAndGet();
 
         // and remove the entry from the itemsets table
         String where = KEY_PATH + "=?";
@@ -193,6 +302,7 @@ public class ItemsetDbAdapter implements Closeable {
                 c.moveToFirst();
                 String table = getMd5FromString(getAbsoluteFilePath(storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS), c.getString(c.getColumnIndex(KEY_PATH))));
                 db.execSQL("DROP TABLE IF EXISTS " + DATABASE_TABLE + table);
+                GENERATION.incrementAndGet();
             }
             c.close();
         }
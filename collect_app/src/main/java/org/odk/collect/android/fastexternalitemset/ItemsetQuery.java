@@ -0,0 +1,172 @@
+package org.odk.collect.android.fastexternalitemset;
+
+import androidx.annotation.Nullable;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.condition.EvaluationContext;
+import org.javarosa.core.model.instance.TreeElement;
+import org.javarosa.form.api.FormEntryPrompt;
+import org.javarosa.xpath.XPathNodeset;
+import org.javarosa.xpath.expr.XPathExpression;
+import org.javarosa.xpath.parser.XPathSyntaxException;
+import org.odk.collect.android.javarosawrapper.FormController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fast external itemset {@code query} attribute compiled into the selection used to query the
+ * itemsets table and the parsed XPath expressions for its arguments. Queries are compiled once
+ * (see {@link ItemsetDao}) and then only the arguments need to be evaluated each time a
+ * question's choices are loaded.
+ */
+class ItemsetQuery {
+    private static final String QUOTATION_MARK = "\"";
+
+    private final String listName;
+    private final String selection;
+    private final List<XPathExpression> arguments;
+
+    private ItemsetQuery(String listName, String selection, List<XPathExpression> arguments) {
+        this.listName = listName;
+        this.selection = selection;
+        this.arguments = arguments;
+    }
+
+    String getSelection() {
+        return selection;
+    }
+
+    /**
+     * Returns the arguments for {@link #getSelection()} (the list name followed by the value of
+     * each argument expression) or null if any of the expressions evaluate to null.
+     */
+    @Nullable
+    String[] evaluateArguments(FormController formController, FormEntryPrompt formEntryPrompt) {
+        // +1 is for the list_name
+        String[] selectionArgs = new String[arguments.size() + 1];
+        selectionArgs[0] = listName; // first argument is always listname
+
+        if (arguments.isEmpty()) {
+            return selectionArgs;
+        }
+
+        FormDef form = formController.getFormDef();
+        TreeElement treeElement = form.getMainInstance().resolveReference(
+                formEntryPrompt.getIndex().getReference());
+        EvaluationContext ec = new EvaluationContext(form.getEvaluationContext(),
+                treeElement.getRef());
+
+        for (int i = 0; i < arguments.size(); i++) {
+            XPathExpression xpr = arguments.get(i);
+            if (xpr != null) {
+                Object value = xpr.eval(form.getMainInstance(), ec);
+
+                if (value == null) {
+                    return null;
+                } else {
+                    if (value instanceof XPathNodeset) {
+                        value = ((XPathNodeset) value).getValAt(0);
+                    }
+                    selectionArgs[i + 1] = value.toString();
+                }
+            }
+        }
+
+        return selectionArgs;
+    }
+
+    /**
+     * Compiles a query attribute like
+     * {@code instance('cities')/root/item[state=/data/state and county=/data/county]}.
+     */
+    @SuppressWarnings("PMD.AvoidThrowingNewInstanceOfSameException")
+    static ItemsetQuery compile(String nodesetStr, XPathParseTool pathParseTool) throws XPathSyntaxException {
+        // parse out the list name, between the ''
+        String listName = nodesetStr.substring(nodesetStr.indexOf('\'') + 1, nodesetStr.lastIndexOf('\''));
+
+        List<String> argumentStrings = new ArrayList<>();
+        String selection = getSelectionStringAndPopulateArguments(getQueryString(nodesetStr), argumentStrings);
+
+        List<XPathExpression> arguments = new ArrayList<>();
+        for (String argument : argumentStrings) {
+            try {
+                arguments.add(pathParseTool.parseXPath(argument));
+            } catch (XPathSyntaxException e) {
+                throw new XPathSyntaxException(argument);
+            }
+        }
+
+        return new ItemsetQuery(listName, selection, arguments);
+    }
+
+    private static String getQueryString(String nodesetStr) {
+        // isolate the string between between the [ ] characters
+        return nodesetStr.substring(nodesetStr.indexOf('[') + 1, nodesetStr.lastIndexOf(']'));
+    }
+
+    private static String getSelectionStringAndPopulateArguments(String queryString, List<String> arguments) {
+        StringBuilder selectionString = new StringBuilder();
+        // add the list name as the first argument, which will always be there
+        selectionString.append("list_name=?");
+
+        // check to see if there are any arguments
+        if (queryString.indexOf('=') != -1) {
+            selectionString.append(" and ");
+        }
+
+        // can't just split on 'and' or 'or' because they have different
+        // behavior, so loop through and break them off until we don't have any more
+        // must include the spaces in indexOf so we don't match words like "land"
+        int andIndex;
+        int orIndex = -1;
+
+        while ((andIndex = queryString.indexOf(" and ")) != -1 || (orIndex = queryString.indexOf(" or ")) != -1) {
+            if (andIndex != -1) {
+                String[] pair = queryString
+                        .substring(0, andIndex)
+                        .split("=");
+
+                if (pair.length == 2) {
+                    selectionString
+                            .append(QUOTATION_MARK)
+                            .append(pair[0].trim())
+                            .append(QUOTATION_MARK)
+                            .append("=? and ");
+
+                    arguments
+                            .add(pair[1]
+                                    .trim());
+                }
+                // move string forward to after " and "
+                queryString = queryString.substring(andIndex + 5, queryString.length());
+            } else {
+                String subString = queryString.substring(0, orIndex);
+                String[] pair = subString.split("=");
+
+                if (pair.length == 2) {
+                    selectionString
+                            .append(QUOTATION_MARK)
+                            .append(pair[0].trim())
+                            .append(QUOTATION_MARK)
+                            .append("=? or ");
+                    arguments.add(pair[1].trim());
+                }
+                // move string forward to after " or "
+                queryString = queryString.substring(orIndex + 4, queryString.length());
+            }
+        }
+
+        // parse the last segment (or only segment if there are no 'and' or 'or' clauses
+        String[] pair = queryString.split("=");
+        if (pair.length == 2) {
+            selectionString
+                    .append(QUOTATION_MARK)
+                    .append(pair[0].trim())
+                    .append(QUOTATION_MARK)
+                    .append("=?");
+            arguments.add(pair[1].trim());
+        }
+        return selectionString.toString();
+    }
+}
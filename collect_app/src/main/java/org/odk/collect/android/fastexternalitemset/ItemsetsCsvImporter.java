@@ -0,0 +1,161 @@
+package org.odk.collect.android.fastexternalitemset;
+
+import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLocalizedString;
+
+import android.content.res.Resources;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import org.odk.collect.android.application.Collect;
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import timber.log.Timber;
+
+/**
+ * Imports a form's {@code itemsets.csv} into the itemsets database so that its choices can be
+ * queried by {@link ItemsetDao}. The file is only imported if it has changed since it was last
+ * imported, so this is cheap to call every time a form is loaded and can also be called ahead of
+ * time (after the form is downloaded for example).
+ */
+public final class ItemsetsCsvImporter {
+
+    public static final String ITEMSETS_CSV = "itemsets.csv";
+
+    /**
+     * Rows are inserted in transactions of this size so that a large file doesn't end up in one
+     * huge transaction (and journal) but we also don't pay the cost of committing every row.
+     */
+    private static final int ROWS_PER_TRANSACTION = 5000;
+    private static final int ROWS_PER_PROGRESS_UPDATE = 1000;
+
+    private ItemsetsCsvImporter() {
+
+    }
+
+    /**
+     * Imports {@code itemsets.csv} from the form's media directory if it exists and has changed
+     * since it was last imported. If the import is cancelled or fails, anything that has been
+     * imported is dropped so that the file is imported again next time.
+     */
+    public static synchronized void importIfChanged(File formMediaDir, Supplier<Boolean> isCancelled,
+                                                    Consumer<Function<Resources, String>> progressReporter) throws IOException, CsvValidationException {
+        // for itemsets.csv, we only check to see if the itemset file has been
+        // updated
+        File csv = new File(formMediaDir, ITEMSETS_CSV);
+        if (!csv.exists()) {
+            return;
+        }
+
+        String csvmd5 = Md5.getMd5Hash(csv);
+        String pathHash = ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath());
+        boolean readFile = false;
+
+        ItemsetDbAdapter ida = new ItemsetDbAdapter();
+        ida.open();
+        try {
+            // get the database entry (if exists) for this itemsets.csv, based
+            // on the path
+            Cursor c = ida.getItemsets(csv.getAbsolutePath());
+            if (c != null) {
+                if (c.getCount() == 1) {
+                    c.moveToFirst(); // should be only one, ever, if any
+                    String oldmd5 = c.getString(c.getColumnIndex(ItemsetDbAdapter.KEY_ITEMSET_HASH));
+                    if (!oldmd5.equals(csvmd5)) {
+                        // the csv has been updated, delete the old entries
+                        ida.dropTable(pathHash, csv.getAbsolutePath());
+                        // and read the new
+                        readFile = true;
+                    }
+                } else {
+                    // new csv, add it
+                    readFile = true;
+                }
+                c.close();
+            }
+
+            if (readFile) {
+                readCSV(ida, csv, csvmd5, pathHash, isCancelled, progressReporter);
+            }
+        } finally {
+            ida.close();
+        }
+    }
+
+    private static void readCSV(ItemsetDbAdapter ida, File csv, String formHash, String pathHash, Supplier<Boolean> isCancelled,
+                                Consumer<Function<Resources, String>> progressReporter) throws IOException, CsvValidationException {
+        onProgress(progressReporter, csv, "");
+
+        boolean imported = false;
+        boolean tableCreated = false;
+
+        try (CSVReader reader = new CSVReader(new BufferedReader(new InputStreamReader(new FileInputStream(csv), StandardCharsets.UTF_8)))) {
+            // first line of csv is column headers
+            String[] columnHeaders = reader.readNext();
+            if (columnHeaders == null) {
+                return;
+            }
+
+            ida.createTable(formHash, pathHash, columnHeaders, csv.getAbsolutePath());
+            tableCreated = true;
+
+            SQLiteStatement insert = ida.compileInsert(pathHash, columnHeaders);
+            try {
+                int rowCount = 0;
+                String[] nextLine = reader.readNext();
+
+                while (nextLine != null && !isCancelled.get()) {
+                    ida.beginTransaction();
+                    try {
+                        int chunkEnd = rowCount + ROWS_PER_TRANSACTION;
+                        while (nextLine != null && rowCount < chunkEnd) {
+                            ida.addRow(insert, columnHeaders, nextLine);
+                            rowCount++;
+
+                            if (rowCount % ROWS_PER_PROGRESS_UPDATE == 0) {
+                                onProgress(progressReporter, csv, " (" + rowCount + " records so far)");
+                            }
+
+                            nextLine = reader.readNext();
+                        }
+
+                        ida.setTransactionSuccessful();
+                    } finally {
+                        ida.endTransaction();
+                    }
+                }
+
+                if (isCancelled.get()) {
+                    Timber.w("Import of %s cancelled", csv);
+                    return;
+                }
+            } finally {
+                insert.close();
+            }
+
+            ida.createIndexes(pathHash, columnHeaders);
+            imported = true;
+        } finally {
+            if (tableCreated && !imported) {
+                ida.dropTable(pathHash, csv.getAbsolutePath());
+            }
+        }
+    }
+
+    private static void onProgress(Consumer<Function<Resources, String>> progressReporter, File csv, String suffix) {
+        String message = getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_progress_message, csv.getName(), suffix);
+        progressReporter.accept(resources -> message);
+    }
+}
@@ -9,4 +9,9 @@ interface FormDefCache {
     @Throws(IOException::class)
     fun writeCache(formDef: FormDef?, formPath: String?)
     fun readCache(formXml: File?): FormDef?
+
+    /**
+     * Returns true if there is a cached [FormDef] for the form without reading it.
+     */
+    fun isCached(formXml: File): Boolean
 }
@@ -10,18 +10,24 @@ import org.javarosa.form.api.FormEntryController
 import org.javarosa.xform.parse.XFormParser
 import org.javarosa.xform.util.XFormUtils
 import org.odk.collect.android.dynamicpreload.ExternalAnswerResolver
+import org.odk.collect.android.dynamicpreload.ExternalDataUseCases
+import org.odk.collect.android.fastexternalitemset.ItemsetsCsvImporter
 import org.odk.collect.android.javarosawrapper.FailedValidationResult
 import org.odk.collect.android.javarosawrapper.FormController
 import org.odk.collect.android.javarosawrapper.JavaRosaFormController
 import org.odk.collect.android.utilities.FileUtils
 import org.odk.collect.android.utilities.FormUtils
+import org.odk.collect.android.utilities.ZipUtils
 import org.odk.collect.entities.LocalEntityUseCases
 import org.odk.collect.entities.storage.EntitiesRepository
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.forms.instances.InstancesRepository
+import timber.log.Timber
 import java.io.File
+import java.util.Locale
+import java.util.function.Supplier
 
 object FormEntryUseCases {
 
@@ -66,6 +72,63 @@ object FormEntryUseCases {
         return createFormDefFromCacheOrXml(xForm, formDefCache)!!
     }
 
+    /**
+     * Does the work that would otherwise happen the first time the form is opened: unzipping its
+     * media, parsing it into the [FormDefCache] and importing its CSV files. Steps that have
+     * already been done are skipped, so this is cheap for forms that have been opened before.
+     *
+     * Parsing the form sets up the global [ReferenceManager] for it so this must not be called
+     * while another form is open.
+     */
+    fun warmUp(
+        form: Form,
+        projectRootDir: File,
+        formDefCache: FormDefCache,
+        isCancelled: Supplier<Boolean>
+    ) {
+        val xForm = File(form.formFilePath)
+        if (!xForm.exists()) {
+            return
+        }
+        val formMediaDir = File(form.formMediaPath)
+
+        unzipMediaFiles(formMediaDir)
+        ItemsetsCsvImporter.importIfChanged(formMediaDir, isCancelled) { }
+
+        if (isCancelled.get()) {
+            return
+        }
+
+        // The CSV files can change without the form changing so they're checked even if the form
+        // has already been parsed (using the cached FormDef). Each CSV is only imported if it
+        // has changed since it was last imported.
+        if (!formDefCache.isCached(xForm) || ExternalDataUseCases.hasCsvFiles(formMediaDir)) {
+            val formDef = loadFormDef(form, projectRootDir, formDefCache)
+            if (formDef != null) {
+                ExternalDataUseCases.create(formDef, formMediaDir, isCancelled) { }
+            }
+        }
+    }
+
+    /**
+     * Unzips any zip files in the form's media directory and then deletes them.
+     */
+    @JvmStatic
+    fun unzipMediaFiles(formMediaDir: File) {
+        val zipFiles = formMediaDir.listFiles { file ->
+            file.name.lowercase(Locale.US).endsWith(".zip")
+        }
+
+        if (zipFiles != null) {
+            ZipUtils.unzip(zipFiles)
+            for (zipFile in zipFiles) {
+                if (!ZipUtils.delete(zipFile)) {
+                    Timber.w("Cannot delete %s. It will be checked for changes next time.", zipFile.toString())
+                }
+            }
+        }
+    }
+
     fun loadBlankForm(
         form: Form,
         formEntryController: FormEntryController,
@@ -73,13 +73,14 @@ public class FormEntryViewModel extends ViewModel implements SelectChoiceLoader
     private final Cancellable formSessionObserver;
     private final FormsRepository formsRepository;
     private final ChangeLocks changeLocks;
+    private final OpenFormsLock openFormsLock;
 
     private final Map<FormIndex, List<SelectChoice>> choices = new HashMap<>();
 
     private final TrackableWorker worker;
 
     @SuppressWarnings("WeakerAccess")
-    public FormEntryViewModel(Supplier<Long> clock, Scheduler scheduler, FormSessionRepository formSessionRepository, String sessionId, FormsRepository formsRepository, ChangeLocks changeLocks) {
+    public FormEntryViewModel(Supplier<Long> clock, Scheduler scheduler, FormSessionRepository formSessionRepository, String sessionId, FormsRepository formsRepository, ChangeLocks changeLocks, OpenFormsLock openFormsLock) {
         this.clock = clock;
         this.formSessionRepository = formSessionRepository;
         worker = new TrackableWorker(scheduler);
@@ -94,6 +95,10 @@ public class FormEntryViewModel extends ViewModel implements SelectChoiceLoader
         });
         this.formsRepository = formsRepository;
         this.changeLocks = changeLocks;
+
+        // The form is open (and the ReferenceManager set up for it) for as long as this exists
+        this.openFormsLock = openFormsLock;
+        openFormsLock.open(this);
     }
 
     public String getSessionId() {
@@ -306,6 +311,7 @@ public class FormEntryViewModel extends ViewModel implements SelectChoiceLoader
     protected void onCleared() {
         this.answerListener = null;
         formSessionObserver.cancel();
+        openFormsLock.close(this);
     }
 
     /**
@@ -364,6 +370,7 @@ public class FormEntryViewModel extends ViewModel implements SelectChoiceLoader
         formSessionRepository.clear(sessionId);
         ReferenceManager.instance().reset();
         changeLocks.getFormsLock().unlock();
+        openFormsLock.close(this);
     }
 
     public void validate() {
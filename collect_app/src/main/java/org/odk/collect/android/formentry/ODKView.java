@@ -27,6 +27,7 @@ import android.graphics.Rect;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.TypedValue;
 import android.view.View;
@@ -91,6 +92,7 @@ import org.odk.collect.settings.SettingsProvider;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -106,15 +108,36 @@ import timber.log.Timber;
  * Contains either one {@link QuestionWidget} if the current form element is a question or
  * multiple {@link QuestionWidget}s if the current form element is a group with the
  * {@code field-list} appearance.
+ * <p>
+ * Creating a widget is expensive (each one inflates its own layout, label and media views) so for
+ * large field-lists only the first few widgets are created when the view is built. The rest are
+ * created in small batches on later frames so that the screen can be drawn straight away. Any
+ * method that needs every widget (like {@link #getWidgets()}) creates the remaining ones first.
  */
 @SuppressLint("ViewConstructor")
 public class ODKView extends SwipeHandler.View implements OnLongClickListener, WidgetValueChangedListener {
 
+    /**
+     * The number of widgets created when the view is built. This should be enough to fill the
+     * screen for most forms.
+     */
+    private static final int INITIAL_WIDGET_COUNT = 8;
+
+    /**
+     * How long each frame can spend creating the remaining widgets.
+     */
+    private static final long WIDGET_BATCH_BUDGET_MS = 8;
+
     private final LinearLayout widgetsList;
     private final LinearLayout.LayoutParams layout;
     private final ArrayList<QuestionWidget> widgets;
+    private final ArrayDeque<FormEntryPrompt> pendingQuestions = new ArrayDeque<>();
+    private final Runnable createPendingWidgetsTask = this::createPendingWidgetsBatch;
     private final AudioHelper audioHelper;
 
+    @Nullable
+    private OnFocusChangeListener widgetFocusChangeListener;
+
     private WidgetValueChangedListener widgetValueChangedListener;
 
     @Inject
@@ -208,7 +231,15 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
         setGroupText(groups);
 
         for (FormEntryPrompt question : questionPrompts) {
-            addWidgetForQuestion(question);
+            if (widgets.size() < INITIAL_WIDGET_COUNT) {
+                addWidgetForQuestion(question);
+            } else {
+                pendingQuestions.add(question);
+            }
+        }
+
+        if (!pendingQuestions.isEmpty()) {
+            post(createPendingWidgetsTask);
         }
 
         setupAudioErrors();
@@ -234,7 +265,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
 
         // see if there is an autoplay option.
         // Only execute it during forward swipes through the form
-        if (advancingPage && widgets.size() == 1) {
+        if (advancingPage && widgets.size() == 1 && pendingQuestions.isEmpty()) {
             FormEntryPrompt firstPrompt = widgets.get(0).getFormEntryPrompt();
             Boolean autoplayedAudio = autoplayAudio(firstPrompt);
 
@@ -289,6 +320,8 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      * add it to the end.
      */
     public void addWidgetForQuestion(FormEntryPrompt question, int index) {
+        createPendingWidgets();
+
         if (index > widgets.size() - 1) {
             addWidgetForQuestion(question);
             return;
@@ -316,9 +349,38 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
         qw.setOnLongClickListener(this);
         qw.setValueChangedListener(this);
 
+        if (widgetFocusChangeListener != null) {
+            qw.setOnFocusChangeListener(widgetFocusChangeListener);
+        }
+
         return qw;
     }
 
+    /**
+     * Creates widgets for the pending questions until this frame's budget is used up and then
+     * schedules the next batch.
+     */
+    private void createPendingWidgetsBatch() {
+        long start = SystemClock.uptimeMillis();
+        while (!pendingQuestions.isEmpty() && SystemClock.uptimeMillis() - start < WIDGET_BATCH_BUDGET_MS) {
+            addWidgetForQuestion(pendingQuestions.poll());
+        }
+
+        if (!pendingQuestions.isEmpty()) {
+            post(createPendingWidgetsTask);
+        }
+    }
+
+    /**
+     * Immediately creates widgets for any questions that haven't had them created yet.
+     */
+    private void createPendingWidgets() {
+        removeCallbacks(createPendingWidgetsTask);
+        while (!pendingQuestions.isEmpty()) {
+            addWidgetForQuestion(pendingQuestions.poll());
+        }
+    }
+
     private View getDividerView() {
         View divider = new View(getContext());
         divider.setBackgroundResource(new ThemeUtils(getContext()).getDivider());
@@ -339,6 +401,8 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      * @return a HashMap of answers entered by the user for this set of widgets
      */
     public HashMap<FormIndex, IAnswerData> getAnswers() {
+        createPendingWidgets();
+
         HashMap<FormIndex, IAnswerData> answers = new LinkedHashMap<>();
         for (QuestionWidget q : widgets) {
             /*
@@ -481,6 +545,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     }
 
     public void setFocus(Context context) {
+        // Only the first widget is focused and it is always created straight away
         if (!widgets.isEmpty()) {
             widgets.get(0).setFocus(context);
         }
@@ -496,6 +561,8 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     }
 
     public void scrollToTopOf(@Nullable QuestionWidget qw) {
+        createPendingWidgets();
+
         if (qw != null && widgets.contains(qw)) {
             findViewById(R.id.odk_view_container).scrollTo(0, qw.getTop());
         }
@@ -505,7 +572,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      * Saves answers for the widgets in this view. Called when the widgets are in an intent group.
      */
     public void setDataForFields(Bundle bundle) throws JavaRosaException {
-
+        createPendingWidgets();
 
         if (bundle != null) {
             Set<String> keys = bundle.keySet();
@@ -579,6 +646,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
 
     @Override
     public boolean shouldSuppressFlingGesture() {
+        // Widgets that haven't been created yet aren't on screen so can't be being touched
         for (QuestionWidget q : widgets) {
             if (q.shouldSuppressFlingGesture()) {
                 return true;
@@ -599,7 +667,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     public boolean clearAnswer() {
         // If there's only one widget, clear the answer.
         // If there are more, then force a long-press to clear the answer.
-        if (widgets.size() == 1 && !widgets.get(0).getFormEntryPrompt().isReadOnly()) {
+        if (widgets.size() == 1 && pendingQuestions.isEmpty() && !widgets.get(0).getFormEntryPrompt().isReadOnly()) {
             widgets.get(0).clearAnswer();
             return true;
         } else {
@@ -608,11 +676,13 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     }
 
     public ArrayList<QuestionWidget> getWidgets() {
+        createPendingWidgets();
         return widgets;
     }
 
     @Override
     public void setOnFocusChangeListener(OnFocusChangeListener l) {
+        widgetFocusChangeListener = l;
         for (int i = 0; i < widgets.size(); i++) {
             QuestionWidget qw = widgets.get(i);
             qw.setOnFocusChangeListener(l);
@@ -627,12 +697,15 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     @Override
     public void cancelLongPress() {
         super.cancelLongPress();
+
         for (QuestionWidget qw : widgets) {
             qw.cancelLongPress();
         }
     }
 
     public void setErrorForQuestionWithIndex(FormIndex formIndex, String errorMessage) {
+        createPendingWidgets();
+
         for (QuestionWidget questionWidget : getWidgets()) {
             if (formIndex.equals(questionWidget.getFormEntryPrompt().getIndex())) {
                 questionWidget.displayError(errorMessage);
@@ -652,6 +725,8 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      * Removes the widget and corresponding divider at a particular index.
      */
     public void removeWidgetAt(int index) {
+        createPendingWidgets();
+
         int indexAccountingForDividers = index * 2;
 
         // There may be a first TextView to display the group path. See addGroupText(FormEntryCaption[])
@@ -0,0 +1,76 @@
+package org.odk.collect.android.formentry
+
+import java.util.concurrent.locks.ReentrantLock
+import java.util.function.Supplier
+import kotlin.concurrent.withLock
+
+/**
+ * Keeps track of whether any form is open (from when it starts loading until it is closed) so
+ * that background work that sets up the global `ReferenceManager` for other forms (like warming
+ * up forms) never runs at the same time as form entry.
+ *
+ * A form is opened for an owner (like a view model) so that closing it more than once has no
+ * effect.
+ */
+class OpenFormsLock {
+
+    private val lock = ReentrantLock()
+    private val backgroundWorkFinished = lock.newCondition()
+
+    private val owners = mutableSetOf<Any>()
+    private var isBackgroundWorkRunning = false
+
+    fun open(owner: Any) {
+        lock.withLock {
+            owners.add(owner)
+        }
+    }
+
+    fun close(owner: Any) {
+        lock.withLock {
+            owners.remove(owner)
+        }
+    }
+
+    fun isFormOpen(): Boolean {
+        return lock.withLock {
+            owners.isNotEmpty()
+        }
+    }
+
+    /**
+     * Blocks until background work started with [withNoOpenForms] has finished. Should be called
+     * after [open] and before loading a form.
+     */
+    fun awaitBackgroundWork() {
+        lock.withLock {
+            while (isBackgroundWorkRunning) {
+                backgroundWorkFinished.await()
+            }
+        }
+    }
+
+    /**
+     * Runs [work] if no form is open and returns its result. Returns `null` without running it
+     * if a form is open. [work] is passed a [Supplier] that returns true once a form has been
+     * opened so that it can stop early: the form won't load until it has finished.
+     */
+    fun <T> withNoOpenForms(work: (Supplier<Boolean>) -> T): T? {
+        lock.withLock {
+            if (owners.isNotEmpty() || isBackgroundWorkRunning) {
+                return null
+            }
+
+            isBackgroundWorkRunning = true
+        }
+
+        try {
+            return work(Supplier { isFormOpen() })
+        } finally {
+            lock.withLock {
+                isBackgroundWorkRunning = false
+                backgroundWorkFinished.signalAll()
+            }
+        }
+    }
+}
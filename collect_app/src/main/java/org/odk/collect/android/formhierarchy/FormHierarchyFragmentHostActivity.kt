@@ -6,6 +6,7 @@ import org.odk.collect.android.R
 import org.odk.collect.android.activities.FormEntryViewModelFactory
 import org.odk.collect.android.entities.EntitiesRepositoryProvider
 import org.odk.collect.android.formentry.FormSessionRepository
+import org.odk.collect.android.formentry.OpenFormsLock
 import org.odk.collect.android.formentry.repeats.DeleteRepeatDialogFragment
 import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.instancemanagement.InstancesDataService
@@ -82,6 +83,9 @@ class FormHierarchyFragmentHostActivity : LocalizedActivity() {
     @Inject
     lateinit var changeLockProvider: ChangeLockProvider
 
+    @Inject
+    lateinit var openFormsLock: OpenFormsLock
+
     private val sessionId by lazy { intent.getStringExtra(EXTRA_SESSION_ID)!! }
     private val viewModelFactory by lazy {
         FormEntryViewModelFactory(
@@ -105,7 +109,8 @@ class FormHierarchyFragmentHostActivity : LocalizedActivity() {
             QRCodeCreatorImpl(),
             HtmlPrinter(),
             instancesDataService,
-            changeLockProvider
+            changeLockProvider,
+            openFormsLock
         )
     }
 
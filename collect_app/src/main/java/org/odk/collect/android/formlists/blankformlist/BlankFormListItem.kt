@@ -17,17 +17,22 @@ data class BlankFormListItem(
     val contentUri: Uri
 )
 
-fun Form.toBlankFormListItem(projectId: String, instancesRepository: InstancesRepository) = BlankFormListItem(
+fun Form.toBlankFormListItem(projectId: String, instancesRepository: InstancesRepository) =
+    toBlankFormListItem(projectId, instancesRepository.lastStatusChangeDatesByForm)
+
+/**
+ * Converts a form using dates fetched up front with
+ * [InstancesRepository.getLastStatusChangeDatesByForm] so that converting a list of forms doesn't
+ * need a query for each one.
+ */
+fun Form.toBlankFormListItem(projectId: String, lastStatusChangeDates: Map<Pair<String, String?>, Long>) = BlankFormListItem(
     databaseId = this.dbId,
     formId = this.formId,
     formName = this.displayName,
     formVersion = this.version ?: "",
     geometryPath = this.geometryXpath ?: "",
     dateOfCreation = this.date,
-    dateOfLastUsage = instancesRepository
-        .getAllByFormId(this.formId)
-        .filter { it.formVersion == this.version }
-        .maxByOrNull { it.lastStatusChangeDate }?.lastStatusChangeDate ?: 0L,
+    dateOfLastUsage = lastStatusChangeDates[Pair(this.formId, this.version)] ?: 0L,
     dateOfLastDetectedAttachmentsUpdate = this.lastDetectedAttachmentsUpdateDate,
     contentUri = FormsContract.getUri(projectId, this.dbId)
 )
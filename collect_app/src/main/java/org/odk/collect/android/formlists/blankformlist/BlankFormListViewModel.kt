@@ -34,17 +34,17 @@ class BlankFormListViewModel(
 
     private val _filterText = MutableStateFlow("")
     private val _sortingOrder = MutableStateFlow(getSortOrder())
-    private val filteredForms = formsDataService.getForms(projectId)
-        .combine(_filterText) { forms, filter ->
-            Pair(forms, filter)
-        }.combine(_sortingOrder) { (forms, filter), sort ->
-            Triple(forms, filter, sort)
-        }
 
-    val formsToDisplay: LiveData<List<BlankFormListItem>> =
-        filteredForms.map { (forms, filter, sort) ->
-            filterAndSortForms(forms, sort, filter)
-        }.flowOnBackground(scheduler).asLiveData()
+    /**
+     * List items are only built (which needs the instance dates) when the forms change and only
+     * sorted when the forms or order change, so typing a filter just needs to filter the
+     * already sorted list.
+     */
+    val formsToDisplay: LiveData<List<BlankFormListItem>> = formsDataService.getForms(projectId)
+        .map { forms -> toListItems(forms) }
+        .combine(_sortingOrder) { items, sort -> sortItems(items, sort) }
+        .combine(_filterText) { items, filter -> filterItems(items, filter) }
+        .flowOnBackground(scheduler).asLiveData()
 
     val syncResult: LiveData<String?> = formsDataService.getDiskError(projectId)
     val isLoading: LiveData<Boolean> = formsDataService.isSyncing(projectId)
@@ -117,40 +117,47 @@ class BlankFormListViewModel(
         )
     }
 
-    private fun filterAndSortForms(
-        forms: List<Form>,
-        sort: SortOrder,
-        filter: String
-    ): List<BlankFormListItem> {
-        var newListOfForms = forms
+    private fun toListItems(forms: List<Form>): List<BlankFormListItem> {
+        val lastStatusChangeDates = instancesRepository.lastStatusChangeDatesByForm
+        val items = forms
             .filter {
                 !it.isDeleted
             }.map { form ->
-                form.toBlankFormListItem(projectId, instancesRepository)
+                form.toBlankFormListItem(projectId, lastStatusChangeDates)
             }
 
-        if (!showAllVersions) {
-            newListOfForms = newListOfForms.groupBy {
+        return if (!showAllVersions) {
+            items.groupBy {
                 it.formId
             }.map { (_, itemsWithSameId) ->
                 itemsWithSameId.sortedBy {
                     it.dateOfCreation
                 }.last()
             }
+        } else {
+            items
         }
+    }
 
+    private fun sortItems(items: List<BlankFormListItem>, sort: SortOrder): List<BlankFormListItem> {
         return when (sort) {
-            SortOrder.NAME_ASC -> newListOfForms.sortedBy { it.formName.lowercase() }
-            SortOrder.NAME_DESC -> newListOfForms.sortedByDescending { it.formName.lowercase() }
-            SortOrder.DATE_DESC -> newListOfForms.sortedByDescending {
+            SortOrder.NAME_ASC -> items.sortedBy { it.formName.lowercase() }
+            SortOrder.NAME_DESC -> items.sortedByDescending { it.formName.lowercase() }
+            SortOrder.DATE_DESC -> items.sortedByDescending {
                 it.dateOfLastDetectedAttachmentsUpdate ?: it.dateOfCreation
             }
-            SortOrder.DATE_ASC -> newListOfForms.sortedBy {
+            SortOrder.DATE_ASC -> items.sortedBy {
                 it.dateOfLastDetectedAttachmentsUpdate ?: it.dateOfCreation
             }
-            SortOrder.LAST_SAVED -> newListOfForms.sortedByDescending { it.dateOfLastUsage }
-        }.filter {
-            filter.isBlank() || it.formName.contains(filter, true)
+            SortOrder.LAST_SAVED -> items.sortedByDescending { it.dateOfLastUsage }
+        }
+    }
+
+    private fun filterItems(items: List<BlankFormListItem>, filter: String): List<BlankFormListItem> {
+        return if (filter.isBlank()) {
+            items
+        } else {
+            items.filter { it.formName.contains(filter, true) }
         }
     }
 
@@ -20,6 +20,7 @@ import org.odk.collect.androidshared.ui.SnackbarUtils
 import org.odk.collect.androidshared.ui.SnackbarUtils.SnackbarPresenterObserver
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.lists.RecyclerViewUtils
+import org.odk.collect.lists.RecyclerViewUtils.addOnScrolledNearEndListener
 import org.odk.collect.lists.selects.MultiSelectControlsFragment
 import org.odk.collect.lists.selects.MultiSelectListFragment
 import org.odk.collect.lists.selects.MultiSelectViewModel
@@ -43,7 +44,8 @@ class DeleteSavedFormFragment(
                             instance
                         )
                     }
-            }
+            },
+            savedFormListViewModel::loadAll
         )
     }
 
@@ -62,6 +64,7 @@ class DeleteSavedFormFragment(
                     it.empty.setSubtitle(getString(string.empty_list_of_saved_forms_to_delete_subtitle))
 
                     it.list.addItemDecoration(RecyclerViewUtils.verticalLineDivider(context))
+                    it.list.addOnScrolledNearEndListener { savedFormListViewModel.loadMore() }
                 }
             }
             .build()
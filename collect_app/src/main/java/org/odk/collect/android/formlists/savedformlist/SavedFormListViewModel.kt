@@ -3,16 +3,18 @@ package org.odk.collect.android.formlists.savedformlist
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModel
+import androidx.lifecycle.Observer
 import androidx.lifecycle.asLiveData
+import androidx.lifecycle.map
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.combine
-import kotlinx.coroutines.flow.map
 import org.odk.collect.android.instancemanagement.InstancesDataService
 import org.odk.collect.androidshared.async.TrackableWorker
 import org.odk.collect.androidshared.data.Consumable
 import org.odk.collect.async.Scheduler
 import org.odk.collect.async.flowOnBackground
 import org.odk.collect.forms.instances.Instance
+import org.odk.collect.forms.instances.InstanceSortOrder
 import org.odk.collect.settings.keys.ProjectKeys
 import org.odk.collect.shared.settings.Settings
 
@@ -28,6 +30,7 @@ class SavedFormListViewModel(
     var sortOrder: SortOrder = _sortOrder.value
         set(value) {
             settings.save(ProjectKeys.KEY_SAVED_FORM_SORT_ORDER, value.ordinal)
+            pageLimit.value = PAGE_SIZE
             _sortOrder.value = value
             field = value
         }
@@ -36,21 +39,30 @@ class SavedFormListViewModel(
     var filterText: String = ""
         set(value) {
             field = value
+            pageLimit.value = PAGE_SIZE
             _filterText.value = value
         }
 
-    val formsToDisplay: LiveData<List<Instance>> = instancesDataService.getInstances(projectId)
-        .map { instances -> instances.filter { instance -> instance.deletedDate == null } }
-        .combine(_sortOrder) { instances, order ->
-            when (order) {
-                SortOrder.NAME_DESC -> instances.sortedByDescending { it.displayName.lowercase() }
-                SortOrder.DATE_DESC -> instances.sortedByDescending { it.lastStatusChangeDate }
-                SortOrder.NAME_ASC -> instances.sortedBy { it.displayName.lowercase() }
-                SortOrder.DATE_ASC -> instances.sortedBy { it.lastStatusChangeDate }
-            }
-        }.combine(_filterText) { instances, filter ->
-            instances.filter { it.displayName.contains(filter, ignoreCase = true) }
-        }.flowOnBackground(scheduler).asLiveData()
+    private val pageLimit = MutableStateFlow(PAGE_SIZE)
+    private var loadedPages = LoadedPages(null, SortOrder.NAME_ASC, "", emptyList(), false)
+
+    private val pages: LiveData<LoadedPages> = combine(
+        instancesDataService.getInstances(projectId),
+        _sortOrder,
+        _filterText,
+        pageLimit
+    ) { instances, order, filter, limit ->
+        loadPages(instances, order, filter, limit)
+    }.flowOnBackground(scheduler).asLiveData()
+
+    /**
+     * The instances that have been loaded so far. These are fetched from the repository a page at
+     * a time (already filtered and sorted) and [loadMore] should be called to fetch the next page
+     * when the end of the list is reached.
+     */
+    val formsToDisplay: LiveData<List<Instance>> = pages.map { it.items }
+
+    private val loadAllObservers = mutableListOf<Observer<LoadedPages>>()
 
     private val worker = TrackableWorker(scheduler)
     val isDeleting: LiveData<Boolean> = worker.isWorking
@@ -73,6 +85,90 @@ class SavedFormListViewModel(
         return result
     }
 
+    fun loadMore() {
+        if (formsToDisplay.value?.size == pageLimit.value) {
+            pageLimit.value += PAGE_SIZE
+        }
+    }
+
+    /**
+     * Loads every remaining page for the current order and filter and then calls [onLoaded] once
+     * [formsToDisplay] contains all of them (straight away if it already does).
+     */
+    fun loadAll(onLoaded: () -> Unit) {
+        val observer = object : Observer<LoadedPages> {
+            override fun onChanged(value: LoadedPages) {
+                if (value.isAllLoaded) {
+                    pages.removeObserver(this)
+                    loadAllObservers.remove(this)
+                    onLoaded()
+                }
+            }
+        }
+
+        loadAllObservers.add(observer)
+        pageLimit.value = Int.MAX_VALUE
+        pages.observeForever(observer)
+    }
+
+    override fun onCleared() {
+        loadAllObservers.forEach { pages.removeObserver(it) }
+        loadAllObservers.clear()
+    }
+
+    /**
+     * Loads the first [limit] instances for [order] and [filter], only fetching the pages after the
+     * ones already loaded unless the instances have changed (when the data service emits a new
+     * list) or the order or filter is different. Nothing more is fetched once a page comes back
+     * short.
+     */
+    private fun loadPages(
+        instances: List<Instance>,
+        order: SortOrder,
+        filter: String,
+        limit: Int
+    ): List<Instance> {
+        val loaded = loadedPages
+        val canAppend = loaded.source === instances && loaded.order == order && loaded.filter == filter
+        val items = if (canAppend) {
+            if (limit > loaded.items.size && !loaded.isAllLoaded) {
+                loaded.items + getPage(order, filter, loaded.items.lastOrNull(), limit - loaded.items.size)
+            } else {
+                loaded.items
+            }
+        } else {
+            getPage(order, filter, null, limit)
+        }
+
+        val isAllLoaded = (canAppend && loaded.isAllLoaded) || items.size < limit
+        return LoadedPages(instances, order, filter, items, isAllLoaded).also {
+            loadedPages = it
+        }
+    }
+
+    private fun getPage(order: SortOrder, filter: String, after: Instance?, limit: Int): List<Instance> {
+        val instanceSortOrder = when (order) {
+            SortOrder.NAME_ASC -> InstanceSortOrder.NAME_ASC
+            SortOrder.NAME_DESC -> InstanceSortOrder.NAME_DESC
+            SortOrder.DATE_DESC -> InstanceSortOrder.DATE_DESC
+            SortOrder.DATE_ASC -> InstanceSortOrder.DATE_ASC
+        }
+
+        return instancesDataService.getInstancesPage(projectId, filter, instanceSortOrder, after, limit)
+    }
+
+    private data class LoadedPages(
+        val source: List<Instance>?,
+        val order: SortOrder,
+        val filter: String,
+        val items: List<Instance>,
+        val isAllLoaded: Boolean
+    )
+
+    companion object {
+        const val PAGE_SIZE = 100
+    }
+
     enum class SortOrder {
         NAME_ASC,
         NAME_DESC,
@@ -0,0 +1,96 @@
+package org.odk.collect.android.formmanagement
+
+import org.odk.collect.shared.strings.Md5.getMd5Hash
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Remembers the size and last modified time of form files that have been checked against the
+ * hash stored for them. The forms repository keeps one of these so that it can skip re-hashing
+ * files when only a form's metadata is updated and so that
+ * [LocalFormUseCases.synchronizeWithDisk] can skip hashing files that haven't changed since the
+ * last sync.
+ *
+ * Last modified times can be as coarse as 2 seconds (on FAT formatted storage for example), so a
+ * file could be rewritten with the same size without its last modified time changing if that
+ * happened soon after it was checked. Fingerprints are only trusted for files that had already
+ * not been modified for longer than that when they were checked.
+ */
+class FormFileFingerprints @JvmOverloads constructor(
+    private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+
+    private val fingerprints = ConcurrentHashMap<String, Fingerprint>()
+
+    /**
+     * Returns `true` if [file] still has the content described by [md5Hash]. The file is only
+     * hashed if its size or last modified time have changed since it was last checked.
+     */
+    fun matches(file: File, md5Hash: String?): Boolean {
+        if (md5Hash == null) {
+            return false
+        }
+
+        val path = file.absolutePath
+        val size = file.length()
+        val lastModified = file.lastModified()
+        val fingerprint = fingerprints[path]
+        if (fingerprint != null && fingerprint.isFor(size, lastModified) && fingerprint.md5Hash == md5Hash) {
+            return true
+        }
+
+        return if (file.getMd5Hash() == md5Hash) {
+            fingerprints[path] = Fingerprint(size, lastModified, md5Hash, clock())
+            true
+        } else {
+            fingerprints.remove(path)
+            false
+        }
+    }
+
+    /**
+     * Returns the MD5 hash of [file]. The file is only hashed if its size or last modified time
+     * have changed since it was last checked.
+     */
+    fun getMd5Hash(file: File): String? {
+        val path = file.absolutePath
+        val size = file.length()
+        val lastModified = file.lastModified()
+
+        val fingerprint = fingerprints[path]
+        if (fingerprint != null && fingerprint.isFor(size, lastModified)) {
+            return fingerprint.md5Hash
+        }
+
+        val md5Hash = file.getMd5Hash()
+        if (md5Hash != null) {
+            fingerprints[path] = Fingerprint(size, lastModified, md5Hash, clock())
+        } else {
+            fingerprints.remove(path)
+        }
+
+        return md5Hash
+    }
+
+    fun remove(file: File) {
+        fingerprints.remove(file.absolutePath)
+    }
+
+    private data class Fingerprint(
+        val size: Long,
+        val lastModified: Long,
+        val md5Hash: String,
+        val checkedAt: Long
+    ) {
+
+        fun isFor(size: Long, lastModified: Long): Boolean {
+            return this.size == size &&
+                this.lastModified == lastModified &&
+                checkedAt - lastModified > MODIFIED_TIME_RESOLUTION_MS
+        }
+    }
+
+    companion object {
+        private const val MODIFIED_TIME_RESOLUTION_MS = 2000L
+    }
+}
@@ -3,6 +3,9 @@ package org.odk.collect.android.formmanagement
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.asLiveData
 import kotlinx.coroutines.flow.Flow
+import org.odk.collect.android.backgroundwork.FormUpdateScheduler
+import org.odk.collect.android.formentry.FormEntryUseCases
+import org.odk.collect.android.formentry.OpenFormsLock
 import org.odk.collect.android.formmanagement.download.FormDownloadException
 import org.odk.collect.android.formmanagement.download.ServerFormDownloader
 import org.odk.collect.android.formmanagement.matchexactly.ServerFormsSynchronizer
@@ -10,26 +13,39 @@ import org.odk.collect.android.formmanagement.metadata.FormMetadataParser
 import org.odk.collect.android.notifications.Notifier
 import org.odk.collect.android.projects.ProjectDependencyModule
 import org.odk.collect.android.state.DataKeys
+import org.odk.collect.android.utilities.ExternalizableFormDefCache
 import org.odk.collect.androidshared.data.AppState
 import org.odk.collect.androidshared.data.DataService
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormSourceException
+import org.odk.collect.forms.RepositorySnapshot
 import org.odk.collect.projects.ProjectDependencyFactory
 import org.odk.collect.settings.keys.ProjectKeys
+import timber.log.Timber
 import java.io.File
 import java.util.function.Supplier
 import java.util.stream.Collectors
 
 class FormsDataService(
-    appState: AppState,
+    private val appState: AppState,
     private val notifier: Notifier,
+    private val formUpdateScheduler: FormUpdateScheduler,
     private val projectDependencyModuleFactory: ProjectDependencyFactory<ProjectDependencyModule>,
+    private val openFormsLock: OpenFormsLock,
     private val clock: Supplier<Long>
 ) : DataService(appState) {
 
     private val forms by qualifiedData(DataKeys.FORMS, emptyList<Form>()) { projectId ->
-        val projectDependencies = projectDependencyModuleFactory.create(projectId)
-        projectDependencies.formsRepository.all
+        // Kept in app state so that every instance of the service shares the same snapshot
+        val snapshot = synchronized(appState) {
+            val key = "$projectId:${DataKeys.FORMS_SNAPSHOT}"
+            appState.get<RepositorySnapshot<Form>>(key)
+                ?: RepositorySnapshot<Form>({ it.dbId }).also { appState.set(key, it) }
+        }
+
+        val formsRepository = projectDependencyModuleFactory.create(projectId).formsRepository
+        snapshot.update(formsRepository.changeJournal, formsRepository::getAll, formsRepository::get)
+        snapshot.getItems()
     }
 
     private val syncing by qualifiedData(DataKeys.SYNC_STATUS_SYNCING, false)
@@ -90,6 +106,11 @@ class FormsDataService(
                 ))
             }
         }
+
+        if (results.containsValue(null)) {
+            formUpdateScheduler.scheduleWarmUp(projectId)
+        }
+
         return results
     }
 
@@ -120,6 +141,9 @@ class FormsDataService(
                             )
 
                             notifier.onUpdatesDownloaded(results, projectId)
+                            if (results.containsValue(null)) {
+                                formUpdateScheduler.scheduleWarmUp(projectId)
+                            }
                         } else {
                             notifier.onUpdatesAvailable(updatedForms, projectId)
                         }
@@ -157,6 +181,7 @@ class FormsDataService(
 
                 val exception = try {
                     serverFormsSynchronizer.synchronize()
+                    formUpdateScheduler.scheduleWarmUp(projectId)
                     if (notify) {
                         notifier.onSync(null, projectId)
                     }
@@ -179,6 +204,51 @@ class FormsDataService(
         }
     }
 
+    /**
+     * Prepares each of the project's forms so that it opens quickly the first time (see
+     * [FormEntryUseCases.warmUp]). Forms that can't be prepared are skipped and will show their
+     * errors when they are opened. Preparing a form points the global `ReferenceManager` at its
+     * media so each form is only prepared while no form is open (see [OpenFormsLock]) and while
+     * holding the forms lock. This stops early if [isCancelled] returns true or a form is opened.
+     *
+     * Returns false if a form couldn't be prepared because a form was open or the forms lock
+     * wasn't available so that the work can be tried again later.
+     */
+    fun warmUpForms(projectId: String, isCancelled: () -> Boolean): Boolean {
+        val projectDependencies = projectDependencyModuleFactory.create(projectId)
+        val projectRootDir = File(projectDependencies.rootDir)
+
+        projectDependencies.formsRepository.all
+            .filter { !it.isDeleted }
+            .forEach { form ->
+                if (isCancelled()) {
+                    return true
+                }
+
+                val warmedUp = openFormsLock.withNoOpenForms { isFormOpen ->
+                    projectDependencies.formsLock.withLock { acquiredLock ->
+                        if (acquiredLock) {
+                            try {
+                                FormEntryUseCases.warmUp(form, projectRootDir, ExternalizableFormDefCache()) {
+                                    isCancelled() || isFormOpen.get()
+                                }
+                            } catch (e: Exception) {
+                                Timber.w(e)
+                            }
+                        }
+
+                        acquiredLock && !isFormOpen.get()
+                    }
+                }
+
+                if (warmedUp != true) {
+                    return false
+                }
+            }
+
+        return true
+    }
+
     fun deleteForm(projectId: String, formId: Long) {
         val projectDependencies = projectDependencyModuleFactory.create(projectId)
         LocalFormUseCases.deleteForm(
@@ -234,6 +304,7 @@ private fun serverFormsDetailsFetcher(
 ): ServerFormsDetailsFetcher {
     return ServerFormsDetailsFetcher(
         projectDependencyModule.formsRepository,
-        projectDependencyModule.formSource
+        projectDependencyModule.formSource,
+        projectDependencyModule.entitiesRepository
     )
 }
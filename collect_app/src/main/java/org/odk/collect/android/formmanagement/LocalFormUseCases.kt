@@ -10,15 +10,18 @@ import org.odk.collect.androidshared.utils.Validator
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.instances.InstancesRepository
-import org.odk.collect.shared.strings.Md5.getMd5Hash
 import org.odk.collect.strings.localization.getLocalizedString
 import timber.log.Timber
 import java.io.File
-import java.util.Collections
 import java.util.LinkedList
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 
 object LocalFormUseCases {
 
+    private const val MAX_PARSE_THREADS = 4
+
     private var counter = 0
 
     @JvmStatic
@@ -65,20 +68,18 @@ object LocalFormUseCases {
 
                 // Step 2: quickly run through and figure out what files we need to
                 // parse and update; this is quick, as we only calculate the md5
-                // and see if it has changed.
-                val uriToUpdate: MutableList<IdFile?> = ArrayList()
+                // of files whose size or modification time has changed since the last sync.
+                val uriToUpdate: MutableList<IdFile> = ArrayList()
                 val forms = formsRepository.all
                 for (form in forms) {
                     // For each element in the provider, see if the file already exists
                     val sqlFilename = form.formFilePath
-                    val md5 = form.mD5Hash
                     val sqlFile = File(sqlFilename)
                     if (sqlFile.exists()) {
                         // remove it from the list of forms (we only want forms
                         // we haven't added at the end)
                         formsToAdd.remove(sqlFile)
-                        val md5Computed = sqlFile.getMd5Hash()
-                        if (md5Computed == null || md5 == null || md5Computed != md5) {
+                        if (!formsRepository.isFormFileUnchanged(form)) {
                             // Probably someone overwrite the file on the sdcard
                             // So re-parse it and update it's information
                             val id = form.dbId
@@ -98,59 +99,17 @@ object LocalFormUseCases {
                     formsRepository.delete(id)
                 }
 
-                // Step3: go through uriToUpdate to parse and update each in turn.
-                // Note: buildContentValues calls getMetadataFromFormDefinition which parses the
-                // form XML. This takes time for large forms and/or slow devices.
-                Collections.shuffle(uriToUpdate) // Big win if multiple DiskSyncTasks running
-                for (entry in uriToUpdate) {
-                    val formDefFile = entry!!.file
-                    // Probably someone overwrite the file on the sdcard
-                    // So re-parse it and update it's information
-                    var form: Form
-                    form = try {
-                        parseForm(formDefFile)
-                    } catch (e: IllegalArgumentException) {
-                        errors.append(e.message).append("\r\n")
-                        val badFile = File(
-                            formDefFile.parentFile,
-                            formDefFile.name + ".bad"
-                        )
-                        badFile.delete()
-                        formDefFile.renameTo(badFile)
-                        continue
-                    }
-                    formsRepository.save(
-                        Form.Builder(form)
-                            .dbId(entry.id)
-                            .build()
-                    )
+                // Step 3: parse the changed and newly-discovered files. Parsing each form is
+                // independent and slow for large forms and/or slow devices so they are parsed
+                // concurrently.
+                val filesToParse = uriToUpdate.map { it.file } + formsToAdd.filterNotNull().filterNot {
+                    isAlreadyRecorded(formsRepository, it, instance)
                 }
-                uriToUpdate.clear()
+                val parsedForms = parseForms(filesToParse)
 
-                // Step 4: go through the newly-discovered files in xFormsToAdd and add them.
-                // This is slow because buildContentValues(...) is slow.
-                //
-                Collections.shuffle(formsToAdd) // Big win if multiple DiskSyncTasks running
-                while (!formsToAdd.isEmpty()) {
-                    val formDefFile = formsToAdd.removeAt(0)
-
-                    // Since parsing is so slow, if there are multiple tasks,
-                    // they may have already updated the database.
-                    // Skip this file if that is the case.
-                    if (formsRepository.getOneByPath(formDefFile!!.absolutePath) != null) {
-                        Timber.i(
-                            "[%d] skipping -- definition already recorded: %s",
-                            instance,
-                            formDefFile.absolutePath
-                        )
-                        continue
-                    }
-
-                    // Parse it for the first time...
-                    var form: Form
-                    form = try {
-                        parseForm(formDefFile)
-                    } catch (e: IllegalArgumentException) {
+                val formsToSave = ArrayList<Form>()
+                for ((index, formDefFile) in filesToParse.withIndex()) {
+                    val form = parsedForms[index].getOrElse { e ->
                         errors.append(e.message).append("\r\n")
                         val badFile = File(
                             formDefFile.parentFile,
@@ -158,18 +117,22 @@ object LocalFormUseCases {
                         )
                         badFile.delete()
                         formDefFile.renameTo(badFile)
-                        continue
-                    }
+                        null
+                    } ?: continue
 
-                    // insert into content provider
-                    try {
-                        // insert failures are OK and expected if multiple
-                        // DiskSync scanners are active.
-                        formsRepository.save(form)
-                    } catch (e: SQLException) {
-                        Timber.i("[%d] %s", instance, e.toString())
+                    if (index < uriToUpdate.size) {
+                        formsToSave.add(
+                            Form.Builder(form)
+                                .dbId(uriToUpdate[index].id)
+                                .build()
+                        )
+                    } else if (!isAlreadyRecorded(formsRepository, formDefFile, instance)) {
+                        formsToSave.add(form)
                     }
                 }
+
+                // Step 4: write all the changes to the repository in one go
+                saveForms(formsRepository, formsToSave, instance)
             }
             if (errors.length != 0) {
                 statusMessage = errors.toString()
@@ -185,6 +148,67 @@ object LocalFormUseCases {
         }
     }
 
+    private fun parseForms(formDefFiles: List<File>): List<Result<Form>> {
+        if (formDefFiles.isEmpty()) {
+            return emptyList()
+        }
+
+        val threads = minOf(formDefFiles.size, Runtime.getRuntime().availableProcessors(), MAX_PARSE_THREADS)
+        val executor = Executors.newFixedThreadPool(threads)
+        return try {
+            executor.invokeAll(
+                formDefFiles.map { formDefFile ->
+                    Callable {
+                        try {
+                            Result.success(parseForm(formDefFile))
+                        } catch (e: IllegalArgumentException) {
+                            Result.failure(e)
+                        }
+                    }
+                }
+            ).map {
+                try {
+                    it.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * Since parsing is so slow, if there are multiple syncs running, they may have already
+     * added [formDefFile] to the repository.
+     */
+    private fun isAlreadyRecorded(formsRepository: FormsRepository, formDefFile: File, instance: Int): Boolean {
+        return if (formsRepository.getOneByPath(formDefFile.absolutePath) != null) {
+            Timber.i("[%d] skipping -- definition already recorded: %s", instance, formDefFile.absolutePath)
+            true
+        } else {
+            false
+        }
+    }
+
+    private fun saveForms(formsRepository: FormsRepository, forms: List<Form>, instance: Int) {
+        try {
+            formsRepository.saveAll(forms)
+        } catch (e: SQLException) {
+            Timber.i("[%d] %s", instance, e.toString())
+
+            // Fall back to saving forms one by one so one bad form doesn't prevent the others
+            // from being saved
+            for (form in forms) {
+                try {
+                    formsRepository.save(form)
+                } catch (e: SQLException) {
+                    Timber.i("[%d] %s", instance, e.toString())
+                }
+            }
+        }
+    }
+
     @JvmStatic
     fun filterFormsToAdd(formDefs: Array<File>?, backgroundInstanceId: Int): MutableList<File?> {
         val formsToAdd: MutableList<File?> = LinkedList()
@@ -211,16 +235,16 @@ object LocalFormUseCases {
     }
 
     @Throws(IllegalArgumentException::class)
-    private fun parseForm(formDefFile: File?): Form {
+    private fun parseForm(formDefFile: File): Form {
         // Probably someone overwrite the file on the sdcard
         // So re-parse it and update it's information
         val builder = Form.Builder()
         val formMetadata: FormMetadata = try {
-            FormMetadataParser.readMetadata(formDefFile!!)
+            FormMetadataParser.readMetadata(formDefFile)
         } catch (e: RuntimeException) {
-            throw IllegalArgumentException(formDefFile!!.name + " :: " + e.toString())
+            throw IllegalArgumentException(formDefFile.name + " :: " + e.toString())
         } catch (e: XFormParser.ParseException) {
-            throw IllegalArgumentException(formDefFile!!.name + " :: " + e.toString())
+            throw IllegalArgumentException(formDefFile.name + " :: " + e.toString())
         }
 
         // update date
@@ -234,7 +258,7 @@ object LocalFormUseCases {
                 Collect.getInstance()
                     .getLocalizedString(
                         org.odk.collect.strings.R.string.xform_parse_error,
-                        formDefFile!!.name,
+                        formDefFile.name,
                         "title"
                     )
             )
@@ -247,7 +271,7 @@ object LocalFormUseCases {
                 Collect.getInstance()
                     .getLocalizedString(
                         org.odk.collect.strings.R.string.xform_parse_error,
-                        formDefFile!!.name,
+                        formDefFile.name,
                         "id"
                     )
             )
@@ -264,7 +288,7 @@ object LocalFormUseCases {
                 throw IllegalArgumentException(
                     Collect.getInstance().getLocalizedString(
                         org.odk.collect.strings.R.string.xform_parse_error,
-                        formDefFile!!.name,
+                        formDefFile.name,
                         "submission url"
                     )
                 )
@@ -281,7 +305,7 @@ object LocalFormUseCases {
 
         // Note, the path doesn't change here, but it needs to be included so the
         // update will automatically update the .md5 and the cache path.
-        builder.formFilePath(formDefFile!!.absolutePath)
+        builder.formFilePath(formDefFile.absolutePath)
         builder.formMediaPath(
             FileUtils.constructMediaPath(
                 formDefFile.absolutePath
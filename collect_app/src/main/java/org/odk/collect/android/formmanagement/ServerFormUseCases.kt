@@ -13,8 +13,10 @@ import org.odk.collect.forms.FormSourceException
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.MediaFile
 import org.odk.collect.shared.strings.Md5.getMd5Hash
+import timber.log.Timber
 import java.io.File
 import java.io.IOException
+import java.net.URLEncoder
 
 object ServerFormUseCases {
 
@@ -87,12 +89,30 @@ object ServerFormUseCases {
             val tempMediaFile = File(tempMediaDir, mediaFile.filename)
 
             val existingFile = searchForExistingMediaFile(formsRepository, formToDownload, mediaFile)
+            val existingFileHash = existingFile?.getMd5Hash()
+
+            if (mediaFile.isEntityList && existingFile != null && !existingFileHash.contentEquals(mediaFile.hash)) {
+                val entityListName = getEntityListFromFileName(mediaFile)
+
+                if (LocalEntityUseCases.isListUpToDate(entityListName, mediaFile.hash, entitiesRepository)) {
+                    // The list has already been updated from a delta (for this or another form)
+                    FileUtils.copyFile(existingFile, tempMediaFile)
+                    entitiesDownloaded = true
+                    return@forEachIndexed
+                } else if (downloadEntityListDelta(mediaFile, entityListName, formSource, tempDir, entitiesRepository, stateListener)) {
+                    // Entities are read from the repository so the form can keep its older file
+                    FileUtils.copyFile(existingFile, tempMediaFile)
+                    newAttachmentsDownloaded = true
+                    entitiesDownloaded = true
+                    return@forEachIndexed
+                }
+            }
+
             existingFile.also {
                 if (it != null) {
-                    if (it.getMd5Hash().contentEquals(mediaFile.hash)) {
+                    if (existingFileHash.contentEquals(mediaFile.hash)) {
                         FileUtils.copyFile(it, tempMediaFile)
                     } else {
-                        val existingFileHash = it.getMd5Hash()
                         val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
                         FileUtils.interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
 
@@ -115,7 +135,12 @@ object ServerFormUseCases {
                  */
                 try {
                     val entityListName = getEntityListFromFileName(mediaFile)
-                    LocalEntityUseCases.updateLocalEntitiesFromServer(entityListName, tempMediaFile, entitiesRepository)
+                    LocalEntityUseCases.updateLocalEntitiesFromServer(
+                        entityListName,
+                        tempMediaFile,
+                        entitiesRepository,
+                        EntityListStateListener(stateListener)
+                    )
                     entitiesDownloaded = true
                 } catch (t: Throwable) {
                     throw EntityListUpdateException(t)
@@ -137,7 +162,48 @@ object ServerFormUseCases {
         return MediaFilesDownloadResult(newAttachmentsDownloaded, entitiesDownloaded)
     }
 
-    private fun getEntityListFromFileName(mediaFile: MediaFile) =
+    /**
+     * Updates an entity list from its delta feed (see [MediaFile.deltaUrl]) using the list's current
+     * hash as the version to fetch changes since. Returns false if the list can't be updated this
+     * way (there's no delta feed, the list hasn't been downloaded before or the server can't
+     * provide a delta from its current version) so that the full list should be downloaded instead.
+     */
+    @Throws(IOException::class, InterruptedException::class)
+    private fun downloadEntityListDelta(
+        mediaFile: MediaFile,
+        entityListName: String,
+        formSource: FormSource,
+        tempDir: File,
+        entitiesRepository: EntitiesRepository,
+        stateListener: OngoingWorkListener
+    ): Boolean {
+        val deltaUrl = mediaFile.deltaUrl ?: return false
+        val since = entitiesRepository.getListHash(entityListName) ?: return false
+
+        val delta = File(tempDir, "${mediaFile.filename}.delta")
+        try {
+            val separator = if (deltaUrl.contains("?")) "&" else "?"
+            val file = formSource.fetchMediaFile("$deltaUrl${separator}since=${URLEncoder.encode(since, "UTF-8")}")
+            FileUtils.interuptablyWriteFile(file, delta, tempDir, stateListener)
+        } catch (e: FormSourceException) {
+            Timber.w(e)
+            return false
+        }
+
+        try {
+            return LocalEntityUseCases.updateLocalEntitiesFromServerDelta(
+                entityListName,
+                delta,
+                mediaFile.hash,
+                entitiesRepository
+            )
+        } catch (t: Throwable) {
+            throw EntityListUpdateException(t)
+        }
+    }
+
+    @JvmStatic
+    fun getEntityListFromFileName(mediaFile: MediaFile) =
         mediaFile.filename.substringBefore(".csv")
 
     private fun searchForExistingMediaFile(
@@ -162,3 +228,17 @@ data class MediaFilesDownloadResult(
     val newAttachmentsDownloaded: Boolean,
     val entitiesDownloaded: Boolean
 )
+
+/**
+ * Passes cancellation on to entity list updates without their row progress replacing the media
+ * file progress that [ServerFormUseCases.downloadMediaFiles] reports.
+ */
+private class EntityListStateListener(private val wrapped: OngoingWorkListener) : OngoingWorkListener {
+
+    override fun progressUpdate(progress: Int) {
+        // Ignored
+    }
+
+    override val isCancelled: Boolean
+        get() = wrapped.isCancelled
+}
@@ -18,6 +18,8 @@ package org.odk.collect.android.formmanagement
 import org.odk.collect.android.openrosa.OpenRosaFormSource
 import org.odk.collect.android.utilities.FormUtils
 import org.odk.collect.android.utilities.WebCredentialsUtils
+import org.odk.collect.entities.LocalEntityUseCases
+import org.odk.collect.entities.storage.EntitiesRepository
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormSource
 import org.odk.collect.forms.FormSourceException
@@ -31,9 +33,10 @@ import java.io.File
 /**
  * Open to allow mocking (used in existing Java tests)
  */
-open class ServerFormsDetailsFetcher(
+open class ServerFormsDetailsFetcher @JvmOverloads constructor(
     private val formsRepository: FormsRepository,
-    private val formSource: FormSource
+    private val formSource: FormSource,
+    private val entitiesRepository: EntitiesRepository? = null
 ) {
     open fun updateUrl(url: String) {
         (formSource as OpenRosaFormSource).updateUrl(url)
@@ -127,6 +130,14 @@ open class ServerFormsDetailsFetcher(
             return true
         }
 
+        // Entity lists updated from a delta keep their older file so check the list instead
+        if (newMediaFile.isEntityList && entitiesRepository != null) {
+            val entityListName = ServerFormUseCases.getEntityListFromFileName(newMediaFile)
+            if (LocalEntityUseCases.isListUpToDate(entityListName, newMediaFile.hash, entitiesRepository)) {
+                return true
+            }
+        }
+
         return localMediaFiles.any {
             newMediaFile.hash == it.getMd5Hash()
         }
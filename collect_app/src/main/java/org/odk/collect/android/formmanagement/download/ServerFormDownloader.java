@@ -19,6 +19,7 @@ import org.odk.collect.forms.FormSourceException;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.shared.files.FileExt;
 import org.odk.collect.shared.strings.Md5;
+import org.odk.collect.shared.tracing.Tracer;
 
 import java.io.File;
 import java.io.IOException;
@@ -73,12 +74,14 @@ public class ServerFormDownloader implements FormDownloader {
         File tempDir = new File(cacheDir, "download-" + UUID.randomUUID().toString());
         tempDir.mkdirs();
 
+        Tracer.TraceRecorder trace = Tracer.getInstance().start("form_download", form.getFormId());
         try {
             OngoingWorkListener stateListener = new ProgressReporterAndSupplierStateListener(progressReporter, isCancelled);
-            processOneForm(form, stateListener, tempDir, formsDirPath, formMetadataParser);
+            processOneForm(form, stateListener, tempDir, formsDirPath, formMetadataParser, trace);
         } catch (FormSourceException e) {
             throw new FormDownloadException.FormSourceError(e);
         } finally {
+            trace.finish();
             FileExt.deleteDirectory(tempDir);
             for (Form formToDelete : preExistingFormsWithSameIdAndVersion) {
                 formsRepository.delete(formToDelete.getDbId());
@@ -86,7 +89,7 @@ public class ServerFormDownloader implements FormDownloader {
         }
     }
 
-    private void processOneForm(ServerFormDetails fd, OngoingWorkListener stateListener, File tempDir, String formsDirPath, FormMetadataParser formMetadataParser) throws FormDownloadException, FormSourceException {
+    private void processOneForm(ServerFormDetails fd, OngoingWorkListener stateListener, File tempDir, String formsDirPath, FormMetadataParser formMetadataParser, Tracer.TraceRecorder trace) throws FormDownloadException, FormSourceException {
         // use a temporary media path until everything is ok.
         String tempMediaPath = new File(tempDir, "media").getAbsolutePath();
         FileResult fileResult = null;
@@ -95,11 +98,22 @@ public class ServerFormDownloader implements FormDownloader {
         try {
             // get the xml file
             // if we've downloaded a duplicate, this gives us the file
-            fileResult = downloadXform(fd.getFormName(), fd.getDownloadUrl(), stateListener, tempDir, formsDirPath);
+            Tracer.TraceRecorder.SpanRecorder xformSpan = trace.startSpan("download_xform");
+            try {
+                fileResult = downloadXform(fd.getFormName(), fd.getDownloadUrl(), stateListener, tempDir, formsDirPath);
+            } finally {
+                xformSpan.end();
+            }
 
             // download media files if there are any
             if (fd.getManifest() != null && !fd.getManifest().getMediaFiles().isEmpty()) {
-                mediaFilesDownloadResult = ServerFormUseCases.downloadMediaFiles(fd, formSource, formsRepository, tempMediaPath, tempDir, entitiesRepository, stateListener);
+                trace.count("media_files", fd.getManifest().getMediaFiles().size());
+                Tracer.TraceRecorder.SpanRecorder mediaSpan = trace.startSpan("download_media");
+                try {
+                    mediaFilesDownloadResult = ServerFormUseCases.downloadMediaFiles(fd, formSource, formsRepository, tempMediaPath, tempDir, entitiesRepository, stateListener);
+                } finally {
+                    mediaSpan.end();
+                }
             } else {
                 mediaFilesDownloadResult = new MediaFilesDownloadResult(false, false);
             }
@@ -124,7 +138,12 @@ public class ServerFormDownloader implements FormDownloader {
                 final long start = System.currentTimeMillis();
                 Timber.i("Parsing document %s", fileResult.file.getAbsolutePath());
 
-                formMetadata = formMetadataParser.readMetadata(fileResult.file);
+                Tracer.TraceRecorder.SpanRecorder parseSpan = trace.startSpan("parse_metadata");
+                try {
+                    formMetadata = formMetadataParser.readMetadata(fileResult.file);
+                } finally {
+                    parseSpan.end();
+                }
 
                 Timber.i("Parse finished in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
             } catch (RuntimeException e) {
@@ -4,8 +4,6 @@ import android.content.res.Resources
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModel
-import org.json.JSONException
-import org.json.JSONObject
 import org.odk.collect.android.R
 import org.odk.collect.android.instancemanagement.getStatusDescription
 import org.odk.collect.android.instancemanagement.showAsEditable
@@ -15,12 +13,16 @@ import org.odk.collect.async.Scheduler
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.instances.Instance
+import org.odk.collect.forms.instances.InstancePoints
 import org.odk.collect.forms.instances.InstancesRepository
+import org.odk.collect.forms.instances.PointBounds
+import org.odk.collect.forms.instances.PointCluster
 import org.odk.collect.geo.selection.IconifiedText
 import org.odk.collect.geo.selection.MappableSelectItem
 import org.odk.collect.geo.selection.SelectionMapData
 import org.odk.collect.geo.selection.Status
 import org.odk.collect.maps.MapPoint
+import org.odk.collect.maps.MapViewport
 import org.odk.collect.settings.SettingsProvider
 import org.odk.collect.settings.keys.ProtectedProjectKeys
 import timber.log.Timber
@@ -43,6 +45,16 @@ class FormMapViewModel(
     private var itemCount = MutableNonNullLiveData(0)
     private val isLoading = MutableNonNullLiveData(false)
 
+    private var jrFormId: String? = null
+    private var isViewportDriven = false
+
+    @Volatile
+    private var viewport: MapViewport? = null
+
+    // Queries can finish out of order so only the results of the latest ones are used
+    private var loadGeneration = 0
+    private var viewportGeneration = 0
+
     override fun getMapTitle(): LiveData<String?> {
         return mapTitle
     }
@@ -65,46 +77,131 @@ class FormMapViewModel(
 
     fun load() {
         isLoading.value = true
+        val loadGeneration = ++this.loadGeneration
+        val loadViewportGeneration = viewportGeneration
 
         scheduler.immediate(
             background = {
                 val form = _form ?: formsRepository.get(formId)!!.also { _form = it }
-                val instances = instancesRepository.getAllByFormId(form.formId)
-                val items = mutableListOf<MappableSelectItem>()
-
-                for (instance in instances) {
-                    if (instance.geometry != null && instance.geometryType == Instance.GEOMETRY_TYPE_POINT) {
-                        try {
-                            val geometry = JSONObject(instance.geometry)
-                            val coordinates = geometry.getJSONArray("coordinates")
-
-                            // In GeoJSON, longitude comes before latitude.
-                            val lon = coordinates.getDouble(0)
-                            val lat = coordinates.getDouble(1)
-
-                            items.add(createItem(instance, lat, lon))
-                        } catch (e: JSONException) {
-                            Timber.w("Invalid JSON in instances table: %s", instance.geometry)
-                        }
+                val count = instancesRepository.getCountByFormId(form.formId)
+
+                // Forms with few enough points just show all of them wherever the map is moved
+                val allPoints = instancesRepository.getWithPointInBounds(form.formId, WORLD, MAX_VISIBLE_ITEMS + 1)
+                if (allPoints.size <= MAX_VISIBLE_ITEMS) {
+                    LoadResult(form.displayName, form.formId, allPoints.mapNotNull { createItem(it) }, count, false)
+                } else {
+                    val viewport = this.viewport?.toPointBounds() ?: instancesRepository.getPointBounds(form.formId)
+                    val items = if (viewport != null) {
+                        getItemsInViewport(form.formId, viewport)
+                    } else {
+                        emptyList()
                     }
-                }
 
-                Triple(form.displayName, items, instances.size)
+                    LoadResult(form.displayName, form.formId, items, count, true)
+                }
             },
             foreground = {
-                mapTitle.value = it.first
-                mappableItems.value = it.second as List<MappableSelectItem>
-                itemCount.value = it.third
+                if (loadGeneration != this.loadGeneration) {
+                    return@immediate
+                }
+
+                jrFormId = it.formId
+                isViewportDriven = it.isViewportDriven
+                mapTitle.value = it.title
+                itemCount.value = it.count
                 isLoading.value = false
+
+                val viewport = this.viewport
+                if (it.isViewportDriven && viewport != null && loadViewportGeneration != viewportGeneration) {
+                    // The items were found for a viewport that has since changed
+                    queryViewport(it.formId, viewport)
+                } else {
+                    viewportGeneration++
+                    mappableItems.value = it.items
+                }
             }
         )
     }
 
-    private fun createItem(
-        instance: Instance,
-        latitude: Double,
-        longitude: Double
-    ): MappableSelectItem {
+    /**
+     * When a form has too many instances to show on the map at once, only the ones in the
+     * viewport are shown and they are clustered if there are still too many. Both are queried
+     * from the repository using the location it stores for each instance.
+     */
+    override fun onViewportChanged(viewport: MapViewport) {
+        this.viewport = viewport
+        viewportGeneration++
+
+        val jrFormId = jrFormId
+        if (jrFormId != null && isViewportDriven) {
+            queryViewport(jrFormId, viewport)
+        }
+    }
+
+    private fun queryViewport(formId: String, viewport: MapViewport) {
+        val queryGeneration = ++viewportGeneration
+        scheduler.immediate(
+            background = { getItemsInViewport(formId, viewport.toPointBounds()) },
+            foreground = {
+                if (queryGeneration == viewportGeneration && it != mappableItems.value) {
+                    mappableItems.value = it
+                }
+            }
+        )
+    }
+
+    private fun getItemsInViewport(formId: String, bounds: PointBounds): List<MappableSelectItem> {
+        val visible = instancesRepository.getWithPointInBounds(formId, bounds, MAX_VISIBLE_ITEMS + 1)
+        return if (visible.size <= MAX_VISIBLE_ITEMS) {
+            visible.mapNotNull { createItem(it) }
+        } else {
+            val width = if (bounds.west <= bounds.east) {
+                bounds.east - bounds.west
+            } else {
+                360 - bounds.west + bounds.east
+            }
+
+            val clusterSize = (width / CLUSTERS_ACROSS_VIEWPORT).coerceAtLeast(MIN_CLUSTER_SIZE_DEGREES)
+            instancesRepository.getPointClusters(formId, bounds, clusterSize).mapNotNull { cluster ->
+                if (cluster.count == 1) {
+                    instancesRepository.get(cluster.instanceId)?.let { createItem(it) }
+                } else {
+                    createClusterItem(cluster)
+                }
+            }
+        }
+    }
+
+    private fun createClusterItem(cluster: PointCluster): MappableSelectItem {
+        // Identifies the cluster's grid cell. Negative IDs can't clash with instance IDs and using
+        // the cell (rather than the cluster's position) means a selected cluster stays selected
+        // when the viewport is moved
+        val cellId = (cluster.row shl 32) or (cluster.column and 0xFFFFFFFFL)
+        val clusterId = cellId xor cluster.size.toRawBits()
+
+        return MappableSelectItem.MappableSelectPoint(
+            -(clusterId and Long.MAX_VALUE) - 1,
+            resources.getQuantityString(
+                org.odk.collect.strings.R.plurals.form_map_cluster,
+                cluster.count,
+                cluster.count
+            ),
+            point = MapPoint(cluster.latitude, cluster.longitude),
+            smallIcon = org.odk.collect.icons.R.drawable.ic_map_point,
+            largeIcon = org.odk.collect.icons.R.drawable.ic_map_point,
+            info = resources.getString(org.odk.collect.strings.R.string.form_map_cluster_info)
+        )
+    }
+
+    private fun createItem(instance: Instance): MappableSelectItem? {
+        val point = InstancePoints.getPoint(instance)
+        if (point == null) {
+            Timber.w("Invalid point geometry in instances table: %s", instance.geometry)
+            return null
+        }
+
+        val latitude = point.latitude
+        val longitude = point.longitude
         val instanceLastStatusChangeDate = instance.getStatusDescription(resources)
 
         return if (instance.deletedDate != null) {
@@ -193,4 +290,23 @@ class FormMapViewModel(
             else -> org.odk.collect.icons.R.drawable.ic_map_point
         }
     }
+
+    private fun MapViewport.toPointBounds(): PointBounds {
+        return PointBounds(south, west, north, east)
+    }
+
+    private data class LoadResult(
+        val title: String?,
+        val formId: String,
+        val items: List<MappableSelectItem>,
+        val count: Int,
+        val isViewportDriven: Boolean
+    )
+
+    companion object {
+        private const val MAX_VISIBLE_ITEMS = 1000
+        private const val CLUSTERS_ACROSS_VIEWPORT = 8
+        private const val MIN_CLUSTER_SIZE_DEGREES = 0.0001
+        private val WORLD = PointBounds(-90.0, -180.0, 90.0, 180.0)
+    }
 }
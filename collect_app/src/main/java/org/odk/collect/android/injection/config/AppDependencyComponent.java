@@ -19,6 +19,7 @@ import org.odk.collect.android.audio.AudioRecordingErrorDialogFragment;
 import org.odk.collect.android.backgroundwork.AutoUpdateTaskSpec;
 import org.odk.collect.android.backgroundwork.SendFormsTaskSpec;
 import org.odk.collect.android.backgroundwork.SyncFormsTaskSpec;
+import org.odk.collect.android.backgroundwork.WarmUpFormsTaskSpec;
 import org.odk.collect.android.configure.qr.QRCodeScannerFragment;
 import org.odk.collect.android.configure.qr.QRCodeTabsActivity;
 import org.odk.collect.android.configure.qr.ShowQRCodeFragment;
@@ -193,6 +194,8 @@ public interface AppDependencyComponent {
 
     void inject(AutoUpdateTaskSpec autoUpdateTaskSpec);
 
+    void inject(WarmUpFormsTaskSpec warmUpFormsTaskSpec);
+
     void inject(ServerAuthDialogFragment serverAuthDialogFragment);
 
     void inject(BasePreferencesFragment basePreferencesFragment);
@@ -46,6 +46,7 @@ import org.odk.collect.android.entities.EntitiesRepositoryProvider;
 import org.odk.collect.android.external.InstancesContract;
 import org.odk.collect.android.formentry.AppStateFormSessionRepository;
 import org.odk.collect.android.formentry.FormSessionRepository;
+import org.odk.collect.android.formentry.OpenFormsLock;
 import org.odk.collect.android.formentry.media.AudioHelperFactory;
 import org.odk.collect.android.formentry.media.ScreenContextAudioHelperFactory;
 import org.odk.collect.android.formlists.blankformlist.BlankFormListViewModel;
@@ -334,10 +335,10 @@ public class AppDependencyModule {
     }
 
     @Provides
-    public ServerFormsDetailsFetcher providesServerFormDetailsFetcher(FormsRepositoryProvider formsRepositoryProvider, FormSourceProvider formSourceProvider, ProjectsDataService projectsDataService) {
+    public ServerFormsDetailsFetcher providesServerFormDetailsFetcher(FormsRepositoryProvider formsRepositoryProvider, FormSourceProvider formSourceProvider, EntitiesRepositoryProvider entitiesRepositoryProvider, ProjectsDataService projectsDataService) {
         Project.Saved currentProject = projectsDataService.requireCurrentProject();
         FormsRepository formsRepository = formsRepositoryProvider.create(currentProject.getUuid());
-        return new ServerFormsDetailsFetcher(formsRepository, formSourceProvider.create(currentProject.getUuid()));
+        return new ServerFormsDetailsFetcher(formsRepository, formSourceProvider.create(currentProject.getUuid()), entitiesRepositoryProvider.create(currentProject.getUuid()));
     }
 
     @Provides
@@ -351,6 +352,12 @@ public class AppDependencyModule {
         return new ChangeLockProvider();
     }
 
+    @Provides
+    @Singleton
+    public OpenFormsLock providesOpenFormsLock() {
+        return new OpenFormsLock();
+    }
+
     @Provides
     ScreenUtils providesScreenUtils(Context context) {
         return new ScreenUtils(context);
@@ -491,8 +498,8 @@ public class AppDependencyModule {
     }
 
     @Provides
-    public FormsDataService providesFormsUpdater(Application application, Notifier notifier, ProjectDependencyModuleFactory projectDependencyModuleFactory) {
-        return new FormsDataService(getState(application), notifier, projectDependencyModuleFactory, System::currentTimeMillis);
+    public FormsDataService providesFormsUpdater(Application application, Notifier notifier, FormUpdateScheduler formUpdateScheduler, ProjectDependencyModuleFactory projectDependencyModuleFactory, OpenFormsLock openFormsLock) {
+        return new FormsDataService(getState(application), notifier, formUpdateScheduler, projectDependencyModuleFactory, openFormsLock, System::currentTimeMillis);
     }
 
     @Provides
@@ -18,6 +18,8 @@ import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLoc
 
 import android.net.Uri;
 
+import androidx.annotation.Nullable;
+
 import org.apache.commons.io.FileUtils;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.exception.EncryptionException;
@@ -33,25 +35,32 @@ import org.odk.collect.android.utilities.EncryptionUtils;
 import org.odk.collect.android.utilities.FormsRepositoryProvider;
 import org.odk.collect.android.utilities.InstancesRepositoryProvider;
 import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.settings.SettingsProvider;
 import org.odk.collect.settings.keys.ProjectKeys;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import timber.log.Timber;
 
 public class InstanceDiskSynchronizer {
 
+    private static final int MAX_PARSE_THREADS = 4;
+
     private static int counter;
 
     private String currentStatus = "";
@@ -75,7 +84,7 @@ public class InstanceDiskSynchronizer {
         int currentInstance = ++counter;
         Timber.i("[%d] doInBackground begins!", currentInstance);
         try {
-            List<String> instancePaths = new LinkedList<>();
+            List<String> instancePaths = new ArrayList<>();
             File instancesPath = new File(storagePathProvider.getOdkDirPath(StorageSubdirectory.INSTANCES));
             if (instancesPath.exists() && instancesPath.isDirectory()) {
                 File[] instanceFolders = instancesPath.listFiles();
@@ -104,22 +113,28 @@ public class InstanceDiskSynchronizer {
 
                 final boolean instanceSyncFlag = settingsProvider.getUnprotectedSettings().getBoolean(ProjectKeys.KEY_INSTANCE_SYNC);
 
+                // Skip instances that are already stored in repo before doing any parsing
+                Set<String> knownInstancePaths = new HashSet<>();
+                for (Instance instance : instancesRepository.getAll()) {
+                    knownInstancePaths.add(instance.getInstanceFilePath());
+                }
+                instancePaths.removeIf(knownInstancePaths::contains);
+
+                List<InstanceFileMetadata> instancesMetadata = readMetadata(instancePaths);
+                FormsRepository formsRepository = new FormsRepositoryProvider(Collect.getInstance()).create();
+                Map<String, Form> formsCache = new HashMap<>();
+
                 int counter = 0;
-                for (String instancePath : instancePaths) {
-                    if (instancesRepository.getOneByPath(instancePath) != null) {
-                        continue; // Skip instances that are already stored in repo
-                    }
+                for (int i = 0; i < instancePaths.size(); i++) {
+                    String instancePath = instancePaths.get(i);
+                    InstanceFileMetadata instanceMetadata = instancesMetadata.get(i);
 
-                    String instanceFormId = getFormIdFromInstance(instancePath);
                     // only process if we can find the id from the instance file
-                    if (instanceFormId != null) {
+                    if (instanceMetadata != null && instanceMetadata.getFormId() != null) {
                         try {
-                            // TODO: optimize this by caching the previously found form definition
-                            // TODO: optimize this by caching unavailable form definition to skip
-                            List<Form> forms = new FormsRepositoryProvider(Collect.getInstance()).create().getAllByFormId(instanceFormId);
+                            Form form = getForm(formsRepository, formsCache, instanceMetadata);
 
-                            if (!forms.isEmpty()) {
-                                Form form = forms.get(0);
+                            if (form != null) {
                                 String jrFormId = form.getFormId();
                                 String jrVersion = form.getVersion();
                                 String formName = form.getDisplayName();
@@ -137,7 +152,7 @@ public class InstanceDiskSynchronizer {
                                 );
                                 counter++;
 
-                                encryptInstanceIfNeeded(form, instance);
+                                encryptInstanceIfNeeded(form, instance, instanceMetadata.getInstanceId());
                             }
                         } catch (IOException | EncryptionException e) {
                             Timber.w(e);
@@ -154,48 +169,83 @@ public class InstanceDiskSynchronizer {
         return currentStatus;
     }
 
-    private String getFormIdFromInstance(final String instancePath) {
-        String instanceFormId = null;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    /**
+     * Reads the metadata of each instance file concurrently. The returned list is in the same order
+     * as {@code instancePaths} and contains {@code null} for any file that couldn't be read.
+     */
+    private List<InstanceFileMetadata> readMetadata(List<String> instancePaths) {
+        List<InstanceFileMetadata> instancesMetadata = new ArrayList<>();
+        if (instancePaths.isEmpty()) {
+            return instancesMetadata;
+        }
+
+        List<Callable<InstanceFileMetadata>> tasks = new ArrayList<>();
+        for (String instancePath : instancePaths) {
+            tasks.add(() -> readMetadata(instancePath));
+        }
+
+        int threads = Math.min(Math.min(instancePaths.size(), Runtime.getRuntime().availableProcessors()), MAX_PARSE_THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new File(instancePath));
-            Element element = document.getDocumentElement();
-            instanceFormId = element.getAttribute("id");
-        } catch (Exception | Error e) {
-            Timber.w("Unable to read form id from %s", instancePath);
+            for (Future<InstanceFileMetadata> future : executor.invokeAll(tasks)) {
+                instancesMetadata.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        return instanceFormId;
+
+        return instancesMetadata;
     }
 
-    private String getInstanceIdFromInstance(final String instancePath) {
-        String instanceId = null;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    @Nullable
+    private InstanceFileMetadata readMetadata(String instancePath) {
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new File(instancePath));
-            Element element = document.getDocumentElement();
-            instanceId = element.getAttribute("instanceID");
+            return InstanceFileMetadataParser.readMetadata(new File(instancePath));
         } catch (Exception | Error e) {
-            Timber.w("Unable to read form instanceID from %s", instancePath);
+            Timber.w("Unable to read form id from %s", instancePath);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Form getForm(FormsRepository formsRepository, Map<String, Form> formsCache, InstanceFileMetadata instanceMetadata) {
+        String formId = instanceMetadata.getFormId();
+        String version = instanceMetadata.getFormVersion();
+        String key = formId + " " + version;
+
+        if (!formsCache.containsKey(key)) {
+            // Prefer the form version the instance was created with but fall back to any version
+            Form form = formsRepository.getLatestByFormIdAndVersion(formId, version);
+            if (form == null) {
+                List<Form> forms = formsRepository.getAllByFormId(formId);
+                form = forms.isEmpty() ? null : forms.get(0);
+            }
+
+            formsCache.put(key, form);
         }
-        return instanceId;
+
+        return formsCache.get(key);
     }
 
-    private void encryptInstanceIfNeeded(Form form, Instance instance) throws EncryptionException, IOException {
+    private void encryptInstanceIfNeeded(Form form, Instance instance, @Nullable String instanceId) throws EncryptionException, IOException {
         if (instance != null) {
             if (shouldInstanceBeEncrypted(form)) {
-                encryptInstance(instance);
+                encryptInstance(instance, instanceId);
             }
         }
     }
 
-    private void encryptInstance(Instance instance) throws EncryptionException, IOException {
+    private void encryptInstance(Instance instance, @Nullable String instanceId) throws EncryptionException, IOException {
         String instancePath = instance.getInstanceFilePath();
         File instanceXml = new File(instancePath);
         if (!new File(instanceXml.getParentFile(), "submission.xml.enc").exists()) {
             Uri uri = InstancesContract.getUri(projectsDataService.requireCurrentProject().getUuid(), instance.getDbId());
-            InstanceMetadata instanceMetadata = new InstanceMetadata(getInstanceIdFromInstance(instancePath), null, null);
+            InstanceMetadata instanceMetadata = new InstanceMetadata(instanceId, null, null);
             EncryptionUtils.EncryptedFormInformation formInfo = EncryptionUtils.getEncryptedFormInformation(uri, instanceMetadata);
 
             if (formInfo != null) {
@@ -0,0 +1,55 @@
+package org.odk.collect.android.instancemanagement
+
+import org.kxml2.io.KXmlParser
+import org.xmlpull.v1.XmlPullParser
+import java.io.File
+
+data class InstanceFileMetadata(
+    val formId: String?,
+    val formVersion: String?,
+    val instanceId: String?
+)
+
+/**
+ * Reads the form id and version (from the root element) and the instance ID (from
+ * `meta/instanceID`) of an instance file. Uses a pull parser and stops as soon as those have been
+ * read so that (potentially large) instance files don't need to be read completely.
+ */
+object InstanceFileMetadataParser {
+
+    @JvmStatic
+    fun readMetadata(instanceFile: File): InstanceFileMetadata {
+        instanceFile.bufferedReader().use { reader ->
+            val parser = KXmlParser()
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true)
+            parser.setInput(reader)
+
+            parser.nextTag()
+            val formId = parser.getAttributeValue(null, "id")
+            val formVersion = parser.getAttributeValue(null, "version")
+
+            var inMeta = false
+            while (true) {
+                when (parser.next()) {
+                    XmlPullParser.START_TAG -> {
+                        if (parser.depth == 2 && parser.name == "meta") {
+                            inMeta = true
+                        } else if (inMeta && parser.depth == 3 && parser.name == "instanceID") {
+                            return InstanceFileMetadata(formId, formVersion, parser.nextText())
+                        }
+                    }
+
+                    XmlPullParser.END_TAG -> {
+                        if (inMeta && parser.depth == 2) {
+                            return InstanceFileMetadata(formId, formVersion, null)
+                        }
+                    }
+
+                    XmlPullParser.END_DOCUMENT -> {
+                        return InstanceFileMetadata(formId, formVersion, null)
+                    }
+                }
+            }
+        }
+    }
+}
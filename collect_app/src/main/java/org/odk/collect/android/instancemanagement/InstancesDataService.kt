@@ -19,13 +19,15 @@ import org.odk.collect.android.utilities.FormsUploadResultInterpreter
 import org.odk.collect.androidshared.data.AppState
 import org.odk.collect.androidshared.data.DataService
 import org.odk.collect.forms.Form
+import org.odk.collect.forms.RepositorySnapshot
 import org.odk.collect.forms.instances.Instance
+import org.odk.collect.forms.instances.InstanceSortOrder
 import org.odk.collect.metadata.PropertyManager
 import org.odk.collect.projects.ProjectDependencyFactory
 import java.io.File
 
 class InstancesDataService(
-    appState: AppState,
+    private val appState: AppState,
     private val instanceSubmitScheduler: InstanceSubmitScheduler,
     private val projectDependencyModuleFactory: ProjectDependencyFactory<ProjectDependencyModule>,
     private val notifier: Notifier,
@@ -35,9 +37,7 @@ class InstancesDataService(
 ) : DataService(appState, onUpdate) {
 
     private val editableCount by qualifiedData(DataKeys.INSTANCES_EDITABLE_COUNT, 0) { projectId ->
-        val projectDependencyModule = projectDependencyModuleFactory.create(projectId)
-        val instancesRepository = projectDependencyModule.instancesRepository
-        instancesRepository.getCountByStatus(
+        getSnapshot(projectId).getCount(
             Instance.STATUS_INCOMPLETE,
             Instance.STATUS_INVALID,
             Instance.STATUS_VALID
@@ -45,27 +45,21 @@ class InstancesDataService(
     }
 
     private val sendableCount by qualifiedData(DataKeys.INSTANCES_SENDABLE_COUNT, 0) { projectId ->
-        val projectDependencyModule = projectDependencyModuleFactory.create(projectId)
-        val instancesRepository = projectDependencyModule.instancesRepository
-        instancesRepository.getCountByStatus(
+        getSnapshot(projectId).getCount(
             Instance.STATUS_COMPLETE,
             Instance.STATUS_SUBMISSION_FAILED
         )
     }
 
     private val sentCount by qualifiedData(DataKeys.INSTANCES_SENT_COUNT, 0) { projectId ->
-        val projectDependencyModule = projectDependencyModuleFactory.create(projectId)
-        val instancesRepository = projectDependencyModule.instancesRepository
-        instancesRepository.getCountByStatus(
+        getSnapshot(projectId).getCount(
             Instance.STATUS_SUBMITTED,
             Instance.STATUS_SUBMISSION_FAILED
         )
     }
 
     private val instances by qualifiedData(DataKeys.INSTANCES, emptyList()) { projectId ->
-        val projectDependencyModule = projectDependencyModuleFactory.create(projectId)
-        val instancesRepository = projectDependencyModule.instancesRepository
-        instancesRepository.all
+        getSnapshot(projectId).getItems()
     }
 
     fun getEditableCount(projectId: String): StateFlow<Int> = editableCount.flow(projectId)
@@ -76,6 +70,21 @@ class InstancesDataService(
         return instances.flow(projectId)
     }
 
+    /**
+     * Returns a page of the project's instances (see `InstancesRepository#getNotDeletedPage`)
+     * straight from the repository so that lists don't need to hold or sort all of them.
+     */
+    fun getInstancesPage(
+        projectId: String,
+        filter: String,
+        sortOrder: InstanceSortOrder,
+        after: Instance?,
+        limit: Int
+    ): List<Instance> {
+        val instancesRepository = projectDependencyModuleFactory.create(projectId).instancesRepository
+        return instancesRepository.getNotDeletedPage(filter, sortOrder, after, limit)
+    }
+
     fun finalizeAllDrafts(projectId: String): FinalizeAllResult {
         val projectDependencyModule = projectDependencyModuleFactory.create(projectId)
         val instancesRepository = projectDependencyModule.instancesRepository
@@ -234,6 +243,26 @@ class InstancesDataService(
         }
     }
 
+    /**
+     * Returns the project's instances, only re-fetching those that have changed since the last
+     * time this was called (see [RepositorySnapshot]).
+     */
+    /**
+     * Snapshots are kept in [AppState] (like the data they feed) rather than in the service so
+     * that every instance of the service shares them and only a first update reloads everything.
+     */
+    private fun getSnapshot(projectId: String): RepositorySnapshot<Instance> {
+        val snapshot = synchronized(appState) {
+            val key = "$projectId:${DataKeys.INSTANCES_SNAPSHOT}"
+            appState.get<RepositorySnapshot<Instance>>(key)
+                ?: RepositorySnapshot<Instance>({ it.dbId }, { it.status }).also { appState.set(key, it) }
+        }
+
+        val instancesRepository = projectDependencyModuleFactory.create(projectId).instancesRepository
+        snapshot.update(instancesRepository.changeJournal, instancesRepository::getAll, instancesRepository::get)
+        return snapshot
+    }
+
     fun instanceFinalized(projectId: String, form: Form) {
         if (form.getAutoSendMode() == FormAutoSendMode.FORCED) {
             instanceSubmitScheduler.scheduleFormAutoSend(projectId)
@@ -1,6 +1,5 @@
 package org.odk.collect.android.instancemanagement.autosend
 
-import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.forms.instances.InstancesRepository
@@ -17,15 +16,21 @@ object InstanceAutoSendFetcher {
             Instance.STATUS_SUBMISSION_FAILED
         )
 
-        val filter: (Form) -> Boolean = if (forcedOnly) {
-            { form -> form.getAutoSendMode() == FormAutoSendMode.FORCED }
-        } else {
-            { form -> form.getAutoSendMode() == FormAutoSendMode.NEUTRAL }
-        }
+        val autoSendMode = if (forcedOnly) FormAutoSendMode.FORCED else FormAutoSendMode.NEUTRAL
+
+        // Instances are grouped by form so that each form is only looked up (and its auto send
+        // mode resolved) once no matter how many instances there are for it
+        val formsToAutoSend = allFinalizedForms
+            .map { Pair(it.formId, it.formVersion) }
+            .distinct()
+            .filter { (formId, formVersion) ->
+                formsRepository.getLatestByFormIdAndVersion(formId, formVersion)
+                    ?.let { form -> form.getAutoSendMode() == autoSendMode } ?: false
+            }
+            .toSet()
 
         return allFinalizedForms.filter {
-            formsRepository.getLatestByFormIdAndVersion(it.formId, it.formVersion)
-                ?.let { form -> filter(form) } ?: false
+            formsToAutoSend.contains(Pair(it.formId, it.formVersion))
         }
     }
 }
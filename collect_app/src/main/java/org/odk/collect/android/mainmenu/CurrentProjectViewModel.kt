@@ -2,6 +2,7 @@ package org.odk.collect.android.mainmenu
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.asLiveData
+import kotlinx.coroutines.flow.combine
 import org.odk.collect.analytics.Analytics
 import org.odk.collect.android.analytics.AnalyticsEvents
 import org.odk.collect.android.projects.ProjectsDataService
@@ -15,7 +16,16 @@ class CurrentProjectViewModel(
         projectsDataService.update()
     }
 
-    val currentProject = projectsDataService.getCurrentProject().asLiveData()
+    /**
+     * The current project, kept up to date as its details are edited (by observing
+     * [ProjectsDataService.getProjects]) rather than needing to be refreshed.
+     */
+    val currentProject = combine(
+        projectsDataService.getCurrentProject(),
+        projectsDataService.getProjects()
+    ) { currentProject, projects ->
+        projects.find { it.uuid == currentProject?.uuid } ?: currentProject
+    }.asLiveData()
 
     fun setCurrentProject(project: Project.Saved) {
         Analytics.log(AnalyticsEvents.SWITCH_PROJECT)
@@ -162,6 +162,7 @@ class OpenRosaResponseParserImpl : OpenRosaResponseParser {
                 var filename: String? = null
                 var hash: String? = null
                 var downloadUrl: String? = null
+                var deltaUrl: String? = null
                 // don't process descriptionUrl
                 val childCount = mediaFileElement.childCount
                 for (j in 0 until childCount) {
@@ -200,6 +201,12 @@ class OpenRosaResponseParserImpl : OpenRosaResponseParser {
                                 downloadUrl = null
                             }
                         }
+                        "deltaUrl" -> {
+                            deltaUrl = XFormParser.getXMLText(child, true)
+                            if (deltaUrl != null && deltaUrl.isEmpty()) {
+                                deltaUrl = null
+                            }
+                        }
                     }
                 }
 
@@ -207,7 +214,8 @@ class OpenRosaResponseParserImpl : OpenRosaResponseParser {
                     return null
                 }
 
-                files.add(MediaFile(filename, hash, downloadUrl, type == "entityList"))
+                val isEntityList = type == "entityList"
+                files.add(MediaFile(filename, hash, downloadUrl, isEntityList, if (isEntityList) deltaUrl else null))
             }
         }
         return files
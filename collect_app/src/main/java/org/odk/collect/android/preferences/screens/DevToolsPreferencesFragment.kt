@@ -1,8 +1,11 @@
 package org.odk.collect.android.preferences.screens
 
+import android.content.Intent
 import android.os.Bundle
 import androidx.preference.Preference
+import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import org.odk.collect.android.R
+import org.odk.collect.shared.tracing.Tracer
 
 class DevToolsPreferencesFragment : BaseProjectPreferencesFragment() {
 
@@ -13,5 +16,34 @@ class DevToolsPreferencesFragment : BaseProjectPreferencesFragment() {
         findPreference<Preference>("crash_app")?.setOnPreferenceClickListener {
             throw RuntimeException("Simulated crash")
         }
+
+        findPreference<Preference>("traces")?.setOnPreferenceClickListener {
+            showTraces()
+            true
+        }
+    }
+
+    private fun showTraces() {
+        val tracer = Tracer.instance
+        val summary = tracer.getTraces().reversed().joinToString("\n\n") { trace ->
+            val spans = trace.spans.joinToString("") { "\n  ${it.name}: ${it.durationMillis}ms" }
+            val counters = trace.counters.entries.joinToString("") { "\n  ${it.key}: ${it.value}" }
+            "${trace.name} ${trace.subject ?: ""}: ${trace.durationMillis}ms$spans$counters"
+        }
+
+        MaterialAlertDialogBuilder(requireActivity())
+            .setTitle(org.odk.collect.strings.R.string.traces)
+            .setMessage(summary.ifEmpty { getString(org.odk.collect.strings.R.string.no_traces) })
+            .setPositiveButton(org.odk.collect.strings.R.string.share) { _, _ ->
+                val shareIntent = Intent(Intent.ACTION_SEND).apply {
+                    type = "text/plain"
+                    putExtra(Intent.EXTRA_TEXT, tracer.export())
+                }
+
+                startActivity(Intent.createChooser(shareIntent, getString(org.odk.collect.strings.R.string.traces)))
+            }
+            .setNeutralButton(org.odk.collect.strings.R.string.clear) { _, _ -> tracer.clear() }
+            .setNegativeButton(org.odk.collect.strings.R.string.close, null)
+            .show()
     }
 }
@@ -9,6 +9,7 @@ import android.view.View.INVISIBLE
 import android.view.View.VISIBLE
 import androidx.fragment.app.DialogFragment
 import androidx.lifecycle.ViewModelProvider
+import androidx.lifecycle.asLiveData
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import org.odk.collect.android.activities.AboutActivity
 import org.odk.collect.android.activities.ActivityUtils
@@ -17,6 +18,7 @@ import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.mainmenu.CurrentProjectViewModel
 import org.odk.collect.android.mainmenu.MainMenuActivity
 import org.odk.collect.android.preferences.screens.ProjectPreferencesActivity
+import org.odk.collect.androidshared.livedata.LiveDataUtils.zip
 import org.odk.collect.androidshared.ui.DialogFragmentUtils
 import org.odk.collect.androidshared.ui.ToastUtils
 import org.odk.collect.projects.Project
@@ -50,13 +52,14 @@ class ProjectSettingsDialog(private val viewModelFactory: ViewModelProvider.Fact
     override fun onCreateDialog(savedInstanceState: Bundle?): Dialog {
         binding = ProjectSettingsDialogLayoutBinding.inflate(LayoutInflater.from(context))
 
-        currentProjectViewModel.currentProject.observe(this) {
-            if (it != null) {
-                binding.currentProject.setupView(it, settingsProvider.getUnprotectedSettings())
+        val projects = projectsRepository.getAllFlow().asLiveData()
+        zip(currentProjectViewModel.currentProject, projects).observe(this) { (currentProject, allProjects) ->
+            if (currentProject != null) {
+                binding.currentProject.setupView(currentProject, settingsProvider.getUnprotectedSettings())
                 binding.currentProject.contentDescription =
-                    getString(org.odk.collect.strings.R.string.using_project, it.name)
+                    getString(org.odk.collect.strings.R.string.using_project, currentProject.name)
 
-                inflateListOfInActiveProjects(requireContext(), it)
+                inflateListOfInActiveProjects(requireContext(), currentProject, allProjects)
             }
         }
 
@@ -87,14 +90,19 @@ class ProjectSettingsDialog(private val viewModelFactory: ViewModelProvider.Fact
             .create()
     }
 
-    private fun inflateListOfInActiveProjects(context: Context, currentProject: Project.Saved) {
-        if (projectsRepository.getAll().none { it.uuid != currentProject.uuid }) {
+    private fun inflateListOfInActiveProjects(
+        context: Context,
+        currentProject: Project.Saved,
+        projects: List<Project.Saved>
+    ) {
+        if (projects.none { it.uuid != currentProject.uuid }) {
             binding.topDivider.visibility = INVISIBLE
         } else {
             binding.topDivider.visibility = VISIBLE
         }
 
-        projectsRepository.getAll().filter {
+        binding.projectList.removeAllViews()
+        projects.filter {
             it.uuid != currentProject.uuid
         }.forEach { project ->
             val projectView = ProjectListItemView(context)
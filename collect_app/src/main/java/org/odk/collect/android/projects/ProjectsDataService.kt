@@ -39,6 +39,13 @@ class ProjectsDataService(
         return currentProject.flow()
     }
 
+    /**
+     * All projects. Updated whenever a project is saved or deleted.
+     */
+    fun getProjects(): StateFlow<List<Project.Saved>> {
+        return projectsRepository.getAllFlow()
+    }
+
     @Deprecated(
         "Most components should be passed project ID/project as a value",
         replaceWith = ReplaceWith("getCurrentProject().value!!")
@@ -6,8 +6,10 @@ object DataKeys {
     const val INSTANCES_SENDABLE_COUNT = "instancesSendableCount"
     const val INSTANCES_SENT_COUNT = "instancesSentCount"
     const val INSTANCES = "instances"
+    const val INSTANCES_SNAPSHOT = "instancesSnapshot"
 
     const val FORMS = "forms"
+    const val FORMS_SNAPSHOT = "formsSnapshot"
     const val SYNC_STATUS_SYNCING = "syncStatusSyncing"
     const val SYNC_STATUS_ERROR = "syncStatusError"
     const val DISK_ERROR = "diskError"
@@ -18,13 +18,12 @@ import static org.odk.collect.android.utilities.FormUtils.setupReferenceManagerF
 import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLocalizedString;
 
 import android.content.Intent;
-import android.database.Cursor;
 import android.database.SQLException;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 
 import org.javarosa.core.model.FormDef;
@@ -44,7 +43,9 @@ import org.odk.collect.android.dynamicpreload.ExternalDataManager;
 import org.odk.collect.android.dynamicpreload.ExternalDataUseCases;
 import org.odk.collect.android.external.FormsContract;
 import org.odk.collect.android.external.InstancesContract;
-import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter;
+import org.odk.collect.android.fastexternalitemset.ItemsetsCsvImporter;
+import org.odk.collect.android.formentry.FormEntryUseCases;
+import org.odk.collect.android.formentry.OpenFormsLock;
 import org.odk.collect.android.javarosawrapper.FormController;
 import org.odk.collect.android.javarosawrapper.JavaRosaFormController;
 import org.odk.collect.android.listeners.FormLoaderListener;
@@ -53,7 +54,6 @@ import org.odk.collect.android.utilities.ExternalizableFormDefCache;
 import org.odk.collect.android.utilities.FileUtils;
 import org.odk.collect.android.utilities.FormsRepositoryProvider;
 import org.odk.collect.android.utilities.InstancesRepositoryProvider;
-import org.odk.collect.android.utilities.ZipUtils;
 import org.odk.collect.async.Scheduler;
 import org.odk.collect.async.SchedulerAsyncTaskMimic;
 import org.odk.collect.entities.javarosa.spec.UnrecognizedEntityVersionException;
@@ -61,15 +61,20 @@ import org.odk.collect.forms.Form;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.savepoints.Savepoint;
 import org.odk.collect.forms.savepoints.SavepointsRepository;
-import org.odk.collect.shared.strings.Md5;
+import org.odk.collect.shared.tracing.Tracer;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import timber.log.Timber;
 
@@ -80,7 +85,9 @@ import timber.log.Timber;
  * @author Yaw Anokwa (yanokwa@gmail.com)
  */
 public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLoaderTask.FECWrapper> {
-    private static final String ITEMSETS_CSV = "itemsets.csv";
+
+    private static final String STAGE_FORM = "form";
+    private static final String STAGE_ITEMSETS = "itemsets";
 
     private FormLoaderListener stateListener;
     private String errorMsg;
@@ -101,6 +108,9 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
     private Instance instance;
     private Savepoint savepoint;
     private final SavepointsRepository savepointsRepository;
+    private final OpenFormsLock openFormsLock;
+    private Tracer.TraceRecorder trace;
+    private final Map<String, String> stageProgress = new LinkedHashMap<>();
 
     @Override
     protected void onPreExecute() {
@@ -143,7 +153,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
 
     FECWrapper data;
 
-    public FormLoaderTask(Uri uri, String uriMimeType, String xpath, String waitingXPath, FormEntryControllerFactory formEntryControllerFactory, Scheduler scheduler, SavepointsRepository savepointsRepository) {
+    public FormLoaderTask(Uri uri, String uriMimeType, String xpath, String waitingXPath, FormEntryControllerFactory formEntryControllerFactory, Scheduler scheduler, SavepointsRepository savepointsRepository, OpenFormsLock openFormsLock) {
         super(scheduler);
         this.uri = uri;
         this.uriMimeType = uriMimeType;
@@ -151,6 +161,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         this.waitingXPath = waitingXPath;
         this.formEntryControllerFactory = formEntryControllerFactory;
         this.savepointsRepository = savepointsRepository;
+        this.openFormsLock = openFormsLock;
     }
 
     /**
@@ -159,6 +170,19 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
      */
     @Override
     protected FECWrapper doInBackground(Void... ignored) {
+        // Background work (like warming up forms) can't set up the ReferenceManager once the form
+        // is open but might still be running
+        openFormsLock.awaitBackgroundWork();
+
+        trace = Tracer.getInstance().start("form_load");
+        try {
+            return loadForm();
+        } finally {
+            trace.finish();
+        }
+    }
+
+    private FECWrapper loadForm() {
         errorMsg = null;
 
         if (uriMimeType != null && uriMimeType.equals(InstancesContract.CONTENT_ITEM_TYPE)) {
@@ -181,6 +205,8 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
             instancePath = savepoint != null ? savepoint.getInstanceFilePath() : null;
         }
 
+        trace.setSubject(form.getFormId());
+
         if (form.getFormFilePath() == null) {
             Timber.e(new Error("formPath is null"));
             errorMsg = "formPath is null, please email support@getodk.org with a description of what you were doing when this happened.";
@@ -190,11 +216,54 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         final File formXml = new File(form.getFormFilePath());
         final File formMediaDir = FileUtils.getFormMediaDir(formXml);
 
-        unzipMediaFiles(formMediaDir);
+        Tracer.TraceRecorder.SpanRecorder unzipSpan = trace.startSpan("unzip_media");
+        FormEntryUseCases.unzipMediaFiles(formMediaDir);
+        unzipSpan.end();
         setupReferenceManagerForForm(ReferenceManager.instance(), formMediaDir);
 
         logFormDetails(formXml, formMediaDir);
 
+        // Importing itemsets only needs the (unzipped) media directory so it runs alongside
+        // creating the FormDef, loading external data and initializing the form rather than after
+        AtomicBoolean stagesCancelled = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> itemsetsWarning = executor.submit(() -> {
+                Tracer.TraceRecorder.SpanRecorder itemsetsSpan = trace.startSpan("itemsets");
+                try {
+                    return processItemSets(formMediaDir, () -> isCancelled() || stagesCancelled.get());
+                } finally {
+                    itemsetsSpan.end();
+                    publishStageProgress(STAGE_ITEMSETS, null);
+                }
+            });
+
+            FECWrapper result = createFormController(formXml, formMediaDir);
+            if (result == null) {
+                return null;
+            }
+
+            warningMsg = itemsetsWarning.get();
+            if (isCancelled()) {
+                return null;
+            }
+
+            data = result;
+            return data;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // Stop any stage that's still running if loading failed or was cancelled
+            stagesCancelled.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    @Nullable
+    private FECWrapper createFormController(File formXml, File formMediaDir) {
         FormDef formDef = null;
         try {
             formDef = createFormDefFromCacheOrXml(form.getFormFilePath(), formXml);
@@ -216,14 +285,17 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
 
         externalDataManager = Collect.getInstance().getExternalDataManager();
 
+        Tracer.TraceRecorder.SpanRecorder externalDataSpan = trace.startSpan("external_data");
         try {
             ExternalDataUseCases.create(formDef, formMediaDir, this::isCancelled, progress -> {
-                publishProgress(progress.apply(Collect.getInstance().getResources()));
+                publishStageProgress(STAGE_FORM, progress.apply(Collect.getInstance().getResources()));
             });
         } catch (Exception e) {
             Timber.e(e, "Exception thrown while loading external data");
             errorMsg = e.getMessage();
             return null;
+        } finally {
+            externalDataSpan.end();
         }
 
         if (isCancelled()) {
@@ -236,6 +308,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
 
         boolean usedSavepoint = false;
 
+        Tracer.TraceRecorder.SpanRecorder initializeSpan = trace.startSpan("initialize_form");
         try {
             Timber.i("Initializing form.");
             final long start = System.currentTimeMillis();
@@ -255,10 +328,10 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
                 errorMsg = e.getMessage();
                 return null;
             }
+        } finally {
+            initializeSpan.end();
         }
 
-        processItemSets(formMediaDir);
-
         final FormController fc = new JavaRosaFormController(formMediaDir, fec, instancePath == null ? null
                 : new File(instancePath));
         if (xpath != null) {
@@ -275,8 +348,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
                 fc.setIndexWaitingForData(idx);
             }
         }
-        data = new FECWrapper(fc, usedSavepoint);
-        return data;
+        return new FECWrapper(fc, usedSavepoint);
     }
 
     private void logFormDetails(File formFile, File formMediaDir) {
@@ -308,38 +380,24 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         }
     }
 
-    private static void unzipMediaFiles(File formMediaDir) {
-        File[] zipFiles = formMediaDir.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File file) {
-                return file.getName().toLowerCase(Locale.US).endsWith(".zip");
-            }
-        });
-
-        if (zipFiles != null) {
-            ZipUtils.unzip(zipFiles);
-            for (File zipFile : zipFiles) {
-                boolean deleted = zipFile.delete();
-                if (!deleted) {
-                    Timber.w("Cannot delete %s. It will be re-unzipped next time. :(", zipFile.toString());
-                }
-            }
-        }
-    }
-
     private FormDef createFormDefFromCacheOrXml(String formPath, File formXml) throws XFormParser.ParseException {
-        publishProgress(
+        publishStageProgress(STAGE_FORM,
                 getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_loading_reading_form_message));
 
+        Tracer.TraceRecorder.SpanRecorder cacheSpan = trace.startSpan("read_form_def_cache");
         final FormDef formDefFromCache = new ExternalizableFormDefCache().readCache(formXml);
+        cacheSpan.end();
         if (formDefFromCache != null) {
+            trace.count("form_def_cache_hit");
             return formDefFromCache;
         }
 
         // no binary, read from xml
         final long start = System.currentTimeMillis();
+        Tracer.TraceRecorder.SpanRecorder parseSpan = trace.startSpan("parse_form");
         String lastSavedSrc = FileUtils.getOrCreateLastSavedSrc(formXml);
         FormDef formDefFromXml = XFormUtils.getFormFromFormXml(formPath, lastSavedSrc);
+        parseSpan.end();
         if (formDefFromXml == null) {
             Timber.w("Error reading XForm file");
             errorMsg = "Error reading XForm file";
@@ -360,42 +418,41 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         return null;
     }
 
-    private void processItemSets(File formMediaDir) {
-        // for itemsets.csv, we only check to see if the itemset file has been
-        // updated
-        final File csv = new File(formMediaDir.getAbsolutePath() + "/" + ITEMSETS_CSV);
-        String csvmd5;
-        if (csv.exists()) {
-            csvmd5 = Md5.getMd5Hash(csv);
-            boolean readFile = false;
-            final ItemsetDbAdapter ida = new ItemsetDbAdapter();
-            ida.open();
-            // get the database entry (if exists) for this itemsets.csv, based
-            // on the path
-            final Cursor c = ida.getItemsets(csv.getAbsolutePath());
-            if (c != null) {
-                if (c.getCount() == 1) {
-                    c.moveToFirst(); // should be only one, ever, if any
-                    final String oldmd5 = c.getString(c.getColumnIndex("hash"));
-                    if (oldmd5.equals(csvmd5)) {
-                        // they're equal, do nothing
-                    } else {
-                        // the csv has been updated, delete the old entries
-                        ida.dropTable(ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()),
-                                csv.getAbsolutePath());
-                        // and read the new
-                        readFile = true;
-                    }
-                } else {
-                    // new csv, add it
-                    readFile = true;
-                }
-                c.close();
-            }
-            ida.close();
-            if (readFile) {
-                readCSV(csv, csvmd5, ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()));
+    /**
+     * Returns a warning to show if the itemsets couldn't be imported.
+     */
+    @Nullable
+    private String processItemSets(File formMediaDir, Supplier<Boolean> isCancelled) {
+        try {
+            ItemsetsCsvImporter.importIfChanged(formMediaDir, isCancelled, progress -> {
+                publishStageProgress(STAGE_ITEMSETS, progress.apply(Collect.getInstance().getResources()));
+            });
+
+            return null;
+        } catch (IOException | SQLException | CsvValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Publishes the latest progress message of each stage that's running (or clears a stage's
+     * message if it's null) so that stages running at the same time don't hide each other's
+     * progress.
+     */
+    private void publishStageProgress(String stage, @Nullable String message) {
+        String progress;
+        synchronized (stageProgress) {
+            if (message != null) {
+                stageProgress.put(stage, message);
+            } else {
+                stageProgress.remove(stage);
             }
+
+            progress = String.join("\n", stageProgress.values());
+        }
+
+        if (!progress.isEmpty()) {
+            publishProgress(progress);
         }
     }
 
@@ -566,49 +623,6 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         this.intent = intent;
     }
 
-    private void readCSV(File csv, String formHash, String pathHash) {
-
-        CSVReader reader;
-        ItemsetDbAdapter ida = new ItemsetDbAdapter();
-        ida.open();
-        boolean withinTransaction = false;
-
-        try {
-            reader = new CSVReader(new FileReader(csv));
-
-            String[] nextLine;
-            String[] columnHeaders = null;
-            int lineNumber = 0;
-            while ((nextLine = reader.readNext()) != null) {
-                lineNumber++;
-                if (lineNumber == 1) {
-                    // first line of csv is column headers
-                    columnHeaders = nextLine;
-                    ida.createTable(formHash, pathHash, columnHeaders,
-                            csv.getAbsolutePath());
-                    continue;
-                }
-                // add the rest of the lines to the specified database
-                // nextLine[] is an array of values from the line
-                // System.out.println(nextLine[4] + "etc...");
-                if (lineNumber == 2) {
-                    // start a transaction for the inserts
-                    withinTransaction = true;
-                    ida.beginTransaction();
-                }
-                ida.addRow(pathHash, columnHeaders, nextLine);
-
-            }
-        } catch (IOException | SQLException | CsvValidationException e) {
-            warningMsg = e.getMessage();
-        } finally {
-            if (withinTransaction) {
-                ida.commit();
-            }
-            ida.close();
-        }
-    }
-
     public FormDef getFormDef() {
         return formDef;
     }
@@ -23,6 +23,7 @@ import android.util.Pair;
 
 import androidx.annotation.NonNull;
 
+import org.javarosa.core.model.FormDef;
 import org.javarosa.core.model.condition.EvaluationContext;
 import org.javarosa.core.model.data.GeoPointData;
 import org.javarosa.core.model.data.IAnswerData;
@@ -61,6 +62,7 @@ import org.odk.collect.forms.Form;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.shared.files.FileExt;
+import org.odk.collect.shared.tracing.Tracer;
 
 import java.io.File;
 import java.io.IOException;
@@ -108,11 +110,21 @@ public class SaveFormToDisk {
 
     @Nullable
     public SaveToDiskResult saveForm(FormSaver.ProgressListener progressListener) {
+        Tracer.TraceRecorder trace = Tracer.getInstance().start("form_save", getFormId());
+        try {
+            return saveForm(progressListener, trace);
+        } finally {
+            trace.finish();
+        }
+    }
+
+    private SaveToDiskResult saveForm(FormSaver.ProgressListener progressListener, Tracer.TraceRecorder trace) {
         SaveToDiskResult saveToDiskResult = new SaveToDiskResult();
 
         progressListener.onProgressUpdate(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_saving_validating_message));
 
         ValidationResult validationResult;
+        Tracer.TraceRecorder.SpanRecorder validateSpan = trace.startSpan("validate");
         try {
             validationResult = formController.validateAnswers(shouldFinalize);
             if (shouldFinalize && validationResult instanceof FailedValidationResult) {
@@ -125,11 +137,18 @@ public class SaveFormToDisk {
             saveToDiskResult.setSaveErrorMessage(e.getMessage());
             saveToDiskResult.setSaveResult(SAVE_ERROR, shouldFinalize);
             return saveToDiskResult;
+        } finally {
+            validateSpan.end();
         }
 
         if (shouldFinalize) {
-            Instance instance = updateInstanceDatabase(true, true, validationResult);
-            FormEntryUseCases.finalizeFormController(instance, formController, instancesRepository, entitiesRepository);
+            Tracer.TraceRecorder.SpanRecorder finalizeSpan = trace.startSpan("finalize");
+            try {
+                Instance instance = updateInstanceDatabase(true, true, validationResult);
+                FormEntryUseCases.finalizeFormController(instance, formController, instancesRepository, entitiesRepository);
+            } finally {
+                finalizeSpan.end();
+            }
         }
 
         // close all open databases of external data.
@@ -142,6 +161,7 @@ public class SaveFormToDisk {
             instanceName = updatedSaveName;
         }
 
+        Tracer.TraceRecorder.SpanRecorder exportSpan = trace.startSpan("export_data");
         try {
             Instance instance = exportData(shouldFinalize, progressListener, validationResult);
 
@@ -159,11 +179,19 @@ public class SaveFormToDisk {
 
             saveToDiskResult.setSaveErrorMessage(e.getMessage());
             saveToDiskResult.setSaveResult(SAVE_ERROR, shouldFinalize);
+        } finally {
+            exportSpan.end();
         }
 
         return saveToDiskResult;
     }
 
+    @Nullable
+    private String getFormId() {
+        FormDef formDef = formController.getFormDef();
+        return formDef != null ? formDef.getMainInstance().getRoot().getAttributeValue(null, "id") : null;
+    }
+
     /**
      * Updates the status and editability for the database row corresponding to the instance that is
      * currently managed by the {@link FormController}. There are three cases:
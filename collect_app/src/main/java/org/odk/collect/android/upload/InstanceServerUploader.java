@@ -32,6 +32,7 @@ import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.settings.keys.ProjectKeys;
 import org.odk.collect.shared.settings.Settings;
+import org.odk.collect.shared.tracing.Tracer;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
@@ -72,6 +73,15 @@ public class InstanceServerUploader extends InstanceUploader {
      */
     @Override
     public String uploadOneSubmission(Instance instance, String urlString) throws FormUploadException {
+        Tracer.TraceRecorder trace = Tracer.getInstance().start("instance_upload", instance.getFormId());
+        try {
+            return uploadOneSubmission(instance, urlString, trace);
+        } finally {
+            trace.finish();
+        }
+    }
+
+    private String uploadOneSubmission(Instance instance, String urlString, Tracer.TraceRecorder trace) throws FormUploadException {
         markSubmissionFailed(instance);
 
         Uri submissionUri = Uri.parse(urlString);
@@ -100,6 +110,7 @@ public class InstanceServerUploader extends InstanceUploader {
 
             HttpHeadResult headResult;
             CaseInsensitiveHeaders responseHeaders;
+            Tracer.TraceRecorder.SpanRecorder headSpan = trace.startSpan("head_request");
             try {
                 headResult = httpInterface.executeHeadRequest(uri, webCredentialsUtils.getCredentials(uri));
                 responseHeaders = headResult.getHeaders();
@@ -116,6 +127,8 @@ public class InstanceServerUploader extends InstanceUploader {
             } catch (Exception e) {
                 throw new FormUploadException(FAIL
                         + (e.getMessage() != null ? e.getMessage() : e.toString()));
+            } finally {
+                headSpan.end();
             }
 
             if (headResult.getStatusCode() == HttpsURLConnection.HTTP_UNAUTHORIZED) {
@@ -181,9 +194,12 @@ public class InstanceServerUploader extends InstanceUploader {
             throw new FormUploadException("Error reading files to upload");
         }
 
+        trace.count("files", files.size() + 1);
+
         HttpPostResult postResult;
         ResponseMessageParser messageParser = new ResponseMessageParser();
 
+        Tracer.TraceRecorder.SpanRecorder postSpan = trace.startSpan("post_submission");
         try {
             URI uri = URI.create(submissionUri.toString());
 
@@ -216,6 +232,8 @@ public class InstanceServerUploader extends InstanceUploader {
 
         } catch (Exception e) {
             throw new FormUploadException(e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            postSpan.end();
         }
 
         markSubmissionComplete(instance);
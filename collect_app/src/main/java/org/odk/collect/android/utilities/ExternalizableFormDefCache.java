@@ -98,6 +98,11 @@ public final class ExternalizableFormDefCache implements FormDefCache {
         return null;
     }
 
+    @Override
+    public boolean isCached(File formXml) {
+        return getCacheFile(formXml).exists();
+    }
+
     /**
      * Builds and returns a File object for the cached version of a form.
      * @param formXml the File containing the XML form
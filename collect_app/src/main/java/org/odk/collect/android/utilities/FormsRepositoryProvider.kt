@@ -6,6 +6,7 @@ import org.odk.collect.android.database.forms.DatabaseFormsRepository
 import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.storage.StoragePathProvider
 import org.odk.collect.android.storage.StoragePaths
+import org.odk.collect.forms.CachingFormsRepository
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.savepoints.SavepointsRepository
 import org.odk.collect.projects.ProjectDependencyFactory
@@ -22,6 +23,14 @@ class FormsRepositoryProvider @JvmOverloads constructor(
     private val clock = { System.currentTimeMillis() }
 
     override fun create(projectId: String): FormsRepository {
+        return CachingFormsRepository(createDatabaseRepository(projectId))
+    }
+
+    /**
+     * Creates a repository that queries the database directly rather than an in-memory copy of
+     * the forms. Only needed for raw queries like the forms content provider's.
+     */
+    fun createDatabaseRepository(projectId: String): DatabaseFormsRepository {
         val storagePaths = storagePathFactory.create(projectId)
         return DatabaseFormsRepository(
             context,
@@ -18,14 +18,27 @@
 
 package org.odk.collect.android.utilities;
 
-import org.apache.commons.io.IOUtils;
-
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import timber.log.Timber;
 
@@ -36,42 +49,146 @@ import timber.log.Timber;
  */
 public final class ZipUtils {
 
+    private static final int MAX_EXTRACT_THREADS = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String RECORD_SUFFIX = ".extracted";
+
     private ZipUtils() {
 
     }
 
+    /**
+     * Extracts the (top level) files in each zip into the zip's folder. The CRC of each extracted
+     * file is recorded next to the zip so that files that haven't changed since they were last
+     * extracted (if the zip couldn't be deleted for example) are skipped.
+     */
     public static void unzip(File[] zipFiles) {
         for (File zipFile : zipFiles) {
-            try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zipFile))) {
-                ZipEntry zipEntry;
-                while ((zipEntry = zipInputStream.getNextEntry()) != null) {
-                    doExtractInTheSameFolder(zipFile, zipInputStream, zipEntry);
-                }
+            try {
+                unzip(zipFile);
             } catch (Exception e) {
                 Timber.e(e);
             }
         }
     }
 
-    private static void doExtractInTheSameFolder(File zipFile, ZipInputStream zipInputStream,
-                                                 ZipEntry zipEntry) throws IOException {
-        File targetFile;
-        String fileName = zipEntry.getName();
+    /**
+     * Deletes a zip along with the record of what was extracted from it.
+     */
+    public static boolean delete(File zipFile) {
+        if (zipFile.delete()) {
+            getRecordFile(zipFile).delete();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static void unzip(File zipFile) throws IOException, InterruptedException, ExecutionException {
+        File recordFile = getRecordFile(zipFile);
+        Map<String, Long> extracted = readRecord(recordFile);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            Map<String, Long> entries = new HashMap<>();
+            List<ZipEntry> entriesToExtract = new ArrayList<>();
+
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                String fileName = zipEntry.getName();
+
+                if (zipEntry.isDirectory() || fileName.contains("/") || fileName.contains("\\")) {
+                    // that means that this is a directory of a file inside a directory, so ignore it
+                    continue;
+                }
 
-        Timber.i("Found zipEntry with name: %s", fileName);
+                entries.put(fileName, zipEntry.getCrc());
 
-        if (fileName.contains("/") || fileName.contains("\\")) {
-            // that means that this is a directory of a file inside a directory, so ignore it
-            Timber.w("Ignored: %s", fileName);
+                File targetFile = new File(zipFile.getParentFile(), fileName);
+                Long extractedCrc = extracted.get(fileName);
+                if (extractedCrc == null || extractedCrc != zipEntry.getCrc() || !targetFile.exists()
+                        || targetFile.length() != zipEntry.getSize()) {
+                    entriesToExtract.add(zipEntry);
+                }
+            }
+
+            extract(zip, zipFile.getParentFile(), entriesToExtract);
+            writeRecord(recordFile, entries);
+
+            Timber.i("Extracted %d of %d files out of %s", entriesToExtract.size(), entries.size(), zipFile.getName());
+        }
+    }
+
+    private static void extract(ZipFile zip, File targetDir, List<ZipEntry> zipEntries) throws InterruptedException, ExecutionException {
+        if (zipEntries.isEmpty()) {
             return;
         }
 
-        // extract the new file
-        targetFile = new File(zipFile.getParentFile(), fileName);
-        try (FileOutputStream fileOutputStream = new FileOutputStream(targetFile)) {
-            IOUtils.copy(zipInputStream, fileOutputStream);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (ZipEntry zipEntry : zipEntries) {
+            tasks.add(() -> {
+                extract(zip, zipEntry, new File(targetDir, zipEntry.getName()));
+                return null;
+            });
         }
 
-        Timber.i("Extracted file \"%s\" out of %s", fileName, zipFile.getName());
+        int threads = Math.min(Math.min(zipEntries.size(), Runtime.getRuntime().availableProcessors()), MAX_EXTRACT_THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void extract(ZipFile zip, ZipEntry zipEntry, File targetFile) throws IOException {
+        try (InputStream inputStream = zip.getInputStream(zipEntry);
+             OutputStream outputStream = new FileOutputStream(targetFile)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static File getRecordFile(File zipFile) {
+        return new File(zipFile.getParentFile(), "." + zipFile.getName() + RECORD_SUFFIX);
+    }
+
+    /**
+     * Reads the CRCs (by file name) of the files that were extracted the last time a zip was
+     * extracted. Each line of the record is a CRC followed by a space and the file name.
+     */
+    private static Map<String, Long> readRecord(File recordFile) {
+        Map<String, Long> record = new HashMap<>();
+        if (!recordFile.exists()) {
+            return record;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(recordFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(' ');
+                if (separator > 0) {
+                    record.put(line.substring(separator + 1), Long.parseLong(line.substring(0, separator)));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            Timber.w(e);
+            record.clear();
+        }
+
+        return record;
+    }
+
+    private static void writeRecord(File recordFile, Map<String, Long> entries) throws IOException {
+        try (Writer writer = new FileWriter(recordFile)) {
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                writer.write(entry.getValue() + " " + entry.getKey() + "\n");
+            }
+        }
     }
 }
@@ -1,5 +1,9 @@
 package org.odk.collect.android.widgets.items
 
+import android.view.View
+import android.view.ViewGroup
+import android.widget.ImageView
+import android.widget.TextView
 import org.javarosa.core.model.SelectChoice
 import org.javarosa.form.api.FormEntryPrompt
 import org.javarosa.xpath.parser.XPathSyntaxException
@@ -7,6 +11,10 @@ import org.odk.collect.android.R
 import org.odk.collect.android.exception.ExternalDataException
 import org.odk.collect.android.widgets.QuestionWidget
 import org.odk.collect.android.widgets.interfaces.SelectChoiceLoader
+import org.odk.collect.imageloader.GlideImageLoader
+import org.odk.collect.imageloader.ImageLoader
+import timber.log.Timber
+import java.io.File
 import java.io.FileNotFoundException
 
 object ItemsWidgetUtils {
@@ -30,4 +38,42 @@ object ItemsWidgetUtils {
             emptyList()
         }
     }
+
+    /**
+     * Loads a choice's image in the background. If the file can't be decoded, [imageView] is
+     * replaced (in its parent) by a message saying so.
+     */
+    @JvmStatic
+    fun loadChoiceImage(imageLoader: ImageLoader, imageView: ImageView, imageFile: File) {
+        imageLoader.loadImage(
+            imageView,
+            imageFile,
+            ImageView.ScaleType.CENTER,
+            object : GlideImageLoader.ImageLoaderCallback {
+                override fun onLoadFailed() {
+                    val errorMsg = imageView.context.getString(org.odk.collect.strings.R.string.file_invalid, imageFile)
+                    Timber.e(Error(errorMsg))
+
+                    val parent = imageView.parent as? ViewGroup
+                    if (parent == null) {
+                        imageView.visibility = View.GONE
+                        return
+                    }
+
+                    val invalidImage = TextView(imageView.context).apply {
+                        id = imageView.id
+                        text = errorMsg
+                        visibility = imageView.visibility
+                        setPadding(2, 2, 2, 2)
+                    }
+
+                    val index = parent.indexOfChild(imageView)
+                    parent.removeViewAt(index)
+                    parent.addView(invalidImage, index, imageView.layoutParams)
+                }
+
+                override fun onLoadSucceeded() = Unit
+            }
+        )
+    }
 }
@@ -7,8 +7,6 @@ import static org.odk.collect.android.utilities.ViewUtils.pxFromDp;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.util.DisplayMetrics;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
@@ -35,7 +33,7 @@ import org.odk.collect.android.formentry.questions.QuestionDetails;
 import org.odk.collect.android.utilities.HtmlUtils;
 import org.odk.collect.android.widgets.QuestionWidget;
 import org.odk.collect.android.widgets.interfaces.SelectChoiceLoader;
-import org.odk.collect.androidshared.bitmap.ImageFileUtils;
+import org.odk.collect.imageloader.GlideImageLoader;
 
 import java.io.File;
 import java.util.HashMap;
@@ -245,24 +243,19 @@ public class LikertWidget extends QuestionWidget {
                     ReferenceManager.instance().deriveReference(imageURI).getLocalURI();
             final File imageFile = new File(imageFilename);
             if (imageFile.exists()) {
-                Bitmap b = null;
-                try {
-                    DisplayMetrics metrics = getContext().getResources().getDisplayMetrics();
-                    int screenWidth = metrics.widthPixels;
-                    int screenHeight = metrics.heightPixels;
-                    b = ImageFileUtils.getBitmapScaledToDisplay(imageFile, screenHeight, screenWidth);
-                } catch (OutOfMemoryError e) {
-                    errorMsg = "ERROR: " + e.getMessage();
-                }
-
-                if (b != null) {
-                    imageView.setAdjustViewBounds(true);
-                    imageView.setImageBitmap(b);
-                } else if (errorMsg == null) {
-                    // Loading the image failed. The image work when in .jpg format
-                    errorMsg = getContext().getString(org.odk.collect.strings.R.string.file_invalid, imageFile);
+                imageView.setAdjustViewBounds(true);
+                imageLoader.loadImage(imageView, imageFile, ImageView.ScaleType.FIT_CENTER, new GlideImageLoader.ImageLoaderCallback() {
+                    @Override
+                    public void onLoadFailed() {
+                        // The image can't be decoded (it's likely a bad file) so only the text is shown
+                        Timber.e(new Error(getContext().getString(org.odk.collect.strings.R.string.file_invalid, imageFile)));
+                        imageView.setVisibility(GONE);
+                    }
 
-                }
+                    @Override
+                    public void onLoadSucceeded() {
+                    }
+                });
             } else {
                 errorMsg = getContext().getString(org.odk.collect.strings.R.string.file_missing, imageFile);
             }
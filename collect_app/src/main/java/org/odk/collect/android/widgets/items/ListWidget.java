@@ -16,8 +16,6 @@ package org.odk.collect.android.widgets.items;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.View;
@@ -45,7 +43,6 @@ import org.odk.collect.android.formentry.questions.QuestionDetails;
 import org.odk.collect.android.listeners.AdvanceToNextListener;
 import org.odk.collect.android.utilities.HtmlUtils;
 import org.odk.collect.android.widgets.utilities.QuestionFontSizeUtils;
-import org.odk.collect.androidshared.bitmap.ImageFileUtils;
 import org.odk.collect.android.utilities.SelectOneWidgetUtils;
 import org.odk.collect.android.widgets.QuestionWidget;
 import org.odk.collect.android.widgets.interfaces.MultiChoiceWidget;
@@ -137,29 +134,11 @@ public class ListWidget extends QuestionWidget implements MultiChoiceWidget, OnC
                                 ReferenceManager.instance().deriveReference(imageURI).getLocalURI();
                         final File imageFile = new File(imageFilename);
                         if (imageFile.exists()) {
-                            Bitmap b = null;
-                            try {
-                                DisplayMetrics metrics = context.getResources().getDisplayMetrics();
-                                int screenWidth = metrics.widthPixels;
-                                int screenHeight = metrics.heightPixels;
-                                b = ImageFileUtils.getBitmapScaledToDisplay(imageFile, screenHeight, screenWidth);
-                            } catch (OutOfMemoryError e) {
-                                errorMsg = "ERROR: " + e.getMessage();
-                            }
-
-                            if (b != null) {
-                                imageView = new ImageView(getContext());
-                                imageView.setPadding(2, 2, 2, 2);
-                                imageView.setAdjustViewBounds(true);
-                                imageView.setImageBitmap(b);
-                                imageView.setId(labelId);
-                            } else if (errorMsg == null) {
-                                // An error hasn't been logged and loading the image failed, so it's
-                                // likely
-                                // a bad file.
-                                errorMsg = getContext().getString(org.odk.collect.strings.R.string.file_invalid, imageFile);
-
-                            }
+                            imageView = new ImageView(getContext());
+                            imageView.setPadding(2, 2, 2, 2);
+                            imageView.setAdjustViewBounds(true);
+                            imageView.setId(labelId);
+                            ItemsWidgetUtils.loadChoiceImage(imageLoader, imageView, imageFile);
                         } else {
                             // An error hasn't been logged. We should have an image, but the file
                             // doesn't
@@ -9,6 +9,7 @@ import androidx.test.core.app.ApplicationProvider;
 import androidx.work.Configuration;
 import androidx.work.WorkManager;
 
+import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter;
 import org.odk.collect.db.sqlite.DatabaseConnection;
 import org.odk.collect.androidshared.ui.multiclicksafe.MultiClickGuard;
 import org.odk.collect.crashhandler.CrashHandler;
@@ -47,6 +48,7 @@ public class RobolectricApplication extends Collect {
 
         // These clear static state that can't persist from test to test
         DatabaseConnection.closeAll();
+        ItemsetDbAdapter.closeAll();
 
         // We don't want any clicks to be blocked
         MultiClickGuard.test = true;
@@ -0,0 +1,107 @@
+package org.odk.collect.android.application.initialization
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.not
+import org.junit.After
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import org.odk.collect.android.application.initialization.InitializationGraph.Mode
+import java.util.Collections
+import java.util.concurrent.Executors
+
+class InitializationGraphTest {
+
+    private val executor = Executors.newFixedThreadPool(2)
+    private val deferred = mutableListOf<Runnable>()
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun run_runsStepsAfterTheirDependencies() {
+        val order = Collections.synchronizedList(mutableListOf<String>())
+
+        InitializationGraph(executor, { deferred.add(it) })
+            .add("c", Mode.MAIN, listOf("b")) { order.add("c") }
+            .add("b", Mode.BACKGROUND, listOf("a")) { order.add("b") }
+            .add("a", Mode.MAIN) { order.add("a") }
+            .run()
+
+        assertThat(order, contains("a", "b", "c"))
+    }
+
+    @Test
+    fun run_runsBackgroundStepsOffTheCallingThread() {
+        var backgroundThread: Thread? = null
+
+        InitializationGraph(executor, { deferred.add(it) })
+            .add("background", Mode.BACKGROUND) { backgroundThread = Thread.currentThread() }
+            .run()
+
+        assertThat(backgroundThread, not(equalTo(Thread.currentThread())))
+    }
+
+    @Test
+    fun run_doesNotRunDeferredStepsUntilDeferredRunnerRunsThem() {
+        val order = mutableListOf<String>()
+
+        InitializationGraph(executor, { deferred.add(it) })
+            .add("critical", Mode.MAIN) { order.add("critical") }
+            .add("deferred2", Mode.DEFERRED, listOf("deferred1")) { order.add("deferred2") }
+            .add("deferred1", Mode.DEFERRED, listOf("critical")) { order.add("deferred1") }
+            .run()
+
+        assertThat(order, contains("critical"))
+
+        deferred.forEach { it.run() }
+        assertThat(order, contains("critical", "deferred1", "deferred2"))
+    }
+
+    @Test
+    fun run_whenBackgroundStepFails_throwsAndDoesNotRunDependents() {
+        var dependentRun = false
+
+        val graph = InitializationGraph(executor, { deferred.add(it) })
+            .add("failing", Mode.BACKGROUND) { throw IllegalStateException("Failed!") }
+            .add("dependent", Mode.MAIN, listOf("failing")) { dependentRun = true }
+
+        assertThrows(IllegalStateException::class.java) { graph.run() }
+        assertThat(dependentRun, equalTo(false))
+    }
+
+    @Test
+    fun run_whenThereIsACycle_throws() {
+        val graph = InitializationGraph(executor, { deferred.add(it) })
+            .add("a", Mode.MAIN, listOf("b")) {}
+            .add("b", Mode.MAIN, listOf("a")) {}
+
+        assertThrows(IllegalStateException::class.java) { graph.run() }
+    }
+
+    @Test
+    fun run_whenCriticalStepDependsOnDeferredStep_throws() {
+        val graph = InitializationGraph(executor, { deferred.add(it) })
+            .add("deferred", Mode.DEFERRED) {}
+            .add("critical", Mode.MAIN, listOf("deferred")) {}
+
+        assertThrows(IllegalStateException::class.java) { graph.run() }
+    }
+
+    @Test
+    fun getTimings_returnsDurationOfEachFinishedStep() {
+        var time = 0L
+        val graph = InitializationGraph(executor, { deferred.add(it) }, { time })
+            .add("slow", Mode.MAIN) { time += 5_000_000 }
+            .add("deferred", Mode.DEFERRED) { time += 1_000_000 }
+
+        graph.run()
+        assertThat(graph.getTimings(), equalTo(mapOf("slow" to 5L)))
+
+        deferred.forEach { it.run() }
+        assertThat(graph.getTimings(), equalTo(mapOf("slow" to 5L, "deferred" to 1L)))
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.verify
+import org.odk.collect.android.formentry.OpenFormsLock
 import org.odk.collect.android.formmanagement.FormsDataService
 import org.odk.collect.android.injection.config.AppDependencyModule
 import org.odk.collect.android.injection.config.ProjectDependencyModuleFactory
@@ -29,7 +30,9 @@ class AutoUpdateTaskSpecTest {
             override fun providesFormsUpdater(
                 application: Application,
                 notifier: Notifier,
-                projectDependencyModuleFactory: ProjectDependencyModuleFactory
+                formUpdateScheduler: FormUpdateScheduler,
+                projectDependencyModuleFactory: ProjectDependencyModuleFactory,
+                openFormsLock: OpenFormsLock
             ): FormsDataService {
                 return formUpdateChecker
             }
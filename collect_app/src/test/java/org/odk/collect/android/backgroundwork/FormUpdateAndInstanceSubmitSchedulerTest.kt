@@ -62,6 +62,26 @@ class FormUpdateAndInstanceSubmitSchedulerTest {
         verify(scheduler).cancelDeferred("match_exactly:myProject")
     }
 
+    @Test
+    fun `cancelUpdates cancels warm up for project`() {
+        val manager = FormUpdateAndInstanceSubmitScheduler(scheduler, settingsProvider, application)
+
+        manager.cancelUpdates("myProject")
+        verify(scheduler).cancelDeferred("warm_up_forms:myProject")
+    }
+
+    @Test
+    fun `scheduleWarmUp passes project id`() {
+        val manager = FormUpdateAndInstanceSubmitScheduler(scheduler, settingsProvider, application)
+
+        manager.scheduleWarmUp("myProject")
+        verify(scheduler).chargingDeferred(
+            eq("warm_up_forms:myProject"),
+            any<WarmUpFormsTaskSpec>(),
+            eq(mapOf(TaskData.DATA_PROJECT_ID to "myProject"))
+        )
+    }
+
     @Test
     fun `scheduleUpdates passes project id when scheduling match exactly`() {
         val generalSettings = settingsProvider.getUnprotectedSettings("myProject")
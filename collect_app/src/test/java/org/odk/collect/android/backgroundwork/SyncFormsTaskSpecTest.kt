@@ -11,6 +11,7 @@ import org.junit.runner.RunWith
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
+import org.odk.collect.android.formentry.OpenFormsLock
 import org.odk.collect.android.formmanagement.FormsDataService
 import org.odk.collect.android.injection.config.AppDependencyModule
 import org.odk.collect.android.injection.config.ProjectDependencyModuleFactory
@@ -27,7 +28,9 @@ class SyncFormsTaskSpecTest {
             override fun providesFormsUpdater(
                 application: Application,
                 notifier: Notifier,
-                projectDependencyModuleFactory: ProjectDependencyModuleFactory
+                formUpdateScheduler: FormUpdateScheduler,
+                projectDependencyModuleFactory: ProjectDependencyModuleFactory,
+                openFormsLock: OpenFormsLock
             ): FormsDataService {
                 return formsDataService
             }
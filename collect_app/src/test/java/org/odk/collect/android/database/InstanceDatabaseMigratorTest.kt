@@ -14,12 +14,15 @@ import org.odk.collect.android.database.instances.DatabaseInstanceColumns.CAN_DE
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.CAN_EDIT_WHEN_COMPLETE
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.DELETED_DATE
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.DISPLAY_NAME
+import org.odk.collect.android.database.instances.DatabaseInstanceColumns.DISPLAY_NAME_LOWERCASE
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.GEOMETRY
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.GEOMETRY_TYPE
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.INSTANCE_FILE_PATH
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_FORM_ID
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_VERSION
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.LAST_STATUS_CHANGE_DATE
+import org.odk.collect.android.database.instances.DatabaseInstanceColumns.LATITUDE
+import org.odk.collect.android.database.instances.DatabaseInstanceColumns.LONGITUDE
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.STATUS
 import org.odk.collect.android.database.instances.DatabaseInstanceColumns.SUBMISSION_URI
 import org.odk.collect.android.database.instances.InstanceDatabaseMigrator
@@ -32,7 +35,7 @@ class InstanceDatabaseMigratorTest {
 
     @Before
     fun setup() {
-        assertThat("Test expects different Instances DB version", DatabaseConstants.INSTANCES_DATABASE_VERSION, equalTo(8))
+        assertThat("Test expects different Instances DB version", DatabaseConstants.INSTANCES_DATABASE_VERSION, equalTo(10))
     }
 
     @After
@@ -62,6 +65,69 @@ class InstanceDatabaseMigratorTest {
         }
     }
 
+    @Test
+    fun onUpgrade_fromVersion9() {
+        val oldVersion = 9
+        database.version = oldVersion
+        instancesDatabaseMigrator.createInstancesTableV9(database)
+
+        val pointValues = getContentValuesForInstanceV7().apply {
+            put(DISPLAY_NAME_LOWERCASE, "displayname")
+            put(CAN_DELETE_BEFORE_SEND, "true")
+            put(GEOMETRY, "{\"type\":\"Point\",\"coordinates\":[30.5,-1.25]}")
+            put(GEOMETRY_TYPE, "Point")
+        }
+
+        val otherValues = getContentValuesForInstanceV7().apply {
+            put(DISPLAY_NAME_LOWERCASE, "displayname")
+            put(CAN_DELETE_BEFORE_SEND, "true")
+        }
+
+        database.insert(DatabaseConstants.INSTANCES_TABLE_NAME, null, pointValues)
+        database.insert(DatabaseConstants.INSTANCES_TABLE_NAME, null, otherValues)
+        instancesDatabaseMigrator.onUpgrade(database, oldVersion)
+        database.rawQuery("SELECT * FROM " + DatabaseConstants.INSTANCES_TABLE_NAME + " ORDER BY " + _ID + ";", arrayOf<String>()).use { cursor ->
+            assertThat(cursor.columnCount, equalTo(16))
+            assertThat(cursor.count, equalTo(2))
+
+            cursor.moveToFirst()
+            assertThat(cursor.getDouble(cursor.getColumnIndex(LATITUDE)), equalTo(-1.25))
+            assertThat(cursor.getDouble(cursor.getColumnIndex(LONGITUDE)), equalTo(30.5))
+            assertThat(cursor.getString(cursor.getColumnIndex(GEOMETRY)), equalTo(pointValues.getAsString(GEOMETRY)))
+
+            cursor.moveToNext()
+            assertThat(cursor.isNull(cursor.getColumnIndex(LATITUDE)), equalTo(true))
+            assertThat(cursor.isNull(cursor.getColumnIndex(LONGITUDE)), equalTo(true))
+        }
+    }
+
+    @Test
+    fun onUpgrade_fromVersion8() {
+        val oldVersion = 8
+        database.version = oldVersion
+        instancesDatabaseMigrator.createInstancesTableV8(database)
+
+        val contentValues = getContentValuesForInstanceV7().apply {
+            put(DISPLAY_NAME, "Ärzte Form")
+            put(CAN_DELETE_BEFORE_SEND, "false")
+        }
+
+        database.insert(DatabaseConstants.INSTANCES_TABLE_NAME, null, contentValues)
+        instancesDatabaseMigrator.onUpgrade(database, oldVersion)
+        database.rawQuery("SELECT * FROM " + DatabaseConstants.INSTANCES_TABLE_NAME + ";", arrayOf<String>()).use { cursor ->
+            assertThat(cursor.columnCount, equalTo(16))
+            assertThat(cursor.count, equalTo(1))
+
+            cursor.moveToFirst()
+
+            assertThat(cursor.getInt(cursor.getColumnIndex(_ID)), equalTo(1))
+            assertThat(cursor.getString(cursor.getColumnIndex(DISPLAY_NAME)), equalTo("Ärzte Form"))
+            assertThat(cursor.getString(cursor.getColumnIndex(DISPLAY_NAME_LOWERCASE)), equalTo("ärzte form"))
+            assertThat(cursor.getString(cursor.getColumnIndex(CAN_DELETE_BEFORE_SEND)), equalTo("false"))
+            assertThat(cursor.getString(cursor.getColumnIndex(STATUS)), equalTo(contentValues.getAsString(STATUS)))
+        }
+    }
+
     @Test
     fun onUpgrade_fromVersion7() {
         val oldVersion = 7
@@ -73,7 +139,7 @@ class InstanceDatabaseMigratorTest {
         database.insert(DatabaseConstants.INSTANCES_TABLE_NAME, null, contentValues)
         instancesDatabaseMigrator.onUpgrade(database, oldVersion)
         database.rawQuery("SELECT * FROM " + DatabaseConstants.INSTANCES_TABLE_NAME + ";", arrayOf<String>()).use { cursor ->
-            assertThat(cursor.columnCount, equalTo(13))
+            assertThat(cursor.columnCount, equalTo(16))
             assertThat(cursor.count, equalTo(1))
 
             cursor.moveToFirst()
@@ -105,7 +171,7 @@ class InstanceDatabaseMigratorTest {
         database.insert(DatabaseConstants.INSTANCES_TABLE_NAME, null, contentValues)
         instancesDatabaseMigrator.onUpgrade(database, oldVersion)
         database.rawQuery("SELECT * FROM " + DatabaseConstants.INSTANCES_TABLE_NAME + ";", arrayOf<String>()).use { cursor ->
-            assertThat(cursor.columnCount, equalTo(13))
+            assertThat(cursor.columnCount, equalTo(16))
             assertThat(cursor.count, equalTo(1))
 
             cursor.moveToFirst()
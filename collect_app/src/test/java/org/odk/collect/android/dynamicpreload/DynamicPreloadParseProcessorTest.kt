@@ -5,6 +5,7 @@ import org.hamcrest.Matchers.equalTo
 import org.hamcrest.Matchers.instanceOf
 import org.javarosa.core.model.FormDef
 import org.javarosa.core.model.QuestionDef
+import org.javarosa.xpath.XPathParseTool
 import org.javarosa.xpath.expr.XPathExpression
 import org.junit.Test
 import org.mockito.kotlin.doReturn
@@ -62,6 +63,21 @@ class DynamicPreloadParseProcessorTest {
         )
     }
 
+    @Test
+    fun `DynamicPreloadExtra contains reference columns of pulldata calls`() {
+        val formDef = FormDef()
+
+        processor.processXPath(XPathParseTool.parseXPath("pulldata('Fruits.csv', 'name', 'colour', /data/colour)"))
+        processor.processXPath(XPathParseTool.parseXPath("concat('a', pulldata('fruits', 'name', 'shape', /data/shape))"))
+        processor.processXPath(XPathParseTool.parseXPath("pulldata('veg', 'name', /data/column, /data/value)"))
+        processor.processFormDef(formDef)
+
+        assertThat(
+            formDef.extras.get(DynamicPreloadExtra::class.java).pullDataReferenceColumns,
+            equalTo(mapOf("fruits" to setOf("c_colour", "c_shape")))
+        )
+    }
+
     private fun createNonPullDataExpression() = mock<XPathExpression> {
         on { containsFunc("pulldata") } doReturn false
     }
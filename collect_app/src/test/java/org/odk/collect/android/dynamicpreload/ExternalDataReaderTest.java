@@ -25,8 +25,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
@@ -215,6 +217,37 @@ public class ExternalDataReaderTest {
         assertThat("expected zero rows of data after reimporting unchanged file", cursor.getCount(), is(0));
     }
 
+    @Test
+    public void doImport_indexesLookupColumns() {
+        Map<String, Set<String>> lookupColumns = Collections.singletonMap(SIMPLE_SEARCH_EXTERNAL_CSV_NAME, Collections.singleton("c_name"));
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(() -> false, mock(), Collections.emptyMap(), lookupColumns);
+        externalDataReader.doImport(formDefToCsvMedia);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        assertThat(doesIndexExist(db, "c_name_lookup_idx"), is(true));
+        db.close();
+    }
+
+    @Test
+    public void doImport_whenFileNotUpdated_addsMissingLookupIndexes() {
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(() -> false, mock());
+        externalDataReader.doImport(formDefToCsvMedia);
+
+        Map<String, Set<String>> lookupColumns = Collections.singletonMap(SIMPLE_SEARCH_EXTERNAL_CSV_NAME, Collections.singleton("c_name"));
+        externalDataReader = new ExternalDataReaderImpl(() -> false, mock(), Collections.emptyMap(), lookupColumns);
+        externalDataReader.doImport(formDefToCsvMedia);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        assertThat(doesIndexExist(db, "c_name_lookup_idx"), is(true));
+        db.close();
+    }
+
+    private static boolean doesIndexExist(SQLiteDatabase db, String indexName) {
+        try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND name = ?", new String[]{indexName})) {
+            return cursor.getCount() == 1;
+        }
+    }
+
     private static Map<String, File> makeExternalDataMap() {
         Map<String, File> externalDataMap = new HashMap<>();
         externalDataMap.put(SIMPLE_SEARCH_EXTERNAL_CSV_NAME, csvFile);
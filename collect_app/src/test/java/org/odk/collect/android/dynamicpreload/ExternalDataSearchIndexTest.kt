@@ -0,0 +1,88 @@
+package org.odk.collect.android.dynamicpreload
+
+import android.database.sqlite.SQLiteDatabase
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.hamcrest.Matchers.empty
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class ExternalDataSearchIndexTest {
+
+    private val db = SQLiteDatabase.create(null).also {
+        it.execSQL("CREATE TABLE externalData (c_name text collate nocase, c_label text collate nocase, c_sortby real);")
+        listOf("Mango", "Banana", "Cherimoya", "mandarin", "ΑΣΑ").forEachIndexed { index, name ->
+            it.execSQL(
+                "INSERT INTO externalData (c_name, c_label, c_sortby) VALUES (?, ?, ?);",
+                arrayOf(name, "$name label", index)
+            )
+        }
+    }
+
+    @Test
+    fun `update() creates index on columns`() {
+        ExternalDataSearchIndex.update(db, "externalData", listOf("c_name"))
+        assertThat(ExternalDataSearchIndex.getIndexedColumns(db), contains("c_name"))
+    }
+
+    @Test
+    fun `update() keeps already indexed columns`() {
+        ExternalDataSearchIndex.update(db, "externalData", listOf("c_name"))
+        ExternalDataSearchIndex.update(db, "externalData", listOf("c_label"))
+        assertThat(ExternalDataSearchIndex.getIndexedColumns(db), containsInAnyOrder("c_name", "c_label"))
+    }
+
+    @Test
+    fun `update() ignores columns that are not in the data table`() {
+        ExternalDataSearchIndex.update(db, "externalData", listOf("c_missing"))
+        assertThat(ExternalDataSearchIndex.getIndexedColumns(db), empty())
+    }
+
+    @Test
+    fun `index finds the same rows as LIKE for contains`() {
+        ExternalDataSearchIndex.update(db, "externalData", listOf("c_name"))
+
+        listOf("man", "ANA", "imoy", "ασα", "xyz").forEach { value ->
+            assertThat(value, searchWithIndex(value), equalTo(searchWithLike(value)))
+        }
+    }
+
+    @Test
+    fun `toMatchArgument() returns null for values that are shorter than a trigram`() {
+        assertThat(ExternalDataSearchIndex.toMatchArgument("ma"), nullValue())
+    }
+
+    @Test
+    fun `toMatchArgument() returns null for values that contain LIKE wildcards`() {
+        assertThat(ExternalDataSearchIndex.toMatchArgument("ma%go"), nullValue())
+        assertThat(ExternalDataSearchIndex.toMatchArgument("ma_go"), nullValue())
+    }
+
+    @Test
+    fun `toTrigramWords() returns distinct trigrams`() {
+        assertThat(ExternalDataSearchIndex.toTrigramWords("aaaa").split(" ").size, equalTo(1))
+        assertThat(ExternalDataSearchIndex.toTrigramWords("abcd").split(" ").size, equalTo(2))
+    }
+
+    private fun searchWithIndex(value: String): List<String> {
+        return query(
+            "rowid IN (SELECT docid FROM ${ExternalDataSearchIndex.TABLE_NAME} WHERE c_name MATCH ?) AND c_name LIKE ?",
+            arrayOf(ExternalDataSearchIndex.toMatchArgument(value)!!, "%$value%")
+        )
+    }
+
+    private fun searchWithLike(value: String): List<String> {
+        return query("c_name LIKE ?", arrayOf("%$value%"))
+    }
+
+    private fun query(selection: String, args: Array<String>): List<String> {
+        return db.query("externalData", arrayOf("c_name"), selection, args, null, null, "c_sortby").use {
+            generateSequence { if (it.moveToNext()) it.getString(0) else null }.toList()
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.odk.collect.android.entities
 
+import android.database.sqlite.SQLiteDatabase
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.odk.collect.android.database.entities.DatabaseEntitiesRepository
@@ -10,6 +12,7 @@ import org.odk.collect.android.entities.support.EntitySameAsMatcher.Companion.sa
 import org.odk.collect.entities.storage.EntitiesRepository
 import org.odk.collect.entities.storage.Entity
 import org.odk.collect.shared.TempFiles
+import java.io.File
 
 @RunWith(AndroidJUnit4::class)
 class DatabaseEntitiesRepositoryTest : EntitiesRepositoryTest() {
@@ -36,4 +39,39 @@ class DatabaseEntitiesRepositoryTest : EntitiesRepositoryTest() {
         repository.save("things", savedEntity)
         assertThat(repository.query("things")[0], sameEntityAs(savedEntity))
     }
+
+    @Test
+    fun `upgrading from version 2 keeps entities and makes them searchable`() {
+        val dbDir = TempFiles.createTempDir()
+        SQLiteDatabase.openOrCreateDatabase(File(dbDir, "entities.db"), null).use { db ->
+            db.execSQL("CREATE TABLE lists (_id integer PRIMARY KEY, name text NOT NULL, hash text);")
+            db.execSQL("INSERT INTO lists (name) VALUES ('wines');")
+            db.execSQL(
+                """
+                CREATE TABLE "wines" (
+                    _id integer PRIMARY KEY,
+                    id text,
+                    label text,
+                    version integer,
+                    trunk_version integer,
+                    branch_id text,
+                    state integer NOT NULL,
+                    "p_region" text NOT NULL DEFAULT ""
+                );
+                """.trimIndent()
+            )
+            db.execSQL(
+                """
+                INSERT INTO "wines" (id, label, version, branch_id, state, "p_region")
+                VALUES ('1', 'Léoville Barton 2008', 1, '', 0, 'Saint-Émilion');
+                """.trimIndent()
+            )
+            db.version = 2
+        }
+
+        val repository = DatabaseEntitiesRepository(ApplicationProvider.getApplicationContext(), dbDir.absolutePath)
+        val entity = Entity.New("1", "Léoville Barton 2008", properties = listOf("region" to "Saint-Émilion"))
+        assertThat(repository.query("wines"), contains(sameEntityAs(entity)))
+        assertThat(repository.queryPage("wines", -1, 10, "ÉMILION"), contains(sameEntityAs(entity)))
+    }
 }
@@ -757,6 +757,86 @@ abstract class EntitiesRepositoryTest {
         assertThat(whiskys[0], sameEntityAs(whisky))
     }
 
+    @Test
+    fun `#queryPage returns entities after index up to limit`() {
+        val repository = buildSubject()
+
+        val leoville = Entity.New("1", "Léoville Barton 2008")
+        val canet = Entity.New("2", "Pontet-Canet 2014")
+        val dows = Entity.New("3", "Dow's 1983")
+        repository.save("wines", leoville, canet, dows)
+
+        val firstPage = repository.queryPage("wines", -1, 2)
+        assertThat(firstPage, contains(sameEntityAs(leoville), sameEntityAs(canet)))
+
+        val secondPage = repository.queryPage("wines", firstPage.last().index, 2)
+        assertThat(secondPage, contains(sameEntityAs(dows)))
+        assertThat(secondPage[0].index, equalTo(2))
+    }
+
+    @Test
+    fun `#queryPage returns empty list when the list does not exist`() {
+        val repository = buildSubject()
+        assertThat(repository.queryPage("wines", -1, 10), equalTo(emptyList()))
+    }
+
+    @Test
+    fun `#queryPage with search returns entities with matching label or property ignoring case`() {
+        val repository = buildSubject()
+
+        val leoville = Entity.New("1", "Léoville Barton 2008", properties = listOf("region" to "St Julien"))
+        val canet = Entity.New("2", "Pontet-Canet 2014", properties = listOf("region" to "Pauillac"))
+        val dows = Entity.New("3", "Dow's 1983", properties = listOf("region" to "Douro"))
+        repository.save("wines", leoville, canet, dows)
+
+        assertThat(repository.queryPage("wines", -1, 10, "canet"), contains(sameEntityAs(canet)))
+        assertThat(repository.queryPage("wines", -1, 10, "JULIEN"), contains(sameEntityAs(leoville)))
+        assertThat(repository.queryPage("wines", -1, 10, "o"), contains(sameEntityAs(leoville), sameEntityAs(canet), sameEntityAs(dows)))
+        assertThat(repository.queryPage("wines", 0, 1, "o"), contains(sameEntityAs(canet)))
+    }
+
+    @Test
+    fun `#queryPage with search ignores case for non-ASCII characters`() {
+        val repository = buildSubject()
+
+        val leoville = Entity.New("1", "Léoville Barton 2008", properties = listOf("region" to "Saint-Émilion"))
+        val massandra = Entity.New("2", "Массандра", properties = listOf("region" to "Крым"))
+        repository.save("wines", leoville, massandra)
+
+        assertThat(repository.queryPage("wines", -1, 10, "LÉOVILLE"), contains(sameEntityAs(leoville)))
+        assertThat(repository.queryPage("wines", -1, 10, "émilion"), contains(sameEntityAs(leoville)))
+        assertThat(repository.queryPage("wines", -1, 10, "МАССАНДРА"), contains(sameEntityAs(massandra)))
+        assertThat(repository.queryPage("wines", -1, 10, "крым"), contains(sameEntityAs(massandra)))
+    }
+
+    @Test
+    fun `#queryPage with search matches properties that were not changed by an update`() {
+        val repository = buildSubject()
+
+        val leoville = Entity.New("1", "Léoville Barton 2008", properties = listOf("region" to "St Julien", "score" to "95"))
+        repository.save("wines", leoville)
+
+        val updated = leoville.copy(label = null, version = 2, properties = listOf("score" to "97"))
+        repository.save("wines", updated)
+
+        assertThat(repository.queryPage("wines", -1, 10, "julien").size, equalTo(1))
+        assertThat(repository.queryPage("wines", -1, 10, "barton").size, equalTo(1))
+        assertThat(repository.queryPage("wines", -1, 10, "97").size, equalTo(1))
+        assertThat(repository.queryPage("wines", -1, 10, "95"), equalTo(emptyList()))
+    }
+
+    @Test
+    fun `#queryPage with search treats wildcard characters literally`() {
+        val repository = buildSubject()
+
+        val leoville = Entity.New("1", "Léoville Barton 2008", properties = listOf("discount" to "10%"))
+        val canet = Entity.New("2", "Pontet-Canet 2014", properties = listOf("discount" to "10"))
+        repository.save("wines", leoville, canet)
+
+        assertThat(repository.queryPage("wines", -1, 10, "0%"), contains(sameEntityAs(leoville)))
+        assertThat(repository.queryPage("wines", -1, 10, "_"), equalTo(emptyList()))
+    }
+
     @Test
     @Ignore("https://github.com/getodk/collect/issues/6615")
     fun `#query returns entities when searching for empty string for property that doesn't exist`() {
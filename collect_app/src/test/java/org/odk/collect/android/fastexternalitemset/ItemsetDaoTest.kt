@@ -0,0 +1,77 @@
+package org.odk.collect.android.fastexternalitemset
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.javarosa.core.model.QuestionDef
+import org.javarosa.form.api.FormEntryPrompt
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.spy
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.odk.collect.android.javarosawrapper.FormController
+import org.odk.collect.android.storage.StoragePathProvider
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.support.CollectHelpers
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class ItemsetDaoTest {
+
+    private lateinit var mediaDir: File
+    private lateinit var formController: FormController
+
+    private val adapter = spy(ItemsetDbAdapter())
+
+    private val prompt = mock<FormEntryPrompt> {
+        val question = mock<QuestionDef> {
+            on { getAdditionalAttribute(null, "query") } doReturn "instance('cities')/root/item[]"
+        }
+
+        on { getQuestion() } doReturn question
+    }
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+        mediaDir = File(StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS), "form-media").also { it.mkdirs() }
+        formController = mock {
+            on { getMediaFolder() } doReturn mediaDir
+        }
+    }
+
+    @Test
+    fun `getItems only queries the database once for the same choices`() {
+        importItemsets("list_name,name,label\ncities,a,A\ncities,b,B\n")
+
+        val dao = ItemsetDao(adapter)
+        val first = dao.getItems(prompt, XPathParseTool(), formController)
+        val second = dao.getItems(prompt, XPathParseTool(), formController)
+
+        assertThat(first.map { it.value }, equalTo(listOf("a", "b")))
+        assertThat(second.map { it.value }, equalTo(listOf("a", "b")))
+        verify(adapter, times(1)).query(any(), any(), any())
+    }
+
+    @Test
+    fun `getItems returns new choices after itemsets are reimported`() {
+        importItemsets("list_name,name,label\ncities,a,A\n")
+
+        val dao = ItemsetDao(adapter)
+        assertThat(dao.getItems(prompt, XPathParseTool(), formController).map { it.value }, equalTo(listOf("a")))
+
+        importItemsets("list_name,name,label\ncities,c,C\ncities,d,D\n")
+        assertThat(dao.getItems(prompt, XPathParseTool(), formController).map { it.value }, equalTo(listOf("c", "d")))
+        verify(adapter, times(2)).query(any(), any(), any())
+    }
+
+    private fun importItemsets(csv: String) {
+        File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).writeText(csv)
+        ItemsetsCsvImporter.importIfChanged(mediaDir, { false }, { })
+    }
+}
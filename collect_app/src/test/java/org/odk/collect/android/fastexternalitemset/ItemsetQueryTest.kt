@@ -0,0 +1,30 @@
+package org.odk.collect.android.fastexternalitemset
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+import org.mockito.kotlin.mock
+
+class ItemsetQueryTest {
+
+    @Test
+    fun `compile builds selection with an argument for each filter`() {
+        val query = ItemsetQuery.compile(
+            "instance('cities')/root/item[state=/data/state and county=/data/county or town=/data/town]",
+            XPathParseTool()
+        )
+
+        assertThat(
+            query.selection,
+            equalTo("list_name=? and \"state\"=? and \"county\"=? or \"town\"=?")
+        )
+    }
+
+    @Test
+    fun `evaluateArguments returns just list name when there are no filters`() {
+        val query = ItemsetQuery.compile("instance('states')/root/item[]", XPathParseTool())
+
+        assertThat(query.selection, equalTo("list_name=?"))
+        assertThat(query.evaluateArguments(mock(), mock()), equalTo(arrayOf("states")))
+    }
+}
@@ -0,0 +1,65 @@
+package org.odk.collect.android.fastexternalitemset
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.storage.StoragePathProvider
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.support.CollectHelpers
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class ItemsetsCsvImporterTest {
+
+    private lateinit var mediaDir: File
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+        mediaDir = File(StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS), "form-media").also { it.mkdirs() }
+    }
+
+    @Test
+    fun `importIfChanged adds every row and leaves missing values null`() {
+        File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).writeText(
+            "list_name,name,label\n" +
+                "cities,a,A\n" +
+                "cities,b\n"
+        )
+
+        ItemsetsCsvImporter.importIfChanged(mediaDir, { false }, { })
+
+        assertThat(getRows(), equalTo(listOf(listOf("cities", "a", "A"), listOf("cities", "b", null))))
+    }
+
+    @Test
+    fun `importIfChanged imports again if the previous import was cancelled`() {
+        File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).writeText("list_name,name,label\ncities,a,A\n")
+
+        ItemsetsCsvImporter.importIfChanged(mediaDir, { true }, { })
+        ItemsetsCsvImporter.importIfChanged(mediaDir, { false }, { })
+
+        assertThat(getRows(), equalTo(listOf(listOf("cities", "a", "A"))))
+    }
+
+    private fun getRows(): List<List<String?>> {
+        val pathHash = ItemsetDbAdapter.getMd5FromString(File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).absolutePath)
+
+        return ItemsetDbAdapter().open().use { adapter ->
+            adapter.query(pathHash, "list_name=?", arrayOf("cities")).use { cursor ->
+                val rows = mutableListOf<List<String?>>()
+                while (cursor.moveToNext()) {
+                    rows.add(
+                        listOf("list_name", "name", "label").map {
+                            cursor.getString(cursor.getColumnIndexOrThrow(it))
+                        }
+                    )
+                }
+                rows
+            }
+        }
+    }
+}
@@ -10,7 +10,11 @@ import org.javarosa.model.xform.XFormsModule
 import org.javarosa.xform.parse.XFormParser
 import org.junit.Before
 import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
 import org.odk.collect.android.javarosawrapper.FormController
 import org.odk.collect.android.utilities.FileUtils
 import org.odk.collect.entities.storage.InMemEntitiesRepository
@@ -186,6 +190,37 @@ class FormEntryUseCasesTest {
         )
     }
 
+    @Test
+    fun warmUp_whenFormIsCached_andHasCsvFiles_usesCachedFormDefToCheckCsvFiles() {
+        val xForm = copyTestForm("forms/one-question.xml")
+        val (_, formDef) = createForm(xForm)
+        val form = FormFixtures.form(
+            formFilePath = xForm.absolutePath,
+            mediaFiles = listOf(Pair("data.csv", "name,label\n1,One"))
+        )
+
+        val formDefCache = mock<FormDefCache> {
+            on { isCached(any()) } doReturn true
+            on { readCache(any()) } doReturn formDef
+        }
+
+        FormEntryUseCases.warmUp(form, projectRootDir, formDefCache) { false }
+        verify(formDefCache).readCache(xForm)
+    }
+
+    @Test
+    fun warmUp_whenFormIsCached_andHasNoCsvFiles_doesNotReadCachedFormDef() {
+        val xForm = copyTestForm("forms/one-question.xml")
+        val form = FormFixtures.form(formFilePath = xForm.absolutePath)
+
+        val formDefCache = mock<FormDefCache> {
+            on { isCached(any()) } doReturn true
+        }
+
+        FormEntryUseCases.warmUp(form, projectRootDir, formDefCache) { false }
+        verify(formDefCache, never()).readCache(any())
+    }
+
     private fun createForm(
         xForm: File,
         formId: String = "formId",
@@ -55,6 +55,7 @@ public class FormEntryViewModelTest {
     private final FormSessionRepository formSessionRepository = new InMemFormSessionRepository();
     private final FormsRepository formsRepository = new InMemFormsRepository();
     private final ChangeLocks changeLocks = new ChangeLocks(new BooleanChangeLock(), new BooleanChangeLock());
+    private final OpenFormsLock openFormsLock = new OpenFormsLock();
 
     @Rule
     public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
@@ -68,7 +69,23 @@ public class FormEntryViewModelTest {
         scheduler = new FakeScheduler();
 
         formSessionRepository.set("blah", formController, mock());
-        viewModel = new FormEntryViewModel(() -> 0L, scheduler, formSessionRepository, "blah", formsRepository, changeLocks);
+        viewModel = new FormEntryViewModel(() -> 0L, scheduler, formSessionRepository, "blah", formsRepository, changeLocks, openFormsLock);
+    }
+
+    @Test
+    public void formIsOpenUntilExit() {
+        assertThat(openFormsLock.isFormOpen(), equalTo(true));
+
+        viewModel.exit();
+        assertThat(openFormsLock.isFormOpen(), equalTo(false));
+    }
+
+    @Test
+    public void formIsOpenUntilCleared() {
+        assertThat(openFormsLock.isFormOpen(), equalTo(true));
+
+        viewModel.onCleared();
+        assertThat(openFormsLock.isFormOpen(), equalTo(false));
     }
 
     @Test
@@ -0,0 +1,166 @@
+package org.odk.collect.android.formentry
+
+import android.app.Application
+import android.os.Looper.getMainLooper
+import android.widget.EditText
+import android.widget.LinearLayout
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.core.view.children
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.work.WorkManager
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.R
+import org.odk.collect.android.activities.FormFillingActivity
+import org.odk.collect.android.external.FormsContract
+import org.odk.collect.android.formmanagement.FormFillingIntentFactory
+import org.odk.collect.android.injection.config.AppDependencyComponent
+import org.odk.collect.android.injection.config.AppDependencyModule
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.android.utilities.FileUtils
+import org.odk.collect.android.widgets.QuestionWidget
+import org.odk.collect.android.widgets.StringWidget
+import org.odk.collect.async.Scheduler
+import org.odk.collect.formstest.FormFixtures.form
+import org.odk.collect.testshared.ActivityControllerRule
+import org.odk.collect.testshared.FakeScheduler
+import org.robolectric.Shadows.shadowOf
+import java.io.File
+import java.time.Duration
+
+@RunWith(AndroidJUnit4::class)
+class ODKViewTest {
+
+    @get:Rule
+    val instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    @get:Rule
+    val activityControllerRule = ActivityControllerRule()
+
+    private val scheduler = FakeScheduler()
+    private val dependencies = object : AppDependencyModule() {
+        override fun providesScheduler(workManager: WorkManager): Scheduler {
+            return scheduler
+        }
+    }
+
+    private val application = ApplicationProvider.getApplicationContext<Application>()
+    private lateinit var component: AppDependencyComponent
+
+    private val largeFieldListQuestions = (1..20).map { "Question $it" }
+
+    @Before
+    fun setup() {
+        component = CollectHelpers.overrideAppDependencyModule(dependencies)
+    }
+
+    @Test
+    fun largeFieldList_eventuallyShowsEveryQuestion() {
+        val odkView = startLargeFieldListForm()
+
+        shadowOf(getMainLooper()).idle()
+        assertThat(getQuestionsShown(odkView), equalTo(largeFieldListQuestions))
+    }
+
+    @Test
+    fun largeFieldList_keepsAnswersEnteredBeforeEveryQuestionIsShown() {
+        val odkView = startLargeFieldListForm()
+        val firstWidget = getWidgetsShown(odkView).first() as StringWidget
+        firstWidget.widgetAnswerText.setAnswer("Ada")
+
+        shadowOf(getMainLooper()).idle()
+        assertThat(firstWidget.answer.displayText, equalTo("Ada"))
+        assertThat(
+            odkView.answers[firstWidget.formEntryPrompt.index]?.displayText,
+            equalTo("Ada")
+        )
+    }
+
+    @Test
+    fun largeFieldList_keepsFocusWhileRemainingQuestionsAreShown() {
+        val odkView = startLargeFieldListForm()
+        val firstWidget = getWidgetsShown(odkView).first() as StringWidget
+        val editText = firstWidget.widgetAnswerText.findViewById<EditText>(R.id.edit_text)
+        editText.requestFocus()
+
+        shadowOf(getMainLooper()).idle()
+        assertThat(getQuestionsShown(odkView), equalTo(largeFieldListQuestions))
+        assertThat(editText.hasFocus(), equalTo(true))
+    }
+
+    @Test
+    fun largeFieldList_setFocus_focusesFirstQuestionWithoutShowingPendingQuestions() {
+        val odkView = startLargeFieldListForm()
+        val questionsShown = getQuestionsShown(odkView)
+        assertThat(questionsShown.size < largeFieldListQuestions.size, equalTo(true))
+
+        odkView.setFocus(odkView.context)
+        assertThat(getQuestionsShown(odkView), equalTo(questionsShown))
+
+        val firstWidget = getWidgetsShown(odkView).first() as StringWidget
+        val editText = firstWidget.widgetAnswerText.findViewById<EditText>(R.id.edit_text)
+        shadowOf(getMainLooper()).idleFor(Duration.ofMillis(100))
+        assertThat(editText.hasFocus(), equalTo(true))
+    }
+
+    @Test
+    fun largeFieldList_shouldSuppressFlingGesture_doesNotShowPendingQuestions() {
+        val odkView = startLargeFieldListForm()
+        val questionsShown = getQuestionsShown(odkView)
+
+        assertThat(odkView.shouldSuppressFlingGesture(), equalTo(false))
+        assertThat(getQuestionsShown(odkView), equalTo(questionsShown))
+    }
+
+    @Test
+    fun largeFieldList_cancelLongPress_doesNotShowPendingQuestions() {
+        val odkView = startLargeFieldListForm()
+        val questionsShown = getQuestionsShown(odkView)
+
+        odkView.cancelLongPress()
+        assertThat(getQuestionsShown(odkView), equalTo(questionsShown))
+    }
+
+    private fun startLargeFieldListForm(): ODKView {
+        val projectId = CollectHelpers.setupDemoProject()
+
+        val formsDir = component.storagePathProvider().getOdkDirPath(StorageSubdirectory.FORMS)
+        val formFile = FileUtils.copyFileFromResources(
+            "forms/large-field-list.xml",
+            File(formsDir, "large-field-list.xml")
+        )
+        val form = component.formsRepositoryProvider().create()
+            .save(form(formFilePath = formFile.absolutePath))
+
+        val intent = FormFillingIntentFactory.newInstanceIntent(
+            application,
+            FormsContract.getUri(projectId, form.dbId),
+            FormFillingActivity::class
+        )
+
+        val activity = activityControllerRule.build(FormFillingActivity::class.java, intent).setup()
+        scheduler.flush()
+
+        return activity.get().currentViewIfODKView
+    }
+
+    /**
+     * Returns the widgets that have been created so far without creating any pending ones
+     * (which [ODKView.getWidgets] would do).
+     */
+    private fun getWidgetsShown(odkView: ODKView): List<QuestionWidget> {
+        return odkView.findViewById<LinearLayout>(R.id.widgets).children
+            .filterIsInstance<QuestionWidget>()
+            .toList()
+    }
+
+    private fun getQuestionsShown(odkView: ODKView): List<String> {
+        return getWidgetsShown(odkView).map { it.formEntryPrompt.longText }
+    }
+}
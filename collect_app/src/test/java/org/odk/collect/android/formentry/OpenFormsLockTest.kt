@@ -0,0 +1,99 @@
+package org.odk.collect.android.formentry
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class OpenFormsLockTest {
+
+    private val openFormsLock = OpenFormsLock()
+
+    @Test
+    fun `withNoOpenForms runs work when no form is open`() {
+        assertThat(openFormsLock.withNoOpenForms { "done" }, equalTo("done"))
+    }
+
+    @Test
+    fun `withNoOpenForms does not run work when a form is open`() {
+        openFormsLock.open(this)
+
+        var ran = false
+        val result = openFormsLock.withNoOpenForms { ran = true }
+        assertThat(result, nullValue())
+        assertThat(ran, equalTo(false))
+    }
+
+    @Test
+    fun `withNoOpenForms runs work again after form is closed`() {
+        openFormsLock.open(this)
+        openFormsLock.close(this)
+
+        assertThat(openFormsLock.withNoOpenForms { "done" }, equalTo("done"))
+    }
+
+    @Test
+    fun `closing a form more than once does not close forms opened by other owners`() {
+        val owner1 = Any()
+        val owner2 = Any()
+        openFormsLock.open(owner1)
+        openFormsLock.open(owner2)
+
+        openFormsLock.close(owner1)
+        openFormsLock.close(owner1)
+        assertThat(openFormsLock.isFormOpen(), equalTo(true))
+
+        openFormsLock.close(owner2)
+        assertThat(openFormsLock.isFormOpen(), equalTo(false))
+    }
+
+    @Test
+    fun `work can see when a form is opened while it runs`() {
+        val isFormOpenValues = openFormsLock.withNoOpenForms { isFormOpen ->
+            val before = isFormOpen.get()
+            openFormsLock.open(this)
+            listOf(before, isFormOpen.get())
+        }
+
+        assertThat(isFormOpenValues, equalTo(listOf(false, true)))
+    }
+
+    @Test
+    fun `awaitBackgroundWork blocks until work has finished`() {
+        val workStarted = CountDownLatch(1)
+        val finishWork = CountDownLatch(1)
+        val events = mutableListOf<String>()
+
+        val worker = thread {
+            openFormsLock.withNoOpenForms {
+                workStarted.countDown()
+                finishWork.await()
+                synchronized(events) { events.add("work finished") }
+            }
+        }
+
+        workStarted.await()
+        openFormsLock.open(this)
+        val loader = thread {
+            openFormsLock.awaitBackgroundWork()
+            synchronized(events) { events.add("form loaded") }
+        }
+
+        loader.join(100)
+        assertThat(loader.isAlive, equalTo(true))
+        finishWork.countDown()
+
+        worker.join(TimeUnit.SECONDS.toMillis(5))
+        loader.join(TimeUnit.SECONDS.toMillis(5))
+        assertThat(events, equalTo(listOf("work finished", "form loaded")))
+    }
+
+    @Test
+    fun `awaitBackgroundWork returns immediately when no work is running`() {
+        openFormsLock.open(this)
+        openFormsLock.awaitBackgroundWork()
+    }
+}
@@ -17,10 +17,12 @@ import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.never
 import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
 import org.odk.collect.android.R
 import org.odk.collect.androidshared.ui.FragmentFactoryBuilder
 import org.odk.collect.forms.instances.Instance
@@ -102,6 +104,28 @@ class DeleteSavedFormFragmentTest {
             .check(matches(not(isChecked())))
     }
 
+    @Test
+    fun `clicking select all selects forms that have not been loaded yet`() {
+        val allForms = (1..SavedFormListViewModel.PAGE_SIZE + 1).map {
+            InstanceFixtures.instance(dbId = it.toLong(), displayName = "Form $it")
+        }
+        whenever(savedFormListViewModel.loadAll(any())).doAnswer {
+            formsToDisplay.value = allForms
+            it.getArgument<() -> Unit>(0).invoke()
+        }
+
+        fragmentScenarioLauncherRule.launchInContainer(DeleteSavedFormFragment::class.java)
+        formsToDisplay.value = allForms.take(SavedFormListViewModel.PAGE_SIZE)
+
+        onView(withText(string.select_all)).perform(click())
+        onView(withText(string.clear_all)).check(matches(isDisplayed()))
+
+        onView(withText(string.delete_file)).perform(click())
+        onView(withText(context.getString(string.delete_confirm, allForms.size.toString())))
+            .inRoot(isDialog())
+            .check(matches(isDisplayed()))
+    }
+
     @Test
     fun `shows progress while deleting forms`() {
         fragmentScenarioLauncherRule.launchInContainer(DeleteSavedFormFragment::class.java)
@@ -10,12 +10,16 @@ import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.kotlin.any
+import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.whenever
 import org.odk.collect.android.formlists.savedformlist.SavedFormListViewModel.SortOrder
 import org.odk.collect.android.instancemanagement.InstancesDataService
 import org.odk.collect.forms.instances.Instance
+import org.odk.collect.forms.instances.InstanceSortOrder
 import org.odk.collect.formstest.InstanceFixtures
 import org.odk.collect.shared.settings.InMemSettings
 import org.odk.collect.testshared.FakeScheduler
@@ -193,6 +197,65 @@ class SavedFormListViewModelTest {
         )
     }
 
+    @Test
+    fun `formsToDisplay only includes the first page until loadMore is called`() {
+        val instances = (1..SavedFormListViewModel.PAGE_SIZE + 1).map {
+            InstanceFixtures.instance(displayName = "Form $it", dbId = it.toLong(), lastStatusChangeDate = it.toLong())
+        }
+        saveForms("projectId", instances)
+
+        val viewModel =
+            SavedFormListViewModel(scheduler, settings, instancesDataService, "projectId")
+        viewModel.sortOrder = SortOrder.DATE_ASC
+
+        assertThat(
+            viewModel.formsToDisplay.getOrAwaitValue(scheduler),
+            equalTo(instances.take(SavedFormListViewModel.PAGE_SIZE))
+        )
+
+        viewModel.loadMore()
+        assertThat(
+            viewModel.formsToDisplay.getOrAwaitValue(scheduler),
+            equalTo(instances)
+        )
+    }
+
+    @Test
+    fun `loadAll loads every page and then calls back`() {
+        val instances = (1..SavedFormListViewModel.PAGE_SIZE * 2 + 1).map {
+            InstanceFixtures.instance(displayName = "Form $it", dbId = it.toLong(), lastStatusChangeDate = it.toLong())
+        }
+        saveForms("projectId", instances)
+
+        val viewModel =
+            SavedFormListViewModel(scheduler, settings, instancesDataService, "projectId")
+        viewModel.sortOrder = SortOrder.DATE_ASC
+        viewModel.formsToDisplay.observeForever { }
+        scheduler.flush()
+
+        var formsWhenLoaded: List<Instance>? = null
+        viewModel.loadAll { formsWhenLoaded = viewModel.formsToDisplay.value }
+        assertThat(formsWhenLoaded, equalTo(null))
+
+        scheduler.flush()
+        assertThat(formsWhenLoaded, equalTo(instances))
+    }
+
+    @Test
+    fun `loadAll calls back straight away when every page is already loaded`() {
+        val instances = listOf(InstanceFixtures.instance(displayName = "Form 1", dbId = 1))
+        saveForms("projectId", instances)
+
+        val viewModel =
+            SavedFormListViewModel(scheduler, settings, instancesDataService, "projectId")
+        viewModel.formsToDisplay.observeForever { }
+        scheduler.flush()
+
+        var loaded = false
+        viewModel.loadAll { loaded = true }
+        assertThat(loaded, equalTo(true))
+    }
+
     @Test
     fun `isDeleting is true while deleting forms`() {
         val viewModel =
@@ -228,5 +291,8 @@ class SavedFormListViewModelTest {
 
     private fun saveForms(projectId: String, instances: List<Instance>) {
         whenever(instancesDataService.getInstances(projectId)).doReturn(MutableStateFlow(instances))
+        whenever(instancesDataService.getInstancesPage(eq(projectId), any(), any(), anyOrNull(), any())).doAnswer {
+            it.getArgument<InstanceSortOrder>(2).page(instances, it.getArgument(1), it.getArgument(3), it.getArgument(4))
+        }
     }
 }
@@ -0,0 +1,82 @@
+package org.odk.collect.android.formmanagement
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+import org.odk.collect.shared.TempFiles
+import org.odk.collect.shared.strings.Md5.getMd5Hash
+
+class FormFileFingerprintsTest {
+
+    private val fingerprints = FormFileFingerprints()
+
+    @Test
+    fun `matches returns true when hash matches file`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+
+        assertThat(fingerprints.matches(file, file.getMd5Hash()), equalTo(true))
+    }
+
+    @Test
+    fun `matches returns false when hash does not match file`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+
+        assertThat(fingerprints.matches(file, "wrong"), equalTo(false))
+    }
+
+    @Test
+    fun `matches returns false when hash is null`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+
+        assertThat(fingerprints.matches(file, null), equalTo(false))
+    }
+
+    @Test
+    fun `matches returns false when file has changed since it was last checked`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+        val hash = file.getMd5Hash()
+        fingerprints.matches(file, hash)
+
+        file.writeText("something else")
+        assertThat(fingerprints.matches(file, hash), equalTo(false))
+    }
+
+    @Test
+    fun `matches returns false when file is changed without changing its size or last modified time`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+        val lastModified = file.lastModified()
+        val hash = file.getMd5Hash()
+        fingerprints.matches(file, hash)
+
+        file.writeText("bleh")
+        file.setLastModified(lastModified)
+        assertThat(fingerprints.matches(file, hash), equalTo(false))
+    }
+
+    @Test
+    fun `getMd5Hash returns new hash when file has changed`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+        fingerprints.getMd5Hash(file)
+
+        file.writeText("something else")
+        assertThat(fingerprints.getMd5Hash(file), equalTo(file.getMd5Hash()))
+    }
+
+    @Test
+    fun `getMd5Hash returns new hash when file is changed without changing its size or last modified time`() {
+        val file = TempFiles.createTempFile()
+        file.writeText("blah")
+        val lastModified = file.lastModified()
+        fingerprints.getMd5Hash(file)
+
+        file.writeText("bleh")
+        file.setLastModified(lastModified)
+        assertThat(fingerprints.getMd5Hash(file), equalTo(file.getMd5Hash()))
+    }
+}
@@ -18,11 +18,14 @@ import org.mockito.kotlin.mock
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import org.odk.collect.analytics.Analytics
+import org.odk.collect.android.backgroundwork.FormUpdateScheduler
+import org.odk.collect.android.formentry.OpenFormsLock
 import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.injection.config.ProjectDependencyModuleFactory
 import org.odk.collect.android.notifications.Notifier
 import org.odk.collect.android.storage.StorageSubdirectory
 import org.odk.collect.android.utilities.ChangeLockProvider
+import org.odk.collect.android.utilities.ExternalizableFormDefCache
 import org.odk.collect.androidshared.data.AppState
 import org.odk.collect.androidtest.getOrAwaitValue
 import org.odk.collect.androidtest.recordValues
@@ -34,6 +37,7 @@ import org.odk.collect.projects.Project
 import org.odk.collect.settings.keys.ProjectKeys
 import org.odk.collect.shared.locks.BooleanChangeLock
 import org.odk.collect.shared.strings.Md5.getMd5Hash
+import java.io.File
 
 @RunWith(AndroidJUnit4::class)
 class FormsDataServiceTest {
@@ -48,9 +52,11 @@ class FormsDataServiceTest {
     private val storagePathProvider = component.storagePathProvider()
     private val settingsProvider = component.settingsProvider()
     private val notifier = mock<Notifier>()
+    private val formUpdateScheduler = mock<FormUpdateScheduler>()
     private val analytics = mock<Analytics>()
 
     private val changeLockProvider = ChangeLockProvider { BooleanChangeLock() }
+    private val openFormsLock = OpenFormsLock()
 
     private val formSource = mock<FormSource> {
         on { fetchFormList() } doReturn emptyList()
@@ -83,7 +89,9 @@ class FormsDataServiceTest {
         formsDataService = FormsDataService(
             appState = AppState(),
             notifier = notifier,
-            projectDependencyModuleFactory = projectDependencyModuleFactory
+            formUpdateScheduler = formUpdateScheduler,
+            projectDependencyModuleFactory = projectDependencyModuleFactory,
+            openFormsLock = openFormsLock
         ) { 0 }
     }
 
@@ -109,6 +117,20 @@ class FormsDataServiceTest {
         )
     }
 
+    @Test
+    fun `downloadUpdates() schedules warm up when updates are downloaded`() {
+        addFormLocally(project, "formId", "1")
+
+        val updatedXForm = FormUtils.createXFormBody("formId", "2")
+        addFormToServer(updatedXForm, "formId", "2")
+
+        settingsProvider.getUnprotectedSettings(project.uuid)
+            .save(ProjectKeys.KEY_AUTOMATIC_UPDATE, true)
+
+        formsDataService.downloadUpdates(project.uuid)
+        verify(formUpdateScheduler).scheduleWarmUp(project.uuid)
+    }
+
     @Test
     fun `downloadUpdates() does nothing when change lock is locked`() {
         val isSyncing = formsDataService.isSyncing(project.uuid)
@@ -161,6 +183,13 @@ class FormsDataServiceTest {
         assertThat(formsDataService.matchFormsWithServer(project.uuid), equalTo(false))
     }
 
+    @Test
+    fun `matchFormsWithServer() does not schedule warm up when there is an error communicating with the server`() {
+        whenever(formSource.fetchFormList()).thenThrow(FormSourceException.FetchError())
+        formsDataService.matchFormsWithServer(project.uuid)
+        verifyNoInteractions(formUpdateScheduler)
+    }
+
     @Test
     fun `matchFormsWithServer() updates project sync state`() {
         val projectState = formsDataService.isSyncing(project.uuid)
@@ -244,6 +273,49 @@ class FormsDataServiceTest {
         }
     }
 
+    @Test
+    fun `warmUpForms() returns false when change lock is locked`() {
+        addFormLocally(project, "formId", "1")
+
+        val changeLock = changeLockProvider.create(project.uuid).formsLock
+        changeLock.lock()
+
+        assertThat(formsDataService.warmUpForms(project.uuid) { false }, equalTo(false))
+    }
+
+    @Test
+    fun `warmUpForms() stops without waiting for change lock when cancelled`() {
+        addFormLocally(project, "formId", "1")
+
+        val changeLock = changeLockProvider.create(project.uuid).formsLock
+        changeLock.lock()
+
+        assertThat(formsDataService.warmUpForms(project.uuid) { true }, equalTo(true))
+    }
+
+    @Test
+    fun `warmUpForms() returns false without preparing forms while a form without entities is being filled`() {
+        addFormLocally(project, "formId", "1")
+        val form = formsRepositoryProvider.create(project.uuid).getAllByFormIdAndVersion("formId", "1").first()
+        assertThat(form.usesEntities(), equalTo(false))
+
+        // Forms without entities don't take the forms lock when they are opened
+        openFormsLock.open(this)
+
+        assertThat(formsDataService.warmUpForms(project.uuid) { false }, equalTo(false))
+        assertThat(ExternalizableFormDefCache().isCached(File(form.formFilePath)), equalTo(false))
+    }
+
+    @Test
+    fun `warmUpForms() prepares forms once the form being filled is closed`() {
+        addFormLocally(project, "formId", "1")
+        openFormsLock.open(this)
+        formsDataService.warmUpForms(project.uuid) { false }
+
+        openFormsLock.close(this)
+        assertThat(formsDataService.warmUpForms(project.uuid) { false }, equalTo(true))
+    }
+
     private fun addFormToServer(updatedXForm: String, formId: String, formVersion: String) {
         whenever(formSource.fetchFormList()).doReturn(
             listOf(
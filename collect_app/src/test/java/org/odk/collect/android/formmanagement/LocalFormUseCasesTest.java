@@ -1,6 +1,9 @@
 package org.odk.collect.android.formmanagement;
 
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
 import org.junit.Test;
+import org.junit.runner.RunWith;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.formstest.FormUtils;
@@ -8,12 +11,16 @@ import org.odk.collect.formstest.InMemFormsRepository;
 import org.odk.collect.formstest.InMemInstancesRepository;
 import org.odk.collect.shared.TempFiles;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.odk.collect.formstest.InstanceUtils.buildInstance;
 
+@RunWith(AndroidJUnit4.class)
 public class LocalFormUseCasesTest {
 
     private final InMemFormsRepository formsRepository = new InMemFormsRepository();
@@ -127,4 +134,24 @@ public class LocalFormUseCasesTest {
         assertThat(forms.size(), is(1));
         assertThat(forms.get(0).getDbId(), is(2L));
     }
+
+    @Test
+    public void synchronizeWithDisk_whenFormFileChangesWithoutChangingSizeOrLastModified_reparsesForm() throws IOException {
+        File formsDir = TempFiles.createTempDir();
+        File formFile = new File(formsDir, "form.xml");
+        Files.write(formFile.toPath(), FormUtils.createXFormBody("id", "1", "Form A").getBytes());
+
+        // Sync twice so the file has already been checked against its stored hash
+        LocalFormUseCases.INSTANCE.synchronizeWithDisk(formsRepository, formsDir.getAbsolutePath());
+        LocalFormUseCases.INSTANCE.synchronizeWithDisk(formsRepository, formsDir.getAbsolutePath());
+        assertThat(formsRepository.getAll().get(0).getDisplayName(), is("Form A"));
+
+        long lastModified = formFile.lastModified();
+        Files.write(formFile.toPath(), FormUtils.createXFormBody("id", "1", "Form B").getBytes());
+        formFile.setLastModified(lastModified);
+
+        LocalFormUseCases.INSTANCE.synchronizeWithDisk(formsRepository, formsDir.getAbsolutePath());
+        assertThat(formsRepository.getAll().size(), is(1));
+        assertThat(formsRepository.getAll().get(0).getDisplayName(), is("Form B"));
+    }
 }
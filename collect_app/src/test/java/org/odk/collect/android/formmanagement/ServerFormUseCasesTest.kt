@@ -11,7 +11,10 @@ import org.mockito.kotlin.mock
 import org.mockito.stubbing.Answer
 import org.odk.collect.android.formmanagement.download.FormDownloadException
 import org.odk.collect.android.formmanagement.download.FormDownloader
+import org.odk.collect.android.support.StubEntityListServer
 import org.odk.collect.android.utilities.FileUtils
+import org.odk.collect.entities.LocalEntityUseCases
+import org.odk.collect.entities.storage.Entity
 import org.odk.collect.entities.storage.InMemEntitiesRepository
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormSource
@@ -224,4 +227,97 @@ class ServerFormUseCasesTest {
 
         assertThat(result, equalTo(MediaFilesDownloadResult(false, false)))
     }
+
+    @Test
+    fun `downloadMediaFiles updates entity list from delta when it has been downloaded before`() {
+        val server = StubEntityListServer("people")
+        server.publish(
+            Entity.New("1", "Shiv", 1, listOf("age" to "35")),
+            Entity.New("2", "Kendall", 1, listOf("age" to "40"))
+        )
+
+        val formsRepository = InMemFormsRepository()
+        formsRepository.save(FormFixtures.form(mediaFiles = listOf(Pair("people.csv", server.getCsv()))))
+        val entitiesRepository = InMemEntitiesRepository()
+        downloadMediaFiles(server, formsRepository, entitiesRepository)
+        assertThat(server.requestedUrls, equalTo(emptyList()))
+
+        server.publish(
+            Entity.New("1", "Siobhan", 2, listOf("age" to "35")),
+            Entity.New("3", "Roman", 1, listOf("age" to "33"))
+        )
+
+        val result = downloadMediaFiles(server, formsRepository, entitiesRepository)
+        assertThat(result, equalTo(MediaFilesDownloadResult(true, true)))
+        assertThat(server.requestedUrls.size, equalTo(1))
+        assertThat(server.requestedUrls[0].startsWith(StubEntityListServer.DELTA_URL), equalTo(true))
+
+        val people = entitiesRepository.query("people")
+        assertThat(people.map { it.id }, equalTo(listOf("1", "3")))
+        assertThat(people[0].label, equalTo("Siobhan"))
+        assertThat(people[1].properties, equalTo(listOf("age" to "33")))
+        assertThat(
+            LocalEntityUseCases.isListUpToDate("people", server.getMediaFile().hash, entitiesRepository),
+            equalTo(true)
+        )
+    }
+
+    @Test
+    fun `downloadMediaFiles does not download entity list that is already up to date from a delta`() {
+        val server = StubEntityListServer("people")
+        server.publish(Entity.New("1", "Shiv", 1))
+
+        val formsRepository = InMemFormsRepository()
+        formsRepository.save(FormFixtures.form(mediaFiles = listOf(Pair("people.csv", server.getCsv()))))
+        val entitiesRepository = InMemEntitiesRepository()
+        downloadMediaFiles(server, formsRepository, entitiesRepository)
+
+        server.publish(Entity.New("1", "Siobhan", 2))
+        downloadMediaFiles(server, formsRepository, entitiesRepository)
+        server.requestedUrls.clear()
+
+        val result = downloadMediaFiles(server, formsRepository, entitiesRepository)
+        assertThat(result, equalTo(MediaFilesDownloadResult(false, true)))
+        assertThat(server.requestedUrls, equalTo(emptyList()))
+    }
+
+    @Test
+    fun `downloadMediaFiles downloads full entity list when server cannot provide a delta`() {
+        val server = StubEntityListServer("people")
+        server.publish(Entity.New("1", "Shiv", 1), Entity.New("2", "Kendall", 1))
+
+        val formsRepository = InMemFormsRepository()
+        formsRepository.save(FormFixtures.form(mediaFiles = listOf(Pair("people.csv", server.getCsv()))))
+        val entitiesRepository = InMemEntitiesRepository()
+        downloadMediaFiles(server, formsRepository, entitiesRepository)
+
+        server.deltasAvailable = false
+        server.publish(Entity.New("1", "Siobhan", 2))
+
+        downloadMediaFiles(server, formsRepository, entitiesRepository)
+        assertThat(server.requestedUrls.last(), equalTo(StubEntityListServer.DOWNLOAD_URL))
+
+        val people = entitiesRepository.query("people")
+        assertThat(people.map { it.label }, equalTo(listOf("Siobhan")))
+    }
+
+    private fun downloadMediaFiles(
+        server: StubEntityListServer,
+        formsRepository: InMemFormsRepository,
+        entitiesRepository: InMemEntitiesRepository
+    ): MediaFilesDownloadResult {
+        val manifestFile = ManifestFile(null, listOf(server.getMediaFile()))
+        val serverFormDetails =
+            ServerFormDetails(null, null, "formId", "1", null, false, true, manifestFile)
+
+        return ServerFormUseCases.downloadMediaFiles(
+            serverFormDetails,
+            server,
+            formsRepository,
+            File(TempFiles.createTempDir(), "temp").absolutePath,
+            TempFiles.createTempDir(),
+            entitiesRepository,
+            mock()
+        )
+    }
 }
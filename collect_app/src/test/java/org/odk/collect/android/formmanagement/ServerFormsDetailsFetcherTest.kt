@@ -8,6 +8,7 @@ import org.junit.Test
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.whenever
+import org.odk.collect.entities.storage.InMemEntitiesRepository
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormListItem
 import org.odk.collect.forms.FormSource
@@ -314,6 +315,64 @@ class ServerFormsDetailsFetcherTest {
         assertThat(form.isNotOnDevice, `is`(false))
     }
 
+    @Test
+    fun whenAFormExists_andItsEntityListHasAlreadyBeenUpdatedFromADelta_isNotNewOrUpdated() {
+        whenever(formSource.fetchFormList()).thenReturn(listOf(FORM_WITH_MANIFEST))
+        whenever(formSource.fetchManifest(MANIFEST_URL)).thenReturn(
+            ManifestFile("manifest-hash", listOf(ENTITY_LIST_MEDIA_FILE))
+        )
+
+        val mediaDir = TempFiles.createTempDir()
+        formsRepository.save(
+            Form.Builder()
+                .formId("form-2")
+                .version("2")
+                .md5Hash("form-2-hash")
+                .formFilePath(FormUtils.createXFormFile("form-2", "2").absolutePath)
+                .formMediaPath(mediaDir.absolutePath)
+                .build()
+        )
+        val oldEntityList = File(mediaDir, ENTITY_LIST_MEDIA_FILE.filename)
+        writeToFile(oldEntityList, "name,label,__version")
+
+        val entitiesRepository = InMemEntitiesRepository()
+        entitiesRepository.updateListHash("people", "md5:${ENTITY_LIST_MEDIA_FILE.hash}")
+
+        val serverFormDetails =
+            ServerFormsDetailsFetcher(formsRepository, formSource, entitiesRepository).fetchFormDetails()
+        val form = getFormFromList(serverFormDetails, "form-2")
+        assertThat(form.isUpdated, `is`(false))
+        assertThat(form.isNotOnDevice, `is`(false))
+    }
+
+    @Test
+    fun whenAFormExists_andItsEntityListHasNotBeenUpdated_isUpdated() {
+        whenever(formSource.fetchFormList()).thenReturn(listOf(FORM_WITH_MANIFEST))
+        whenever(formSource.fetchManifest(MANIFEST_URL)).thenReturn(
+            ManifestFile("manifest-hash", listOf(ENTITY_LIST_MEDIA_FILE))
+        )
+
+        val mediaDir = TempFiles.createTempDir()
+        formsRepository.save(
+            Form.Builder()
+                .formId("form-2")
+                .version("2")
+                .md5Hash("form-2-hash")
+                .formFilePath(FormUtils.createXFormFile("form-2", "2").absolutePath)
+                .formMediaPath(mediaDir.absolutePath)
+                .build()
+        )
+        val oldEntityList = File(mediaDir, ENTITY_LIST_MEDIA_FILE.filename)
+        writeToFile(oldEntityList, "name,label,__version")
+
+        val entitiesRepository = InMemEntitiesRepository()
+        entitiesRepository.updateListHash("people", "md5:older-hash")
+
+        val serverFormDetails =
+            ServerFormsDetailsFetcher(formsRepository, formSource, entitiesRepository).fetchFormDetails()
+        assertThat(getFormFromList(serverFormDetails, "form-2").isUpdated, `is`(true))
+    }
+
     private fun writeToFile(mediaFile: File, blah: String) {
         val bw = BufferedWriter(FileWriter(mediaFile))
         bw.write(blah)
@@ -340,6 +399,13 @@ private val MEDIA_FILE = MediaFile(
     "http://example.com/media-file"
 )
 
+private val ENTITY_LIST_MEDIA_FILE = MediaFile(
+    "people.csv",
+    "server-people-hash",
+    "http://example.com/people",
+    isEntityList = true
+)
+
 private val FORM_WITHOUT_MANIFEST =
     FormListItem("http://example.com/form-1", "form-1", "1", "form-1-hash", "Form 1", null)
 
@@ -4,6 +4,7 @@ import android.app.Application
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsInAnyOrder
 import org.hamcrest.Matchers.containsString
 import org.hamcrest.Matchers.equalTo
 import org.junit.Test
@@ -19,6 +20,7 @@ import org.odk.collect.geo.selection.IconifiedText
 import org.odk.collect.geo.selection.MappableSelectItem
 import org.odk.collect.geo.selection.Status
 import org.odk.collect.maps.MapPoint
+import org.odk.collect.maps.MapViewport
 import org.odk.collect.settings.InMemSettingsProvider
 import org.odk.collect.settings.keys.ProtectedProjectKeys
 import org.odk.collect.shared.TempFiles
@@ -477,6 +479,145 @@ class FormMapViewModelTest {
         assertThat(viewModel.isLoading().value, equalTo(false))
     }
 
+    @Test
+    fun `when there are too many instances to show, only returns items in the viewport`() {
+        val form = formsRepository.save(
+            FormUtils.buildForm("id", "version", TempFiles.createTempDir().absolutePath)
+                .build()
+        )
+
+        val instancesDir = TempFiles.createTempDir().absolutePath
+        repeat(1001) {
+            instancesRepository.save(
+                InstanceUtils.buildInstance(form.formId, form.version, instancesDir)
+                    .geometry("{ \"coordinates\": [${it * 0.01}, 0.0] }")
+                    .geometryType("Point")
+                    .build()
+            )
+        }
+
+        val viewModel = createAndLoadViewModel(form)
+        viewModel.onViewportChanged(MapViewport(-1.0, -0.001, 1.0, 0.015, 16.0))
+        scheduler.flush()
+
+        val items = viewModel.getMappableItems().value!!
+        assertThat(items.size, equalTo(2))
+        assertThat(viewModel.getItemCount().value, equalTo(1001))
+    }
+
+    @Test
+    fun `items for an earlier viewport that finish loading last are ignored`() {
+        val form = formsRepository.save(
+            FormUtils.buildForm("id", "version", TempFiles.createTempDir().absolutePath)
+                .build()
+        )
+
+        val instancesDir = TempFiles.createTempDir().absolutePath
+        repeat(1001) {
+            instancesRepository.save(
+                InstanceUtils.buildInstance(form.formId, form.version, instancesDir)
+                    .geometry("{ \"coordinates\": [${it * 0.01}, 0.0] }")
+                    .geometryType("Point")
+                    .build()
+            )
+        }
+
+        val viewModel = createAndLoadViewModel(form)
+        viewModel.onViewportChanged(MapViewport(-1.0, -0.001, 1.0, 0.015, 16.0))
+        scheduler.runBackground()
+        viewModel.onViewportChanged(MapViewport(-1.0, 0.095, 1.0, 0.135, 16.0))
+        scheduler.runBackground()
+
+        scheduler.runLastForeground()
+        scheduler.runForeground()
+        assertThat(viewModel.getMappableItems().value!!.size, equalTo(4))
+    }
+
+    @Test
+    fun `items are found again when the viewport changes while loading`() {
+        val form = formsRepository.save(
+            FormUtils.buildForm("id", "version", TempFiles.createTempDir().absolutePath)
+                .build()
+        )
+
+        val instancesDir = TempFiles.createTempDir().absolutePath
+        repeat(1001) {
+            instancesRepository.save(
+                InstanceUtils.buildInstance(form.formId, form.version, instancesDir)
+                    .geometry("{ \"coordinates\": [${it * 0.01}, 0.0] }")
+                    .geometryType("Point")
+                    .build()
+            )
+        }
+
+        val viewModel = createViewModel(form)
+        viewModel.load()
+        scheduler.runBackground()
+        viewModel.onViewportChanged(MapViewport(-1.0, 0.095, 1.0, 0.135, 16.0))
+
+        scheduler.flush()
+        assertThat(viewModel.getMappableItems().value!!.size, equalTo(4))
+    }
+
+    @Test
+    fun `when there are too many instances to show in the viewport, clusters them`() {
+        val form = formsRepository.save(
+            FormUtils.buildForm("id", "version", TempFiles.createTempDir().absolutePath)
+                .build()
+        )
+
+        val instancesDir = TempFiles.createTempDir().absolutePath
+        repeat(1001) {
+            instancesRepository.save(
+                InstanceUtils.buildInstance(form.formId, form.version, instancesDir)
+                    .geometry("{ \"coordinates\": [${if (it % 2 == 0) 1.0 else 40.0}, 0.0] }")
+                    .geometryType("Point")
+                    .build()
+            )
+        }
+
+        val viewModel = createAndLoadViewModel(form)
+        viewModel.onViewportChanged(MapViewport(-10.0, -10.0, 10.0, 50.0, 3.0))
+        scheduler.flush()
+
+        val items = viewModel.getMappableItems().value!!
+        assertThat(items.size, equalTo(2))
+        assertThat(
+            items.map { it.name },
+            containsInAnyOrder(
+                application.resources.getQuantityString(org.odk.collect.strings.R.plurals.form_map_cluster, 501, 501),
+                application.resources.getQuantityString(org.odk.collect.strings.R.plurals.form_map_cluster, 500, 500)
+            )
+        )
+    }
+
+    @Test
+    fun `clusters keep their IDs when the viewport is moved without zooming`() {
+        val form = formsRepository.save(
+            FormUtils.buildForm("id", "version", TempFiles.createTempDir().absolutePath)
+                .build()
+        )
+
+        val instancesDir = TempFiles.createTempDir().absolutePath
+        repeat(1001) {
+            instancesRepository.save(
+                InstanceUtils.buildInstance(form.formId, form.version, instancesDir)
+                    .geometry("{ \"coordinates\": [${if (it % 2 == 0) 1.0 else 40.0}, 0.0] }")
+                    .geometryType("Point")
+                    .build()
+            )
+        }
+
+        val viewModel = createAndLoadViewModel(form)
+        viewModel.onViewportChanged(MapViewport(-10.0, -10.0, 10.0, 50.0, 3.0))
+        scheduler.flush()
+        val ids = viewModel.getMappableItems().value!!.associate { it.name to it.id }
+
+        viewModel.onViewportChanged(MapViewport(-11.0, -11.0, 9.0, 49.0, 3.0))
+        scheduler.flush()
+        assertThat(viewModel.getMappableItems().value!!.associate { it.name to it.id }, equalTo(ids))
+    }
+
     private fun createAndLoadViewModel(form: Form): FormMapViewModel {
         val viewModel = createViewModel(form)
         viewModel.load()
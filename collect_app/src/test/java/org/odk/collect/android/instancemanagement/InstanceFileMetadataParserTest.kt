@@ -0,0 +1,71 @@
+package org.odk.collect.android.instancemanagement
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+import org.odk.collect.shared.TempFiles
+
+class InstanceFileMetadataParserTest {
+
+    @Test
+    fun `readMetadata returns form id, version and instance ID`() {
+        val instanceFile = TempFiles.createTempFile(".xml")
+        instanceFile.writeText(
+            """
+            <?xml version='1.0' ?>
+            <data id="myForm" version="1" xmlns:orx="http://openrosa.org/xforms">
+                <question>Answer</question>
+                <orx:meta>
+                    <orx:instanceID>uuid:123</orx:instanceID>
+                </orx:meta>
+            </data>
+            """.trimIndent()
+        )
+
+        assertThat(
+            InstanceFileMetadataParser.readMetadata(instanceFile),
+            equalTo(InstanceFileMetadata("myForm", "1", "uuid:123"))
+        )
+    }
+
+    @Test
+    fun `readMetadata returns null version and instance ID when they are missing`() {
+        val instanceFile = TempFiles.createTempFile(".xml")
+        instanceFile.writeText(
+            """
+            <?xml version='1.0' ?>
+            <data id="myForm">
+                <question>Answer</question>
+            </data>
+            """.trimIndent()
+        )
+
+        assertThat(
+            InstanceFileMetadataParser.readMetadata(instanceFile),
+            equalTo(InstanceFileMetadata("myForm", null, null))
+        )
+    }
+
+    @Test
+    fun `readMetadata ignores instanceID elements outside of meta`() {
+        val instanceFile = TempFiles.createTempFile(".xml")
+        instanceFile.writeText(
+            """
+            <?xml version='1.0' ?>
+            <data id="myForm">
+                <group>
+                    <instanceID>wrong</instanceID>
+                </group>
+                <meta>
+                    <instanceID>uuid:123</instanceID>
+                </meta>
+            </data>
+            """.trimIndent()
+        )
+
+        assertThat(
+            InstanceFileMetadataParser.readMetadata(instanceFile).instanceId,
+            equalTo("uuid:123")
+        )
+    }
+}
@@ -8,6 +8,9 @@ import org.junit.runner.RunWith
 import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.spy
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
 import org.mockito.kotlin.verifyNoInteractions
 import org.mockito.kotlin.whenever
 import org.odk.collect.android.notifications.Notifier
@@ -16,6 +19,7 @@ import org.odk.collect.android.openrosa.OpenRosaHttpInterface
 import org.odk.collect.android.projects.ProjectDependencyModule
 import org.odk.collect.android.utilities.ChangeLocks
 import org.odk.collect.androidshared.data.AppState
+import org.odk.collect.forms.instances.Instance
 import org.odk.collect.forms.instances.Instance.STATUS_COMPLETE
 import org.odk.collect.forms.instances.Instance.STATUS_INCOMPLETE
 import org.odk.collect.forms.instances.Instance.STATUS_INVALID
@@ -186,6 +190,62 @@ class InstancesDataServiceTest {
         assertThat(instancesDataService.getEditableCount("otherProjectId").value, equalTo(0))
         assertThat(instancesDataService.getSendableCount("otherProjectId").value, equalTo(0))
     }
+
+    @Test
+    fun `#update applies changes made since the last update`() {
+        val instancesRepository = projectDependencyModule.instancesRepository
+        val complete = instancesRepository.save(InstanceFixtures.instance(status = STATUS_COMPLETE))
+        val incomplete = instancesRepository.save(InstanceFixtures.instance(status = STATUS_INCOMPLETE))
+        instancesDataService.update(projectId)
+
+        instancesRepository.save(Instance.Builder(complete).status(STATUS_SUBMITTED).build())
+        instancesRepository.delete(incomplete.dbId)
+        instancesRepository.save(InstanceFixtures.instance(status = STATUS_INVALID))
+        instancesDataService.update(projectId)
+
+        assertThat(
+            instancesDataService.getInstances(projectId).value.sortedBy { it.dbId },
+            equalTo(instancesRepository.all.sortedBy { it.dbId })
+        )
+        assertThat(instancesDataService.getSentCount(projectId).value, equalTo(1))
+        assertThat(instancesDataService.getEditableCount(projectId).value, equalTo(1))
+        assertThat(instancesDataService.getSendableCount(projectId).value, equalTo(0))
+    }
+
+    @Test
+    fun `#update only loads changes when another service sharing the app state has already updated`() {
+        val instancesRepository = spy(InMemInstancesRepository())
+        val projectsDependencyModuleFactory = CachingProjectDependencyModuleFactory { projectId ->
+            ProjectDependencyModule(
+                projectId,
+                { InMemSettings() },
+                { InMemFormsRepository() },
+                { instancesRepository },
+                mock(),
+                { ChangeLocks(BooleanChangeLock(), BooleanChangeLock()) },
+                mock(),
+                mock(),
+                mock()
+            )
+        }
+
+        val appState = AppState()
+        val firstService = InstancesDataService(appState, mock(), projectsDependencyModuleFactory, notifier, mock(), httpInterface, mock())
+        val secondService = InstancesDataService(appState, mock(), projectsDependencyModuleFactory, notifier, mock(), httpInterface, mock())
+
+        instancesRepository.save(InstanceFixtures.instance(status = STATUS_COMPLETE))
+        firstService.update(projectId)
+        verify(instancesRepository, times(1)).all
+
+        val saved = instancesRepository.save(InstanceFixtures.instance(status = STATUS_INCOMPLETE))
+        secondService.update(projectId)
+        verify(instancesRepository, times(1)).all
+        verify(instancesRepository).get(saved.dbId)
+
+        assertThat(secondService.getInstances(projectId).value.size, equalTo(2))
+        assertThat(secondService.getEditableCount(projectId).value, equalTo(1))
+        assertThat(secondService.getSendableCount(projectId).value, equalTo(1))
+    }
 }
 
 class CachingProjectDependencyModuleFactory(private val moduleFactory: (String) -> ProjectDependencyModule) :
@@ -3,8 +3,12 @@ package org.odk.collect.android.instancemanagement.autosend
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.equalTo
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.kotlin.spy
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.formstest.FormUtils.buildForm
 import org.odk.collect.formstest.InMemFormsRepository
@@ -134,4 +138,23 @@ class InstanceAutoSendFetcherTest {
             )
         )
     }
+
+    @Test
+    fun `looks up each form once regardless of how many instances it has`() {
+        val formsRepository = spy(formsRepository)
+        formsRepository.save(formWithoutSpecifiedAutoSend)
+
+        instancesRepository.apply {
+            save(instanceOfFormWithoutSpecifiedAutoSendComplete)
+            save(instanceOfFormWithoutSpecifiedAutoSendSubmissionFailed)
+        }
+
+        val instancesToSend = InstanceAutoSendFetcher.getInstancesToAutoSend(
+            instancesRepository,
+            formsRepository
+        )
+
+        assertThat(instancesToSend.size, equalTo(2))
+        verify(formsRepository, times(1)).getLatestByFormIdAndVersion("2", "1")
+    }
 }
@@ -1,32 +1,33 @@
 package org.odk.collect.android.mainmenu
 
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
 import kotlinx.coroutines.flow.MutableStateFlow
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.equalTo
 import org.junit.Rule
 import org.junit.Test
+import org.junit.runner.RunWith
 import org.mockito.Mockito.verify
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.whenever
 import org.odk.collect.android.projects.ProjectsDataService
+import org.odk.collect.androidtest.getOrAwaitValue
 import org.odk.collect.projects.Project
 
+@RunWith(AndroidJUnit4::class)
 class CurrentProjectViewModelTest {
 
     @get:Rule
     var instantTaskExecutorRule = InstantTaskExecutorRule()
 
+    private val projectX = Project.Saved("123", "Project X", "X", "#cccccc")
+    private val projects = MutableStateFlow(listOf(projectX))
+
     private val projectsDataService = mock<ProjectsDataService> {
-        on { getCurrentProject() } doReturn MutableStateFlow(
-            Project.Saved(
-                "123",
-                "Project X",
-                "X",
-                "#cccccc"
-            )
-        )
+        on { getCurrentProject() } doReturn MutableStateFlow(projectX)
+        on { getProjects() } doReturn projects
     }
 
     @Test
@@ -34,11 +35,20 @@ class CurrentProjectViewModelTest {
         val viewModel = CurrentProjectViewModel(projectsDataService)
         assertThat(viewModel.hasCurrentProject(), equalTo(true))
         assertThat(
-            viewModel.currentProject.value,
+            viewModel.currentProject.getOrAwaitValue(),
             equalTo(Project.Saved("123", "Project X", "X", "#cccccc"))
         )
     }
 
+    @Test
+    fun `currentProject is updated when the current project is edited`() {
+        val viewModel = CurrentProjectViewModel(projectsDataService)
+        viewModel.currentProject.getOrAwaitValue()
+
+        projects.value = listOf(projectX.copy(name = "Project X2"))
+        assertThat(viewModel.currentProject.getOrAwaitValue(), equalTo(projectX.copy(name = "Project X2")))
+    }
+
     @Test
     fun `setCurrentProject() sets current project`() {
         val project = Project.Saved("456", "Project Y", "Y", "#ffffff")
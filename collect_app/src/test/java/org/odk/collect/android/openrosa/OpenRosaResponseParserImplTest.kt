@@ -96,6 +96,46 @@ class OpenRosaResponseParserImplTest {
         assertThat(mediaFiles[0].isEntityList, equalTo(true))
     }
 
+    @Test
+    fun `parseManifest() when entity list has deltaUrl returns it`() {
+        val response = StringBuilder()
+            .appendLine("<?xml version='1.0' encoding='UTF-8' ?>")
+            .appendLine("<manifest xmlns=\"http://openrosa.org/xforms/xformsManifest\">")
+            .appendLine("<mediaFile type=\"entityList\">")
+            .appendLine("<filename>badgers.csv</filename>")
+            .appendLine("<hash>md5:blah</hash>")
+            .appendLine("<downloadUrl>http://funk.appspot.com/badgers.csv</downloadUrl>")
+            .appendLine("<deltaUrl>http://funk.appspot.com/badgers/delta</deltaUrl>")
+            .appendLine("</mediaFile>")
+            .appendLine("</manifest>")
+            .toString()
+
+        val doc = XFormParser.getXMLDocument(response.reader())
+        val mediaFiles = OpenRosaResponseParserImpl().parseManifest(doc)!!
+        assertThat(mediaFiles.size, equalTo(1))
+        assertThat(mediaFiles[0].deltaUrl, equalTo("http://funk.appspot.com/badgers/delta"))
+    }
+
+    @Test
+    fun `parseManifest() ignores deltaUrl for media files that are not entity lists`() {
+        val response = StringBuilder()
+            .appendLine("<?xml version='1.0' encoding='UTF-8' ?>")
+            .appendLine("<manifest xmlns=\"http://openrosa.org/xforms/xformsManifest\">")
+            .appendLine("<mediaFile>")
+            .appendLine("<filename>badgers.csv</filename>")
+            .appendLine("<hash>md5:blah</hash>")
+            .appendLine("<downloadUrl>http://funk.appspot.com/badgers.csv</downloadUrl>")
+            .appendLine("<deltaUrl>http://funk.appspot.com/badgers/delta</deltaUrl>")
+            .appendLine("</mediaFile>")
+            .appendLine("</manifest>")
+            .toString()
+
+        val doc = XFormParser.getXMLDocument(response.reader())
+        val mediaFiles = OpenRosaResponseParserImpl().parseManifest(doc)!!
+        assertThat(mediaFiles.size, equalTo(1))
+        assertThat(mediaFiles[0].deltaUrl, equalTo(null))
+    }
+
     @Test
     fun `parseManifest() when media file does not have type returns isEntityList as false`() {
         val response = StringBuilder()
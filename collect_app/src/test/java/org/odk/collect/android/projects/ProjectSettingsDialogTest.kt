@@ -146,6 +146,20 @@ class ProjectSettingsDialogTest {
         }
     }
 
+    @Test
+    fun `list of projects is updated when a project is added`() {
+        projectsRepository.save(Project.New("Project Y", "Y", "#ffffff"))
+
+        val scenario = launcherRule.launch(ProjectSettingsDialog::class.java)
+        scenario.onFragment {
+            assertThat(it.binding.projectList.childCount, `is`(1))
+
+            projectsRepository.save(Project.New("Project Z", "Z", "#ffffff"))
+            RobolectricHelpers.runLooper()
+            assertThat(it.binding.projectList.childCount, `is`(2))
+        }
+    }
+
     @Test
     fun `currentProjectViewModel should be notified when project switched`() {
         val projectY = projectsRepository.save(Project.New("Project Y", "Y", "#ffffff"))
@@ -0,0 +1,111 @@
+package org.odk.collect.android.support
+
+import org.odk.collect.entities.LocalEntityUseCases
+import org.odk.collect.entities.javarosa.parse.EntitySchema
+import org.odk.collect.entities.storage.Entity
+import org.odk.collect.forms.FormListItem
+import org.odk.collect.forms.FormSource
+import org.odk.collect.forms.FormSourceException
+import org.odk.collect.forms.ManifestFile
+import org.odk.collect.forms.MediaFile
+import org.odk.collect.shared.strings.Md5.getMd5Hash
+import java.io.InputStream
+import java.net.URLDecoder
+
+/**
+ * A stand-in for a server that serves one entity list as a full CSV and as deltas from any version
+ * it has published (identified by the list's hash) to the latest one.
+ */
+class StubEntityListServer(private val list: String) : FormSource {
+
+    private val versions = mutableListOf<List<Entity>>()
+
+    /**
+     * Whether deltas can be requested. If not, requests for them fail like they would on a server
+     * that doesn't keep (or never kept) old versions of the list.
+     */
+    var deltasAvailable = true
+
+    val requestedUrls = mutableListOf<String>()
+
+    fun publish(vararg entities: Entity) {
+        versions.add(entities.toList())
+    }
+
+    fun getCsv(): String {
+        return toCsv(versions.last())
+    }
+
+    fun getMediaFile(): MediaFile {
+        return MediaFile("$list.csv", getCsv().getMd5Hash()!!, DOWNLOAD_URL, true, DELTA_URL)
+    }
+
+    override fun fetchMediaFile(mediaFileURL: String): InputStream {
+        requestedUrls.add(mediaFileURL)
+
+        if (mediaFileURL == DOWNLOAD_URL) {
+            return getCsv().byteInputStream()
+        } else if (mediaFileURL.startsWith("$DELTA_URL?since=") && deltasAvailable) {
+            val since = URLDecoder.decode(mediaFileURL.substringAfter("since="), "UTF-8")
+            val base = versions.find { "md5:${toCsv(it).getMd5Hash()}" == since }
+            if (base != null) {
+                return toDeltaCsv(base, versions.last()).byteInputStream()
+            }
+        }
+
+        throw FormSourceException.ServerError(404, mediaFileURL)
+    }
+
+    override fun fetchFormList(): List<FormListItem> {
+        throw UnsupportedOperationException()
+    }
+
+    override fun fetchManifest(manifestURL: String?): ManifestFile {
+        throw UnsupportedOperationException()
+    }
+
+    override fun fetchForm(formURL: String?): InputStream {
+        throw UnsupportedOperationException()
+    }
+
+    private fun toCsv(entities: List<Entity>): String {
+        val propertyNames = getPropertyNames(entities)
+        val header = listOf(EntitySchema.ID, EntitySchema.LABEL, EntitySchema.VERSION) + propertyNames
+        val rows = entities.map { toRow(it, propertyNames) }
+
+        return (listOf(header) + rows).joinToString("\n") { it.joinToString(",") }
+    }
+
+    private fun toDeltaCsv(base: List<Entity>, latest: List<Entity>): String {
+        val propertyNames = getPropertyNames(latest)
+        val header = listOf(EntitySchema.ID, EntitySchema.LABEL, EntitySchema.VERSION) +
+            propertyNames + LocalEntityUseCases.DELTA_DELETED
+
+        val changed = latest
+            .filter { entity -> base.none { it == entity } }
+            .map { toRow(it, propertyNames) + "false" }
+
+        val deleted = base
+            .filter { entity -> latest.none { it.id == entity.id } }
+            .map { entity -> listOf(entity.id, "", "") + propertyNames.map { "" } + "true" }
+
+        return (listOf(header) + changed + deleted).joinToString("\n") { it.joinToString(",") }
+    }
+
+    private fun toRow(entity: Entity, propertyNames: List<String>): List<String> {
+        val properties = propertyNames.map { name ->
+            entity.properties.firstOrNull { it.first == name }?.second ?: ""
+        }
+
+        return listOf(entity.id, entity.label ?: "", entity.version.toString()) + properties
+    }
+
+    private fun getPropertyNames(entities: List<Entity>): List<String> {
+        return entities.flatMap { entity -> entity.properties.map { it.first } }.distinct()
+    }
+
+    companion object {
+        const val DOWNLOAD_URL = "https://server.example/list.csv"
+        const val DELTA_URL = "https://server.example/list/delta"
+    }
+}
@@ -0,0 +1,72 @@
+package org.odk.collect.android.utilities
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+import org.odk.collect.shared.TempFiles.createTempDir
+import java.io.File
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ZipUtilsTest {
+
+    private val mediaDir = createTempDir()
+
+    @Test
+    fun `unzip extracts top level files into the zip's directory`() {
+        val zipFile = createZip("media.zip", mapOf("a.csv" to "a", "b.png" to "b", "dir/c.csv" to "c"))
+
+        ZipUtils.unzip(arrayOf(zipFile))
+
+        assertThat(File(mediaDir, "a.csv").readText(), equalTo("a"))
+        assertThat(File(mediaDir, "b.png").readText(), equalTo("b"))
+        assertThat(File(mediaDir, "c.csv").exists(), equalTo(false))
+    }
+
+    @Test
+    fun `unzip skips files that have not changed since they were last extracted`() {
+        val zipFile = createZip("media.zip", mapOf("a.csv" to "a", "b.png" to "b"))
+        ZipUtils.unzip(arrayOf(zipFile))
+
+        File(mediaDir, "a.csv").setLastModified(0)
+        ZipUtils.unzip(arrayOf(zipFile))
+
+        assertThat(File(mediaDir, "a.csv").lastModified(), equalTo(0L))
+    }
+
+    @Test
+    fun `unzip extracts files again if they have changed`() {
+        val zipFile = createZip("media.zip", mapOf("a.csv" to "a", "b.png" to "b"))
+        ZipUtils.unzip(arrayOf(zipFile))
+
+        File(mediaDir, "b.png").delete()
+        createZip("media.zip", mapOf("a.csv" to "new a", "b.png" to "b"))
+        ZipUtils.unzip(arrayOf(zipFile))
+
+        assertThat(File(mediaDir, "a.csv").readText(), equalTo("new a"))
+        assertThat(File(mediaDir, "b.png").readText(), equalTo("b"))
+    }
+
+    @Test
+    fun `delete removes zip and record of what was extracted`() {
+        val zipFile = createZip("media.zip", mapOf("a.csv" to "a"))
+        ZipUtils.unzip(arrayOf(zipFile))
+
+        assertThat(ZipUtils.delete(zipFile), equalTo(true))
+        assertThat(mediaDir.list()!!.toList(), containsInAnyOrder("a.csv"))
+    }
+
+    private fun createZip(name: String, files: Map<String, String>): File {
+        val zipFile = File(mediaDir, name)
+        ZipOutputStream(zipFile.outputStream()).use { zip ->
+            files.forEach { (fileName, contents) ->
+                zip.putNextEntry(ZipEntry(fileName))
+                zip.write(contents.toByteArray())
+                zip.closeEntry()
+            }
+        }
+
+        return zipFile
+    }
+}
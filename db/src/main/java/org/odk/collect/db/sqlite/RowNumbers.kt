@@ -5,8 +5,19 @@ import org.odk.collect.db.sqlite.SQLiteColumns.ROW_ID
 import org.odk.collect.db.sqlite.SQLiteColumns.ROW_NUMBER
 
 object RowNumbers {
-    fun SynchronizedDatabaseConnection.rawQueryWithRowNumber(table: String, selection: String? = null, selectionArgs: Array<String>? = null): Cursor {
+    /**
+     * Returns the rows of [table] (matching [selection] if it's not null) with a [ROW_NUMBER]
+     * column ordered by it. [selection] can refer to [ROW_NUMBER] which combined with [limit]
+     * allows the table to be read a page at a time.
+     */
+    fun SynchronizedDatabaseConnection.rawQueryWithRowNumber(
+        table: String,
+        selection: String? = null,
+        selectionArgs: Array<String>? = null,
+        limit: Int? = null
+    ): Cursor {
         this.ensureRowIdTable(table)
+        val limitClause = if (limit != null) "LIMIT $limit" else ""
 
         val cursor = if (selection != null) {
             this.withConnection {
@@ -17,6 +28,7 @@ object RowNumbers {
                         FROM "$table" e, "${getRowIdTableName(table)}" i
                         WHERE e._id = i._id AND $selection
                         ORDER BY i.$ROW_ID
+                        $limitClause
                         """.trimIndent(),
                         selectionArgs
                     )
@@ -30,6 +42,7 @@ object RowNumbers {
                         FROM "$table" e, "${getRowIdTableName(table)}" i
                         WHERE e._id = i._id
                         ORDER BY i.$ROW_ID
+                        $limitClause
                         """.trimIndent(),
                         null
                     )
@@ -92,6 +92,35 @@ class RowNumbersTest {
         assertThat(afterRows[1]["position"], equalTo("third"))
         assertThat(afterRows[1][ROW_NUMBER], equalTo("2"))
     }
+
+    @Test
+    fun `#rawQueryWithRowNumber can return a page of results after a row_number`() {
+        val dbConnection = SynchronizedDatabaseConnection(
+            context,
+            TempFiles.createTempDir().absolutePath,
+            "temp.db",
+            NoopMigrator(),
+            1
+        )
+
+        dbConnection.resetTransaction {
+            execSQL("CREATE TABLE test_table ($_ID integer PRIMARY KEY, position text)")
+        }
+
+        dbConnection.transaction {
+            insertOrThrow("test_table", null, ContentValues().also { it.put("position", "first") })
+            insertOrThrow("test_table", null, ContentValues().also { it.put("position", "second") })
+            insertOrThrow("test_table", null, ContentValues().also { it.put("position", "third") })
+        }
+
+        val rows = dbConnection
+            .rawQueryWithRowNumber("test_table", "$ROW_NUMBER > ?", arrayOf("1"), 1)
+            .foldAndClose { it.rowToMap() }
+        assertThat(rows.size, equalTo(1))
+
+        assertThat(rows[0]["position"], equalTo("second"))
+        assertThat(rows[0][ROW_NUMBER], equalTo("2"))
+    }
 }
 
 private class NoopMigrator : DatabaseMigrator {
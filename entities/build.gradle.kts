@@ -64,8 +64,10 @@ dependencies {
     implementation(libs.dagger)
     kapt(libs.daggerCompiler)
 
+    testImplementation(project(":test-shared"))
     testImplementation(libs.junit)
     testImplementation(libs.robolectric)
     testImplementation(libs.hamcrest)
     testImplementation(libs.mockitoKotlin)
+    testImplementation(libs.androidxArchCoreTesting)
 }
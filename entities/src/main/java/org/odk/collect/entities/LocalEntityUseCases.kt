@@ -1,7 +1,9 @@
 package org.odk.collect.entities
 
+import org.apache.commons.csv.CSVParser
 import org.apache.commons.csv.CSVRecord
 import org.javarosa.core.model.instance.SecondaryInstanceCSVParserBuilder
+import org.odk.collect.async.OngoingWorkListener
 import org.odk.collect.entities.javarosa.finalization.EntitiesExtra
 import org.odk.collect.entities.javarosa.parse.EntitySchema
 import org.odk.collect.entities.javarosa.spec.EntityAction
@@ -59,10 +61,24 @@ object LocalEntityUseCases {
         }
     }
 
+    /**
+     * Updates [list] from a server entity list CSV. Rows are streamed from the CSV and written in
+     * batches of [SERVER_BATCH_SIZE] so that only the (minimal) state of local entities needed to
+     * work out what's changed has to be held in memory rather than the whole list. Every row is
+     * read once before anything is written so that a list with a malformed row leaves [list]
+     * untouched.
+     *
+     * [stateListener] is sent the number of rows processed so far and the update will stop early
+     * if it is cancelled. If that happens part way through writing, the batches already written
+     * are kept (they only contain server versions) but entities that are no longer on the server
+     * aren't removed and the list's hash isn't updated, so the next update processes the whole
+     * list again.
+     */
     fun updateLocalEntitiesFromServer(
         list: String,
         serverList: File,
-        entitiesRepository: EntitiesRepository
+        entitiesRepository: EntitiesRepository,
+        stateListener: OngoingWorkListener? = null
     ) {
         val listHash = getListHash(serverList)
         val existingListVersion = entitiesRepository.getListHash(list)
@@ -70,95 +86,303 @@ object LocalEntityUseCases {
             return
         }
 
-        val csvParser = try {
-            SecondaryInstanceCSVParserBuilder()
-                .path(serverList.absolutePath)
-                .build()
-        } catch (_: Exception) {
+        if (!canParseServerList(serverList, stateListener)) {
             return
         }
 
-        val localEntities = entitiesRepository.query(list)
-
-        val missingFromServer = localEntities.associateBy { it.id }.toMutableMap()
-        val newAndUpdated = ArrayList<Entity>()
-        csvParser.use {
-            it.forEach { record ->
-                val serverEntity = parseEntityFromRecord(record) ?: return
-                val existing = missingFromServer.remove(serverEntity.id)
-
-                if (existing == null) {
-                    newAndUpdated.add(
-                        Entity.New(
-                            serverEntity.id,
-                            serverEntity.label,
-                            serverEntity.version,
-                            serverEntity.properties.toList(),
-                            state = Entity.State.ONLINE,
-                            trunkVersion = serverEntity.version,
-                            branchId = UUID.randomUUID().toString()
-                        )
-                    )
-                } else if (existing.version < serverEntity.version) {
-                    newAndUpdated.add(serverEntity.updateLocal(existing))
-                } else if (existing.version == serverEntity.version) {
-                    if (existing.isDirty()) {
-                        newAndUpdated.add(serverEntity.updateLocal(existing))
-                    }
-                } else if (existing.state == Entity.State.OFFLINE) {
-                    val update = existing.copy(state = Entity.State.ONLINE)
-                    newAndUpdated.add(update)
+        val csvParser = openCsv(serverList) ?: return
+        csvParser.use { parser ->
+            val columns = ServerEntityColumns.fromHeader(parser.headerMap) ?: return
+            val missingFromServer = getLocalEntities(list, entitiesRepository)
+
+            val batch = ArrayList<Entity>(SERVER_BATCH_SIZE)
+            var rows = 0
+            parser.forEach { record ->
+                if (stateListener?.isCancelled == true) {
+                    return
+                }
+
+                val serverEntity = columns.parse(record) ?: return
+                if (!serverEntity.deleted) {
+                    val existing = missingFromServer.remove(serverEntity.id)
+
+                    getUpdate(serverEntity, existing) {
+                        // Only local entities that haven't been sent yet need to be looked up so
+                        // there are few enough of these to do one at a time
+                        entitiesRepository
+                            .query(list, Query.StringEq(EntitySchema.ID, serverEntity.id))
+                            .firstOrNull()
+                    }?.let { batch.add(it) }
+                }
+
+                if (batch.size == SERVER_BATCH_SIZE) {
+                    entitiesRepository.save(list, *batch.toTypedArray())
+                    batch.clear()
+                }
+
+                rows++
+                if (rows % SERVER_BATCH_SIZE == 0) {
+                    stateListener?.progressUpdate(rows)
                 }
             }
-        }
 
-        missingFromServer.values.forEach {
-            if (it.state == Entity.State.ONLINE) {
-                entitiesRepository.delete(list, it.id)
+            missingFromServer.forEach { (id, local) ->
+                if (local.state == Entity.State.ONLINE) {
+                    entitiesRepository.delete(list, id)
+                }
             }
+
+            entitiesRepository.save(list, *batch.toTypedArray())
+            stateListener?.progressUpdate(rows)
         }
 
-        entitiesRepository.save(list, *newAndUpdated.toTypedArray())
         entitiesRepository.updateListHash(list, listHash)
     }
 
+    /**
+     * Returns true if [list] has already been updated to the server version with the MD5 hash
+     * [serverListHash] (as listed in a form's manifest).
+     */
+    fun isListUpToDate(list: String, serverListHash: String, entitiesRepository: EntitiesRepository): Boolean {
+        return entitiesRepository.getListHash(list) == "$MD5_PREFIX$serverListHash"
+    }
+
+    /**
+     * Updates [list] from a delta: a CSV in the same format as a server entity list, but with only
+     * the entities that have changed since the version of the list the device already has (as
+     * returned by [EntitiesRepository.getListHash]) and a [DELTA_DELETED] column marking entities
+     * that have been removed. [serverListHash] is the MD5 hash of the server's full list after the
+     * changes and is stored as the list's new hash so the next delta (or full update) starts from
+     * there.
+     *
+     * Returns false (without changing the list) if the delta can't be read so that the full list
+     * can be downloaded instead.
+     */
+    fun updateLocalEntitiesFromServerDelta(
+        list: String,
+        delta: File,
+        serverListHash: String,
+        entitiesRepository: EntitiesRepository
+    ): Boolean {
+        val csvParser = openCsv(delta) ?: return false
+
+        // Deltas are small so they're read in full before writing anything which means local
+        // entities can be looked up without the reads and writes interleaving
+        val serverEntities = csvParser.use { parser ->
+            val columns = ServerEntityColumns.fromHeader(parser.headerMap) ?: return false
+            parser.map { record -> columns.parse(record) ?: return false }
+        }
+
+        val updates = ArrayList<Entity>()
+        val deletes = ArrayList<String>()
+        serverEntities.forEach { serverEntity ->
+            val existing = entitiesRepository
+                .query(list, Query.StringEq(EntitySchema.ID, serverEntity.id))
+                .firstOrNull()
+
+            if (serverEntity.deleted) {
+                if (existing != null && existing.state == Entity.State.ONLINE) {
+                    deletes.add(serverEntity.id)
+                }
+            } else {
+                val local = existing?.let { LocalEntity(it.version, it.trunkVersion, it.state) }
+                getUpdate(serverEntity, local) { existing }?.let { updates.add(it) }
+            }
+        }
+
+        deletes.forEach { entitiesRepository.delete(list, it) }
+        updates.chunked(SERVER_BATCH_SIZE).forEach {
+            entitiesRepository.save(list, *it.toTypedArray())
+        }
+
+        entitiesRepository.updateListHash(list, "$MD5_PREFIX$serverListHash")
+        return true
+    }
+
+    /**
+     * Returns true if every row in [serverList] can be parsed as an entity. Rows aren't kept so
+     * this can be used to check large lists before writing any of them.
+     */
+    private fun canParseServerList(serverList: File, stateListener: OngoingWorkListener?): Boolean {
+        val csvParser = openCsv(serverList) ?: return false
+        return csvParser.use { parser ->
+            val columns = ServerEntityColumns.fromHeader(parser.headerMap) ?: return false
+            parser.all { record ->
+                stateListener?.isCancelled != true && columns.parse(record) != null
+            }
+        }
+    }
+
+    private fun openCsv(file: File): CSVParser? {
+        return try {
+            SecondaryInstanceCSVParserBuilder()
+                .path(file.absolutePath)
+                .build()
+        } catch (_: Exception) {
+            null
+        }
+    }
+
+    /**
+     * Returns how [existing] (or nothing if there's no local entity with the same ID) should be
+     * updated to take [serverEntity] into account or null if it doesn't need to be.
+     */
+    private fun getUpdate(
+        serverEntity: ServerEntity,
+        existing: LocalEntity?,
+        getExisting: () -> Entity.Saved?
+    ): Entity? {
+        return if (existing == null) {
+            Entity.New(
+                serverEntity.id,
+                serverEntity.label,
+                serverEntity.version,
+                serverEntity.properties,
+                state = Entity.State.ONLINE,
+                trunkVersion = serverEntity.version,
+                branchId = UUID.randomUUID().toString()
+            )
+        } else if (existing.version < serverEntity.version) {
+            serverEntity.updateLocal()
+        } else if (existing.version == serverEntity.version) {
+            if (existing.isDirty()) {
+                serverEntity.updateLocal()
+            } else {
+                null
+            }
+        } else if (existing.state == Entity.State.OFFLINE) {
+            getExisting()?.copy(state = Entity.State.ONLINE)
+        } else {
+            null
+        }
+    }
+
+    /**
+     * Returns the state of each local entity in [list] (by ID) needed to decide how to merge server
+     * entities into it. Entities are read a page at a time so the full entities (with their labels
+     * and properties) don't all need to be in memory at once.
+     */
+    private fun getLocalEntities(
+        list: String,
+        entitiesRepository: EntitiesRepository
+    ): MutableMap<String, LocalEntity> {
+        val localEntities = HashMap<String, LocalEntity>()
+
+        var afterIndex = -1
+        do {
+            val page = entitiesRepository.queryPage(list, afterIndex, SERVER_BATCH_SIZE)
+            page.forEach {
+                localEntities[it.id] = LocalEntity(it.version, it.trunkVersion, it.state)
+            }
+
+            afterIndex = page.lastOrNull()?.index ?: afterIndex
+        } while (page.size == SERVER_BATCH_SIZE)
+
+        return localEntities
+    }
+
     private fun getListHash(serverList: File): String {
-        return "md5:${serverList.getMd5Hash()!!}"
+        return "$MD5_PREFIX${serverList.getMd5Hash()!!}"
     }
 
-    private fun parseEntityFromRecord(record: CSVRecord): ServerEntity? {
-        val map = record.toMap()
+    /**
+     * The column in an entity list delta that marks entities that have been removed from the list
+     * (with the value "true").
+     */
+    const val DELTA_DELETED = "__deleted"
 
-        val id = map.remove(EntitySchema.ID)
-        val label = map.remove(EntitySchema.LABEL)
-        val version = map.remove(EntitySchema.VERSION)?.toInt()
-        if (id == null || label == null || version == null) {
+    private const val MD5_PREFIX = "md5:"
+    private const val SERVER_BATCH_SIZE = 1000
+}
+
+/**
+ * The positions of the entity columns in a server entity list CSV (or delta) so that they only
+ * need to be looked up once rather than for every row.
+ */
+private class ServerEntityColumns(
+    private val id: Int,
+    private val label: Int,
+    private val version: Int,
+    private val deleted: Int?,
+    private val properties: List<Pair<String, Int>>
+) {
+
+    fun parse(record: CSVRecord): ServerEntity? {
+        if (record.size() <= id) {
             return null
         }
 
+        if (deleted != null && deleted < record.size() && record.get(deleted) == "true") {
+            return ServerEntity(record.get(id), "", 0, emptyList(), deleted = true)
+        }
+
+        if (record.size() <= maxOf(label, version)) {
+            return null
+        }
+
+        val version = record.get(version).toIntOrNull() ?: return null
         return ServerEntity(
-            id,
-            label,
+            record.get(id),
+            record.get(label),
             version,
-            map
+            properties
+                .filter { (_, position) -> position < record.size() }
+                .map { (name, position) -> name to record.get(position) }
         )
     }
+
+    companion object {
+        fun fromHeader(header: Map<String, Int>): ServerEntityColumns? {
+            val id = header[EntitySchema.ID]
+            val label = header[EntitySchema.LABEL]
+            val version = header[EntitySchema.VERSION]
+            if (id == null || label == null || version == null) {
+                return null
+            }
+
+            val deleted = header[LocalEntityUseCases.DELTA_DELETED]
+            val properties = header.entries
+                .filter { it.value != id && it.value != label && it.value != version && it.value != deleted }
+                .map { it.key to it.value }
+
+            return ServerEntityColumns(id, label, version, deleted, properties)
+        }
+    }
 }
 
 private data class ServerEntity(
     val id: String,
     val label: String,
     val version: Int,
-    val properties: Map<String, String>) {
+    val properties: List<Pair<String, String>>,
+    val deleted: Boolean = false
+) {
 
-    fun updateLocal(local: Entity.Saved): Entity.Saved {
-        return local.copy(
-            label = this.label,
-            version = this.version,
-            properties = this.properties.toList(),
+    /**
+     * Returns an update for the local entity with the same ID that replaces it with this server
+     * version. Anything not included in the update (like the entity's index) is kept by the
+     * repository when it's saved.
+     */
+    fun updateLocal(): Entity {
+        return Entity.New(
+            id,
+            label,
+            version,
+            properties,
             state = Entity.State.ONLINE,
-            branchId = UUID.randomUUID().toString(),
-            trunkVersion = this.version
+            trunkVersion = version,
+            branchId = UUID.randomUUID().toString()
         )
     }
 }
+
+private data class LocalEntity(
+    val version: Int,
+    val trunkVersion: Int?,
+    val state: Entity.State
+) {
+
+    fun isDirty(): Boolean {
+        return version != trunkVersion
+    }
+}
@@ -3,20 +3,31 @@ package org.odk.collect.entities.browser
 import android.content.Context
 import android.os.Bundle
 import android.view.LayoutInflater
+import android.view.Menu
+import android.view.MenuInflater
+import android.view.MenuItem
 import android.view.View
 import android.view.ViewGroup
+import androidx.appcompat.widget.SearchView
+import androidx.appcompat.widget.Toolbar
+import androidx.core.view.MenuProvider
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.viewModels
 import androidx.lifecycle.ViewModelProvider
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import androidx.recyclerview.widget.RecyclerView.ViewHolder
+import org.odk.collect.entities.R
 import org.odk.collect.entities.databinding.ListLayoutBinding
 import org.odk.collect.entities.storage.Entity
 import org.odk.collect.lists.RecyclerViewUtils
+import org.odk.collect.lists.RecyclerViewUtils.addOnScrolledNearEndListener
 import org.odk.collect.lists.RecyclerViewUtils.matchParentWidth
 
-class EntitiesFragment(private val viewModelFactory: ViewModelProvider.Factory) : Fragment() {
+class EntitiesFragment(
+    private val viewModelFactory: ViewModelProvider.Factory,
+    private val toolbar: () -> Toolbar
+) : Fragment() {
 
     private val entitiesViewModel by viewModels<EntitiesViewModel> { viewModelFactory }
 
@@ -33,15 +44,57 @@ class EntitiesFragment(private val viewModelFactory: ViewModelProvider.Factory)
         binding.list.layoutManager = LinearLayoutManager(requireContext())
         binding.list.addItemDecoration(RecyclerViewUtils.verticalLineDivider(requireContext()))
 
+        val adapter = EntitiesAdapter()
+        binding.list.adapter = adapter
+        binding.list.addOnScrolledNearEndListener { entitiesViewModel.loadMore() }
+
         val list = EntitiesFragmentArgs.fromBundle(requireArguments()).list
         entitiesViewModel.getEntities(list).observe(viewLifecycleOwner) {
-            binding.list.adapter = EntitiesAdapter(it)
+            adapter.data = it
+        }
+
+        entitiesViewModel.getCount(list).observe(viewLifecycleOwner) {
+            toolbar().subtitle = resources.getQuantityString(org.odk.collect.strings.R.plurals.entity_count, it, it)
         }
+
+        toolbar().addMenuProvider(SearchMenuProvider(entitiesViewModel), viewLifecycleOwner)
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        toolbar().subtitle = null
     }
 }
 
-private class EntitiesAdapter(private val data: List<Entity.Saved>) :
-    RecyclerView.Adapter<EntityViewHolder>() {
+private class SearchMenuProvider(private val entitiesViewModel: EntitiesViewModel) : MenuProvider {
+
+    override fun onCreateMenu(menu: Menu, menuInflater: MenuInflater) {
+        menuInflater.inflate(R.menu.entities_menu, menu)
+
+        (menu.findItem(R.id.menu_search).actionView as SearchView).apply {
+            setOnQueryTextListener(object : SearchView.OnQueryTextListener {
+                override fun onQueryTextSubmit(query: String) = false
+
+                override fun onQueryTextChange(newText: String): Boolean {
+                    entitiesViewModel.search(newText)
+                    return false
+                }
+            })
+        }
+    }
+
+    override fun onMenuItemSelected(menuItem: MenuItem): Boolean {
+        return false
+    }
+}
+
+private class EntitiesAdapter : RecyclerView.Adapter<EntityViewHolder>() {
+
+    var data = emptyList<Entity.Saved>()
+        set(value) {
+            field = value
+            notifyDataSetChanged()
+        }
 
     override fun onCreateViewHolder(parent: ViewGroup, position: Int): EntityViewHolder {
         return EntityViewHolder(parent.context)
@@ -15,18 +15,86 @@ class EntitiesViewModel(
     private val _lists = MutableLiveData<List<String>>(emptyList())
     val lists: LiveData<List<String>> = _lists
 
+    private val entities = MutableLiveData<List<Entity.Saved>>(emptyList())
+    private var list: String? = null
+    private var search: String? = null
+    private var generation = 0
+    private var isLoading = false
+    private var isEndReached = false
+
     init {
         scheduler.immediate {
             _lists.postValue(entitiesRepository.getLists().toList())
         }
     }
 
+    /**
+     * The entities in [list] that have been loaded so far. These are fetched from the repository a
+     * page at a time (already filtered by [search]) and [loadMore] should be called to fetch the
+     * next page when the end of the list is reached.
+     */
     fun getEntities(list: String): LiveData<List<Entity.Saved>> {
-        val result = MutableLiveData<List<Entity.Saved>>(emptyList())
+        if (this.list != list) {
+            this.list = list
+            reload()
+        }
+
+        return entities
+    }
+
+    fun getCount(list: String): LiveData<Int> {
+        val result = MutableLiveData<Int>()
         scheduler.immediate {
-            result.postValue(entitiesRepository.query(list))
+            result.postValue(entitiesRepository.getCount(list))
         }
 
         return result
     }
+
+    fun search(text: String) {
+        val search = text.ifBlank { null }
+        if (this.search != search) {
+            this.search = search
+            reload()
+        }
+    }
+
+    fun loadMore() {
+        val list = list ?: return
+        if (isLoading || isEndReached) {
+            return
+        }
+
+        isLoading = true
+        val loadGeneration = generation
+        val loaded = entities.value ?: emptyList()
+        val afterIndex = loaded.lastOrNull()?.index ?: -1
+        val search = search
+
+        scheduler.immediate(
+            background = {
+                entitiesRepository.queryPage(list, afterIndex, PAGE_SIZE, search)
+            },
+            foreground = { page ->
+                // Drop pages for a list or search that has since been replaced
+                if (loadGeneration == generation) {
+                    isLoading = false
+                    isEndReached = page.size < PAGE_SIZE
+                    entities.value = loaded + page
+                }
+            }
+        )
+    }
+
+    private fun reload() {
+        generation++
+        isLoading = false
+        isEndReached = false
+        entities.value = emptyList()
+        loadMore()
+    }
+
+    companion object {
+        const val PAGE_SIZE = 100
+    }
 }
@@ -31,7 +31,7 @@ class EntityBrowserActivity : LocalizedActivity() {
     override fun onCreate(savedInstanceState: Bundle?) {
         supportFragmentManager.fragmentFactory = FragmentFactoryBuilder()
             .forClass(EntityListsFragment::class) { EntityListsFragment(viewModelFactory, ::getToolbar) }
-            .forClass(EntitiesFragment::class) { EntitiesFragment(viewModelFactory) }
+            .forClass(EntitiesFragment::class) { EntitiesFragment(viewModelFactory, ::getToolbar) }
             .build()
 
         super.onCreate(savedInstanceState)
@@ -10,6 +10,14 @@ interface EntitiesRepository {
     fun delete(list: String, id: String)
     fun query(list: String, query: Query? = null): List<Entity.Saved>
     fun getByIndex(list: String, index: Int): Entity.Saved?
+
+    /**
+     * Returns up to [limit] entities from [list] with an index greater than [afterIndex] in index
+     * order. If [search] is not null, only entities with a label or property value that contains
+     * it (ignoring case, see [EntitySearch]) are returned. This allows large lists to be read a
+     * page at a time.
+     */
+    fun queryPage(list: String, afterIndex: Int, limit: Int, search: String? = null): List<Entity.Saved>
     fun updateListHash(list: String, hash: String)
     fun getListHash(list: String): String?
 }
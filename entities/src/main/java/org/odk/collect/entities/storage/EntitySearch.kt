@@ -0,0 +1,35 @@
+package org.odk.collect.entities.storage
+
+/**
+ * How [EntitiesRepository.queryPage] searches entities. The search and the entity's label and
+ * property values are lowercased the same way so that case is ignored for every language, not
+ * just ASCII (like SQLite's `LIKE`). Databases can store [getSearchText] to match the same
+ * entities as repositories that search in memory.
+ */
+object EntitySearch {
+
+    /**
+     * Separates values in the search text. Searches only contain it if it's in an entity's values.
+     */
+    private const val SEPARATOR = "\u001F"
+
+    @JvmStatic
+    fun normalize(text: String): String {
+        return text.lowercase()
+    }
+
+    @JvmStatic
+    fun getSearchText(label: String?, values: List<String>): String {
+        return (listOfNotNull(label) + values).joinToString(SEPARATOR) { normalize(it) }
+    }
+
+    @JvmStatic
+    fun getSearchText(entity: Entity): String {
+        return getSearchText(entity.label, entity.properties.map { it.second })
+    }
+
+    @JvmStatic
+    fun matches(entity: Entity, search: String): Boolean {
+        return getSearchText(entity).contains(normalize(search))
+    }
+}
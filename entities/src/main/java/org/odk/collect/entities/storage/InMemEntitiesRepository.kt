@@ -63,6 +63,20 @@ class InMemEntitiesRepository : EntitiesRepository {
         return query(list).firstOrNull { it.index == index }
     }
 
+    override fun queryPage(
+        list: String,
+        afterIndex: Int,
+        limit: Int,
+        search: String?
+    ): List<Entity.Saved> {
+        return query(list)
+            .asSequence()
+            .filter { it.index > afterIndex }
+            .filter { search == null || EntitySearch.matches(it, search) }
+            .take(limit)
+            .toList()
+    }
+
     override fun updateListHash(list: String, hash: String) {
         listVersions[list] = hash
     }
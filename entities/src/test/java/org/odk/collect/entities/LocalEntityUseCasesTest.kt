@@ -8,6 +8,7 @@ import org.hamcrest.Matchers.containsInAnyOrder
 import org.hamcrest.Matchers.equalTo
 import org.hamcrest.Matchers.not
 import org.junit.Test
+import org.odk.collect.async.OngoingWorkListener
 import org.odk.collect.entities.javarosa.finalization.EntitiesExtra
 import org.odk.collect.entities.javarosa.finalization.FormEntity
 import org.odk.collect.entities.javarosa.parse.EntitySchema
@@ -17,6 +18,7 @@ import org.odk.collect.entities.storage.Entity
 import org.odk.collect.entities.storage.InMemEntitiesRepository
 import org.odk.collect.shared.Query
 import org.odk.collect.shared.TempFiles
+import org.odk.collect.shared.strings.Md5.getMd5Hash
 import java.io.File
 
 class LocalEntityUseCasesTest {
@@ -455,6 +457,137 @@ class LocalEntityUseCasesTest {
         assertThat(songs.isEmpty(), equalTo(true))
     }
 
+    @Test
+    fun `updateLocalEntitiesFromServer saves large lists in batches`() {
+        val entitiesRepository = MeasurableEntitiesRepository(entitiesRepository)
+        val csv = createEntityList(
+            *(1..2500).map { Entity.New("$it", "Song $it", properties = listOf("length" to "$it")) }.toTypedArray()
+        )
+
+        LocalEntityUseCases.updateLocalEntitiesFromServer("songs", csv, entitiesRepository)
+        assertThat(entitiesRepository.savedEntities, equalTo(2500))
+        assertThat(entitiesRepository.largestSave, equalTo(1000))
+
+        val songs = entitiesRepository.query("songs")
+        assertThat(songs.size, equalTo(2500))
+        assertThat(songs.last().properties, equalTo(listOf("length" to "2500")))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServer reports number of rows processed`() {
+        val csv = createEntityList(*(1..1500).map { Entity.New("$it", "Song $it") }.toTypedArray())
+        val stateListener = RecordingOngoingWorkListener()
+
+        LocalEntityUseCases.updateLocalEntitiesFromServer("songs", csv, entitiesRepository, stateListener)
+        assertThat(stateListener.progress, equalTo(listOf(1000, 1500)))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServer does not update list hash when cancelled`() {
+        val csv = createEntityList(Entity.New("cathedrals", "Cathedrals"))
+        val stateListener = RecordingOngoingWorkListener(cancelled = true)
+
+        LocalEntityUseCases.updateLocalEntitiesFromServer("songs", csv, entitiesRepository, stateListener)
+        assertThat(entitiesRepository.getListHash("songs"), equalTo(null))
+        assertThat(entitiesRepository.query("songs").isEmpty(), equalTo(true))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServer does nothing if any row is malformed`() {
+        LocalEntityUseCases.updateLocalEntitiesFromServer(
+            "songs",
+            createEntityList(Entity.New("noah", "Noah", 1)),
+            entitiesRepository
+        )
+        val originalHash = entitiesRepository.getListHash("songs")
+
+        val rows = (1..1500).map { listOf("$it", "Song $it", "1") }.toMutableList()
+        rows[1200] = listOf("1201", "Song 1201", "")
+        val csv = createCsv(listOf(EntitySchema.ID, EntitySchema.LABEL, EntitySchema.VERSION), *rows.toTypedArray())
+
+        LocalEntityUseCases.updateLocalEntitiesFromServer("songs", csv, entitiesRepository)
+        assertThat(entitiesRepository.query("songs").map { it.id }, equalTo(listOf("noah")))
+        assertThat(entitiesRepository.getListHash("songs"), equalTo(originalHash))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServer keeps written batches but does not remove entities or update hash when cancelled part way through`() {
+        LocalEntityUseCases.updateLocalEntitiesFromServer(
+            "songs",
+            createEntityList(Entity.New("noah", "Noah", 1)),
+            entitiesRepository
+        )
+        val originalHash = entitiesRepository.getListHash("songs")
+
+        val csv = createEntityList(*(1..1500).map { Entity.New("$it", "Song $it") }.toTypedArray())
+        val stateListener = RecordingOngoingWorkListener(cancelAfterProgress = 1000)
+
+        LocalEntityUseCases.updateLocalEntitiesFromServer("songs", csv, entitiesRepository, stateListener)
+        assertThat(entitiesRepository.getCount("songs"), equalTo(1001))
+        assertThat(entitiesRepository.query("songs").any { it.id == "noah" }, equalTo(true))
+        assertThat(entitiesRepository.getListHash("songs"), equalTo(originalHash))
+
+        LocalEntityUseCases.updateLocalEntitiesFromServer("songs", csv, entitiesRepository)
+        assertThat(entitiesRepository.getCount("songs"), equalTo(1500))
+        assertThat(entitiesRepository.query("songs").any { it.id == "noah" }, equalTo(false))
+        assertThat(entitiesRepository.getListHash("songs"), equalTo("md5:${csv.getMd5Hash()}"))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServerDelta updates, adds and removes online entities`() {
+        LocalEntityUseCases.updateLocalEntitiesFromServer(
+            "songs",
+            createEntityList(Entity.New("noah", "Noah", 1), Entity.New("cathedrals", "Cathedrals", 1)),
+            entitiesRepository
+        )
+        entitiesRepository.save("songs", Entity.New("perception", "Perception", 1))
+
+        val delta = createCsv(
+            listOf(EntitySchema.ID, EntitySchema.LABEL, EntitySchema.VERSION, LocalEntityUseCases.DELTA_DELETED),
+            listOf("noah", "Noah!", "2", "false"),
+            listOf("cathedrals", "", "", "true"),
+            listOf("perception", "", "", "true"),
+            listOf("bright", "Bright", "1", "false")
+        )
+
+        val result = LocalEntityUseCases.updateLocalEntitiesFromServerDelta("songs", delta, "abc", entitiesRepository)
+        assertThat(result, equalTo(true))
+
+        val songs = entitiesRepository.query("songs")
+        assertThat(songs.map { it.id }, containsInAnyOrder("noah", "perception", "bright"))
+        assertThat(songs.first { it.id == "noah" }.label, equalTo("Noah!"))
+        assertThat(songs.first { it.id == "noah" }.state, equalTo(Entity.State.ONLINE))
+        assertThat(entitiesRepository.getListHash("songs"), equalTo("md5:abc"))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServerDelta does nothing if passed a non-CSV file`() {
+        entitiesRepository.updateListHash("songs", "md5:123")
+        val file = TempFiles.createTempFile(".xml")
+
+        val result = LocalEntityUseCases.updateLocalEntitiesFromServerDelta("songs", file, "abc", entitiesRepository)
+        assertThat(result, equalTo(false))
+        assertThat(entitiesRepository.getListHash("songs"), equalTo("md5:123"))
+    }
+
+    @Test
+    fun `updateLocalEntitiesFromServerDelta does nothing if a row has an invalid version`() {
+        entitiesRepository.updateListHash("songs", "md5:123")
+
+        listOf("", "two").forEach { version ->
+            val delta = createCsv(
+                listOf(EntitySchema.ID, EntitySchema.LABEL, EntitySchema.VERSION, LocalEntityUseCases.DELTA_DELETED),
+                listOf("bright", "Bright", "1", "false"),
+                listOf("noah", "Noah", version, "false")
+            )
+
+            val result = LocalEntityUseCases.updateLocalEntitiesFromServerDelta("songs", delta, "abc", entitiesRepository)
+            assertThat(result, equalTo(false))
+            assertThat(entitiesRepository.query("songs").isEmpty(), equalTo(true))
+            assertThat(entitiesRepository.getListHash("songs"), equalTo("md5:123"))
+        }
+    }
+
     private fun createEntityList(vararg entities: Entity): File {
         if (entities.isNotEmpty()) {
             val header = listOf(
@@ -507,9 +640,13 @@ private class MeasurableEntitiesRepository(private val wrapped: EntitiesReposito
     var savedEntities: Int = 0
         private set
 
+    var largestSave: Int = 0
+        private set
+
     override fun save(list: String, vararg entities: Entity) {
         accesses += 1
         savedEntities += entities.size
+        largestSave = maxOf(largestSave, entities.size)
         wrapped.save(list, *entities)
     }
 
@@ -542,6 +679,16 @@ private class MeasurableEntitiesRepository(private val wrapped: EntitiesReposito
         return wrapped.getByIndex(list, index)
     }
 
+    override fun queryPage(
+        list: String,
+        afterIndex: Int,
+        limit: Int,
+        search: String?
+    ): List<Entity.Saved> {
+        accesses += 1
+        return wrapped.queryPage(list, afterIndex, limit, search)
+    }
+
     override fun updateListHash(list: String, hash: String) {
         accesses += 1
         wrapped.updateListHash(list, hash)
@@ -552,3 +699,18 @@ private class MeasurableEntitiesRepository(private val wrapped: EntitiesReposito
         return wrapped.getListHash(list)
     }
 }
+
+private class RecordingOngoingWorkListener(
+    private val cancelled: Boolean = false,
+    private val cancelAfterProgress: Int? = null
+) : OngoingWorkListener {
+
+    val progress = mutableListOf<Int>()
+
+    override val isCancelled: Boolean
+        get() = cancelled || (cancelAfterProgress != null && progress.any { it >= cancelAfterProgress })
+
+    override fun progressUpdate(progress: Int) {
+        this.progress.add(progress)
+    }
+}
@@ -0,0 +1,104 @@
+package org.odk.collect.entities.browser
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Rule
+import org.junit.Test
+import org.odk.collect.entities.storage.Entity
+import org.odk.collect.entities.storage.InMemEntitiesRepository
+import org.odk.collect.testshared.FakeScheduler
+
+class EntitiesViewModelTest {
+
+    @get:Rule
+    val instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    private val scheduler = FakeScheduler()
+    private val entitiesRepository = InMemEntitiesRepository()
+
+    @Test
+    fun `getEntities loads the first page and loadMore loads the next one`() {
+        saveWines(EntitiesViewModel.PAGE_SIZE + 1)
+
+        val viewModel = EntitiesViewModel(scheduler, entitiesRepository)
+        val entities = viewModel.getEntities("wines")
+        scheduler.flush()
+        assertThat(entities.value!!.size, equalTo(EntitiesViewModel.PAGE_SIZE))
+
+        viewModel.loadMore()
+        scheduler.flush()
+        assertThat(entities.value!!.map { it.id }, equalTo((0..EntitiesViewModel.PAGE_SIZE).map { it.toString() }))
+    }
+
+    @Test
+    fun `loadMore does nothing once the last page has been loaded`() {
+        saveWines(2)
+
+        val viewModel = EntitiesViewModel(scheduler, entitiesRepository)
+        val entities = viewModel.getEntities("wines")
+        scheduler.flush()
+
+        viewModel.loadMore()
+        scheduler.runBackground()
+        scheduler.runForeground()
+        assertThat(entities.value!!.size, equalTo(2))
+    }
+
+    @Test
+    fun `search only shows matching entities`() {
+        entitiesRepository.save(
+            "wines",
+            Entity.New("1", "Léoville Barton 2008"),
+            Entity.New("2", "Pontet-Canet 2014")
+        )
+
+        val viewModel = EntitiesViewModel(scheduler, entitiesRepository)
+        val entities = viewModel.getEntities("wines")
+        scheduler.flush()
+
+        viewModel.search("CANET")
+        scheduler.flush()
+        assertThat(entities.value!!.map { it.id }, equalTo(listOf("2")))
+
+        viewModel.search(" ")
+        scheduler.flush()
+        assertThat(entities.value!!.map { it.id }, equalTo(listOf("1", "2")))
+    }
+
+    @Test
+    fun `pages loaded for a previous search are dropped`() {
+        entitiesRepository.save(
+            "wines",
+            Entity.New("1", "Léoville Barton 2008"),
+            Entity.New("2", "Pontet-Canet 2014")
+        )
+
+        val viewModel = EntitiesViewModel(scheduler, entitiesRepository)
+        val entities = viewModel.getEntities("wines")
+        scheduler.runBackground()
+
+        viewModel.search("canet")
+        scheduler.flush()
+        assertThat(entities.value!!.map { it.id }, equalTo(listOf("2")))
+    }
+
+    @Test
+    fun `pages loaded for a previous list are dropped`() {
+        entitiesRepository.save("wines", Entity.New("1", "Léoville Barton 2008"))
+        entitiesRepository.save("beers", Entity.New("2", "Westvleteren 12"))
+
+        val viewModel = EntitiesViewModel(scheduler, entitiesRepository)
+        viewModel.getEntities("wines")
+        scheduler.runBackground()
+
+        val entities = viewModel.getEntities("beers")
+        scheduler.flush()
+        assertThat(entities.value!!.map { it.id }, equalTo(listOf("2")))
+    }
+
+    private fun saveWines(count: Int) {
+        val wines = (0 until count).map { Entity.New(it.toString(), "Wine $it") }
+        entitiesRepository.save("wines", *wines.toTypedArray())
+    }
+}
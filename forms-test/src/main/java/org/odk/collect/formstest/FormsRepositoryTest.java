@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.function.Supplier;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
@@ -63,6 +64,25 @@ public abstract class FormsRepositoryTest {
         assertThat(form.getDbId(), is(2L));
     }
 
+    @Test
+    public void isFormFileUnchanged_whenFileHasNotChanged_returnsTrue() {
+        FormsRepository formsRepository = buildSubject();
+        Form form = formsRepository.save(FormUtils.buildForm("1", "1", getFormFilesPath()).build());
+
+        assertThat(formsRepository.isFormFileUnchanged(form), is(true));
+        assertThat(formsRepository.isFormFileUnchanged(form), is(true));
+    }
+
+    @Test
+    public void isFormFileUnchanged_whenFileHasChanged_returnsFalse() throws IOException {
+        FormsRepository formsRepository = buildSubject();
+        Form form = formsRepository.save(FormUtils.buildForm("1", "1", getFormFilesPath()).build());
+        assertThat(formsRepository.isFormFileUnchanged(form), is(true));
+
+        FileUtils.writeStringToFile(new File(form.getFormFilePath()), createXFormBody("1", "1", "A different title"), "UTF-8");
+        assertThat(formsRepository.isFormFileUnchanged(form), is(false));
+    }
+
     @Test
     public void getAllByFormIdAndVersion_whenFormHasNullVersion_returnsAllMatchingForms() {
         FormsRepository formsRepository = buildSubject();
@@ -176,6 +196,19 @@ public abstract class FormsRepositoryTest {
         assertEquals(form1, form2);
     }
 
+    @Test
+    public void saveAll_savesAllFormsAndReturnsThemInOrder() {
+        FormsRepository formsRepository = buildSubject();
+        Form form1 = FormUtils.buildForm("id1", "version", getFormFilesPath()).build();
+        Form form2 = FormUtils.buildForm("id2", "version", getFormFilesPath()).build();
+
+        List<Form> savedForms = formsRepository.saveAll(asList(form1, form2));
+        assertThat(savedForms.size(), is(2));
+        assertThat(savedForms.get(0).getFormId(), is("id1"));
+        assertThat(savedForms.get(1).getFormId(), is("id2"));
+        assertThat(formsRepository.getAll().size(), is(2));
+    }
+
     @Test
     public void save_addsId() {
         FormsRepository formsRepository = buildSubject();
@@ -2,6 +2,7 @@ package org.odk.collect.formstest;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.odk.collect.forms.ChangeJournal;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.forms.savepoints.SavepointsRepository;
@@ -22,6 +23,7 @@ import static java.util.stream.Collectors.toList;
 public class InMemFormsRepository implements FormsRepository {
 
     private final List<Form> forms = new ArrayList<>();
+    private final ChangeJournal changeJournal = new ChangeJournal();
     private long idCounter = 1L;
 
     private final Supplier<Long> clock;
@@ -102,6 +104,11 @@ public class InMemFormsRepository implements FormsRepository {
         return forms.stream().filter(f -> f.getFormId().equals(jrFormId) && Objects.equals(f.getVersion(), jrVersion) && !f.isDeleted()).collect(toList());
     }
 
+    @Override
+    public boolean isFormFileUnchanged(@NotNull Form form) {
+        return form.getMD5Hash() != null && form.getMD5Hash().equals(Md5.getMd5Hash(new File(form.getFormFilePath())));
+    }
+
     @Override
     public Form save(@NotNull Form form) {
         Form.Builder builder = new Form.Builder(form);
@@ -117,6 +124,7 @@ public class InMemFormsRepository implements FormsRepository {
 
             forms.removeIf(f -> f.getDbId().equals(form.getDbId()));
             forms.add(builder.build());
+            changeJournal.recordChange(form.getDbId());
             return form;
         } else {
             builder.dbId(idCounter++)
@@ -143,10 +151,16 @@ public class InMemFormsRepository implements FormsRepository {
 
             Form formToSave = builder.build();
             forms.add(formToSave);
+            changeJournal.recordChange(formToSave.getDbId());
             return formToSave;
         }
     }
 
+    @Override
+    public List<Form> saveAll(@NotNull List<Form> forms) {
+        return forms.stream().map(this::save).collect(toList());
+    }
+
     @Override
     public void delete(Long id) {
         Optional<Form> formToRemove = forms.stream().filter(f -> f.getDbId().equals(id)).findFirst();
@@ -154,6 +168,7 @@ public class InMemFormsRepository implements FormsRepository {
             Form form = formToRemove.get();
             deleteFilesForForm(form);
             forms.remove(form);
+            changeJournal.recordChange(id);
         }
     }
 
@@ -167,6 +182,7 @@ public class InMemFormsRepository implements FormsRepository {
                     .deleted(true)
                     .build());
             savepointsRepository.delete(id, null);
+            changeJournal.recordChange(id);
         }
     }
 
@@ -176,6 +192,7 @@ public class InMemFormsRepository implements FormsRepository {
         if (form != null) {
             forms.remove(form);
             savepointsRepository.delete(form.getDbId(), null);
+            changeJournal.recordChange(form.getDbId());
         }
     }
 
@@ -186,6 +203,7 @@ public class InMemFormsRepository implements FormsRepository {
         }
 
         forms.clear();
+        changeJournal.recordUnknownChange();
     }
 
     @Override
@@ -197,9 +215,15 @@ public class InMemFormsRepository implements FormsRepository {
             forms.add(new Form.Builder(form)
                     .deleted(false)
                     .build());
+            changeJournal.recordChange(id);
         }
     }
 
+    @Override
+    public ChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+
     private void deleteFilesForForm(Form form) {
         // Delete form file
         if (form.getFormFilePath() != null) {
@@ -1,5 +1,6 @@
 package org.odk.collect.formstest;
 
+import org.odk.collect.forms.ChangeJournal;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.shared.files.FileExt;
@@ -16,6 +17,7 @@ public final class InMemInstancesRepository implements InstancesRepository {
 
     private final List<Instance> instances;
     private final Supplier<Long> clock;
+    private final ChangeJournal changeJournal = new ChangeJournal();
 
     private long idCounter = 1L;
 
@@ -123,6 +125,7 @@ public final class InMemInstancesRepository implements InstancesRepository {
         deleteInstanceFiles(instance);
 
         instances.remove(instance);
+        changeJournal.recordChange(id);
     }
 
     @Override
@@ -132,6 +135,7 @@ public final class InMemInstancesRepository implements InstancesRepository {
         }
 
         instances.clear();
+        changeJournal.recordUnknownChange();
     }
 
     @Override
@@ -154,6 +158,7 @@ public final class InMemInstancesRepository implements InstancesRepository {
                     .dbId(idCounter++)
                     .build();
             instances.add(newInstance);
+            changeJournal.recordChange(newInstance.getDbId());
             return newInstance;
         } else {
             if (instance.getDeletedDate() == null) {
@@ -164,6 +169,7 @@ public final class InMemInstancesRepository implements InstancesRepository {
 
             instances.removeIf(i -> i.getDbId().equals(id));
             instances.add(instance);
+            changeJournal.recordChange(id);
             return instance;
         }
     }
@@ -178,13 +184,20 @@ public final class InMemInstancesRepository implements InstancesRepository {
 
         instances.removeIf(i -> i.getDbId().equals(id));
         instances.add(instance);
+        changeJournal.recordChange(id);
         deleteInstanceFiles(instance);
     }
 
+    @Override
+    public ChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+
     public void removeInstanceById(Long databaseId) {
         for (int i = 0; i < instances.size(); i++) {
             if (instances.get(i).getDbId().equals(databaseId)) {
                 instances.remove(i);
+                changeJournal.recordChange(databaseId);
                 return;
             }
         }
@@ -16,13 +16,20 @@ package org.odk.collect.formstest;
 
 import org.junit.Test;
 import org.odk.collect.forms.instances.Instance;
+import org.odk.collect.forms.instances.InstanceSortOrder;
 import org.odk.collect.forms.instances.InstancesRepository;
+import org.odk.collect.forms.instances.PointBounds;
+import org.odk.collect.forms.instances.PointCluster;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
+import kotlin.Pair;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -133,6 +140,89 @@ public abstract class InstancesRepositoryTest {
         assertThat(instances.size(), is(4));
     }
 
+    @Test
+    public void getCountByFormId_countsAllVersionsForFormId() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "2", getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid2", "1", getInstancesDir()).build());
+
+        assertThat(instancesRepository.getCountByFormId("formid"), is(2));
+    }
+
+    @Test
+    public void getWithPointInBounds_returnsInstancesWithPointsInBoundsInIdOrder() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance inside1 = instancesRepository.save(buildPointInstance("formid", 1.0, 1.0));
+        instancesRepository.save(buildPointInstance("formid", 1.0, 20.0));
+        Instance inside2 = instancesRepository.save(buildPointInstance("formid", -1.0, 2.0));
+        instancesRepository.save(buildPointInstance("formid2", 1.0, 1.0));
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir())
+                .geometryType("LineString")
+                .geometry("{\"type\":\"LineString\",\"coordinates\":[[1.0,1.0],[2.0,2.0]]}")
+                .build());
+
+        List<Instance> instances = instancesRepository.getWithPointInBounds("formid", new PointBounds(-5.0, -5.0, 5.0, 5.0), 10);
+        assertThat(instances.size(), is(2));
+        assertThat(instances.get(0).getDbId(), is(inside1.getDbId()));
+        assertThat(instances.get(1).getDbId(), is(inside2.getDbId()));
+    }
+
+    @Test
+    public void getWithPointInBounds_returnsAtMostLimitInstances() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance first = instancesRepository.save(buildPointInstance("formid", 1.0, 1.0));
+        instancesRepository.save(buildPointInstance("formid", 1.0, 2.0));
+        instancesRepository.save(buildPointInstance("formid", 1.0, 3.0));
+
+        List<Instance> instances = instancesRepository.getWithPointInBounds("formid", new PointBounds(-5.0, -5.0, 5.0, 5.0), 1);
+        assertThat(instances.size(), is(1));
+        assertThat(instances.get(0).getDbId(), is(first.getDbId()));
+    }
+
+    @Test
+    public void getWithPointInBounds_whenBoundsCrossAntimeridian_returnsInstancesOnBothSides() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(buildPointInstance("formid", 0.0, 179.5));
+        instancesRepository.save(buildPointInstance("formid", 0.0, -179.5));
+        instancesRepository.save(buildPointInstance("formid", 0.0, 0.0));
+
+        List<Instance> instances = instancesRepository.getWithPointInBounds("formid", new PointBounds(-1.0, 179.0, 1.0, -179.0), 10);
+        assertThat(instances.size(), is(2));
+    }
+
+    @Test
+    public void getPointBounds_returnsBoundsOfFormsPoints() {
+        InstancesRepository instancesRepository = buildSubject();
+        assertThat(instancesRepository.getPointBounds("formid"), is(nullValue()));
+
+        instancesRepository.save(buildPointInstance("formid", 1.0, -3.0));
+        instancesRepository.save(buildPointInstance("formid", -2.0, 4.0));
+        instancesRepository.save(buildPointInstance("formid2", 50.0, 50.0));
+
+        assertThat(instancesRepository.getPointBounds("formid"), equalTo(new PointBounds(-2.0, -3.0, 1.0, 4.0)));
+    }
+
+    @Test
+    public void getPointClusters_groupsPointsInBoundsByGridCell() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance first = instancesRepository.save(buildPointInstance("formid", 1.0, 1.0));
+        instancesRepository.save(buildPointInstance("formid", 3.0, 3.0));
+        Instance other = instancesRepository.save(buildPointInstance("formid", -1.0, 11.0));
+        instancesRepository.save(buildPointInstance("formid", 1.0, 40.0));
+
+        List<PointCluster> clusters = instancesRepository.getPointClusters("formid", new PointBounds(-20.0, -20.0, 20.0, 20.0), 5.0);
+        assertThat(clusters, contains(
+                new PointCluster(-1, 2, 5.0, 1, -1.0, 11.0, other.getDbId()),
+                new PointCluster(0, 0, 5.0, 2, 2.0, 2.0, first.getDbId())
+        ));
+    }
+
     @Test
     public void getAllByFormIdAndVersionNotDeleted_excludesDeleted() {
         InstancesRepository instancesRepository = buildSubject();
@@ -150,6 +240,79 @@ public abstract class InstancesRepositoryTest {
         assertThat(instances.size(), is(3));
     }
 
+    @Test
+    public void getNotDeletedPage_returnsPagesOfUndeletedInstancesInOrder() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance b = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "B", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        Instance a = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "a", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "deleted", Instance.STATUS_COMPLETE, System.currentTimeMillis(), getInstancesDir()).build());
+        Instance otherB = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "b", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+
+        List<Instance> firstPage = instancesRepository.getNotDeletedPage("", InstanceSortOrder.NAME_ASC, null, 2);
+        assertThat(firstPage, contains(a, b));
+
+        List<Instance> secondPage = instancesRepository.getNotDeletedPage("", InstanceSortOrder.NAME_ASC, firstPage.get(1), 2);
+        assertThat(secondPage, contains(otherB));
+
+        List<Instance> descendingPage = instancesRepository.getNotDeletedPage("", InstanceSortOrder.NAME_DESC, otherB, 2);
+        assertThat(descendingPage, contains(b, a));
+    }
+
+    @Test
+    public void getNotDeletedPage_sortsByDate() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance later = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(2L).build());
+        Instance earlier = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(1L).build());
+
+        assertThat(instancesRepository.getNotDeletedPage("", InstanceSortOrder.DATE_ASC, null, 10), contains(earlier, later));
+        assertThat(instancesRepository.getNotDeletedPage("", InstanceSortOrder.DATE_DESC, null, 10), contains(later, earlier));
+        assertThat(instancesRepository.getNotDeletedPage("", InstanceSortOrder.DATE_DESC, later, 10), contains(earlier));
+    }
+
+    @Test
+    public void getNotDeletedPage_filtersOnDisplayNameIgnoringCase() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance myForm = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "My form", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "Your form", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        Instance percentForm = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "100% form", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+
+        assertThat(instancesRepository.getNotDeletedPage("MY", InstanceSortOrder.NAME_ASC, null, 10), contains(myForm));
+        assertThat(instancesRepository.getNotDeletedPage("%", InstanceSortOrder.NAME_ASC, null, 10), contains(percentForm));
+    }
+
+    @Test
+    public void getNotDeletedPage_filtersAndSortsNonAsciiDisplayNamesIgnoringCase() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance upperCaseForm = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "Ärzte", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        Instance lowerCaseForm = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "ärmel", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        Instance asciiForm = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "zebra", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+
+        assertThat(instancesRepository.getNotDeletedPage("ÄR", InstanceSortOrder.NAME_ASC, null, 10), contains(lowerCaseForm, upperCaseForm));
+        assertThat(instancesRepository.getNotDeletedPage("", InstanceSortOrder.NAME_ASC, null, 10), contains(asciiForm, lowerCaseForm, upperCaseForm));
+        assertThat(instancesRepository.getNotDeletedPage("", InstanceSortOrder.NAME_ASC, lowerCaseForm, 10), contains(upperCaseForm));
+        assertThat(instancesRepository.getNotDeletedPage("", InstanceSortOrder.NAME_DESC, upperCaseForm, 10), contains(lowerCaseForm, asciiForm));
+    }
+
+    @Test
+    public void getLastStatusChangeDatesByForm_returnsLatestDateForEachFormVersion() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(1L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(3L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "2", getInstancesDir()).lastStatusChangeDate(2L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("otherformid", null, getInstancesDir()).lastStatusChangeDate(4L).build());
+
+        Map<Pair<String, String>, Long> dates = instancesRepository.getLastStatusChangeDatesByForm();
+        assertThat(dates.size(), is(3));
+        assertThat(dates.get(new Pair<>("formid", "1")), is(3L));
+        assertThat(dates.get(new Pair<>("formid", "2")), is(2L));
+        assertThat(dates.get(new Pair<>("otherformid", null)), is(4L));
+    }
+
     @Test
     public void deleteAll_deletesAllInstances() {
         InstancesRepository instancesRepository = buildSubject();
@@ -317,4 +480,11 @@ public abstract class InstancesRepositoryTest {
         instancesRepository.delete(instance.getDbId());
         assertThat(instanceDir.exists(), is(false));
     }
+
+    private Instance buildPointInstance(String formId, double latitude, double longitude) {
+        return InstanceUtils.buildInstance(formId, "1", getInstancesDir())
+                .geometryType(Instance.GEOMETRY_TYPE_POINT)
+                .geometry("{\"type\":\"Point\",\"coordinates\":[" + longitude + "," + latitude + "]}")
+                .build();
+    }
 }
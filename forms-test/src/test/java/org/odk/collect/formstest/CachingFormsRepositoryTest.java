@@ -0,0 +1,66 @@
+package org.odk.collect.formstest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.odk.collect.forms.CachingFormsRepository;
+import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormsRepository;
+import org.odk.collect.shared.TempFiles;
+
+import java.util.function.Supplier;
+
+public class CachingFormsRepositoryTest extends FormsRepositoryTest {
+
+    private String tempDirectory;
+
+    @Before
+    public void setup() {
+        tempDirectory = TempFiles.createTempDir().getAbsolutePath();
+    }
+
+    @Override
+    public FormsRepository buildSubject() {
+        return new CachingFormsRepository(new InMemFormsRepository(savepointsRepository));
+    }
+
+    @Override
+    public FormsRepository buildSubject(Supplier<Long> clock) {
+        return new CachingFormsRepository(new InMemFormsRepository(clock, savepointsRepository));
+    }
+
+    @Override
+    public String getFormFilesPath() {
+        return tempDirectory;
+    }
+
+    @Test
+    public void reads_includeChangesMadeDirectlyToTheUnderlyingRepository() {
+        InMemFormsRepository repository = new InMemFormsRepository(savepointsRepository);
+        CachingFormsRepository cachingRepository = new CachingFormsRepository(repository);
+        assertThat(cachingRepository.getAll().size(), equalTo(0));
+
+        Form form = repository.save(FormUtils.buildForm("id", "version", getFormFilesPath()).build());
+        assertThat(cachingRepository.get(form.getDbId()).getFormId(), equalTo("id"));
+        assertThat(cachingRepository.getOneByMd5Hash(form.getMD5Hash()).getDbId(), equalTo(form.getDbId()));
+
+        repository.softDelete(form.getDbId());
+        assertThat(cachingRepository.getAllNotDeletedByFormId("id").size(), equalTo(0));
+
+        repository.delete(form.getDbId());
+        assertThat(cachingRepository.get(form.getDbId()), nullValue());
+    }
+
+    @Test
+    public void reads_includeChangesMadeThroughOtherCachingRepositories() {
+        InMemFormsRepository repository = new InMemFormsRepository(savepointsRepository);
+        CachingFormsRepository cachingRepository = new CachingFormsRepository(repository);
+        assertThat(cachingRepository.getAll().size(), equalTo(0));
+
+        new CachingFormsRepository(repository).save(FormUtils.buildForm("id", "version", getFormFilesPath()).build());
+        assertThat(cachingRepository.getAllByFormIdAndVersion("id", "version").size(), equalTo(1));
+    }
+}
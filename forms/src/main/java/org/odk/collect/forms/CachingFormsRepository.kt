@@ -0,0 +1,158 @@
+package org.odk.collect.forms
+
+import java.util.WeakHashMap
+
+/**
+ * A [FormsRepository] that answers reads from an in-memory copy of [repository]'s forms indexed
+ * by id, form id/version and hash. Writes go straight to [repository].
+ *
+ * The copy is shared by every [CachingFormsRepository] for the same storage (identified by
+ * its [ChangeJournal]). Before each read the copy is brought up to date with the changes in the
+ * journal, so writes made through other repositories (like the forms content provider's) are
+ * always seen. Repositories without a journal aren't cached.
+ */
+class CachingFormsRepository(private val repository: FormsRepository) : FormsRepository {
+
+    override fun get(id: Long?): Form? {
+        val index = getIndex() ?: return repository.get(id)
+        return index.byId[id]
+    }
+
+    override fun getLatestByFormIdAndVersion(formId: String, version: String?): Form? {
+        val index = getIndex() ?: return repository.getLatestByFormIdAndVersion(formId, version)
+        return index.byFormIdAndVersion[Pair(formId, version)]?.maxByOrNull { it.date }
+    }
+
+    override fun getOneByPath(path: String): Form? {
+        // Paths are stored relative to the forms dir which only the underlying repository knows
+        return repository.getOneByPath(path)
+    }
+
+    override fun getOneByMd5Hash(hash: String): Form? {
+        val index = getIndex() ?: return repository.getOneByMd5Hash(hash)
+        return index.byMd5Hash[hash]
+    }
+
+    override fun getAll(): List<Form> {
+        val index = getIndex() ?: return repository.all
+        return index.all.toList()
+    }
+
+    override fun getAllByFormIdAndVersion(formId: String, version: String?): List<Form> {
+        val index = getIndex() ?: return repository.getAllByFormIdAndVersion(formId, version)
+        return index.byFormIdAndVersion[Pair(formId, version)]?.toList() ?: emptyList()
+    }
+
+    override fun getAllByFormId(formId: String): List<Form> {
+        val index = getIndex() ?: return repository.getAllByFormId(formId)
+        return index.byFormId[formId]?.toList() ?: emptyList()
+    }
+
+    override fun getAllNotDeletedByFormId(formId: String): List<Form> {
+        val index = getIndex() ?: return repository.getAllNotDeletedByFormId(formId)
+        return index.byFormId[formId]?.filter { !it.isDeleted } ?: emptyList()
+    }
+
+    override fun getAllNotDeletedByFormIdAndVersion(formId: String, version: String?): List<Form> {
+        val index = getIndex() ?: return repository.getAllNotDeletedByFormIdAndVersion(formId, version)
+        return index.byFormIdAndVersion[Pair(formId, version)]?.filter { !it.isDeleted } ?: emptyList()
+    }
+
+    override fun isFormFileUnchanged(form: Form): Boolean {
+        return repository.isFormFileUnchanged(form)
+    }
+
+    override fun save(form: Form): Form {
+        return repository.save(form)
+    }
+
+    override fun saveAll(forms: List<Form>): List<Form> {
+        return repository.saveAll(forms)
+    }
+
+    override fun delete(id: Long?) {
+        repository.delete(id)
+    }
+
+    override fun softDelete(id: Long?) {
+        repository.softDelete(id)
+    }
+
+    override fun deleteByMd5Hash(md5Hash: String) {
+        repository.deleteByMd5Hash(md5Hash)
+    }
+
+    override fun deleteAll() {
+        repository.deleteAll()
+    }
+
+    override fun restore(id: Long?) {
+        repository.restore(id)
+    }
+
+    override fun getChangeJournal(): ChangeJournal? {
+        return repository.changeJournal
+    }
+
+    private fun getIndex(): Index? {
+        val journal = repository.changeJournal ?: return null
+        val cache = synchronized(CACHES) {
+            CACHES.getOrPut(journal) { Cache() }
+        }
+
+        return cache.update(journal, repository)
+    }
+
+    private class Cache {
+
+        private var index: Index? = null
+        private var version = 0L
+
+        @Synchronized
+        fun update(journal: ChangeJournal, repository: FormsRepository): Index {
+            val currentIndex = index
+            val changes = if (currentIndex != null) journal.getChangesSince(version) else null
+
+            val newIndex = if (currentIndex != null && changes != null) {
+                if (changes.ids.isEmpty()) {
+                    return currentIndex
+                }
+
+                val forms = LinkedHashMap(currentIndex.byId)
+                changes.ids.forEach { id ->
+                    val form = repository.get(id)
+                    if (form != null) {
+                        forms[id] = form
+                    } else {
+                        forms.remove(id)
+                    }
+                }
+
+                version = changes.version
+                Index(forms.values)
+            } else {
+                // The version has to be read before loading so that changes made during the load
+                // are re-fetched next time rather than missed
+                version = journal.getVersion()
+                Index(repository.all)
+            }
+
+            index = newIndex
+            return newIndex
+        }
+    }
+
+    private class Index(forms: Collection<Form>) {
+        val all = forms.sortedBy { it.dbId }
+        val byId = all.associateBy { it.dbId }
+        val byFormId = all.groupBy { it.formId }
+        val byFormIdAndVersion = all.groupBy { Pair(it.formId, it.version) }
+        val byMd5Hash = HashMap<String, Form>().also { map ->
+            all.forEach { form -> form.mD5Hash?.let { map.putIfAbsent(it, form) } }
+        }
+    }
+
+    companion object {
+        private val CACHES = WeakHashMap<ChangeJournal, Cache>()
+    }
+}
@@ -0,0 +1,67 @@
+package org.odk.collect.forms
+
+/**
+ * Records the ids of items that are inserted, updated or deleted in a repository so that copies
+ * of the repository's data (like [RepositorySnapshot]) can re-fetch just the items that have
+ * changed rather than reloading everything. Every change increments the journal's version and
+ * only the most recent changes (up to `capacity`) are kept.
+ */
+class ChangeJournal @JvmOverloads constructor(private val capacity: Int = DEFAULT_CAPACITY) {
+
+    private val changedIds = ArrayDeque<Long>()
+    private var version = 0L
+
+    // Holds the changes made after this version (up to and including the current version)
+    private var oldestVersion = 0L
+
+    @Synchronized
+    fun getVersion(): Long {
+        return version
+    }
+
+    @Synchronized
+    fun recordChange(id: Long) {
+        changedIds.addLast(id)
+        version++
+
+        if (changedIds.size > capacity) {
+            changedIds.removeFirst()
+            oldestVersion++
+        }
+    }
+
+    /**
+     * Records a change that can't be described by ids (like everything being deleted). Anything
+     * that has seen an earlier version will need to reload everything.
+     */
+    @Synchronized
+    fun recordUnknownChange() {
+        changedIds.clear()
+        version++
+        oldestVersion = version
+    }
+
+    /**
+     * Returns the ids of the items changed after [since] (a version returned by [getVersion]),
+     * or null if those changes are no longer (or were never) recorded.
+     */
+    @Synchronized
+    fun getChangesSince(since: Long): Changes? {
+        if (since < oldestVersion || since > version) {
+            return null
+        }
+
+        val ids = LinkedHashSet<Long>()
+        for (index in (since - oldestVersion).toInt() until changedIds.size) {
+            ids.add(changedIds[index])
+        }
+
+        return Changes(version, ids)
+    }
+
+    data class Changes(val version: Long, val ids: Set<Long>)
+
+    companion object {
+        const val DEFAULT_CAPACITY = 1000
+    }
+}
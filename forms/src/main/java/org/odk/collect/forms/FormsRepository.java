@@ -29,8 +29,19 @@ public interface FormsRepository {
 
     List<Form> getAllNotDeletedByFormIdAndVersion(String formId, @Nullable String version);
 
+    /**
+     * Returns true if the form's file still has the content described by its MD5 hash.
+     */
+    boolean isFormFileUnchanged(@NotNull Form form);
+
     Form save(@NotNull Form form);
 
+    /**
+     * Saves all of the passed forms in one go (in a single transaction where the implementation
+     * supports it) and returns them in the same order as {@link #save(Form)} would.
+     */
+    List<Form> saveAll(@NotNull List<Form> forms);
+
     void delete(Long id);
 
     void softDelete(Long id);
@@ -40,4 +51,13 @@ public interface FormsRepository {
     void deleteAll();
 
     void restore(Long id);
+
+    /**
+     * Returns a journal of changes made to forms (through this or any other repository for the
+     * same storage) or null if changes aren't recorded.
+     */
+    @Nullable
+    default ChangeJournal getChangeJournal() {
+        return null;
+    }
 }
@@ -17,9 +17,15 @@ package org.odk.collect.forms
 
 import java.io.Serializable
 
+/**
+ * A media file listed in a form's manifest. Entity lists can also have a [deltaUrl] which serves
+ * only the entities that have changed since a previous version of the list (identified by its hash)
+ * so that the whole list doesn't have to be downloaded again.
+ */
 data class MediaFile @JvmOverloads constructor(
     val filename: String,
     val hash: String,
     val downloadUrl: String,
-    val isEntityList: Boolean = false
+    val isEntityList: Boolean = false,
+    val deltaUrl: String? = null
 ) : Serializable
@@ -0,0 +1,77 @@
+package org.odk.collect.forms
+
+/**
+ * An in-memory copy of all the items in a repository along with counts of them by group (like
+ * an instance's status). When the repository has a [ChangeJournal], [update] only re-fetches
+ * the items that have changed since the last update instead of reloading everything.
+ */
+class RepositorySnapshot<T> @JvmOverloads constructor(
+    private val getId: (T) -> Long,
+    private val getGroup: (T) -> String? = { null }
+) {
+
+    private val items = LinkedHashMap<Long, T>()
+    private val counts = HashMap<String, Int>()
+    private var version: Long? = null
+
+    /**
+     * Brings the snapshot up to date using [journal] to work out what has changed. Everything
+     * is reloaded with [loadAll] if this is the first update or the changes are unavailable.
+     * Otherwise just the changed items are fetched with [load] (which should return null for
+     * deleted items).
+     */
+    @Synchronized
+    fun update(journal: ChangeJournal?, loadAll: () -> List<T>, load: (Long) -> T?) {
+        val lastVersion = version
+        val changes = if (journal != null && lastVersion != null) {
+            journal.getChangesSince(lastVersion)
+        } else {
+            null
+        }
+
+        if (changes == null) {
+            // The version has to be read before loading so that changes made during the load
+            // are re-fetched next time rather than missed
+            val newVersion = journal?.getVersion()
+
+            items.clear()
+            counts.clear()
+            loadAll().forEach { put(getId(it), it) }
+            version = newVersion
+        } else {
+            changes.ids.forEach { id ->
+                val item = load(id)
+                if (item != null) {
+                    put(id, item)
+                } else {
+                    remove(id)
+                }
+            }
+
+            version = changes.version
+        }
+    }
+
+    @Synchronized
+    fun getItems(): List<T> {
+        return ArrayList(items.values)
+    }
+
+    @Synchronized
+    fun getCount(vararg groups: String): Int {
+        return groups.sumOf { counts[it] ?: 0 }
+    }
+
+    private fun put(id: Long, item: T) {
+        items.put(id, item)?.let { decrementCount(it) }
+        getGroup(item)?.let { counts[it] = (counts[it] ?: 0) + 1 }
+    }
+
+    private fun remove(id: Long) {
+        items.remove(id)?.let { decrementCount(it) }
+    }
+
+    private fun decrementCount(item: T) {
+        getGroup(item)?.let { counts[it] = (counts[it] ?: 0) - 1 }
+    }
+}
@@ -0,0 +1,125 @@
+package org.odk.collect.forms.instances
+
+import kotlin.math.floor
+
+/**
+ * An area of the map. If it crosses the antimeridian, [west] will be greater than [east].
+ */
+data class PointBounds(
+    val south: Double,
+    val west: Double,
+    val north: Double,
+    val east: Double
+) {
+
+    fun contains(latitude: Double, longitude: Double): Boolean {
+        if (latitude < south || latitude > north) {
+            return false
+        }
+
+        return if (west <= east) {
+            longitude in west..east
+        } else {
+            longitude >= west || longitude <= east
+        }
+    }
+}
+
+/**
+ * A group of instances whose points fall in the same cell of a grid (with cells [size] degrees
+ * across) fixed to the map. [instanceId] is the lowest id in the cluster, which identifies the
+ * instance when the cluster only contains one.
+ */
+data class PointCluster(
+    val row: Long,
+    val column: Long,
+    val size: Double,
+    val count: Int,
+    val latitude: Double,
+    val longitude: Double,
+    val instanceId: Long
+)
+
+data class InstancePoint(val latitude: Double, val longitude: Double)
+
+/**
+ * Finds and groups instances by their point geometry. Repositories that can't query by location
+ * (like in-memory ones) use these to implement the point queries in [InstancesRepository].
+ */
+object InstancePoints {
+
+    private val COORDINATES = Regex("\"coordinates\"\\s*:\\s*\\[\\s*([^,\\s\\]]+)\\s*,\\s*([^,\\s\\]]+)")
+
+    /**
+     * Returns the location of an instance with a point geometry (a GeoJSON point, where
+     * longitude comes before latitude) or null if it doesn't have one.
+     */
+    @JvmStatic
+    fun getPoint(geometryType: String?, geometry: String?): InstancePoint? {
+        if (geometryType != Instance.GEOMETRY_TYPE_POINT || geometry == null) {
+            return null
+        }
+
+        val coordinates = COORDINATES.find(geometry) ?: return null
+        val longitude = coordinates.groupValues[1].toDoubleOrNull() ?: return null
+        val latitude = coordinates.groupValues[2].toDoubleOrNull() ?: return null
+        return InstancePoint(latitude, longitude)
+    }
+
+    @JvmStatic
+    fun getPoint(instance: Instance): InstancePoint? {
+        return getPoint(instance.geometryType, instance.geometry)
+    }
+
+    /**
+     * Returns the grid cell row (or column) that a latitude (or longitude) falls in.
+     */
+    @JvmStatic
+    fun getCell(degrees: Double, size: Double): Long {
+        return floor(degrees / size).toLong()
+    }
+
+    @JvmStatic
+    fun getInBounds(instances: List<Instance>, bounds: PointBounds, limit: Int): List<Instance> {
+        return instances.asSequence()
+            .filter { instance -> getPoint(instance)?.let { bounds.contains(it.latitude, it.longitude) } == true }
+            .sortedBy { it.dbId }
+            .take(limit)
+            .toList()
+    }
+
+    @JvmStatic
+    fun getBounds(instances: List<Instance>): PointBounds? {
+        val points = instances.mapNotNull { getPoint(it) }
+        if (points.isEmpty()) {
+            return null
+        }
+
+        return PointBounds(
+            points.minOf { it.latitude },
+            points.minOf { it.longitude },
+            points.maxOf { it.latitude },
+            points.maxOf { it.longitude }
+        )
+    }
+
+    @JvmStatic
+    fun cluster(instances: List<Instance>, bounds: PointBounds, size: Double): List<PointCluster> {
+        return instances
+            .mapNotNull { instance -> getPoint(instance)?.let { instance to it } }
+            .filter { (_, point) -> bounds.contains(point.latitude, point.longitude) }
+            .groupBy { (_, point) -> getCell(point.latitude, size) to getCell(point.longitude, size) }
+            .map { (cell, items) ->
+                PointCluster(
+                    cell.first,
+                    cell.second,
+                    size,
+                    items.size,
+                    items.map { it.second.latitude }.average(),
+                    items.map { it.second.longitude }.average(),
+                    items.minOf { it.first.dbId }
+                )
+            }
+            .sortedWith(compareBy({ it.row }, { it.column }))
+    }
+}
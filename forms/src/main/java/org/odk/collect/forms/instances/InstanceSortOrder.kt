@@ -0,0 +1,60 @@
+package org.odk.collect.forms.instances
+
+/**
+ * The orders that [InstancesRepository.getNotDeletedPage] can return instances in. Instances that
+ * have the same name or date are ordered by their database id so that every instance has a
+ * unique position, which is what lets pages start "after" an instance.
+ *
+ * Names are compared by the code points of their [lowercaseName], which is how SQLite compares
+ * a stored lowercase name, so that databases can store it and get the same order.
+ */
+enum class InstanceSortOrder(private val comparator: Comparator<Instance>) {
+    NAME_ASC(compareBy<Instance, String?>(nullsFirst(CodePointOrder)) { it.lowercaseName() }.thenBy { it.dbId }),
+    NAME_DESC(compareByDescending<Instance, String?>(nullsFirst(CodePointOrder)) { it.lowercaseName() }.thenByDescending { it.dbId }),
+    DATE_ASC(compareBy<Instance> { it.lastStatusChangeDate }.thenBy { it.dbId }),
+    DATE_DESC(compareByDescending<Instance> { it.lastStatusChangeDate }.thenByDescending { it.dbId });
+
+    /**
+     * Returns the page of [instances] that [InstancesRepository.getNotDeletedPage] would for the
+     * same arguments. Useful for repositories that hold their instances in memory.
+     */
+    fun page(instances: List<Instance>, filter: String, after: Instance?, limit: Int): List<Instance> {
+        return instances.asSequence()
+            .filter { it.deletedDate == null }
+            .filter { filter.isEmpty() || it.lowercaseName()?.contains(filter.lowercase()) == true }
+            .filter { after == null || comparator.compare(it, after) > 0 }
+            .sortedWith(comparator)
+            .take(limit)
+            .toList()
+    }
+
+    companion object {
+        @JvmStatic
+        fun lowercaseName(displayName: String): String {
+            return displayName.lowercase()
+        }
+    }
+}
+
+private fun Instance.lowercaseName(): String? {
+    return displayName?.let { InstanceSortOrder.lowercaseName(it) }
+}
+
+private object CodePointOrder : Comparator<String> {
+    override fun compare(a: String, b: String): Int {
+        var i = 0
+        var j = 0
+        while (i < a.length && j < b.length) {
+            val codePointA = a.codePointAt(i)
+            val codePointB = b.codePointAt(j)
+            if (codePointA != codePointB) {
+                return codePointA.compareTo(codePointB)
+            }
+
+            i += Character.charCount(codePointA)
+            j += Character.charCount(codePointB)
+        }
+
+        return (a.length - i).compareTo(b.length - j)
+    }
+}
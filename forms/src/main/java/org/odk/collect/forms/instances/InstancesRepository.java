@@ -1,8 +1,13 @@
 package org.odk.collect.forms.instances;
 
 import org.jetbrains.annotations.Nullable;
+import org.odk.collect.forms.ChangeJournal;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import kotlin.Pair;
 
 /**
  * Gives access to {@link Instance} objects representing filled form instances on the device.
@@ -36,6 +41,63 @@ public interface InstancesRepository {
 
     List<Instance> getAllNotDeletedByFormIdAndVersion(String formId, String version);
 
+    /**
+     * Returns up to {@code limit} instances that haven't been deleted and have a display name
+     * containing {@code filter} (ignoring case) in the given order. The next page starts after the
+     * last instance of the previous one ({@code after} is null for the first page) so that
+     * implementations can use an indexed seek rather than skipping over earlier pages.
+     */
+    default List<Instance> getNotDeletedPage(String filter, InstanceSortOrder sortOrder, @Nullable Instance after, int limit) {
+        return sortOrder.page(getAllNotDeleted(), filter, after, limit);
+    }
+
+    default int getCountByFormId(String formId) {
+        return getAllByFormId(formId).size();
+    }
+
+    /**
+     * Returns up to {@code limit} of the form's instances that have a point geometry inside
+     * {@code bounds}, ordered by their database id.
+     */
+    default List<Instance> getWithPointInBounds(String formId, PointBounds bounds, int limit) {
+        return InstancePoints.getInBounds(getAllByFormId(formId), bounds, limit);
+    }
+
+    /**
+     * Returns the smallest bounds containing every one of the form's instances that have a point
+     * geometry or null if none do.
+     */
+    @Nullable
+    default PointBounds getPointBounds(String formId) {
+        return InstancePoints.getBounds(getAllByFormId(formId));
+    }
+
+    /**
+     * Groups the form's instances that have a point geometry inside {@code bounds} by the cell
+     * (of a grid with cells {@code size} degrees across) that they are in. Cells are found with
+     * {@link InstancePoints#getCell(double, double)}.
+     */
+    default List<PointCluster> getPointClusters(String formId, PointBounds bounds, double size) {
+        return InstancePoints.cluster(getAllByFormId(formId), bounds, size);
+    }
+
+    /**
+     * Returns the most recent {@link Instance#getLastStatusChangeDate()} of the instances
+     * (including deleted ones) for each form, keyed by form id and version.
+     */
+    default Map<Pair<String, String>, Long> getLastStatusChangeDatesByForm() {
+        Map<Pair<String, String>, Long> dates = new HashMap<>();
+        for (Instance instance : getAll()) {
+            Pair<String, String> key = new Pair<>(instance.getFormId(), instance.getFormVersion());
+            Long date = dates.get(key);
+            if (date == null || date < instance.getLastStatusChangeDate()) {
+                dates.put(key, instance.getLastStatusChangeDate());
+            }
+        }
+
+        return dates;
+    }
+
     void delete(Long id);
 
     void deleteAll();
@@ -47,4 +109,13 @@ public interface InstancesRepository {
      * record in place.
      */
     void deleteWithLogging(Long id);
+
+    /**
+     * Returns a journal of changes made to instances (through this or any other repository for
+     * the same storage) or null if changes aren't recorded.
+     */
+    @Nullable
+    default ChangeJournal getChangeJournal() {
+        return null;
+    }
 }
@@ -0,0 +1,63 @@
+package org.odk.collect.forms
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.empty
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+
+class ChangeJournalTest {
+
+    @Test
+    fun `getChangesSince returns ids changed after version`() {
+        val journal = ChangeJournal()
+        journal.recordChange(1)
+        val version = journal.getVersion()
+        journal.recordChange(2)
+        journal.recordChange(3)
+        journal.recordChange(2)
+
+        val changes = journal.getChangesSince(version)!!
+        assertThat(changes.ids, contains(2L, 3L))
+        assertThat(changes.version, equalTo(journal.getVersion()))
+    }
+
+    @Test
+    fun `getChangesSince returns no ids for current version`() {
+        val journal = ChangeJournal()
+        journal.recordChange(1)
+
+        assertThat(journal.getChangesSince(journal.getVersion())!!.ids, empty())
+    }
+
+    @Test
+    fun `getChangesSince returns null when changes are no longer recorded`() {
+        val journal = ChangeJournal(2)
+        val version = journal.getVersion()
+        journal.recordChange(1)
+        journal.recordChange(2)
+        assertThat(journal.getChangesSince(version)!!.ids, contains(1L, 2L))
+
+        journal.recordChange(3)
+        assertThat(journal.getChangesSince(version), nullValue())
+        assertThat(journal.getChangesSince(version + 1)!!.ids, contains(2L, 3L))
+    }
+
+    @Test
+    fun `getChangesSince returns null after an unknown change`() {
+        val journal = ChangeJournal()
+        val version = journal.getVersion()
+        journal.recordChange(1)
+        journal.recordUnknownChange()
+
+        assertThat(journal.getChangesSince(version), nullValue())
+        assertThat(journal.getChangesSince(journal.getVersion())!!.ids, empty())
+    }
+
+    @Test
+    fun `getChangesSince returns null for versions that do not exist yet`() {
+        val journal = ChangeJournal()
+        assertThat(journal.getChangesSince(1), nullValue())
+    }
+}
@@ -0,0 +1,96 @@
+package org.odk.collect.forms
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+
+class RepositorySnapshotTest {
+
+    private val items = mutableMapOf<Long, Item>()
+    private val journal = ChangeJournal()
+    private var loadAllCount = 0
+    private val loaded = mutableListOf<Long>()
+
+    private val snapshot = RepositorySnapshot<Item>({ it.id }, { it.group })
+
+    @Test
+    fun `first update loads everything`() {
+        save(Item(1, "a"))
+        save(Item(2, "b"))
+
+        update()
+        assertThat(snapshot.getItems(), equalTo(listOf(Item(1, "a"), Item(2, "b"))))
+        assertThat(snapshot.getCount("a"), equalTo(1))
+        assertThat(loadAllCount, equalTo(1))
+    }
+
+    @Test
+    fun `later updates only load changed items`() {
+        save(Item(1, "a"))
+        save(Item(2, "a"))
+        save(Item(3, "b"))
+        update()
+
+        save(Item(2, "b"))
+        delete(3)
+        save(Item(4, "a"))
+        update()
+
+        assertThat(snapshot.getItems(), equalTo(listOf(Item(1, "a"), Item(2, "b"), Item(4, "a"))))
+        assertThat(snapshot.getCount("a"), equalTo(2))
+        assertThat(snapshot.getCount("b"), equalTo(1))
+        assertThat(snapshot.getCount("a", "b"), equalTo(3))
+        assertThat(loadAllCount, equalTo(1))
+        assertThat(loaded, equalTo(listOf(2L, 3L, 4L)))
+    }
+
+    @Test
+    fun `updates load everything when changes are not available`() {
+        save(Item(1, "a"))
+        update()
+
+        items.clear()
+        journal.recordUnknownChange()
+        update()
+
+        assertThat(snapshot.getItems(), equalTo(emptyList()))
+        assertThat(snapshot.getCount("a"), equalTo(0))
+        assertThat(loadAllCount, equalTo(2))
+    }
+
+    @Test
+    fun `updates always load everything without a journal`() {
+        save(Item(1, "a"))
+        snapshot.update(null, { items.values.toList() }, { items[it] })
+        items[2] = Item(2, "a")
+        snapshot.update(null, { items.values.toList() }, { items[it] })
+
+        assertThat(snapshot.getCount("a"), equalTo(2))
+    }
+
+    private fun update() {
+        snapshot.update(
+            journal,
+            {
+                loadAllCount++
+                items.values.toList()
+            },
+            {
+                loaded.add(it)
+                items[it]
+            }
+        )
+    }
+
+    private fun save(item: Item) {
+        items[item.id] = item
+        journal.recordChange(item.id)
+    }
+
+    private fun delete(id: Long) {
+        items.remove(id)
+        journal.recordChange(id)
+    }
+
+    private data class Item(val id: Long, val group: String)
+}
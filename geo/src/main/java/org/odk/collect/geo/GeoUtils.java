@@ -4,14 +4,14 @@ import android.content.Context;
 import android.location.Location;
 
 import org.odk.collect.maps.MapPoint;
-import org.odk.collect.shared.strings.StringUtils;
 
 import java.text.DecimalFormat;
 import java.util.List;
-import java.util.Locale;
 
 public final class GeoUtils {
 
+    private static final int ESTIMATED_POINT_LENGTH = 64;
+
     private GeoUtils() {
 
     }
@@ -19,25 +19,38 @@ public final class GeoUtils {
     /**
      * Serializes a list of vertices into a string, in the format
      * appropriate for storing as the result of the form question.
+     * Polygons are stored with a last point that duplicates the first
+     * point, so this is added for shapes if it's not already present.
      */
     public static String formatPointsResultString(List<MapPoint> points, boolean isShape) {
-        if (isShape) {
-            // Polygons are stored with a last point that duplicates the
-            // first point.  Add this extra point if it's not already present.
-            int count = points.size();
-            if (count > 1 && !points.get(0).equals(points.get(count - 1))) {
-                points.add(points.get(0));
+        int count = points.size();
+        boolean closeShape = isShape && count > 1 && !points.get(0).equals(points.get(count - 1));
+
+        StringBuilder result = new StringBuilder((count + 1) * ESTIMATED_POINT_LENGTH);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(';');
             }
+            appendPoint(result, points.get(i));
         }
-        StringBuilder result = new StringBuilder();
-        for (MapPoint point : points) {
-            // TODO(ping): Remove excess precision when we're ready for the output to change.
-            result.append(String.format(Locale.US, "%s %s %s %s;",
-                    Double.toString(point.latitude), Double.toString(point.longitude),
-                    Double.toString(point.altitude), Float.toString((float) point.accuracy)));
+
+        if (closeShape) {
+            result.append(';');
+            appendPoint(result, points.get(0));
         }
 
-        return StringUtils.removeEnd(result.toString().trim(), ";");
+        return result.toString();
+    }
+
+    private static void appendPoint(StringBuilder result, MapPoint point) {
+        // TODO(ping): Remove excess precision when we're ready for the output to change.
+        result.append(point.latitude)
+                .append(' ')
+                .append(point.longitude)
+                .append(' ')
+                .append(point.altitude)
+                .append(' ')
+                .append((float) point.accuracy);
     }
 
     public static String formatLocationResultString(Location location) {
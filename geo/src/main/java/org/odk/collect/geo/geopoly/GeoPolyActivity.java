@@ -54,8 +54,10 @@ import org.odk.collect.settings.SettingsProvider;
 import org.odk.collect.strings.localization.LocalizedActivity;
 import org.odk.collect.webpage.ExternalWebPageHelper;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -67,6 +69,7 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
     public static final String EXTRA_POLYGON = "answer";
     public static final String OUTPUT_MODE_KEY = "output_mode";
     public static final String POINTS_KEY = "points";
+    public static final String POINT_LOG_KEY = "point_log";
     public static final String INPUT_ACTIVE_KEY = "input_active";
     public static final String RECORDING_ENABLED_KEY = "recording_enabled";
     public static final String RECORDING_AUTOMATIC_KEY = "recording_automatic";
@@ -138,10 +141,16 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
     // restored from savedInstanceState
     private List<MapPoint> restoredPoints;
 
+    // whether the point log is still being read (in the background) after the activity was recreated
+    private boolean restoringPoints;
+
+    // recorded points are written here as they are added so they survive process death
+    private PointLog pointLog;
+
     private final OnBackPressedCallback onBackPressedCallback = new OnBackPressedCallback(true) {
         @Override
         public void handleOnBackPressed() {
-            if (!intentReadOnly && map != null && !originalPoly.equals(map.getPolyLinePoints(featureId))) {
+            if (!intentReadOnly && map != null && (restoringPoints || !originalPoly.equals(map.getPolyLinePoints(featureId)))) {
                 showBackDialog();
             } else {
                 finish();
@@ -164,6 +173,13 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
 
         previousState = savedInstanceState;
 
+        if (savedInstanceState != null && savedInstanceState.containsKey(POINT_LOG_KEY)) {
+            pointLog = new PointLog(new File(savedInstanceState.getString(POINT_LOG_KEY)));
+            readPointLog();
+        } else {
+            pointLog = new PointLog(new File(getPointLogDir(), UUID.randomUUID() + ".log"));
+        }
+
         if (savedInstanceState != null) {
             restoredPoints = savedInstanceState.getParcelableArrayList(POINTS_KEY);
             inputActive = savedInstanceState.getBoolean(INPUT_ACTIVE_KEY, false);
@@ -190,16 +206,17 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
 
     @Override protected void onSaveInstanceState(Bundle state) {
         super.onSaveInstanceState(state);
-        if (map == null) {
+        if (map == null || restoringPoints) {
             // initMap() is called asynchronously, so map can be null if the activity
-            // is stopped (e.g. by screen rotation) before initMap() gets to run.
+            // is stopped (e.g. by screen rotation) before initMap() gets to run. The
+            // same goes for the points if the point log hasn't been read yet.
             // In this case, preserve any provided instance state.
             if (previousState != null) {
                 state.putAll(previousState);
             }
             return;
         }
-        state.putParcelableArrayList(POINTS_KEY, new ArrayList<>(map.getPolyLinePoints(featureId)));
+        state.putString(POINT_LOG_KEY, pointLog.getFile().getAbsolutePath());
         state.putBoolean(INPUT_ACTIVE_KEY, inputActive);
         state.putBoolean(RECORDING_ENABLED_KEY, recordingEnabled);
         state.putBoolean(RECORDING_AUTOMATIC_KEY, recordingAutomatic);
@@ -213,12 +230,52 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
         }
 
         locationTracker.stop();
+
+        if (isFinishing()) {
+            pointLog.delete();
+        } else {
+            pointLog.close();
+        }
+
         super.onDestroy();
     }
 
+    private File getPointLogDir() {
+        return new File(getFilesDir(), "geopoly");
+    }
+
+    /**
+     * Reads the recreated activity's points from its log off the UI thread. If the log is
+     * missing, the points saved in the instance state (or the points the activity was started
+     * with) are used instead. The map isn't set up until both the log has been read and the map
+     * is ready.
+     */
+    private void readPointLog() {
+        restoringPoints = true;
+        scheduler.immediate(pointLog::read, points -> {
+            if (isDestroyed()) {
+                return;
+            }
+
+            restoringPoints = false;
+            if (points != null) {
+                restoredPoints = points;
+            }
+
+            if (map != null) {
+                setUpMap();
+            }
+        });
+    }
+
     public void initMap(MapFragment newMapFragment) {
         map = newMapFragment;
+        if (!restoringPoints) {
+            setUpMap();
+        }
+    }
 
+    private void setUpMap() {
         locationStatus = findViewById(R.id.location_status);
         collectionStatus = findViewById(R.id.collection_status);
         settingsView = getLayoutInflater().inflate(R.layout.geopoly_dialog, null);
@@ -290,6 +347,8 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
 
         if (restoredPoints != null) {
             points = restoredPoints;
+        } else {
+            pointLog.write(points);
         }
         featureId = map.addPolyLine(new LineDescription(points, String.valueOf(MapConsts.DEFAULT_STROKE_WIDTH), null, !intentReadOnly, outputMode == OutputMode.GEOSHAPE));
 
@@ -300,6 +359,7 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
         map.setClickListener(this::onClick);
         // Also allow long press to place point to match prior versions
         map.setLongPressListener(this::onClick);
+        map.setDragEndListener(draggedFeatureId -> pointLog.write(map.getPolyLinePoints(featureId)));
         map.setGpsLocationEnabled(true);
         map.setGpsLocationListener(this::onGpsLocation);
 
@@ -434,6 +494,7 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
         List<MapPoint> points = map.getPolyLinePoints(featureId);
         if (points.isEmpty() || !point.equals(points.get(points.size() - 1))) {
             map.appendPointToPolyLine(featureId, point);
+            pointLog.append(point);
             updateUi();
         }
     }
@@ -451,8 +512,9 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
     }
 
     private void removeLastPoint() {
-        if (featureId != -1) {
+        if (featureId != -1 && !map.getPolyLinePoints(featureId).isEmpty()) {
             map.removePolyLineLastPoint(featureId);
+            pointLog.removeLast();
             updateUi();
         }
     }
@@ -460,6 +522,7 @@ public class GeoPolyActivity extends LocalizedActivity implements GeoPolySetting
     private void clear() {
         map.clearFeatures();
         featureId = map.addPolyLine(new LineDescription(new ArrayList<>(), String.valueOf(MapConsts.DEFAULT_STROKE_WIDTH), null, !intentReadOnly, outputMode == OutputMode.GEOSHAPE));
+        pointLog.write(new ArrayList<>());
         inputActive = false;
         updateUi();
     }
@@ -0,0 +1,191 @@
+package org.odk.collect.geo.geopoly
+
+import org.odk.collect.maps.MapPoint
+import timber.log.Timber
+import java.io.BufferedInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.FutureTask
+
+/**
+ * An append only binary log of the points recorded for a geotrace or geoshape. Every change is
+ * written to disk as soon as it is made so that an in-progress recording can be restored (with
+ * [read]) if the process is killed. Each record is written with a single write call to an
+ * unbuffered stream, so a crash can at most leave a partial last record, which [read] ignores.
+ *
+ * Changes are written in order on [executor] rather than the calling (UI) thread, and the log
+ * is kept open between appends. [close] should be called once no more changes will be made.
+ * By default every log shares one executor so that a log reopened by a recreated activity
+ * reads what the previous activity wrote.
+ *
+ * Failing to write to the log shouldn't stop points from being recorded, so IO errors are
+ * logged rather than thrown.
+ */
+class PointLog @JvmOverloads constructor(
+    val file: File,
+    private val executor: Executor = DEFAULT_EXECUTOR
+) {
+
+    private var output: FileOutputStream? = null
+
+    /**
+     * Returns the points described by the log, or null if it doesn't exist. Waits for any
+     * changes that haven't been written yet.
+     */
+    fun read(): List<MapPoint>? {
+        val task = FutureTask { readNow() }
+        executor.execute(task)
+        return task.get()
+    }
+
+    fun append(point: MapPoint) {
+        executor.execute { appendRecord(APPEND, point) }
+    }
+
+    fun removeLast() {
+        executor.execute { appendRecord(REMOVE_LAST, null) }
+    }
+
+    /**
+     * Replaces the contents of the log with [points]. The new log is written to a temporary file
+     * first so that the existing one is still intact if that fails.
+     */
+    fun write(points: List<MapPoint>) {
+        val pointsToWrite = points.toList()
+        executor.execute { writeNow(pointsToWrite) }
+    }
+
+    fun close() {
+        executor.execute { closeOutput() }
+    }
+
+    fun delete() {
+        executor.execute {
+            closeOutput()
+            file.delete()
+        }
+    }
+
+    private fun readNow(): List<MapPoint>? {
+        if (!file.exists()) {
+            return null
+        }
+
+        val points = mutableListOf<MapPoint>()
+
+        try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != VERSION) {
+                    return points
+                }
+
+                while (true) {
+                    val operation = input.read()
+                    if (operation == -1) {
+                        break
+                    }
+
+                    when (operation) {
+                        APPEND -> points.add(
+                            MapPoint(
+                                input.readDouble(),
+                                input.readDouble(),
+                                input.readDouble(),
+                                input.readDouble()
+                            )
+                        )
+
+                        REMOVE_LAST -> if (points.isNotEmpty()) {
+                            points.removeAt(points.lastIndex)
+                        }
+
+                        else -> break
+                    }
+                }
+            }
+        } catch (e: EOFException) {
+            // The last record was only partially written
+        } catch (e: IOException) {
+            Timber.w(e)
+        }
+
+        return points
+    }
+
+    private fun writeNow(points: List<MapPoint>) {
+        closeOutput()
+        val tempFile = File(file.parentFile, file.name + ".tmp")
+
+        try {
+            file.parentFile?.mkdirs()
+            DataOutputStream(FileOutputStream(tempFile).buffered()).use { stream ->
+                stream.writeInt(VERSION)
+                points.forEach { writeRecord(stream, APPEND, it) }
+            }
+
+            if (!tempFile.renameTo(file)) {
+                throw IOException("Could not rename $tempFile to $file")
+            }
+        } catch (e: IOException) {
+            Timber.w(e)
+            tempFile.delete()
+        }
+    }
+
+    private fun appendRecord(operation: Int, point: MapPoint?) {
+        val record = ByteArrayOutputStream(RECORD_SIZE)
+        DataOutputStream(record).use { writeRecord(it, operation, point) }
+
+        try {
+            (output ?: openOutput()).write(record.toByteArray())
+        } catch (e: IOException) {
+            Timber.w(e)
+            closeOutput()
+        }
+    }
+
+    private fun openOutput(): FileOutputStream {
+        if (!file.exists()) {
+            writeNow(emptyList())
+        }
+
+        return FileOutputStream(file, true).also { output = it }
+    }
+
+    private fun closeOutput() {
+        try {
+            output?.close()
+        } catch (e: IOException) {
+            Timber.w(e)
+        }
+
+        output = null
+    }
+
+    private fun writeRecord(output: DataOutputStream, operation: Int, point: MapPoint?) {
+        output.writeByte(operation)
+        if (point != null) {
+            output.writeDouble(point.latitude)
+            output.writeDouble(point.longitude)
+            output.writeDouble(point.altitude)
+            output.writeDouble(point.accuracy)
+        }
+    }
+
+    companion object {
+        private const val VERSION = 1
+        private const val APPEND = 1
+        private const val REMOVE_LAST = 2
+        private const val RECORD_SIZE = 1 + 4 * 8
+
+        private val DEFAULT_EXECUTOR = Executors.newSingleThreadExecutor()
+    }
+}
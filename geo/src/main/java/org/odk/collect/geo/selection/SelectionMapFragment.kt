@@ -29,6 +29,7 @@ import org.odk.collect.maps.LineDescription
 import org.odk.collect.maps.MapFragment
 import org.odk.collect.maps.MapFragmentFactory
 import org.odk.collect.maps.MapPoint
+import org.odk.collect.maps.MapViewport
 import org.odk.collect.maps.PolygonDescription
 import org.odk.collect.maps.layers.OfflineMapLayersPickerBottomSheetDialogFragment
 import org.odk.collect.maps.layers.ReferenceLayerRepository
@@ -89,6 +90,13 @@ class SelectionMapFragment(
     private var itemCount: Int = 0
     private var featureCount: Int = 0
 
+    /**
+     * Items are updated whenever the viewport changes, so the map is only moved to the selected
+     * item when it is first shown rather than every time the items update.
+     */
+    private var shownSelectedItemId: Long? = null
+    private var isInitialSelectionShown = false
+
     private var previousState: Bundle? = null
 
     override fun onCreate(savedInstanceState: Bundle?) {
@@ -220,6 +228,7 @@ class SelectionMapFragment(
 
         map.setFeatureClickListener(::onFeatureSelected)
         map.setClickListener { onClick() }
+        map.setViewportListener(selectionMapData::onViewportChanged)
 
         selectionMapData.getMappableItems().observe(viewLifecycleOwner) {
             if (it != null) {
@@ -259,6 +268,7 @@ class SelectionMapFragment(
                 val selectedItem = selectedItemViewModel.getSelectedItem()
                 if (newState == STATE_HIDDEN && selectedItem != null) {
                     selectedItemViewModel.setSelectedItem(null)
+                    shownSelectedItemId = null
                     if (selectedItem is MappableSelectItem.MappableSelectPoint) {
                         resetIcon(selectedItem)
                     }
@@ -337,6 +347,7 @@ class SelectionMapFragment(
                 )
 
                 selectedItemViewModel.setSelectedItem(item)
+                shownSelectedItemId = item.id
             }
         }
     }
@@ -359,9 +370,14 @@ class SelectionMapFragment(
         if (selectedItem != null) {
             val featureId = featureIdsByItemId[selectedItem.id]
             if (featureId != null) {
-                onFeatureSelected(featureId, selectedByUser = false)
+                if (selectedItem.id != shownSelectedItemId) {
+                    onFeatureSelected(featureId, selectedByUser = false)
+                } else {
+                    showSelectedIcon(featureId)
+                }
             }
-        } else if (previouslySelectedItem != null) {
+        } else if (previouslySelectedItem != null && !isInitialSelectionShown) {
+            isInitialSelectionShown = true
             onFeatureSelected(previouslySelectedItem, maintainZoom = false, selectedByUser = false)
         } else if (!map.hasCenter()) {
             if (zoomToFitItems && points.isNotEmpty()) {
@@ -375,6 +391,16 @@ class SelectionMapFragment(
         }
     }
 
+    private fun showSelectedIcon(featureId: Int) {
+        val item = itemsByFeatureId[featureId]
+        if (item is MappableSelectItem.MappableSelectPoint) {
+            map.setMarkerIcon(
+                featureId,
+                MarkerIconDescription(item.largeIcon, item.color, item.symbol)
+            )
+        }
+    }
+
     private fun resetIcon(selectedItem: MappableSelectItem.MappableSelectPoint) {
         val featureId = featureIdsByItemId[selectedItem.id]
         if (featureId != null) {
@@ -453,4 +479,11 @@ interface SelectionMapData {
     fun getItemType(): String
     fun getItemCount(): NonNullLiveData<Int>
     fun getMappableItems(): LiveData<List<MappableSelectItem>?>
+
+    /**
+     * Called whenever the visible area of the map changes. Implementations can use this to only
+     * provide items for the visible area (or cluster them at low zoom levels) when there are too
+     * many to show at once.
+     */
+    fun onViewportChanged(viewport: MapViewport) {}
 }
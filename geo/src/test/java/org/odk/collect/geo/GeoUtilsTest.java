@@ -43,6 +43,27 @@ public class GeoUtilsTest {
                 "11.0 12.0 13.0 14.0;21.0 22.0 23.0 24.0;31.0 32.0 33.0 34.0;11.0 12.0 13.0 14.0");
     }
 
+    @Test
+    public void geoshapes_thatAreAlreadyClosed_areNotClosedAgain() {
+        List<MapPoint> closedPoints = new ArrayList<>(points);
+        closedPoints.add(points.get(0));
+
+        assertEquals(GeoUtils.formatPointsResultString(closedPoints, true),
+                "11.0 12.0 13.0 14.0;21.0 22.0 23.0 24.0;31.0 32.0 33.0 34.0;11.0 12.0 13.0 14.0");
+    }
+
+    @Test
+    public void formatPoints_doesNotModifyPoints() {
+        GeoUtils.formatPointsResultString(points, true);
+        assertEquals(points.size(), 3);
+    }
+
+    @Test
+    public void formatPoints_formatsAccuracyAsFloat() {
+        List<MapPoint> point = Collections.singletonList(new MapPoint(1.5, -2.25, 0.1, 3.3));
+        assertEquals(GeoUtils.formatPointsResultString(point, false), "1.5 -2.25 0.1 3.3");
+    }
+
     @Test
     public void test_formatLocationResultString() {
         Location location = LocationTestUtils.createLocation("GPS", 1, 2, 3, 4);
@@ -39,13 +39,16 @@ import org.odk.collect.maps.MapPoint
 import org.odk.collect.maps.layers.ReferenceLayerRepository
 import org.odk.collect.settings.InMemSettingsProvider
 import org.odk.collect.settings.SettingsProvider
+import org.odk.collect.testshared.FakeScheduler
 import org.odk.collect.webpage.ExternalWebPageHelper
 import org.robolectric.Shadows
+import java.io.File
 
 @RunWith(AndroidJUnit4::class)
 class GeoPolyActivityTest {
     private val mapFragment = FakeMapFragment()
     private val locationTracker = mock<LocationTracker>()
+    private val scheduler = FakeScheduler()
 
     @get:Rule
     val launcherRule = ActivityScenarioLauncherRule()
@@ -76,7 +79,7 @@ class GeoPolyActivityTest {
                 }
 
                 override fun providesScheduler(): Scheduler {
-                    return mock()
+                    return scheduler
                 }
 
                 override fun providesSettingsProvider(): SettingsProvider {
@@ -293,6 +296,77 @@ class GeoPolyActivityTest {
         scenario.recreate()
     }
 
+    @Test
+    fun recreatingTheActivity_restoresRecordedPoints() {
+        val scenario = launcherRule.launch(GeoPolyActivity::class.java)
+        mapFragment.ready()
+        startInput(R.id.placement_mode)
+        mapFragment.click(MapPoint(1.0, 1.0))
+        mapFragment.click(MapPoint(2.0, 2.0))
+
+        scenario.recreate()
+        scheduler.flush()
+        mapFragment.ready()
+
+        assertThat(mapFragment.getPolyLines().last().points, equalTo(listOf(MapPoint(1.0, 1.0), MapPoint(2.0, 2.0))))
+    }
+
+    @Test
+    fun recreatingTheActivity_whenMapIsReadyBeforePointLogIsRead_restoresRecordedPointsOnceRead() {
+        val scenario = launcherRule.launch(GeoPolyActivity::class.java)
+        mapFragment.ready()
+        startInput(R.id.placement_mode)
+        mapFragment.click(MapPoint(1.0, 1.0))
+
+        scenario.recreate()
+        val polyLineCount = mapFragment.getPolyLines().size
+        mapFragment.ready()
+        assertThat(mapFragment.getPolyLines().size, equalTo(polyLineCount))
+
+        scheduler.flush()
+        assertThat(mapFragment.getPolyLines().last().points, equalTo(listOf(MapPoint(1.0, 1.0))))
+    }
+
+    @Test
+    fun startingTheActivity_doesNotDeleteOtherPointLogs() {
+        val otherLog = File(File(ApplicationProvider.getApplicationContext<Application>().filesDir, "geopoly"), "other.log")
+        PointLog(otherLog).write(listOf(MapPoint(1.0, 2.0)))
+        PointLog(otherLog).read()
+
+        launcherRule.launch(GeoPolyActivity::class.java)
+        mapFragment.ready()
+
+        assertThat(otherLog.exists(), equalTo(true))
+    }
+
+    @Test
+    fun recreatingTheActivity_whenPointLogIsMissing_restoresPointsFromIntent() {
+        val polyline = ArrayList<MapPoint>()
+        polyline.add(MapPoint(1.0, 2.0, 3.0, 4.0))
+        val intent =
+            Intent(ApplicationProvider.getApplicationContext(), GeoPolyActivity::class.java)
+        intent.putExtra(GeoPolyActivity.EXTRA_POLYGON, polyline)
+        val scenario = launcherRule.launch<GeoPolyActivity>(intent)
+        mapFragment.ready()
+        startInput(R.id.placement_mode)
+        mapFragment.click(MapPoint(5.0, 6.0))
+
+        scenario.onActivity { activity: GeoPolyActivity -> deletePointLogs(activity) }
+        scenario.recreate()
+        scheduler.flush()
+        mapFragment.ready()
+
+        assertThat(mapFragment.getPolyLines().last().points, equalTo(polyline))
+    }
+
+    private fun deletePointLogs(activity: Activity) {
+        val logDir = File(activity.filesDir, "geopoly")
+
+        // Logs share an executor so reading any log waits until earlier writes have finished
+        PointLog(File(logDir, "unused.log")).read()
+        logDir.listFiles()?.forEach { it.delete() }
+    }
+
     private fun startInput(mode: Int) {
         onView(withId(R.id.play)).perform(click())
         onView(withId(mode)).inRoot(isDialog()).perform(click())
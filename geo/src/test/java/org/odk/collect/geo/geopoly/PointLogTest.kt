@@ -0,0 +1,120 @@
+package org.odk.collect.geo.geopoly
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.empty
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import org.odk.collect.maps.MapPoint
+import org.odk.collect.shared.TempFiles
+import java.io.File
+import java.util.concurrent.Executor
+
+class PointLogTest {
+
+    private val file = File(TempFiles.createTempDir(), "points.log")
+
+    @Test
+    fun `read returns null when log does not exist`() {
+        assertThat(PointLog(file).read(), nullValue())
+    }
+
+    @Test
+    fun `read returns empty list when log has no points`() {
+        PointLog(file).write(emptyList())
+        assertThat(PointLog(file).read(), empty())
+    }
+
+    @Test
+    fun `changes are written on the executor`() {
+        val executor = QueueExecutor()
+        val log = PointLog(file, executor)
+        log.append(MapPoint(1.0, 2.0))
+        log.write(listOf(MapPoint(3.0, 4.0)))
+        log.append(MapPoint(5.0, 6.0))
+        log.close()
+        assertThat(file.exists(), equalTo(false))
+
+        executor.runAll()
+        assertThat(PointLog(file).read(), equalTo(listOf(MapPoint(3.0, 4.0), MapPoint(5.0, 6.0))))
+    }
+
+    @Test
+    fun `appending after close reopens the log`() {
+        val log = PointLog(file)
+        log.append(MapPoint(1.0, 2.0))
+        log.close()
+        log.append(MapPoint(5.0, 6.0))
+
+        assertThat(PointLog(file).read(), equalTo(listOf(MapPoint(1.0, 2.0), MapPoint(5.0, 6.0))))
+    }
+
+    @Test
+    fun `read returns appended points`() {
+        val log = PointLog(file)
+        log.append(MapPoint(1.0, 2.0, 3.0, 4.0))
+        log.append(MapPoint(5.0, 6.0, 7.0, 8.0))
+
+        assertThat(
+            PointLog(file).read(),
+            equalTo(listOf(MapPoint(1.0, 2.0, 3.0, 4.0), MapPoint(5.0, 6.0, 7.0, 8.0)))
+        )
+    }
+
+    @Test
+    fun `read does not return removed points`() {
+        val log = PointLog(file)
+        log.append(MapPoint(1.0, 2.0))
+        log.append(MapPoint(5.0, 6.0))
+        log.removeLast()
+        log.append(MapPoint(9.0, 10.0))
+
+        assertThat(PointLog(file).read(), equalTo(listOf(MapPoint(1.0, 2.0), MapPoint(9.0, 10.0))))
+    }
+
+    @Test
+    fun `write replaces existing points`() {
+        val log = PointLog(file)
+        log.append(MapPoint(1.0, 2.0))
+        log.write(listOf(MapPoint(3.0, 4.0)))
+        log.append(MapPoint(5.0, 6.0))
+
+        assertThat(PointLog(file).read(), equalTo(listOf(MapPoint(3.0, 4.0), MapPoint(5.0, 6.0))))
+    }
+
+    @Test
+    fun `read ignores partially written last record`() {
+        val log = PointLog(file)
+        log.append(MapPoint(1.0, 2.0))
+        log.append(MapPoint(5.0, 6.0))
+        log.close()
+        log.read() // Waits for the appends to be written
+        file.writeBytes(file.readBytes().copyOf(file.length().toInt() - 3))
+
+        assertThat(PointLog(file).read(), equalTo(listOf(MapPoint(1.0, 2.0))))
+    }
+
+    @Test
+    fun `delete removes log`() {
+        val log = PointLog(file)
+        log.append(MapPoint(1.0, 2.0))
+        log.delete()
+
+        assertThat(log.read(), nullValue())
+        assertThat(file.exists(), equalTo(false))
+    }
+
+    private class QueueExecutor : Executor {
+        private val tasks = mutableListOf<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks.add(command)
+        }
+
+        fun runAll() {
+            while (tasks.isNotEmpty()) {
+                tasks.removeAt(0).run()
+            }
+        }
+    }
+}
@@ -751,6 +751,45 @@ class SelectionMapFragmentTest {
         assertThat(map.getCenter(), equalTo(items[1].toMapPoint()))
     }
 
+    @Test
+    fun `does not move back to selected item when items update`() {
+        val items = listOf(
+            Fixtures.actionMappableSelectPoint().copy(id = 0, point = MapPoint(40.0, 0.0)),
+            Fixtures.actionMappableSelectPoint().copy(id = 1, point = MapPoint(41.0, 0.0))
+        )
+        val itemsLiveData = MutableLiveData(items)
+        whenever(data.getMappableItems()).thenReturn(itemsLiveData)
+
+        launcherRule.launchInContainer(SelectionMapFragment::class.java)
+        map.ready()
+
+        map.clickOnFeature(1)
+        map.zoomToPoint(MapPoint(55.0, 66.0), 2.0, false)
+
+        itemsLiveData.value = items.toList()
+        assertThat(map.getCenter(), equalTo(MapPoint(55.0, 66.0)))
+        assertThat(map.getMarkerIcons()[1]!!.icon, equalTo(items[1].largeIcon))
+    }
+
+    @Test
+    fun `does not move back to already selected item when items update after it is deselected`() {
+        val items = listOf(
+            Fixtures.actionMappableSelectPoint().copy(id = 0, point = MapPoint(40.0, 0.0)),
+            Fixtures.actionMappableSelectPoint().copy(id = 1, point = MapPoint(41.0, 0.0), selected = true)
+        )
+        val itemsLiveData = MutableLiveData(items)
+        whenever(data.getMappableItems()).thenReturn(itemsLiveData)
+
+        launcherRule.launchInContainer(SelectionMapFragment::class.java)
+        map.ready()
+
+        map.click(MapPoint(0.0, 0.0))
+        map.zoomToPoint(MapPoint(55.0, 66.0), 2.0, false)
+
+        itemsLiveData.value = items.toList()
+        assertThat(map.getCenter(), equalTo(MapPoint(55.0, 66.0)))
+    }
+
     @Test
     fun `hides new item button when showNewItemButton is false`() {
         launcherRule.launchInContainer(
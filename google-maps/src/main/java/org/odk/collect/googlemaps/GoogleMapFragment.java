@@ -52,11 +52,13 @@ import org.odk.collect.androidshared.ui.ToastUtils;
 import org.odk.collect.googlemaps.GoogleMapConfigurator.GoogleMapTypeOption;
 import org.odk.collect.googlemaps.scaleview.MapScaleView;
 import org.odk.collect.location.LocationClient;
+import org.odk.collect.maps.EditableLine;
 import org.odk.collect.maps.LineDescription;
 import org.odk.collect.maps.MapConfigurator;
 import org.odk.collect.maps.MapFragment;
 import org.odk.collect.maps.MapFragmentDelegate;
 import org.odk.collect.maps.MapPoint;
+import org.odk.collect.maps.MapViewport;
 import org.odk.collect.maps.PolygonDescription;
 import org.odk.collect.maps.layers.MapFragmentReferenceLayerUtils;
 import org.odk.collect.maps.layers.ReferenceLayerRepository;
@@ -68,8 +70,10 @@ import org.odk.collect.settings.keys.ProjectKeys;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -115,6 +119,7 @@ public class GoogleMapFragment extends Fragment implements
     private PointListener gpsLocationListener;
     private FeatureListener featureClickListener;
     private FeatureListener dragEndListener;
+    private ViewportListener viewportListener;
 
     private boolean clientWantsLocationUpdates;
     private MapPoint lastLocationFix;
@@ -188,6 +193,8 @@ public class GoogleMapFragment extends Fragment implements
                     isUserZooming = false;
                 }
                 currentZoomLevel = googleMap.getCameraPosition().zoom;
+                notifyViewportChanged();
+                updateFeatureViewports();
             });
             loadReferenceOverlay();
 
@@ -353,7 +360,7 @@ public class GoogleMapFragment extends Fragment implements
     @Override public int addPolyLine(LineDescription lineDescription) {
         int featureId = nextFeatureId++;
         if (lineDescription.getDraggable()) {
-            features.put(featureId, new DynamicPolyLineFeature(getActivity(), lineDescription, map));
+            features.put(featureId, new DynamicPolyLineFeature(getActivity(), lineDescription, map, getViewport()));
         } else {
             features.put(featureId, new StaticPolyLineFeature(lineDescription, map));
         }
@@ -416,6 +423,11 @@ public class GoogleMapFragment extends Fragment implements
         dragEndListener = listener;
     }
 
+    @Override public void setViewportListener(@Nullable ViewportListener listener) {
+        viewportListener = listener;
+        notifyViewportChanged();
+    }
+
     @Override public void setGpsLocationListener(@Nullable PointListener listener) {
         gpsLocationListener = listener;
     }
@@ -437,6 +449,38 @@ public class GoogleMapFragment extends Fragment implements
         }
     }
 
+    private void notifyViewportChanged() {
+        MapViewport viewport = getViewport();
+        if (viewportListener != null && viewport != null) {
+            viewportListener.onViewportChanged(viewport);
+        }
+    }
+
+    private void updateFeatureViewports() {
+        MapViewport viewport = getViewport();
+        for (MapFeature feature : features.values()) {
+            if (feature instanceof DynamicPolyLineFeature) {
+                ((DynamicPolyLineFeature) feature).setViewport(viewport);
+            }
+        }
+    }
+
+    @Nullable
+    private MapViewport getViewport() {
+        if (map == null) {
+            return null;
+        }
+
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        return new MapViewport(
+                bounds.southwest.latitude,
+                bounds.southwest.longitude,
+                bounds.northeast.latitude,
+                bounds.northeast.longitude,
+                map.getCameraPosition().zoom
+        );
+    }
+
     @Override public void runOnGpsLocationReady(@NonNull ReadyListener listener) {
         if (lastLocationFix != null) {
             listener.onReady(this);
@@ -891,34 +935,38 @@ public class GoogleMapFragment extends Fragment implements
         }
     }
 
-    /** A polyline or polygon that can be manipulated by dragging markers at its vertices. */
+    /**
+     * A polyline or polygon that can be manipulated by dragging markers at its vertices. Only
+     * vertices in the viewport get markers and the line is simplified when zoomed out (see
+     * {@link EditableLine}) so that long traces stay responsive.
+     */
     private static class DynamicPolyLineFeature implements LineFeature {
 
         private final Context context;
         private final GoogleMap map;
-        private final List<Marker> markers = new ArrayList<>();
+        private final EditableLine line;
+        private final Map<Integer, Marker> markers = new HashMap<>();
         private final LineDescription lineDescription;
         private Polyline polyline;
 
-        DynamicPolyLineFeature(Context context, LineDescription lineDescription, GoogleMap map) {
+        DynamicPolyLineFeature(Context context, LineDescription lineDescription, GoogleMap map, @Nullable MapViewport viewport) {
             this.context = context;
             this.lineDescription = lineDescription;
             this.map = map;
+            this.line = new EditableLine(lineDescription.getPoints(), lineDescription.getClosed());
+            line.setViewport(viewport);
 
             if (map == null) {  // during Robolectric tests, map will be null
                 return;
             }
 
-            for (MapPoint point : lineDescription.getPoints()) {
-                markers.add(createMarker(context, new MarkerDescription(point, true, CENTER, new MarkerIconDescription(org.odk.collect.icons.R.drawable.ic_map_point)), map));
-            }
-
-            update();
+            updateLine();
+            updateMarkers();
         }
 
         @Override
         public boolean ownsMarker(Marker givenMarker) {
-            return markers.contains(givenMarker);
+            return markers.containsValue(givenMarker);
         }
 
         @Override
@@ -933,59 +981,92 @@ public class GoogleMapFragment extends Fragment implements
 
         @Override
         public void update() {
-            List<LatLng> latLngs = new ArrayList<>();
-            for (Marker marker : markers) {
-                latLngs.add(marker.getPosition());
-            }
-            if (lineDescription.getClosed() && !latLngs.isEmpty()) {
-                latLngs.add(latLngs.get(0));
-            }
-            if (markers.isEmpty()) {
-                clearPolyline();
-            } else if (polyline == null) {
-                polyline = map.addPolyline(new PolylineOptions()
-                    .color(lineDescription.getStrokeColor())
-                    .zIndex(1)
-                    .width(lineDescription.getStrokeWidth())
-                    .addAll(latLngs)
-                    .clickable(true)
-                );
-            } else {
-                polyline.setPoints(latLngs);
+            for (Map.Entry<Integer, Marker> entry : markers.entrySet()) {
+                MapPoint point = fromMarker(entry.getValue());
+                if (!point.equals(line.getPoints().get(entry.getKey()))) {
+                    line.set(entry.getKey(), point);
+                }
             }
+
+            updateLine();
         }
 
         @Override
         public void dispose() {
             clearPolyline();
-            for (Marker marker : markers) {
+            for (Marker marker : markers.values()) {
                 marker.remove();
             }
             markers.clear();
         }
 
         public List<MapPoint> getPoints() {
-            List<MapPoint> points = new ArrayList<>();
-            for (Marker marker : markers) {
-                points.add(fromMarker(marker));
-            }
-            return points;
+            return new ArrayList<>(line.getPoints());
         }
 
         public void addPoint(MapPoint point) {
             if (map == null) {  // during Robolectric tests, map will be null
                 return;
             }
-            markers.add(createMarker(context, new MarkerDescription(point, true, CENTER, new MarkerIconDescription(org.odk.collect.icons.R.drawable.ic_map_point)), map));
-            update();
+
+            // Polylines can't be appended to so the whole (simplified) line is set again
+            line.append(point);
+            updateLine();
+            updateMarkers();
         }
 
         public void removeLastPoint() {
-            if (!markers.isEmpty()) {
-                int last = markers.size() - 1;
-                markers.get(last).remove();
-                markers.remove(last);
-                update();
+            if (!line.getPoints().isEmpty()) {
+                line.removeLast();
+                updateLine();
+                updateMarkers();
+            }
+        }
+
+        public void setViewport(@Nullable MapViewport viewport) {
+            line.setViewport(viewport);
+            updateLine();
+            updateMarkers();
+        }
+
+        private void updateLine() {
+            List<LatLng> latLngs = new ArrayList<>();
+            for (MapPoint point : line.getLinePoints()) {
+                latLngs.add(toLatLng(point));
+            }
+
+            if (latLngs.isEmpty()) {
+                clearPolyline();
+            } else if (polyline == null) {
+                polyline = map.addPolyline(new PolylineOptions()
+                    .color(lineDescription.getStrokeColor())
+                    .zIndex(1)
+                    .width(lineDescription.getStrokeWidth())
+                    .addAll(latLngs)
+                    .clickable(true)
+                );
+            } else {
+                polyline.setPoints(latLngs);
+            }
+        }
+
+        private void updateMarkers() {
+            Set<Integer> indices = line.getHandleIndices();
+
+            Iterator<Map.Entry<Integer, Marker>> iterator = markers.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Marker> entry = iterator.next();
+                if (!indices.contains(entry.getKey())) {
+                    entry.getValue().remove();
+                    iterator.remove();
+                }
+            }
+
+            for (int index : indices) {
+                if (!markers.containsKey(index)) {
+                    MapPoint point = line.getPoints().get(index);
+                    markers.put(index, createMarker(context, new MarkerDescription(point, true, CENTER, new MarkerIconDescription(org.odk.collect.icons.R.drawable.ic_map_point)), map));
+                }
             }
         }
 
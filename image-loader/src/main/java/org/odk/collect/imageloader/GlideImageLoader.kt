@@ -5,13 +5,13 @@ import android.graphics.drawable.PictureDrawable
 import android.widget.ImageView
 import com.bumptech.glide.Glide
 import com.bumptech.glide.load.DataSource
+import com.bumptech.glide.load.engine.DiskCacheStrategy
 import com.bumptech.glide.load.engine.GlideException
 import com.bumptech.glide.request.RequestListener
 import com.bumptech.glide.request.RequestOptions
 import com.bumptech.glide.request.target.Target
 import com.bumptech.glide.signature.ObjectKey
 import org.odk.collect.imageloader.svg.SvgSoftwareLayerSetter
-import org.odk.collect.shared.strings.Md5.getMd5Hash
 import java.io.File
 
 class GlideImageLoader : ImageLoader {
@@ -35,7 +35,7 @@ class GlideImageLoader : ImageLoader {
                 .`as`(PictureDrawable::class.java)
                 .listener(SvgSoftwareLayerSetter())
                 .load(imageFile)
-                .signature(ObjectKey(imageFile.getMd5Hash()!!))
+                .signature(fileSignature(imageFile))
                 .listener(object : RequestListener<PictureDrawable> {
                     override fun onLoadFailed(
                         e: GlideException?,
@@ -63,7 +63,9 @@ class GlideImageLoader : ImageLoader {
         } else {
             Glide.with(imageView)
                 .load(imageFile)
-                .signature(ObjectKey(imageFile.getMd5Hash()!!))
+                .signature(fileSignature(imageFile))
+                // Only bitmaps can be cached as resources: there's no encoder for decoded SVGs
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
                 .listener(object : RequestListener<Drawable> {
                     override fun onLoadFailed(
                         e: GlideException?,
@@ -91,6 +93,14 @@ class GlideImageLoader : ImageLoader {
         }
     }
 
+    /**
+     * Identifies the version of a file using its last modified date and size rather than its
+     * content so that a cached (downscaled) image can be reused without reading the whole file.
+     */
+    private fun fileSignature(imageFile: File): ObjectKey {
+        return ObjectKey("${imageFile.lastModified()}-${imageFile.length()}")
+    }
+
     interface ImageLoaderCallback {
         fun onLoadFailed()
 
@@ -4,6 +4,7 @@ import android.content.Context
 import android.view.ViewGroup
 import androidx.core.content.ContextCompat
 import androidx.recyclerview.widget.DividerItemDecoration
+import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import org.odk.collect.androidshared.R
 
@@ -23,4 +24,20 @@ object RecyclerViewUtils {
             ViewGroup.LayoutParams.WRAP_CONTENT
         )
     }
+
+    /**
+     * Calls [onNearEnd] whenever the list is scrolled to within [threshold] items of its end so
+     * that more items can be loaded on demand.
+     */
+    fun RecyclerView.addOnScrolledNearEndListener(threshold: Int = 20, onNearEnd: () -> Unit) {
+        addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+                val itemCount = layoutManager.itemCount
+                if (itemCount > 0 && layoutManager.findLastVisibleItemPosition() >= itemCount - threshold) {
+                    onNearEnd()
+                }
+            }
+        })
+    }
 }
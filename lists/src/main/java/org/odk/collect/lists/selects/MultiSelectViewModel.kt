@@ -15,9 +15,13 @@ import org.odk.collect.androidshared.livedata.NonNullLiveData
  * A `ViewModel` for holding state around selected items (identified by `Long` ids). This can
  * optionally also handle the data for the list which allows the `ViewModel` to perform a select
  * all and determine whether all items are selected or not.
+ *
+ * If the data is loaded in pages, `loadAll` should be passed so that select all can first load
+ * every item. It should call the function it's passed once `data` contains all of them.
  */
 class MultiSelectViewModel<T>(
-    private val data: LiveData<List<SelectItem<T>>> = MutableLiveData(emptyList())
+    private val data: LiveData<List<SelectItem<T>>> = MutableLiveData(emptyList()),
+    private val loadAll: ((() -> Unit) -> Unit)? = null
 ) : ViewModel() {
 
     private val selected = MutableNonNullLiveData(emptySet<String>())
@@ -46,7 +50,11 @@ class MultiSelectViewModel<T>(
     }
 
     fun selectAll() {
-        updateSelected(data.value?.map { it.id }?.toSet() ?: emptySet())
+        if (loadAll != null) {
+            loadAll.invoke { selectAllLoaded() }
+        } else {
+            selectAllLoaded()
+        }
     }
 
     fun isAllSelected(): LiveData<Boolean> {
@@ -61,15 +69,21 @@ class MultiSelectViewModel<T>(
         }
     }
 
+    private fun selectAllLoaded() {
+        updateSelected(data.value?.map { it.id }?.toSet() ?: emptySet())
+    }
+
     private fun updateSelected(new: Set<String>) {
         selected.value = new
     }
 
-    class Factory<T>(private val data: LiveData<List<SelectItem<T>>> = MutableLiveData(emptyList())) :
-        ViewModelProvider.Factory {
+    class Factory<T>(
+        private val data: LiveData<List<SelectItem<T>>> = MutableLiveData(emptyList()),
+        private val loadAll: ((() -> Unit) -> Unit)? = null
+    ) : ViewModelProvider.Factory {
         @Suppress("UNCHECKED_CAST")
         override fun <VM : ViewModel> create(modelClass: Class<VM>, extras: CreationExtras): VM {
-            return MultiSelectViewModel(data) as VM
+            return MultiSelectViewModel(data, loadAll) as VM
         }
     }
 }
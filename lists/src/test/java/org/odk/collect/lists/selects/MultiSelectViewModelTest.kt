@@ -63,6 +63,20 @@ class MultiSelectViewModelTest {
         assertThat(viewModel.getSelected().getOrAwaitValue(), equalTo(setOf("1", "2")))
     }
 
+    @Test
+    fun `selectAll selects all data once it has all been loaded when data is paged`() {
+        val data = MutableLiveData(listOf(SelectItem<Long>("1", 1)))
+        var onLoaded: (() -> Unit)? = null
+        val viewModel = MultiSelectViewModel(data) { onLoaded = it }
+
+        viewModel.selectAll()
+        assertThat(viewModel.getSelected().getOrAwaitValue(), equalTo(emptySet()))
+
+        data.value = listOf(SelectItem<Long>("1", 1), SelectItem<Long>("2", 2))
+        onLoaded!!()
+        assertThat(viewModel.getSelected().getOrAwaitValue(), equalTo(setOf("1", "2")))
+    }
+
     @Test
     fun `isAllSelected is true when all data selected`() {
         val data = MutableLiveData(listOf(SelectItem<Long>("1", 1), SelectItem<Long>("2", 2)))
@@ -9,11 +9,17 @@ import com.mapbox.maps.plugin.annotation.generated.PointAnnotationManager
 import com.mapbox.maps.plugin.annotation.generated.PolylineAnnotation
 import com.mapbox.maps.plugin.annotation.generated.PolylineAnnotationManager
 import com.mapbox.maps.plugin.annotation.generated.PolylineAnnotationOptions
+import org.odk.collect.maps.EditableLine
 import org.odk.collect.maps.LineDescription
 import org.odk.collect.maps.MapFragment
 import org.odk.collect.maps.MapPoint
+import org.odk.collect.maps.MapViewport
 
-/** A polyline that can be manipulated by dragging Symbols at its vertices. */
+/**
+ * A polyline that can be manipulated by dragging Symbols at its vertices. Only vertices in the
+ * viewport get Symbols and the line is simplified when zoomed out (see [EditableLine]) so that
+ * long traces stay responsive.
+ */
 internal class DynamicPolyLineFeature(
     private val context: Context,
     private val pointAnnotationManager: PointAnnotationManager,
@@ -21,30 +27,22 @@ internal class DynamicPolyLineFeature(
     private val featureId: Int,
     private val featureClickListener: MapFragment.FeatureListener?,
     private val featureDragEndListener: MapFragment.FeatureListener?,
-    private val lineDescription: LineDescription
+    private val lineDescription: LineDescription,
+    viewport: MapViewport?
 ) : LineFeature {
-    override val points = mutableListOf<MapPoint>()
-    private val pointAnnotations = mutableListOf<PointAnnotation>()
+    private val line = EditableLine(lineDescription.points, lineDescription.closed)
+    private val pointAnnotations = mutableMapOf<Int, PointAnnotation>()
     private val pointAnnotationClickListener = ClickListener()
     private val pointAnnotationDragListener = DragListener()
     private var polylineAnnotation: PolylineAnnotation? = null
 
-    init {
-        lineDescription.points.forEach {
-            points.add(it)
-            pointAnnotations.add(
-                MapUtils.createPointAnnotation(
-                    pointAnnotationManager,
-                    it,
-                    true,
-                    MapFragment.CENTER,
-                    org.odk.collect.icons.R.drawable.ic_map_point,
-                    context
-                )
-            )
-        }
+    override val points: List<MapPoint>
+        get() = line.points.toList()
 
+    init {
+        line.viewport = viewport
         updateLine()
+        updatePointAnnotations()
 
         pointAnnotationManager.addClickListener(pointAnnotationClickListener)
         pointAnnotationManager.addDragListener(pointAnnotationDragListener)
@@ -64,7 +62,7 @@ internal class DynamicPolyLineFeature(
         pointAnnotationManager.apply {
             removeClickListener(pointAnnotationClickListener)
             removeDragListener(pointAnnotationDragListener)
-            delete(pointAnnotations)
+            delete(pointAnnotations.values.toList())
         }
 
         polylineAnnotation?.let {
@@ -72,64 +70,79 @@ internal class DynamicPolyLineFeature(
         }
 
         pointAnnotations.clear()
-        points.clear()
     }
 
     fun appendPoint(point: MapPoint) {
-        points.add(point)
-        pointAnnotations.add(
-            MapUtils.createPointAnnotation(
-                pointAnnotationManager,
-                point,
-                true,
-                MapFragment.CENTER,
-                org.odk.collect.icons.R.drawable.ic_map_point,
-                context
-            )
-        )
+        // Annotations can't be appended to so the whole (simplified) line is set again
+        line.append(point)
         updateLine()
+        updatePointAnnotations()
     }
 
     fun removeLastPoint() {
-        if (pointAnnotations.isNotEmpty()) {
-            pointAnnotationManager.delete(pointAnnotations.last())
-            pointAnnotations.removeAt(pointAnnotations.lastIndex)
-            points.removeAt(points.lastIndex)
+        if (line.points.isNotEmpty()) {
+            line.removeLast()
             updateLine()
+            updatePointAnnotations()
         }
     }
 
+    fun setViewport(viewport: MapViewport?) {
+        line.viewport = viewport
+        updateLine()
+        updatePointAnnotations()
+    }
+
     private fun updateLine() {
-        val points = points
-            .map {
-                Point.fromLngLat(it.longitude, it.latitude, it.altitude)
-            }
-            .toMutableList()
-            .also {
-                if (lineDescription.closed && it.isNotEmpty()) {
-                    it.add(it.first())
+        val points = line.getLinePoints().map {
+            Point.fromLngLat(it.longitude, it.latitude, it.altitude)
+        }
+
+        val currentAnnotation = polylineAnnotation
+        if (points.size > 1) {
+            if (currentAnnotation != null) {
+                currentAnnotation.points = points
+                polylineAnnotationManager.update(currentAnnotation)
+            } else {
+                polylineAnnotation = polylineAnnotationManager.create(
+                    PolylineAnnotationOptions()
+                        .withPoints(points)
+                        .withLineColor(lineDescription.getStrokeColor())
+                        .withLineWidth(MapUtils.convertStrokeWidth(lineDescription))
+                ).also {
+                    polylineAnnotationManager.update(it)
                 }
             }
+        } else if (currentAnnotation != null) {
+            polylineAnnotationManager.delete(currentAnnotation)
+            polylineAnnotation = null
+        }
+    }
 
-        polylineAnnotation?.let {
-            polylineAnnotationManager.delete(it)
+    private fun updatePointAnnotations() {
+        val indices = line.getHandleIndices()
+
+        val removed = pointAnnotations.filterKeys { !indices.contains(it) }
+        if (removed.isNotEmpty()) {
+            pointAnnotationManager.delete(removed.values.toList())
+            removed.keys.forEach { pointAnnotations.remove(it) }
         }
 
-        if (points.size > 1) {
-            polylineAnnotation = polylineAnnotationManager.create(
-                PolylineAnnotationOptions()
-                    .withPoints(points)
-                    .withLineColor(lineDescription.getStrokeColor())
-                    .withLineWidth(MapUtils.convertStrokeWidth(lineDescription))
-            ).also {
-                polylineAnnotationManager.update(it)
-            }
+        indices.filter { !pointAnnotations.containsKey(it) }.forEach { index ->
+            pointAnnotations[index] = MapUtils.createPointAnnotation(
+                pointAnnotationManager,
+                line.points[index],
+                true,
+                MapFragment.CENTER,
+                org.odk.collect.icons.R.drawable.ic_map_point,
+                context
+            )
         }
     }
 
     private inner class ClickListener : OnPointAnnotationClickListener {
         override fun onAnnotationClick(annotation: PointAnnotation): Boolean {
-            for (pointAnnotation in pointAnnotations) {
+            for (pointAnnotation in pointAnnotations.values) {
                 if (annotation.id == pointAnnotation.id && featureClickListener != null) {
                     featureClickListener.onFeature(featureId)
                     return true
@@ -143,9 +156,9 @@ internal class DynamicPolyLineFeature(
         override fun onAnnotationDragStarted(annotation: com.mapbox.maps.plugin.annotation.Annotation<*>) = Unit
 
         override fun onAnnotationDrag(annotation: com.mapbox.maps.plugin.annotation.Annotation<*>) {
-            pointAnnotations.forEachIndexed { index, pointAnnotation ->
+            pointAnnotations.forEach { (index, pointAnnotation) ->
                 if (annotation.id == pointAnnotation.id) {
-                    points[index] = MapUtils.mapPointFromPointAnnotation(pointAnnotation)
+                    line[index] = MapUtils.mapPointFromPointAnnotation(pointAnnotation)
                 }
             }
             updateLine()
@@ -154,7 +167,7 @@ internal class DynamicPolyLineFeature(
         override fun onAnnotationDragFinished(annotation: com.mapbox.maps.plugin.annotation.Annotation<*>) {
             onAnnotationDrag(annotation)
             if (featureDragEndListener != null) {
-                for (pointAnnotation in pointAnnotations) {
+                for (pointAnnotation in pointAnnotations.values) {
                     if (annotation.id == pointAnnotation.id) {
                         featureDragEndListener.onFeature(featureId)
                         break
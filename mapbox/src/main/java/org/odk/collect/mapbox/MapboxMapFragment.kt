@@ -47,6 +47,7 @@ import com.mapbox.maps.plugin.gestures.addOnMapClickListener
 import com.mapbox.maps.plugin.gestures.addOnMapLongClickListener
 import com.mapbox.maps.plugin.gestures.addOnScaleListener
 import com.mapbox.maps.plugin.locationcomponent.location
+import com.mapbox.maps.toCameraOptions
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import org.odk.collect.androidshared.utils.ScreenUtils
@@ -58,8 +59,10 @@ import org.odk.collect.maps.MapFragment.ErrorListener
 import org.odk.collect.maps.MapFragment.FeatureListener
 import org.odk.collect.maps.MapFragment.PointListener
 import org.odk.collect.maps.MapFragment.ReadyListener
+import org.odk.collect.maps.MapFragment.ViewportListener
 import org.odk.collect.maps.MapFragmentDelegate
 import org.odk.collect.maps.MapPoint
+import org.odk.collect.maps.MapViewport
 import org.odk.collect.maps.PolygonDescription
 import org.odk.collect.maps.layers.MapFragmentReferenceLayerUtils.getReferenceLayerFile
 import org.odk.collect.maps.layers.MbtilesFile
@@ -99,6 +102,7 @@ class MapboxMapFragment :
 
     private var featureClickListener: FeatureListener? = null
     private var featureDragEndListener: FeatureListener? = null
+    private var viewportListener: ViewportListener? = null
 
     private var lastLocationProvider: String? = null
     private var lastLocationFix: MapPoint? = null
@@ -176,6 +180,10 @@ class MapboxMapFragment :
                         mapFragmentDelegate.onZoomLevelChangedByUserListener(cameraState.zoom.toFloat())
                     }
                 })
+                addOnMapIdleListener {
+                    updateFeatureViewports()
+                    notifyViewportChanged()
+                }
             }
 
         polylineAnnotationManager = mapView
@@ -359,7 +367,8 @@ class MapboxMapFragment :
                 featureId,
                 featureClickListener,
                 featureDragEndListener,
-                lineDescription
+                lineDescription,
+                getViewport()
             )
         } else {
             features[featureId] = StaticPolyLineFeature(
@@ -372,6 +381,39 @@ class MapboxMapFragment :
         return featureId
     }
 
+    private fun updateFeatureViewports() {
+        val viewport = getViewport()
+        features.values.filterIsInstance<DynamicPolyLineFeature>().forEach {
+            it.setViewport(viewport)
+        }
+    }
+
+    private fun notifyViewportChanged() {
+        if (!::mapboxMap.isInitialized) {
+            return
+        }
+
+        val viewport = getViewport()
+        if (viewport != null) {
+            viewportListener?.onViewportChanged(viewport)
+        }
+    }
+
+    private fun getViewport(): MapViewport? {
+        if (mapView.width == 0 || mapView.height == 0) {
+            return null
+        }
+
+        val bounds = mapboxMap.coordinateBoundsForCamera(mapboxMap.cameraState.toCameraOptions())
+        return MapViewport(
+            bounds.south(),
+            bounds.west(),
+            bounds.north(),
+            bounds.east(),
+            mapboxMap.cameraState.zoom
+        )
+    }
+
     override fun addPolygon(polygonDescription: PolygonDescription): Int {
         val featureId = nextFeatureId++
         features[featureId] = StaticPolygonFeature(
@@ -432,6 +474,11 @@ class MapboxMapFragment :
         featureDragEndListener = listener
     }
 
+    override fun setViewportListener(listener: ViewportListener?) {
+        viewportListener = listener
+        notifyViewportChanged()
+    }
+
     override fun setGpsLocationEnabled(enabled: Boolean) {
         if (enabled != clientWantsLocationUpdates) {
             clientWantsLocationUpdates = enabled
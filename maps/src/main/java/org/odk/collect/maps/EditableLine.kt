@@ -0,0 +1,195 @@
+package org.odk.collect.maps
+
+import kotlin.math.cos
+import kotlin.math.pow
+import kotlin.math.sqrt
+
+/**
+ * The vertices of a line that can be appended to (while recording a trace) or edited by dragging
+ * handles at its vertices. Map implementations use this to work out what needs to be drawn for
+ * the current [viewport]:
+ *
+ * - [getLinePoints] returns the points to draw the line through. When the line is long, these are
+ * simplified (using Douglas-Peucker) so that vertices that would be less than a pixel from the
+ * line at the viewport's zoom level are dropped. Appending a point extends the existing points
+ * rather than recomputing them.
+ * - [getHandleIndices] returns the vertices that should have handles drawn: the ones in the
+ * viewport, as long as there aren't more than [MAX_HANDLES] of them. These are kept up to date as
+ * points are appended, moved or removed so only changing the viewport requires checking every
+ * vertex again.
+ */
+class EditableLine(points: List<MapPoint>, private val closed: Boolean) {
+
+    private val vertices = points.toMutableList()
+    private var lineVertices: MutableList<MapPoint>? = null
+    private var lineIsSimplified = false
+    private var visibleIndices: LinkedHashSet<Int>? = null
+
+    val points: List<MapPoint>
+        get() = vertices
+
+    var viewport: MapViewport? = null
+        set(value) {
+            field = value
+            lineVertices = null
+            visibleIndices = null
+        }
+
+    /**
+     * Returns true if [point] has been added to the end of the points last returned by
+     * [getLinePoints] so that it can be appended to the line that's already drawn rather than
+     * redrawing it.
+     */
+    fun append(point: MapPoint): Boolean {
+        vertices.add(point)
+        if (isVisible(point)) {
+            visibleIndices?.add(vertices.lastIndex)
+        }
+
+        val line = lineVertices
+        return if (line != null) {
+            line.add(point)
+            !closed
+        } else {
+            false
+        }
+    }
+
+    fun removeLast() {
+        if (vertices.isEmpty()) {
+            return
+        }
+
+        visibleIndices?.remove(vertices.lastIndex)
+        vertices.removeAt(vertices.lastIndex)
+        if (lineIsSimplified) {
+            lineVertices = null
+        } else {
+            lineVertices?.let { it.removeAt(it.lastIndex) }
+        }
+    }
+
+    operator fun set(index: Int, point: MapPoint) {
+        vertices[index] = point
+        if (isVisible(point)) {
+            visibleIndices?.add(index)
+        } else {
+            visibleIndices?.remove(index)
+        }
+
+        if (lineIsSimplified) {
+            lineVertices = null
+        } else {
+            lineVertices?.set(index, point)
+        }
+    }
+
+    fun getLinePoints(): List<MapPoint> {
+        val line = lineVertices ?: createLineVertices().also { lineVertices = it }
+
+        return if (closed && line.isNotEmpty()) {
+            line + line.first()
+        } else {
+            line
+        }
+    }
+
+    fun getHandleIndices(): Set<Int> {
+        val visible = visibleIndices ?: vertices.indices
+            .filterTo(LinkedHashSet()) { isVisible(vertices[it]) }
+            .also { visibleIndices = it }
+
+        return if (visible.size > MAX_HANDLES) {
+            emptySet()
+        } else {
+            visible
+        }
+    }
+
+    private fun isVisible(point: MapPoint): Boolean {
+        return viewport?.contains(point.latitude, point.longitude) ?: true
+    }
+
+    private fun createLineVertices(): MutableList<MapPoint> {
+        val viewport = viewport
+        return if (viewport != null && vertices.size >= MIN_POINTS_TO_SIMPLIFY) {
+            lineIsSimplified = true
+
+            val centerLatitude = (viewport.north + viewport.south) / 2
+            val degreesPerPixel = DEGREES_PER_PIXEL_AT_ZOOM_0 / 2.0.pow(viewport.zoom)
+            simplify(vertices, degreesPerPixel * cos(Math.toRadians(centerLatitude)), centerLatitude).toMutableList()
+        } else {
+            lineIsSimplified = false
+            vertices.toMutableList()
+        }
+    }
+
+    companion object {
+        const val MAX_HANDLES = 200
+        const val MIN_POINTS_TO_SIMPLIFY = 500
+
+        private const val DEGREES_PER_PIXEL_AT_ZOOM_0 = 360.0 / 256.0
+
+        /**
+         * Simplifies [points] with the Douglas-Peucker algorithm, dropping any point that is
+         * closer than [tolerance] (in degrees of latitude) to the simplified line. Longitudes are
+         * scaled for [latitude] so that distances are roughly the same in both directions.
+         */
+        @JvmStatic
+        fun simplify(points: List<MapPoint>, tolerance: Double, latitude: Double): List<MapPoint> {
+            if (points.size < 3) {
+                return points
+            }
+
+            val longitudeScale = cos(Math.toRadians(latitude))
+            val keep = BooleanArray(points.size)
+            keep[0] = true
+            keep[points.lastIndex] = true
+
+            val segments = ArrayDeque<Pair<Int, Int>>()
+            segments.add(Pair(0, points.lastIndex))
+
+            while (segments.isNotEmpty()) {
+                val (start, end) = segments.removeLast()
+
+                var furthest = -1
+                var furthestDistance = tolerance
+                for (index in start + 1 until end) {
+                    val distance = distanceToSegment(points[index], points[start], points[end], longitudeScale)
+                    if (distance > furthestDistance) {
+                        furthest = index
+                        furthestDistance = distance
+                    }
+                }
+
+                if (furthest != -1) {
+                    keep[furthest] = true
+                    segments.add(Pair(start, furthest))
+                    segments.add(Pair(furthest, end))
+                }
+            }
+
+            return points.filterIndexed { index, _ -> keep[index] }
+        }
+
+        private fun distanceToSegment(point: MapPoint, start: MapPoint, end: MapPoint, longitudeScale: Double): Double {
+            val x = point.longitude * longitudeScale
+            val y = point.latitude
+            val x1 = start.longitude * longitudeScale
+            val y1 = start.latitude
+            val dx = end.longitude * longitudeScale - x1
+            val dy = end.latitude - y1
+
+            val lengthSquared = dx * dx + dy * dy
+            val t = if (lengthSquared == 0.0) {
+                0.0
+            } else {
+                (((x - x1) * dx + (y - y1) * dy) / lengthSquared).coerceIn(0.0, 1.0)
+            }
+
+            val closestX = x1 + t * dx
+            val closestY = y1 + t * dy
+            return sqrt((x - closestX) * (x - closestX) + (y - closestY) * (y - closestY))
+        }
+    }
+}
@@ -137,6 +137,12 @@ interface MapFragment {
     /** Sets or clears the callback for when a drag is completed.  */
     fun setDragEndListener(listener: FeatureListener?)
 
+    /**
+     * Sets or clears the callback for when the map stops moving. Implementations that can't
+     * report their viewport never call the listener.
+     */
+    fun setViewportListener(listener: ViewportListener?) {}
+
     /**
      * Enables/disables GPS tracking.  While enabled, the GPS location is shown
      * on the map, the first GPS fix will trigger any pending callbacks set by
@@ -186,6 +192,10 @@ interface MapFragment {
         fun onPoint(point: MapPoint)
     }
 
+    fun interface ViewportListener {
+        fun onViewportChanged(viewport: MapViewport)
+    }
+
     fun interface FeatureListener {
         fun onFeature(featureId: Int)
     }
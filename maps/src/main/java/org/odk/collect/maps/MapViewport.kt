@@ -0,0 +1,26 @@
+package org.odk.collect.maps
+
+/**
+ * The area of the map that is currently visible along with the zoom level it is being shown at.
+ * If the viewport crosses the antimeridian, [west] will be greater than [east].
+ */
+data class MapViewport(
+    val south: Double,
+    val west: Double,
+    val north: Double,
+    val east: Double,
+    val zoom: Double
+) {
+
+    fun contains(latitude: Double, longitude: Double): Boolean {
+        if (latitude < south || latitude > north) {
+            return false
+        }
+
+        return if (west <= east) {
+            longitude in west..east
+        } else {
+            longitude >= west || longitude <= east
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.odk.collect.maps
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.empty
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.lessThan
+import org.junit.Test
+
+class EditableLineTest {
+
+    @Test
+    fun `getLinePoints returns points`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0), MapPoint(1.0, 1.0)), false)
+        assertThat(line.getLinePoints(), equalTo(listOf(MapPoint(0.0, 0.0), MapPoint(1.0, 1.0))))
+    }
+
+    @Test
+    fun `getLinePoints closes line when closed`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0), MapPoint(1.0, 1.0)), true)
+        assertThat(
+            line.getLinePoints(),
+            equalTo(listOf(MapPoint(0.0, 0.0), MapPoint(1.0, 1.0), MapPoint(0.0, 0.0)))
+        )
+    }
+
+    @Test
+    fun `getLinePoints reflects appended, moved and removed points`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0)), true)
+        line.getLinePoints()
+
+        line.append(MapPoint(1.0, 1.0))
+        line.append(MapPoint(2.0, 2.0))
+        line[1] = MapPoint(1.5, 1.5)
+        line.removeLast()
+
+        assertThat(
+            line.getLinePoints(),
+            equalTo(listOf(MapPoint(0.0, 0.0), MapPoint(1.5, 1.5), MapPoint(0.0, 0.0)))
+        )
+    }
+
+    @Test
+    fun `getLinePoints simplifies long lines when zoomed out`() {
+        val points = (0 until 1000).map { MapPoint(0.0001 * (it % 2), 0.001 * it) }
+        val line = EditableLine(points, false)
+
+        line.viewport = MapViewport(-1.0, -1.0, 1.0, 2.0, 5.0)
+        val simplified = line.getLinePoints()
+        assertThat(simplified.size, lessThan(10))
+        assertThat(simplified.first(), equalTo(points.first()))
+        assertThat(simplified.last(), equalTo(points.last()))
+
+        line.viewport = MapViewport(-1.0, -1.0, 1.0, 2.0, 22.0)
+        assertThat(line.getLinePoints(), equalTo(points))
+    }
+
+    @Test
+    fun `getLinePoints does not simplify short lines`() {
+        val points = (0 until 10).map { MapPoint(0.0001 * (it % 2), 0.001 * it) }
+        val line = EditableLine(points, false)
+
+        line.viewport = MapViewport(-1.0, -1.0, 1.0, 2.0, 1.0)
+        assertThat(line.getLinePoints(), equalTo(points))
+    }
+
+    @Test
+    fun `getHandleIndices returns indices of points in viewport`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0), MapPoint(5.0, 5.0), MapPoint(1.0, 1.0)), false)
+        line.viewport = MapViewport(-2.0, -2.0, 2.0, 2.0, 10.0)
+
+        assertThat(line.getHandleIndices(), equalTo(setOf(0, 2)))
+    }
+
+    @Test
+    fun `getHandleIndices returns nothing when there are too many points in viewport`() {
+        val points = (0..EditableLine.MAX_HANDLES).map { MapPoint(0.0, 0.0) }
+        val line = EditableLine(points, false)
+        line.viewport = MapViewport(-2.0, -2.0, 2.0, 2.0, 10.0)
+
+        assertThat(line.getHandleIndices(), empty())
+    }
+
+    @Test
+    fun `getHandleIndices reflects appended, moved and removed points`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0), MapPoint(1.0, 1.0)), false)
+        line.viewport = MapViewport(-2.0, -2.0, 2.0, 2.0, 10.0)
+        line.getHandleIndices()
+
+        line.append(MapPoint(5.0, 5.0))
+        line.append(MapPoint(1.5, 1.5))
+        assertThat(line.getHandleIndices(), equalTo(setOf(0, 1, 3)))
+
+        line[0] = MapPoint(5.0, 5.0)
+        line[2] = MapPoint(0.5, 0.5)
+        line.removeLast()
+        assertThat(line.getHandleIndices(), equalTo(setOf(1, 2)))
+    }
+
+    @Test
+    fun `append returns true when point extends the points last returned for an open line`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0)), false)
+        assertThat(line.append(MapPoint(1.0, 1.0)), equalTo(false))
+
+        line.getLinePoints()
+        assertThat(line.append(MapPoint(2.0, 2.0)), equalTo(true))
+    }
+
+    @Test
+    fun `append returns false for a closed line`() {
+        val line = EditableLine(listOf(MapPoint(0.0, 0.0)), true)
+        line.getLinePoints()
+
+        assertThat(line.append(MapPoint(1.0, 1.0)), equalTo(false))
+    }
+
+    @Test
+    fun `simplify keeps points further than tolerance from line`() {
+        val points = listOf(MapPoint(0.0, 0.0), MapPoint(0.5, 1.0), MapPoint(0.26, 2.0), MapPoint(0.0, 3.0))
+        assertThat(
+            EditableLine.simplify(points, 0.1, 0.0),
+            equalTo(listOf(MapPoint(0.0, 0.0), MapPoint(0.5, 1.0), MapPoint(0.0, 3.0)))
+        )
+    }
+}
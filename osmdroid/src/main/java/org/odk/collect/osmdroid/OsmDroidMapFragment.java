@@ -41,11 +41,13 @@ import com.google.android.gms.location.LocationListener;
 
 import org.odk.collect.androidshared.system.ContextUtils;
 import org.odk.collect.location.LocationClient;
+import org.odk.collect.maps.EditableLine;
 import org.odk.collect.maps.LineDescription;
 import org.odk.collect.maps.MapConfigurator;
 import org.odk.collect.maps.MapFragment;
 import org.odk.collect.maps.MapFragmentDelegate;
 import org.odk.collect.maps.MapPoint;
+import org.odk.collect.maps.MapViewport;
 import org.odk.collect.maps.PolygonDescription;
 import org.odk.collect.maps.layers.MapFragmentReferenceLayerUtils;
 import org.odk.collect.maps.layers.ReferenceLayerRepository;
@@ -54,6 +56,7 @@ import org.odk.collect.maps.markers.MarkerIconCreator;
 import org.odk.collect.maps.markers.MarkerIconDescription;
 import org.odk.collect.settings.SettingsProvider;
 import org.osmdroid.api.IGeoPoint;
+import org.osmdroid.events.DelayedMapListener;
 import org.osmdroid.events.MapListener;
 import org.osmdroid.events.ScrollEvent;
 import org.osmdroid.events.ZoomEvent;
@@ -76,8 +79,10 @@ import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -93,6 +98,7 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
 
     // Bundle keys understood by applyConfig().
     public static final String KEY_WEB_MAP_SERVICE = "WEB_MAP_SERVICE";
+    private static final long VIEWPORT_CHANGE_DELAY_MILLIS = 300;
 
     @Inject
     ReferenceLayerRepository referenceLayerRepository;
@@ -121,6 +127,7 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
     private PointListener gpsLocationListener;
     private FeatureListener featureClickListener;
     private FeatureListener dragEndListener;
+    private ViewportListener viewportListener;
     private MyLocationNewOverlay myLocationOverlay;
     private OsmLocationClientWrapper osmLocationClientWrapper;
     private int nextFeatureId = 1;
@@ -221,6 +228,21 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
         addAttributionAndMapEventsOverlays();
         loadReferenceOverlay();
         addMapLayoutChangeListener(map);
+        map.addMapListener(new DelayedMapListener(new MapListener() {
+            @Override
+            public boolean onScroll(ScrollEvent event) {
+                notifyViewportChanged();
+                updateFeatureViewports();
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(ZoomEvent event) {
+                notifyViewportChanged();
+                updateFeatureViewports();
+                return false;
+            }
+        }, VIEWPORT_CHANGE_DELAY_MILLIS));
 
         osmLocationClientWrapper = new OsmLocationClientWrapper(locationClient);
         myLocationOverlay = new MyLocationNewOverlay(osmLocationClientWrapper, map);
@@ -364,7 +386,7 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
     public int addPolyLine(LineDescription lineDescription) {
         int featureId = nextFeatureId++;
         if (lineDescription.getDraggable()) {
-            features.put(featureId, new DynamicPolyLineFeature(map, lineDescription));
+            features.put(featureId, new DynamicPolyLineFeature(map, lineDescription, getViewport()));
         } else {
             features.put(featureId, new StaticPolyLineFeature(map, lineDescription));
         }
@@ -434,6 +456,48 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
         dragEndListener = listener;
     }
 
+    @Override
+    public void setViewportListener(@Nullable ViewportListener listener) {
+        viewportListener = listener;
+        notifyViewportChanged();
+    }
+
+    private void notifyViewportChanged() {
+        MapViewport viewport = getViewport();
+        if (viewportListener != null && viewport != null) {
+            viewportListener.onViewportChanged(viewport);
+        }
+    }
+
+    private void updateFeatureViewports() {
+        MapViewport viewport = getViewport();
+        for (MapFeature feature : features.values()) {
+            if (feature instanceof DynamicPolyLineFeature) {
+                ((DynamicPolyLineFeature) feature).setViewport(viewport);
+            }
+        }
+    }
+
+    /**
+     * Returns the visible area of the map or null if the map hasn't been laid out yet (in which
+     * case its bounding box isn't meaningful).
+     */
+    @Nullable
+    private MapViewport getViewport() {
+        if (map == null || map.getWidth() == 0 || map.getHeight() == 0) {
+            return null;
+        }
+
+        BoundingBox box = map.getBoundingBox();
+        return new MapViewport(
+                box.getLatSouth(),
+                box.getLonWest(),
+                box.getLatNorth(),
+                box.getLonEast(),
+                map.getZoomLevelDouble()
+        );
+    }
+
     @Override
     public void setGpsLocationListener(@Nullable PointListener listener) {
         gpsLocationListener = listener;
@@ -893,17 +957,21 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
     }
 
     /**
-     * A polyline or polygon that can be manipulated by dragging markers at its vertices.
+     * A polyline or polygon that can be manipulated by dragging markers at its vertices. Only
+     * vertices in the viewport get markers and the line is simplified when zoomed out (see
+     * {@link EditableLine}) so that long traces stay responsive. Points appended to open lines
+     * are added to the drawn polyline rather than redrawing it.
      */
     private class DynamicPolyLineFeature implements LineFeature {
         final MapView map;
-        final List<Marker> markers = new ArrayList<>();
+        final EditableLine line;
+        final Map<Integer, Marker> markers = new HashMap<>();
         final Polyline polyline;
-        final boolean closedPolygon;
 
-        DynamicPolyLineFeature(MapView map, LineDescription lineDescription) {
+        DynamicPolyLineFeature(MapView map, LineDescription lineDescription, @Nullable MapViewport viewport) {
             this.map = map;
-            this.closedPolygon = lineDescription.getClosed();
+            this.line = new EditableLine(lineDescription.getPoints(), lineDescription.getClosed());
+            line.setViewport(viewport);
             polyline = new Polyline();
             polyline.setColor(lineDescription.getStrokeColor());
             polyline.setOnClickListener((clickedPolyline, mapView, eventPos) -> {
@@ -917,15 +985,13 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
             Paint paint = polyline.getPaint();
             paint.setStrokeWidth(lineDescription.getStrokeWidth());
             map.getOverlays().add(polyline);
-            for (MapPoint point : lineDescription.getPoints()) {
-                markers.add(createMarker(map, new MarkerDescription(point, true, CENTER, new MarkerIconDescription(org.odk.collect.icons.R.drawable.ic_map_point))));
-            }
-            update();
+            updateLine();
+            updateMarkers();
         }
 
         @Override
         public boolean ownsMarker(Marker givenMarker) {
-            return markers.contains(givenMarker);
+            return markers.containsValue(givenMarker);
         }
 
         @Override
@@ -940,20 +1006,19 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
 
         @Override
         public void update() {
-            List<GeoPoint> geoPoints = new ArrayList<>();
-            for (Marker marker : markers) {
-                geoPoints.add(marker.getPosition());
-            }
-            if (closedPolygon && !geoPoints.isEmpty()) {
-                geoPoints.add(geoPoints.get(0));
+            for (Map.Entry<Integer, Marker> entry : markers.entrySet()) {
+                MapPoint point = fromMarker(entry.getValue());
+                if (!point.equals(line.getPoints().get(entry.getKey()))) {
+                    line.set(entry.getKey(), point);
+                }
             }
-            polyline.setPoints(geoPoints);
-            map.invalidate();
+
+            updateLine();
         }
 
         @Override
         public void dispose() {
-            for (Marker marker : markers) {
+            for (Marker marker : markers.values()) {
                 map.getOverlays().remove(marker);
             }
             markers.clear();
@@ -962,25 +1027,63 @@ public class OsmDroidMapFragment extends Fragment implements MapFragment,
 
         @Override
         public List<MapPoint> getPoints() {
-            List<MapPoint> points = new ArrayList<>();
-            for (Marker marker : markers) {
-                points.add(fromMarker(marker));
-            }
-            return points;
+            return new ArrayList<>(line.getPoints());
         }
 
         public void addPoint(MapPoint point) {
-            markers.add(createMarker(map, new MarkerDescription(point, true, CENTER, new MarkerIconDescription(org.odk.collect.icons.R.drawable.ic_map_point))));
-            update();
+            if (line.append(point)) {
+                polyline.addPoint(toGeoPoint(point));
+                map.invalidate();
+            } else {
+                updateLine();
+            }
+
+            updateMarkers();
         }
 
         public void removeLastPoint() {
-            if (!markers.isEmpty()) {
-                int last = markers.size() - 1;
-                map.getOverlays().remove(markers.get(last));
-                markers.remove(last);
-                update();
+            if (!line.getPoints().isEmpty()) {
+                line.removeLast();
+                updateLine();
+                updateMarkers();
+            }
+        }
+
+        public void setViewport(@Nullable MapViewport viewport) {
+            line.setViewport(viewport);
+            updateLine();
+            updateMarkers();
+        }
+
+        private void updateLine() {
+            List<GeoPoint> geoPoints = new ArrayList<>();
+            for (MapPoint point : line.getLinePoints()) {
+                geoPoints.add(toGeoPoint(point));
+            }
+            polyline.setPoints(geoPoints);
+            map.invalidate();
+        }
+
+        private void updateMarkers() {
+            Set<Integer> indices = line.getHandleIndices();
+
+            Iterator<Map.Entry<Integer, Marker>> iterator = markers.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Marker> entry = iterator.next();
+                if (!indices.contains(entry.getKey())) {
+                    map.getOverlays().remove(entry.getValue());
+                    iterator.remove();
+                }
+            }
+
+            for (int index : indices) {
+                if (!markers.containsKey(index)) {
+                    MapPoint point = line.getPoints().get(index);
+                    markers.put(index, createMarker(map, new MarkerDescription(point, true, CENTER, new MarkerIconDescription(org.odk.collect.icons.R.drawable.ic_map_point))));
+                }
             }
+
+            map.invalidate();
         }
     }
 
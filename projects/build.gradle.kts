@@ -48,6 +48,7 @@ dependencies {
     implementation(project(":androidshared"))
     implementation(project(":material"))
     implementation(libs.kotlinStdlib)
+    implementation(libs.kotlinxCoroutinesAndroid)
     implementation(libs.androidxAppcompat)
     implementation(libs.androidxCoreKtx)
     implementation(libs.androidxFragmentKtx)
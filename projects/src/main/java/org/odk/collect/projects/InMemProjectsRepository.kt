@@ -1,5 +1,7 @@
 package org.odk.collect.projects
 
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
 import org.odk.collect.shared.strings.UUIDGenerator
 import java.util.function.Supplier
 
@@ -10,6 +12,7 @@ class InMemProjectsRepository(
 
     val projects = mutableListOf<Project.Saved>()
     val timestamps = mutableListOf<Pair<String, Long>>()
+    private val allFlow = MutableStateFlow<List<Project.Saved>>(emptyList())
 
     override fun get(uuid: String) = projects.find { it.uuid == uuid }
 
@@ -17,12 +20,17 @@ class InMemProjectsRepository(
         projects.first { p -> p.uuid == it.first }
     }
 
+    override fun getAllFlow(): StateFlow<List<Project.Saved>> {
+        return allFlow
+    }
+
     override fun save(project: Project): Project.Saved {
         when (project) {
             is Project.New -> {
                 val projectToSave = Project.Saved(uuidGenerator.generateUUID(), project)
                 projects.add(projectToSave)
                 timestamps.add(Pair(projectToSave.uuid, clock.get()))
+                allFlow.value = getAll()
                 return projectToSave
             }
 
@@ -35,6 +43,7 @@ class InMemProjectsRepository(
                     projects[projectIndex] = project
                 }
 
+                allFlow.value = getAll()
                 return project
             }
         }
@@ -43,10 +52,12 @@ class InMemProjectsRepository(
     override fun delete(uuid: String) {
         projects.removeIf { it.uuid == uuid }
         timestamps.removeIf { it.first == uuid }
+        allFlow.value = getAll()
     }
 
     override fun deleteAll() {
         projects.clear()
         timestamps.clear()
+        allFlow.value = emptyList()
     }
 }
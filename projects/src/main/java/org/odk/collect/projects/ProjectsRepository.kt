@@ -1,10 +1,18 @@
 package org.odk.collect.projects
 
+import kotlinx.coroutines.flow.StateFlow
+
 interface ProjectsRepository {
     fun get(uuid: String): Project.Saved?
 
     fun getAll(): List<Project.Saved>
 
+    /**
+     * The same projects as [getAll] that are updated whenever a project is saved or deleted so
+     * that they can be observed rather than polled.
+     */
+    fun getAllFlow(): StateFlow<List<Project.Saved>>
+
     fun save(project: Project): Project.Saved
 
     fun delete(uuid: String)
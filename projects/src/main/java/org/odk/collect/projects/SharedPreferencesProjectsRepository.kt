@@ -2,10 +2,17 @@ package org.odk.collect.projects
 
 import com.google.gson.Gson
 import com.google.gson.reflect.TypeToken.getParameterized
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
 import org.odk.collect.shared.settings.Settings
 import org.odk.collect.shared.strings.UUIDGenerator
 import java.util.function.Supplier
 
+/**
+ * Stores projects as a JSON array in [settings]. The parsed projects are kept in memory and only
+ * parsed again when the stored JSON changes (if it is written without using this repository for
+ * example), so reads are cheap enough to do as often as needed.
+ */
 class SharedPreferencesProjectsRepository @JvmOverloads constructor(
     private val uuidGenerator: UUIDGenerator,
     private val gson: Gson,
@@ -14,23 +21,44 @@ class SharedPreferencesProjectsRepository @JvmOverloads constructor(
     private val clock: Supplier<Long> = Supplier { System.currentTimeMillis() }
 ) : ProjectsRepository {
 
+    private var snapshot: Snapshot? = null
+    private val allFlow = MutableStateFlow<List<Project.Saved>>(emptyList())
+
+    private val settingChangeListener = object : Settings.OnSettingChangeListener {
+        override fun onSettingChanged(key: String) {
+            if (key == this@SharedPreferencesProjectsRepository.key) {
+                getSnapshot()
+            }
+        }
+    }
+
+    init {
+        settings.registerOnSettingChangeListener(settingChangeListener)
+    }
+
     override fun get(uuid: String): Project.Saved? {
-        return getAll().firstOrNull { it.uuid == uuid }
+        return getSnapshot().byUuid[uuid]
     }
 
     override fun getAll(): List<Project.Saved> {
-        return getJsonProjects().sortedBy { it.createdAt }.map(JsonProject::toProject)
+        return getSnapshot().projects
     }
 
+    override fun getAllFlow(): StateFlow<List<Project.Saved>> {
+        getSnapshot()
+        return allFlow
+    }
+
+    @Synchronized
     override fun save(project: Project): Project.Saved {
-        val projects = getJsonProjects().toMutableList()
+        val projects = getSnapshot().jsonProjects.toMutableList()
 
         when (project) {
             is Project.New -> {
                 val projectToSave = project.toJson(uuidGenerator.generateUUID(), clock.get())
                 projects.add(projectToSave)
 
-                settings.save(key, gson.toJson(projects))
+                saveJsonProjects(projects)
                 return projectToSave.toProject()
             }
 
@@ -42,30 +70,65 @@ class SharedPreferencesProjectsRepository @JvmOverloads constructor(
                     projects[projectIndex] = project.toJson(projects[projectIndex].createdAt)
                 }
 
-                settings.save(key, gson.toJson(projects))
+                saveJsonProjects(projects)
                 return project
             }
         }
     }
 
+    @Synchronized
     override fun delete(uuid: String) {
-        val projects = getAll().toMutableList().minus(get(uuid))
-        settings.save(key, gson.toJson(projects))
+        saveJsonProjects(getSnapshot().jsonProjects.filter { it.uuid != uuid })
     }
 
+    @Synchronized
     override fun deleteAll() {
         settings.remove(key)
+        getSnapshot()
+    }
+
+    @Synchronized
+    private fun getSnapshot(): Snapshot {
+        val json = settings.getString(key)
+
+        val currentSnapshot = snapshot
+        if (currentSnapshot != null && currentSnapshot.json == json) {
+            return currentSnapshot
+        }
+
+        return updateSnapshot(json, parseJsonProjects(json))
+    }
+
+    private fun saveJsonProjects(projects: List<JsonProject>) {
+        val json = gson.toJson(projects)
+        settings.save(key, json)
+        updateSnapshot(json, projects)
+    }
+
+    private fun updateSnapshot(json: String?, jsonProjects: List<JsonProject>): Snapshot {
+        val newSnapshot = Snapshot(json, jsonProjects)
+        snapshot = newSnapshot
+        allFlow.value = newSnapshot.projects
+        return newSnapshot
     }
 
-    private fun getJsonProjects(): List<JsonProject> {
-        val projects = settings.getString(key)
-        return if (projects != null && projects.isNotBlank()) {
+    private fun parseJsonProjects(json: String?): List<JsonProject> {
+        return if (json != null && json.isNotBlank()) {
             val typeToken = getParameterized(ArrayList::class.java, JsonProject::class.java)
-            gson.fromJson<ArrayList<JsonProject>>(projects, typeToken.type)
+            gson.fromJson<ArrayList<JsonProject>>(json, typeToken.type)
         } else {
             emptyList()
         }
     }
+
+    /**
+     * The projects parsed from [json]. [jsonProjects] are in stored order while [projects] are
+     * sorted by creation time.
+     */
+    private class Snapshot(val json: String?, val jsonProjects: List<JsonProject>) {
+        val projects = jsonProjects.sortedBy { it.createdAt }.map(JsonProject::toProject)
+        val byUuid = projects.associateBy { it.uuid }
+    }
 }
 
 private data class JsonProject(
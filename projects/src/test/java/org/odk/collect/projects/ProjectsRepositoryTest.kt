@@ -5,6 +5,7 @@ import org.hamcrest.Matchers.`is`
 import org.hamcrest.Matchers.isEmptyString
 import org.hamcrest.Matchers.not
 import org.hamcrest.Matchers.notNullValue
+import org.hamcrest.Matchers.sameInstance
 import org.junit.Before
 import org.junit.Test
 import org.mockito.Mockito.mock
@@ -157,4 +158,33 @@ abstract class ProjectsRepositoryTest {
 
         assertThat(projects.size, `is`(0))
     }
+
+    @Test
+    fun `getAllFlow() is updated when projects are saved or deleted`() {
+        val flow = projectsRepository.getAllFlow()
+        assertThat(flow.value.size, `is`(0))
+
+        val savedX = projectsRepository.save(projectX)
+        val savedY = projectsRepository.save(projectY)
+        assertThat(flow.value, `is`(listOf(savedX, savedY)))
+
+        projectsRepository.save(savedX.copy(name = "ProjectX2"))
+        assertThat(flow.value, `is`(listOf(savedX.copy(name = "ProjectX2"), savedY)))
+
+        projectsRepository.delete(savedY.uuid)
+        assertThat(flow.value, `is`(listOf(savedX.copy(name = "ProjectX2"))))
+
+        projectsRepository.deleteAll()
+        assertThat(flow.value.size, `is`(0))
+    }
+
+    @Test
+    fun `getAllFlow() returns the same flow each time it is called`() {
+        val savedX = projectsRepository.save(projectX)
+        val flow = projectsRepository.getAllFlow()
+        assertThat(flow.value, `is`(listOf(savedX)))
+
+        projectsRepository.save(projectY)
+        assertThat(projectsRepository.getAllFlow(), sameInstance(flow))
+    }
 }
@@ -2,6 +2,10 @@ package org.odk.collect.projects
 
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import com.google.gson.Gson
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
 import org.junit.runner.RunWith
 import org.odk.collect.shared.settings.InMemSettings
 import org.odk.collect.shared.strings.UUIDGenerator
@@ -21,4 +25,19 @@ class SharedPreferencesProjectsRepositoryTest : ProjectsRepositoryTest() {
     override fun buildSubject(clock: Supplier<Long>): ProjectsRepository {
         return SharedPreferencesProjectsRepository(UUIDGenerator(), Gson(), InMemSettings(), "test", clock)
     }
+
+    @Test
+    fun `reads include changes made directly to settings`() {
+        val settings = InMemSettings()
+        val repository = SharedPreferencesProjectsRepository(UUIDGenerator(), Gson(), settings, "test")
+        val project = repository.save(Project.New("ProjectX", "X", "#FF0000"))
+
+        val otherRepository = SharedPreferencesProjectsRepository(UUIDGenerator(), Gson(), settings, "test")
+        otherRepository.save(project.copy(name = "ProjectX2"))
+        assertThat(repository.get(project.uuid)!!.name, equalTo("ProjectX2"))
+
+        settings.remove("test")
+        assertThat(repository.get(project.uuid), nullValue())
+        assertThat(repository.getAll().size, equalTo(0))
+    }
 }
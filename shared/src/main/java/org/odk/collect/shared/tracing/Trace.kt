@@ -0,0 +1,42 @@
+package org.odk.collect.shared.tracing
+
+/**
+ * A record of one run of an operation (like loading a form) for a [subject] (like a form's ID).
+ * [spans] are the named stages of the operation in the order they finished and [counters] are any
+ * quantities that were counted while it ran.
+ */
+data class Trace(
+    val name: String,
+    val subject: String?,
+    val startedAt: Long,
+    val durationMillis: Long,
+    val spans: List<Span>,
+    val counters: Map<String, Long>
+) {
+
+    data class Span(val name: String, val durationMillis: Long)
+
+    /**
+     * Returns the trace as CSV rows (with the columns described by [CSV_HEADER]): one for the whole
+     * trace followed by one for each span and counter.
+     */
+    fun toCsvRows(): List<String> {
+        val prefix = listOf(name, subject ?: "", startedAt.toString()).joinToString(",") { escape(it) }
+
+        return listOf("$prefix,total,,$durationMillis") +
+            spans.map { "$prefix,span,${escape(it.name)},${it.durationMillis}" } +
+            counters.map { "$prefix,counter,${escape(it.key)},${it.value}" }
+    }
+
+    private fun escape(value: String): String {
+        return if (value.contains(',') || value.contains('"') || value.contains('\n')) {
+            "\"" + value.replace("\"", "\"\"") + "\""
+        } else {
+            value
+        }
+    }
+
+    companion object {
+        const val CSV_HEADER = "trace,subject,started_at,type,key,value"
+    }
+}
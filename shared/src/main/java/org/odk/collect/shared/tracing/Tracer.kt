@@ -0,0 +1,147 @@
+package org.odk.collect.shared.tracing
+
+import java.util.ArrayDeque
+import java.util.function.Supplier
+
+/**
+ * Records [Trace]s of how long the stages of operations like loading, saving, sending and
+ * downloading forms take. Only the most recent [capacity] traces are kept (in memory) so that
+ * recording is cheap enough to always be on, and they can be viewed or exported with
+ * [getTraces] and [export].
+ */
+class Tracer @JvmOverloads constructor(
+    private val capacity: Int = DEFAULT_CAPACITY,
+    private val clock: Supplier<Long> = Supplier { System.currentTimeMillis() }
+) {
+
+    private val traces = ArrayDeque<Trace>()
+
+    /**
+     * Starts a trace for [name] (the operation) and [subject] (what it's operating on). The trace
+     * is recorded when [TraceRecorder.finish] is called.
+     */
+    @JvmOverloads
+    fun start(name: String, subject: String? = null): TraceRecorder {
+        return TraceRecorder(name, subject)
+    }
+
+    /**
+     * Returns the recorded traces (optionally only those for [name]) from oldest to newest.
+     */
+    @JvmOverloads
+    @Synchronized
+    fun getTraces(name: String? = null): List<Trace> {
+        return traces.filter { name == null || it.name == name }
+    }
+
+    /**
+     * Returns the recorded traces in CSV format (see [Trace.toCsvRows]).
+     */
+    fun export(): String {
+        return (listOf(Trace.CSV_HEADER) + getTraces().flatMap { it.toCsvRows() }).joinToString("\n")
+    }
+
+    @Synchronized
+    fun clear() {
+        traces.clear()
+    }
+
+    @Synchronized
+    private fun record(trace: Trace) {
+        if (traces.size >= capacity) {
+            traces.pollFirst()
+        }
+
+        traces.addLast(trace)
+    }
+
+    inner class TraceRecorder internal constructor(
+        private val name: String,
+        /**
+         * Can be set after the trace has started for operations that only find out what they're
+         * operating on part way through (like loading a form from an instance).
+         */
+        @Volatile var subject: String?
+    ) {
+
+        private val startedAt = clock.get()
+        private val spans = mutableListOf<Trace.Span>()
+        private val counters = LinkedHashMap<String, Long>()
+        private var finished = false
+
+        fun startSpan(name: String): SpanRecorder {
+            return SpanRecorder(name)
+        }
+
+        inline fun <T> span(name: String, block: () -> T): T {
+            val span = startSpan(name)
+            try {
+                return block()
+            } finally {
+                span.end()
+            }
+        }
+
+        /**
+         * Adds a span for a stage that has already been timed elsewhere.
+         */
+        fun recordSpan(name: String, durationMillis: Long) {
+            addSpan(Trace.Span(name, durationMillis))
+        }
+
+        @JvmOverloads
+        @Synchronized
+        fun count(name: String, amount: Long = 1) {
+            counters[name] = (counters[name] ?: 0) + amount
+        }
+
+        /**
+         * Records the trace. Anything recorded after this (or a second call) is ignored.
+         */
+        @Synchronized
+        fun finish(): Trace {
+            val trace = Trace(
+                name,
+                subject,
+                startedAt,
+                clock.get() - startedAt,
+                spans.toList(),
+                LinkedHashMap(counters)
+            )
+
+            if (!finished) {
+                finished = true
+                record(trace)
+            }
+
+            return trace
+        }
+
+        @Synchronized
+        private fun addSpan(span: Trace.Span) {
+            if (!finished) {
+                spans.add(span)
+            }
+        }
+
+        inner class SpanRecorder internal constructor(private val name: String) {
+
+            private val start = clock.get()
+
+            fun end() {
+                addSpan(Trace.Span(name, clock.get() - start))
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_CAPACITY = 100
+
+        /**
+         * The [Tracer] used for the app's form pipelines so that their traces can be viewed in one
+         * place (the developer tools settings).
+         */
+        @JvmStatic
+        val instance = Tracer()
+    }
+}
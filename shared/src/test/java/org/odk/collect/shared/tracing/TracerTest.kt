@@ -0,0 +1,78 @@
+package org.odk.collect.shared.tracing
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+import java.util.function.Supplier
+
+class TracerTest {
+
+    private var time = 0L
+    private val tracer = Tracer(2, Supplier { time })
+
+    @Test
+    fun `finish records trace with spans and counters`() {
+        val trace = tracer.start("load", "form1")
+        time += 5
+
+        trace.span("parse") {
+            time += 10
+        }
+
+        trace.count("rows", 3)
+        trace.count("rows")
+        trace.finish()
+
+        assertThat(
+            tracer.getTraces(),
+            equalTo(listOf(Trace("load", "form1", 0, 15, listOf(Trace.Span("parse", 10)), mapOf("rows" to 4L))))
+        )
+    }
+
+    @Test
+    fun `recordSpan adds span with the given duration`() {
+        val trace = tracer.start("startup")
+        time += 5
+        trace.recordSpan("upgrade", 20)
+        trace.finish()
+
+        assertThat(
+            tracer.getTraces(),
+            equalTo(listOf(Trace("startup", null, 0, 5, listOf(Trace.Span("upgrade", 20)), emptyMap())))
+        )
+    }
+
+    @Test
+    fun `traces are not recorded until they are finished`() {
+        tracer.start("load")
+        assertThat(tracer.getTraces().size, equalTo(0))
+    }
+
+    @Test
+    fun `only the most recent traces are kept`() {
+        tracer.start("load", "form1").finish()
+        tracer.start("save", "form2").finish()
+        tracer.start("load", "form3").finish()
+
+        assertThat(tracer.getTraces().map { it.subject }, equalTo(listOf("form2", "form3")))
+        assertThat(tracer.getTraces("load").map { it.subject }, equalTo(listOf("form3")))
+    }
+
+    @Test
+    fun `export returns traces as CSV`() {
+        val trace = tracer.start("load", "form, 1")
+        trace.startSpan("parse").end()
+        trace.count("rows", 2)
+        trace.finish()
+
+        assertThat(
+            tracer.export(),
+            equalTo(
+                "trace,subject,started_at,type,key,value\n" +
+                    "load,\"form, 1\",0,total,,0\n" +
+                    "load,\"form, 1\",0,span,parse,0\n" +
+                    "load,\"form, 1\",0,counter,rows,2"
+            )
+        )
+    }
+}
@@ -51,6 +51,9 @@ class FakeScheduler : Scheduler {
     ) {
     }
 
+    override fun chargingDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
+    }
+
     override fun networkDeferredRepeat(
         tag: String,
         taskSpec: TaskSpec,
@@ -83,6 +86,12 @@ class FakeScheduler : Scheduler {
         }
     }
 
+    fun runLastForeground() {
+        if (foregroundTasks.isNotEmpty()) {
+            foregroundTasks.removeLast().run()
+        }
+    }
+
     fun runForeground() {
         while (foregroundTasks.isNotEmpty()) {
             foregroundTasks.remove().run()